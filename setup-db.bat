@@ -42,8 +42,10 @@ echo User: %DB_USERNAME%
 echo Host: %DB_HOST%
 echo Port: %DB_PORT%
 
-REM Run the SQL script with SSL required
+REM Run the SQL scripts with SSL required: the schema for fresh installs, then the migration
+REM that brings tables created by an earlier release up to date (a no-op on fresh installs)
 mysql -h%DB_HOST% -P%DB_PORT% -u%DB_USERNAME% -p%DB_PASSWORD% --ssl-mode=REQUIRED %DB_NAME% < src\main\resources\schema_complete.sql
+if %ERRORLEVEL% EQU 0 mysql -h%DB_HOST% -P%DB_PORT% -u%DB_USERNAME% -p%DB_PASSWORD% --ssl-mode=REQUIRED %DB_NAME% < src\main\resources\schema_migration.sql
 
 if %ERRORLEVEL% EQU 0 (
     echo.
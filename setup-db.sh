@@ -34,8 +34,10 @@ echo "User: $DB_USERNAME"
 echo "Host: $DB_HOST"
 echo "Port: $DB_PORT"
 
-# Run the SQL script with SSL required
-mysql -h$DB_HOST -P$DB_PORT -u$DB_USERNAME -p$DB_PASSWORD --ssl-mode=REQUIRED $DB_NAME < src/main/resources/schema_complete.sql
+# Run the SQL scripts with SSL required: the schema for fresh installs, then the migration
+# that brings tables created by an earlier release up to date (a no-op on fresh installs)
+mysql -h$DB_HOST -P$DB_PORT -u$DB_USERNAME -p$DB_PASSWORD --ssl-mode=REQUIRED $DB_NAME < src/main/resources/schema_complete.sql \
+    && mysql -h$DB_HOST -P$DB_PORT -u$DB_USERNAME -p$DB_PASSWORD --ssl-mode=REQUIRED $DB_NAME < src/main/resources/schema_migration.sql
 
 if [ $? -eq 0 ]; then
     echo ""
@@ -0,0 +1,135 @@
+package com.example.portal.benchmark;
+
+import com.example.portal.model.AppointmentFact;
+import com.example.portal.model.ServiceAppointment;
+import com.example.portal.model.ServiceOutlet;
+import com.example.portal.model.ServiceType;
+import com.example.portal.model.Staff;
+import com.example.portal.model.TimeSlot;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic entities for the benchmarks, the same for the same seed so runs stay comparable
+ */
+final class BenchmarkData {
+
+    static final long SEED = 42;
+    static final String[] STATUSES = {"PENDING", "SCHEDULED", "IN_PROGRESS", "COMPLETED", "CANCELLED"};
+    private static final String[] CATEGORIES = {"Maintenance", "Repair", "Inspection", "Detailing"};
+
+    private BenchmarkData() {
+    }
+
+    static List<ServiceType> services(int count) {
+        Random random = new Random(SEED);
+        List<ServiceType> services = new ArrayList<>();
+        for (int id = 1; id <= count; id++) {
+            ServiceType service = new ServiceType();
+            service.setServiceId(id);
+            service.setServiceType("Service " + id);
+            service.setServiceCategory(CATEGORIES[id % CATEGORIES.length]);
+            service.setServicePrice(50.0 + random.nextInt(450));
+            service.setServiceDuration(30 + 15 * random.nextInt(8));
+            services.add(service);
+        }
+        return services;
+    }
+
+    static List<ServiceOutlet> outlets(int count) {
+        List<ServiceOutlet> outlets = new ArrayList<>();
+        for (int id = 1; id <= count; id++) {
+            ServiceOutlet outlet = new ServiceOutlet();
+            outlet.setOutletId(id);
+            outlet.setOutletName("Outlet " + id);
+            outlets.add(outlet);
+        }
+        return outlets;
+    }
+
+    /**
+     * Staff of one outlet, plus the unassigned placeholder the portal books pending appointments to
+     */
+    static List<Staff> staff(int outletId, int count) {
+        List<Staff> staff = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            Staff member = new Staff();
+            member.setStaffId(outletId * 1000 + i);
+            member.setStaffName("Staff " + outletId + "-" + i);
+            member.setStaffRole("Mechanic");
+            member.setOutletId(outletId);
+            staff.add(member);
+        }
+        Staff unassigned = new Staff();
+        unassigned.setStaffId(9999);
+        unassigned.setStaffName("Unassigned");
+        unassigned.setOutletId(outletId);
+        staff.add(unassigned);
+        return staff;
+    }
+
+    /**
+     * Appointments of one outlet day during business hours, with the usual status mix
+     */
+    static List<ServiceAppointment> outletDay(int outletId, LocalDate date, List<Staff> staff, int count) {
+        Random random = new Random(SEED);
+        List<ServiceAppointment> appointments = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String status = STATUSES[random.nextInt(STATUSES.length)];
+            Staff assignee = "PENDING".equals(status) ? staff.get(staff.size() - 1) : staff.get(random.nextInt(staff.size() - 1));
+
+            TimeSlot slot = new TimeSlot();
+            slot.setTimeId(i + 1);
+            slot.setTimeYear((short) date.getYear());
+            slot.setTimeMonth((short) date.getMonthValue());
+            slot.setTimeDay((short) date.getDayOfMonth());
+            slot.setTimeClocktime(LocalTime.of(9 + random.nextInt(8), 15 * random.nextInt(4)));
+
+            ServiceAppointment appointment = new ServiceAppointment();
+            appointment.setAppointmentId(i + 1);
+            appointment.setOutletId(outletId);
+            appointment.setServiceId(1 + random.nextInt(20));
+            appointment.setStaffId(assignee.getStaffId());
+            appointment.setAppointmentStatus(status);
+            appointment.setAppointmentDuration(30 + 15 * random.nextInt(8));
+            appointment.setTimeId(slot.getTimeId());
+            appointment.setTimeSlot(slot);
+            appointments.add(appointment);
+        }
+        return appointments;
+    }
+
+    /**
+     * Report rows spread over a year of days, the given outlets and their staff
+     */
+    static List<AppointmentFact> facts(int count, int outlets, int services, int staffPerOutlet) {
+        Random random = new Random(SEED);
+        LocalDate firstDay = LocalDate.of(2024, 1, 1);
+        List<AppointmentFact> facts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDate day = firstDay.plusDays(random.nextInt(366));
+            int outletId = 1 + random.nextInt(outlets);
+
+            AppointmentFact fact = new AppointmentFact();
+            fact.setAppointmentId(i + 1);
+            fact.setCustId(1 + random.nextInt(Math.max(1, count / 4)));
+            fact.setOutletId(outletId);
+            fact.setServiceId(1 + random.nextInt(services));
+            fact.setStaffId(outletId * 1000 + 1 + random.nextInt(staffPerOutlet));
+            fact.setAppointmentStatus(STATUSES[random.nextInt(STATUSES.length)]);
+            fact.setAppointmentCost(BigDecimal.valueOf(5000 + random.nextInt(45000), 2));
+            fact.setAppointmentDuration(30 + 15 * random.nextInt(8));
+            fact.setTimeYear((short) day.getYear());
+            fact.setTimeMonth((short) day.getMonthValue());
+            fact.setTimeDay((short) day.getDayOfMonth());
+            fact.setTimeClocktime(LocalTime.of(9 + random.nextInt(8), 0));
+            facts.add(fact);
+        }
+        return facts;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.portal.benchmark;
+
+import com.example.portal.model.ServiceAppointment;
+import com.example.portal.model.TimeSlot;
+import com.example.portal.repository.ServiceAppointmentMapper;
+import com.example.portal.repository.StaffMapper;
+import com.example.portal.service.AppointmentBulkService;
+import com.example.portal.service.BookingSequencer;
+import com.example.portal.service.LocalSlotHoldStore;
+import com.example.portal.service.StaffAssignmentEngine;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bookings submitted to the booking sequencer by more and more threads, all to one outlet or
+ * spread over several, each thread waiting for its outcome like a request does. The group commit
+ * takes a fixed commitMicros per drain, standing in for the database round trip it amortizes.
+ * Every iteration starts with empty schedules, and bookings walk the slots of ten years of days
+ * so that almost all of them are accepted.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookingSequencerBenchmark {
+
+    private static final int STAFF_PER_OUTLET = 20;
+    private static final int DAYS = 3650;
+    private static final int HOURS = 8;
+
+    @Param({"1", "16"})
+    public int outlets;
+
+    @Param({"100"})
+    public int commitMicros;
+
+    private BookingSequencer sequencer;
+    private TimeSlot[] slots;
+    private final AtomicLong bookings = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUpSlots() {
+        LocalDate first = LocalDate.now().plusDays(1);
+        slots = new TimeSlot[DAYS * HOURS];
+        for (int i = 0; i < slots.length; i++) {
+            LocalDate date = first.plusDays(i / HOURS);
+            TimeSlot slot = new TimeSlot();
+            slot.setTimeId(i + 1);
+            slot.setTimeYear((short) date.getYear());
+            slot.setTimeMonth((short) date.getMonthValue());
+            slot.setTimeDay((short) date.getDayOfMonth());
+            slot.setTimeClocktime(LocalTime.of(9 + i % HOURS, 0));
+            slots[i] = slot;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpSequencer() {
+        ServiceAppointmentMapper appointmentMapper = MapperStubs.of(ServiceAppointmentMapper.class,
+                Map.of("findScheduleByOutletIdAndDate", Collections.<ServiceAppointment>emptyList()));
+        StaffMapper staffMapper = MapperStubs.of(StaffMapper.class,
+                Map.of("findByOutletId", BenchmarkData.staff(1, STAFF_PER_OUTLET)));
+        sequencer = new BookingSequencer(appointmentMapper, staffMapper, new TimedCommits(commitMicros),
+                new StaffAssignmentEngine(), new LocalSlotHoldStore(), 4, 64);
+        bookings.set(0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        sequencer.shutdown();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public BookingSequencer.Outcome book1Thread() {
+        return book();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public BookingSequencer.Outcome book4Threads() {
+        return book();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public BookingSequencer.Outcome book16Threads() {
+        return book();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public BookingSequencer.Outcome book64Threads() {
+        return book();
+    }
+
+    private BookingSequencer.Outcome book() {
+        long n = bookings.getAndIncrement();
+        ServiceAppointment appointment = new ServiceAppointment();
+        appointment.setOutletId(1 + (int) (n % outlets));
+        appointment.setCustId(1);
+        appointment.setServiceId(1);
+        appointment.setStaffId(9999);
+        appointment.setAppointmentStatus("PENDING");
+        appointment.setAppointmentDuration(60);
+        TimeSlot slot = slots[(int) (n / outlets % slots.length)];
+        appointment.setTimeId(slot.getTimeId());
+        return sequencer.submitBooking(appointment, slot, null).join();
+    }
+
+    /**
+     * Group commits that hand out IDs after a fixed delay instead of writing to a database
+     */
+    private static class TimedCommits extends AppointmentBulkService {
+        private final long commitNanos;
+        private final AtomicInteger nextId = new AtomicInteger();
+
+        TimedCommits(int commitMicros) {
+            super(new DefaultSqlSessionFactory(new Configuration(
+                    new Environment("benchmark", new JdbcTransactionFactory(), new SimpleDriverDataSource()))));
+            this.commitNanos = TimeUnit.MICROSECONDS.toNanos(commitMicros);
+        }
+
+        @Override
+        public void persist(List<ServiceAppointment> inserts, List<ServiceAppointment> updates) {
+            for (ServiceAppointment appointment : inserts) {
+                appointment.setAppointmentId(nextId.incrementAndGet());
+            }
+            if (commitNanos > 0) {
+                LockSupport.parkNanos(commitNanos);
+            }
+        }
+    }
+}
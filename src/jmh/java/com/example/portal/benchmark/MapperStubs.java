@@ -0,0 +1,44 @@
+package com.example.portal.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+
+/**
+ * Mapper interfaces answering fixed results by method name, so services can be benchmarked
+ * without a database. A default method without an answer runs its body against the stub,
+ * like the real mapper proxy would; any other unanswered call fails.
+ */
+final class MapperStubs {
+
+    private MapperStubs() {
+    }
+
+    static <T> T of(Class<T> mapperType, Map<String, Object> answers) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (answers.containsKey(method.getName())) {
+                return answers.get(method.getName());
+            }
+            if (method.isDefault()) {
+                return InvocationHandler.invokeDefault(proxy, method, args);
+            }
+            if (method.getDeclaringClass() == Object.class) {
+                return objectMethod(proxy, method, args, mapperType);
+            }
+            throw new UnsupportedOperationException(mapperType.getSimpleName() + "." + method.getName() + " is not stubbed");
+        };
+        return mapperType.cast(Proxy.newProxyInstance(mapperType.getClassLoader(), new Class<?>[]{mapperType}, handler));
+    }
+
+    private static Object objectMethod(Object proxy, Method method, Object[] args, Class<?> mapperType) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return mapperType.getSimpleName() + " stub";
+        }
+    }
+}
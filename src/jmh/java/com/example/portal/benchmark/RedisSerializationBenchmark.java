@@ -0,0 +1,91 @@
+package com.example.portal.benchmark;
+
+import com.example.portal.config.RedisConfig;
+import com.example.portal.model.Notification;
+import com.example.portal.model.ServiceAppointment;
+import com.example.portal.model.ServiceType;
+import com.example.portal.model.Staff;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis values written and read with the redisObjectMapper, through the same JSON serializer
+ * as the RedisTemplate and the cache manager: a notification and a list of services as cached
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RedisSerializationBenchmark {
+
+    private GenericJackson2JsonRedisSerializer serializer;
+    private Notification notification;
+    private List<ServiceType> services;
+    private ServiceAppointment appointment;
+    private byte[] notificationBytes;
+    private byte[] servicesBytes;
+    private byte[] appointmentBytes;
+
+    @Setup
+    public void setUp() {
+        serializer = new GenericJackson2JsonRedisSerializer(new RedisConfig().redisObjectMapper());
+
+        notification = new Notification();
+        notification.setNotificationId(1234);
+        notification.setUserId(42);
+        notification.setUserType("customer");
+        notification.setTitle("Appointment Confirmed");
+        notification.setMessage("Your appointment for Service 1 on 2025-3-14 at 10:00 has been confirmed.");
+        notification.setType("appointment");
+        notification.setCreatedAt(LocalDateTime.of(2025, 3, 10, 9, 30));
+        notification.setLink("/customer/appointments/1234");
+
+        services = BenchmarkData.services(20);
+
+        List<Staff> staff = BenchmarkData.staff(1, 3);
+        appointment = BenchmarkData.outletDay(1, LocalDate.of(2025, 3, 14), staff, 1).get(0);
+        appointment.setService(services.get(0));
+        appointment.setStaff(staff.get(0));
+
+        notificationBytes = serializer.serialize(notification);
+        servicesBytes = serializer.serialize(services);
+        appointmentBytes = serializer.serialize(appointment);
+    }
+
+    @Benchmark
+    public byte[] serializeNotification() {
+        return serializer.serialize(notification);
+    }
+
+    @Benchmark
+    public Object deserializeNotification() {
+        return serializer.deserialize(notificationBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeServiceList() {
+        return serializer.serialize(services);
+    }
+
+    @Benchmark
+    public Object deserializeServiceList() {
+        return serializer.deserialize(servicesBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeAppointment() {
+        return serializer.serialize(appointment);
+    }
+
+    @Benchmark
+    public Object deserializeAppointment() {
+        return serializer.deserialize(appointmentBytes);
+    }
+}
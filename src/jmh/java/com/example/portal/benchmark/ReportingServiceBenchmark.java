@@ -0,0 +1,117 @@
+package com.example.portal.benchmark;
+
+import com.example.portal.model.AppointmentFact;
+import com.example.portal.model.Staff;
+import com.example.portal.repository.ServiceAppointmentMapper;
+import com.example.portal.repository.ServiceMapper;
+import com.example.portal.repository.ServiceOutletMapper;
+import com.example.portal.repository.StaffMapper;
+import com.example.portal.service.AppointmentFactStore;
+import com.example.portal.service.DistinctVisitorCounter;
+import com.example.portal.service.ReportAccumulator;
+import com.example.portal.service.ReportingService;
+import com.example.portal.service.ServiceDurationStats;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Report aggregations over synthetic appointments. The service benchmarks run the path taken
+ * while the fact store is still loading: flat facts from the mapper, counted per outlet in
+ * parallel. The scan benchmark counts the same rows from primitive columns on one thread, as
+ * each chunk of a fact store scan does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReportingServiceBenchmark {
+
+    private static final int OUTLETS = 20;
+    private static final int SERVICES = 40;
+    private static final int STAFF_PER_OUTLET = 12;
+
+    @Param({"10000", "200000", "1000000"})
+    public int appointments;
+
+    private ReportingService reportingService;
+
+    private int[] epochDays;
+    private int[] minutesOfDay;
+    private int[] serviceIds;
+    private int[] staffIds;
+    private int[] outletIds;
+    private byte[] statuses;
+    private long[] costCents;
+
+    @Setup
+    public void setUp() {
+        List<AppointmentFact> facts = BenchmarkData.facts(appointments, OUTLETS, SERVICES, STAFF_PER_OUTLET);
+        List<Staff> staff = new ArrayList<>();
+        for (int outletId = 1; outletId <= OUTLETS; outletId++) {
+            staff.addAll(BenchmarkData.staff(outletId, STAFF_PER_OUTLET));
+        }
+
+        ServiceAppointmentMapper appointmentMapper = MapperStubs.of(ServiceAppointmentMapper.class, Map.of("findAllFacts", facts));
+        ServiceMapper serviceMapper = MapperStubs.of(ServiceMapper.class, Map.of("findAll", BenchmarkData.services(SERVICES)));
+        StaffMapper staffMapper = MapperStubs.of(StaffMapper.class, Map.of("findAll", staff));
+        ServiceOutletMapper outletMapper = MapperStubs.of(ServiceOutletMapper.class, Map.of("findAll", BenchmarkData.outlets(OUTLETS)));
+
+        AppointmentFactStore unloadedFactStore = new AppointmentFactStore(null, false, 0);
+        reportingService = new ReportingService(appointmentMapper, serviceMapper, staffMapper, outletMapper, unloadedFactStore,
+                new DistinctVisitorCounter(null, null, false), new ServiceDurationStats(null, 20, 0.5), null);
+
+        epochDays = new int[appointments];
+        minutesOfDay = new int[appointments];
+        serviceIds = new int[appointments];
+        staffIds = new int[appointments];
+        outletIds = new int[appointments];
+        statuses = new byte[appointments];
+        costCents = new long[appointments];
+        for (int i = 0; i < appointments; i++) {
+            AppointmentFact fact = facts.get(i);
+            epochDays[i] = AppointmentFactStore.epochDay(fact.getTimeYear(), fact.getTimeMonth(), fact.getTimeDay());
+            minutesOfDay[i] = fact.getTimeClocktime().toSecondOfDay() / 60;
+            serviceIds[i] = fact.getServiceId();
+            staffIds[i] = fact.getStaffId();
+            outletIds[i] = fact.getOutletId();
+            statuses[i] = AppointmentFactStore.statusCode(fact.getAppointmentStatus());
+            costCents[i] = fact.getAppointmentCost().movePointRight(2).longValueExact();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        reportingService.shutdown();
+    }
+
+    @Benchmark
+    public Object combinedReport() {
+        return reportingService.getReport("combined", null, null, null);
+    }
+
+    @Benchmark
+    public Object revenueReportOneQuarter() {
+        return reportingService.getReport("revenue", LocalDate.of(2024, 4, 1), LocalDate.of(2024, 6, 30), null);
+    }
+
+    @Benchmark
+    public Object popularServicesOneOutlet() {
+        return reportingService.getReport("popular-services", null, null, 1);
+    }
+
+    @Benchmark
+    public ReportAccumulator accumulatorScan() {
+        ReportAccumulator accumulator = new ReportAccumulator();
+        for (int i = 0; i < epochDays.length; i++) {
+            accumulator.add(epochDays[i], minutesOfDay[i], serviceIds[i], staffIds[i], outletIds[i], statuses[i], costCents[i]);
+        }
+        return accumulator;
+    }
+}
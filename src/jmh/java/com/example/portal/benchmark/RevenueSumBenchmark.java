@@ -0,0 +1,65 @@
+package com.example.portal.benchmark;
+
+import com.example.portal.service.LongSumMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Revenue per month and service summed as exact cents in a {@link LongSumMap}, as the reports
+ * do, against summing double amounts into a HashMap under month and service strings
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RevenueSumBenchmark {
+
+    @Param({"100000"})
+    public int appointments;
+
+    private int[] years;
+    private int[] months;
+    private int[] serviceIds;
+    private long[] costCents;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(BenchmarkData.SEED);
+        years = new int[appointments];
+        months = new int[appointments];
+        serviceIds = new int[appointments];
+        costCents = new long[appointments];
+        for (int i = 0; i < appointments; i++) {
+            years[i] = 2023 + random.nextInt(3);
+            months[i] = 1 + random.nextInt(12);
+            serviceIds[i] = 1 + random.nextInt(40);
+            costCents[i] = 5000 + random.nextInt(45000);
+        }
+    }
+
+    @Benchmark
+    public LongSumMap longCents() {
+        LongSumMap revenue = new LongSumMap();
+        for (int i = 0; i < years.length; i++) {
+            long month = years[i] * 12L + months[i] - 1;
+            revenue.add(month << 32 | serviceIds[i], costCents[i]);
+        }
+        return revenue;
+    }
+
+    @Benchmark
+    public Map<String, Double> stringKeysDoubleAmounts() {
+        Map<String, Double> revenue = new HashMap<>();
+        for (int i = 0; i < years.length; i++) {
+            String key = years[i] + "-" + months[i] + ":" + serviceIds[i];
+            revenue.merge(key, costCents[i] / 100.0, Double::sum);
+        }
+        return revenue;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.portal.benchmark;
+
+import com.example.portal.interceptor.RoleBasedAccessInterceptor;
+import com.example.portal.model.Staff;
+import com.example.portal.repository.CustomerMapper;
+import com.example.portal.repository.StaffMapper;
+import com.example.portal.service.AuthService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Access checks of the role interceptor: a path matched by the first public prefix, one matched
+ * by the last, and a staff path that looks up the signed-in staff member
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RoleBasedAccessInterceptorBenchmark {
+
+    @Param({"/api/auth/login", "/api/reports/popular-services", "/api/staff/admin/queries"})
+    public String path;
+
+    private RoleBasedAccessInterceptor interceptor;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        Staff staff = BenchmarkData.staff(1, 1).get(0);
+        AuthService authService = new AuthService(
+                MapperStubs.of(CustomerMapper.class, Map.of()),
+                MapperStubs.of(StaffMapper.class, Map.of("findByName", staff)));
+        interceptor = new RoleBasedAccessInterceptor(authService);
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                staff.getStaffName(), null, List.of(new SimpleGrantedAuthority("ROLE_STAFF"))));
+        request = new MockHttpServletRequest("GET", path);
+        response = new MockHttpServletResponse();
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public boolean preHandle() throws Exception {
+        return interceptor.preHandle(request, response, null);
+    }
+}
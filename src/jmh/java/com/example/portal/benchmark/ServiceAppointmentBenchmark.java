@@ -0,0 +1,53 @@
+package com.example.portal.benchmark;
+
+import com.example.portal.model.ServiceAppointment;
+import com.example.portal.model.ServiceType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ServiceAppointment#getServiceTypeSafe()} for a service that is already a ServiceType and
+ * for one deserialized as a map, as it comes back from the Redis caches
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServiceAppointmentBenchmark {
+
+    private ServiceAppointment typed;
+    private ServiceAppointment fromMap;
+
+    @Setup
+    public void setUp() {
+        ServiceType service = BenchmarkData.services(1).get(0);
+        service.setServiceDesc("Oil and filter change");
+        typed = new ServiceAppointment();
+        typed.setService(service);
+
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("serviceId", service.getServiceId());
+        map.put("serviceType", service.getServiceType());
+        map.put("serviceDesc", service.getServiceDesc());
+        map.put("serviceCategory", service.getServiceCategory());
+        map.put("servicePrice", service.getServicePrice());
+        map.put("serviceDuration", service.getServiceDuration());
+        fromMap = new ServiceAppointment();
+        fromMap.setService(map);
+    }
+
+    @Benchmark
+    public ServiceType serviceTypeSafeTyped() {
+        return typed.getServiceTypeSafe();
+    }
+
+    @Benchmark
+    public ServiceType serviceTypeSafeFromMap() {
+        return fromMap.getServiceTypeSafe();
+    }
+}
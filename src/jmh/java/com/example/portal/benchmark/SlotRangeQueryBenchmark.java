@@ -0,0 +1,195 @@
+package com.example.portal.benchmark;
+
+import com.example.portal.model.ServiceAppointment;
+import com.example.portal.model.TimeSlot;
+import com.example.portal.repository.CustomerMapper;
+import com.example.portal.repository.ServiceAppointmentMapper;
+import com.example.portal.repository.ServiceMapper;
+import com.example.portal.repository.ServiceOutletMapper;
+import com.example.portal.repository.StaffMapper;
+import com.example.portal.repository.TimeSlotMapper;
+import com.example.portal.repository.VehicleMapper;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionFactoryBean;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The mappers' slot_start range queries against a real MySQL database, meant for the ten million
+ * appointments of the datagen profile (see "Synthetic Data" in the README). Connects with the
+ * DB_HOST, DB_PORT, DB_NAME, DB_USERNAME and DB_PASSWORD variables the application uses, and is
+ * left out of the default benchmark run because it needs that database. Every call takes the next
+ * of a fixed set of outlets, staff and days drawn from the loaded data, so it is not served from
+ * one hot range of the buffer pool.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SlotRangeQueryBenchmark {
+
+    private static final int SAMPLES = 1024;
+    private static final int DAY_BOOK_DAYS = 30;
+
+    private HikariDataSource dataSource;
+    private ServiceAppointmentMapper appointmentMapper;
+    private TimeSlotMapper timeSlotMapper;
+
+    private final int[] outletIds = new int[SAMPLES];
+    private final int[] staffIds = new int[SAMPLES];
+    private final LocalDate[] dates = new LocalDate[SAMPLES];
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:mysql://" + env("DB_HOST", "localhost") + ":" + env("DB_PORT", "3306") + "/"
+                + env("DB_NAME", "portal_db") + "?allowPublicKeyRetrieval=true&useSSL=true&sslMode=REQUIRED");
+        config.setUsername(env("DB_USERNAME", "root"));
+        config.setPassword(env("DB_PASSWORD", ""));
+        config.setMaximumPoolSize(2);
+        dataSource = new HikariDataSource(config);
+
+        // The same MyBatis setup as the application's mybatis section in application.yml
+        Configuration configuration = new Configuration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        SqlSessionFactoryBean factoryBean = new SqlSessionFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setConfiguration(configuration);
+        factoryBean.setTypeAliasesPackage("com.example.portal.model");
+        factoryBean.setMapperLocations(new PathMatchingResourcePatternResolver().getResources("classpath:mapper/*.xml"));
+        SqlSessionFactory sessionFactory = factoryBean.getObject();
+        for (Class<?> mapper : List.of(ServiceAppointmentMapper.class, TimeSlotMapper.class, CustomerMapper.class,
+                ServiceMapper.class, ServiceOutletMapper.class, VehicleMapper.class, StaffMapper.class)) {
+            if (!sessionFactory.getConfiguration().hasMapper(mapper)) {
+                sessionFactory.getConfiguration().addMapper(mapper);
+            }
+        }
+        SqlSessionTemplate session = new SqlSessionTemplate(sessionFactory);
+        appointmentMapper = session.getMapper(ServiceAppointmentMapper.class);
+        timeSlotMapper = session.getMapper(TimeSlotMapper.class);
+
+        sampleInputs();
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public List<TimeSlot> timeSlotsOfDay() {
+        LocalDate date = dates[next()];
+        return timeSlotMapper.findByDate((short) date.getYear(), (short) date.getMonthValue(), (short) date.getDayOfMonth());
+    }
+
+    @Benchmark
+    public List<ServiceAppointment> outletScheduleOfDay() {
+        int i = next();
+        LocalDate date = dates[i];
+        return appointmentMapper.findScheduleByOutletIdAndDate(outletIds[i],
+                (short) date.getYear(), (short) date.getMonthValue(), (short) date.getDayOfMonth());
+    }
+
+    @Benchmark
+    public List<ServiceAppointment> outletPendingOfDay() {
+        int i = next();
+        LocalDate date = dates[i];
+        return appointmentMapper.findByOutletIdDateAndStatus(outletIds[i],
+                (short) date.getYear(), (short) date.getMonthValue(), (short) date.getDayOfMonth(), "PENDING");
+    }
+
+    @Benchmark
+    public List<ServiceAppointment> outletDayWithDetails() {
+        int i = next();
+        LocalDate date = dates[i];
+        return appointmentMapper.findByOutletIdAndDate(outletIds[i],
+                (short) date.getYear(), (short) date.getMonthValue(), (short) date.getDayOfMonth());
+    }
+
+    @Benchmark
+    public List<ServiceAppointment> staffDayWithDetails() {
+        int i = next();
+        LocalDate date = dates[i];
+        return appointmentMapper.findByStaffIdAndDateWithDetails(staffIds[i],
+                (short) date.getYear(), (short) date.getMonthValue(), (short) date.getDayOfMonth());
+    }
+
+    @Benchmark
+    public List<ServiceAppointment> dayBookStateOf30Days() {
+        LocalDate from = dates[next()];
+        return appointmentMapper.findStateByDateRange(dateKey(from), dateKey(from.plusDays(DAY_BOOK_DAYS - 1)));
+    }
+
+    private int next() {
+        next = (next + 1) % SAMPLES;
+        return next;
+    }
+
+    /**
+     * Draw outlets, staff and days from the loaded data
+     */
+    private void sampleInputs() throws SQLException {
+        List<Integer> outlets = new ArrayList<>();
+        List<Integer> staff = new ArrayList<>();
+        LocalDate first;
+        LocalDate last;
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            try (ResultSet rows = statement.executeQuery("SELECT DISTINCT outlet_id FROM STAFF WHERE staff_id <> 9999")) {
+                while (rows.next()) {
+                    outlets.add(rows.getInt(1));
+                }
+            }
+            try (ResultSet rows = statement.executeQuery("SELECT staff_id FROM STAFF WHERE staff_id <> 9999")) {
+                while (rows.next()) {
+                    staff.add(rows.getInt(1));
+                }
+            }
+            try (ResultSet rows = statement.executeQuery("SELECT MIN(slot_start), MAX(slot_start) FROM TIME")) {
+                rows.next();
+                LocalDateTime min = rows.getObject(1, LocalDateTime.class);
+                LocalDateTime max = rows.getObject(2, LocalDateTime.class);
+                first = min != null ? min.toLocalDate() : null;
+                last = max != null ? max.toLocalDate() : null;
+            }
+        }
+        if (outlets.isEmpty() || first == null) {
+            throw new IllegalStateException("No staff or time slots in the database; load data with the datagen profile first");
+        }
+
+        Random random = new Random(BenchmarkData.SEED);
+        int days = (int) ChronoUnit.DAYS.between(first, last) + 1;
+        for (int i = 0; i < SAMPLES; i++) {
+            outletIds[i] = outlets.get(random.nextInt(outlets.size()));
+            staffIds[i] = staff.get(random.nextInt(staff.size()));
+            dates[i] = first.plusDays(random.nextInt(days));
+        }
+    }
+
+    private static int dateKey(LocalDate date) {
+        return date.getYear() * 10000 + date.getMonthValue() * 100 + date.getDayOfMonth();
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null && !value.isEmpty() ? value : defaultValue;
+    }
+}
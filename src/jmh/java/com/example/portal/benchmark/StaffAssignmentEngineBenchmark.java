@@ -0,0 +1,90 @@
+package com.example.portal.benchmark;
+
+import com.example.portal.service.OutletDaySchedule;
+import com.example.portal.service.StaffAssignmentEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Auto-assignment of an outlet day's pending appointments to its staff, in time order as the
+ * auto-assign endpoint submits them: each pick is followed by recording the confirmed entry.
+ * Appointments of 15 to 30 minutes start on the quarter hour during business hours, enough to
+ * fill most of the staff's day. The single pick runs against the day once everything is assigned.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StaffAssignmentEngineBenchmark {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 3, 14);
+    private static final int OPENING_MINUTE = 9 * 60;
+    private static final int QUARTERS_PER_DAY = 32;
+
+    @Param({"1000"})
+    public int pending;
+
+    @Param({"50"})
+    public int staff;
+
+    private final StaffAssignmentEngine engine = new StaffAssignmentEngine();
+    private List<Integer> staffIds;
+    private List<OutletDaySchedule.Entry> pendingEntries;
+    private OutletDaySchedule assignedDay;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(BenchmarkData.SEED);
+        staffIds = new ArrayList<>();
+        for (int i = 1; i <= staff; i++) {
+            staffIds.add(1000 + i);
+        }
+
+        pendingEntries = new ArrayList<>(pending);
+        for (int i = 0; i < pending; i++) {
+            int start = OPENING_MINUTE + 15 * random.nextInt(QUARTERS_PER_DAY);
+            int end = start + (random.nextBoolean() ? 15 : 30);
+            pendingEntries.add(new OutletDaySchedule.Entry(i + 1, OutletDaySchedule.UNASSIGNED_STAFF_ID, "PENDING", start, end));
+        }
+        pendingEntries.sort(Comparator.comparingInt(OutletDaySchedule.Entry::getStart));
+
+        assignedDay = new OutletDaySchedule(DATE, staffIds);
+        assign(assignedDay);
+    }
+
+    @Benchmark
+    public int assignAllPending() {
+        return assign(new OutletDaySchedule(DATE, staffIds));
+    }
+
+    @Benchmark
+    public Integer pickStaffOnAssignedDay() {
+        return engine.pickStaff(assignedDay, OPENING_MINUTE + 240, OPENING_MINUTE + 270, null);
+    }
+
+    /**
+     * @return the number of appointments a staff member was found for
+     */
+    private int assign(OutletDaySchedule day) {
+        for (OutletDaySchedule.Entry entry : pendingEntries) {
+            day.put(entry);
+        }
+        int assigned = 0;
+        for (OutletDaySchedule.Entry entry : pendingEntries) {
+            Integer staffId = engine.pickStaff(day, entry.getStart(), entry.getEnd(), entry.getAppointmentId());
+            if (staffId != null) {
+                day.put(new OutletDaySchedule.Entry(entry.getAppointmentId(), staffId, "SCHEDULED", entry.getStart(), entry.getEnd()));
+                assigned++;
+            }
+        }
+        return assigned;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.portal.benchmark;
+
+import com.example.portal.model.ServiceAppointment;
+import com.example.portal.model.Staff;
+import com.example.portal.model.TimeSlot;
+import com.example.portal.repository.ServiceAppointmentMapper;
+import com.example.portal.repository.StaffMapper;
+import com.example.portal.repository.TimeSlotMapper;
+import com.example.portal.service.AppointmentDayBook;
+import com.example.portal.service.LocalSlotHoldStore;
+import com.example.portal.service.ServiceDurationStats;
+import com.example.portal.service.StaffScheduleIndex;
+import com.example.portal.service.TimeSlotService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Availability of one outlet day, with the day's staff and appointments served from memory
+ * as the day book would. The warm case finds the staff schedules indexed already, as within
+ * the index TTL; the cold case builds them from the day's appointments first.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimeSlotServiceBenchmark {
+
+    private static final int OUTLET_ID = 1;
+    private static final LocalDate DATE = LocalDate.of(2025, 3, 14);
+
+    @Param({"5", "50"})
+    public int staff;
+
+    @Param({"20", "400"})
+    public int appointments;
+
+    private TimeSlotService timeSlotService;
+    private StaffScheduleIndex scheduleIndex;
+
+    @Setup
+    public void setUp() {
+        List<Staff> outletStaff = BenchmarkData.staff(OUTLET_ID, staff);
+        List<ServiceAppointment> day = BenchmarkData.outletDay(OUTLET_ID, DATE, outletStaff, appointments);
+
+        StaffMapper staffMapper = MapperStubs.of(StaffMapper.class, Map.of("findByOutletId", outletStaff));
+        ServiceAppointmentMapper appointmentMapper = MapperStubs.of(ServiceAppointmentMapper.class,
+                Map.of("findByOutletIdAndDate", day));
+        TimeSlotMapper timeSlotMapper = MapperStubs.of(TimeSlotMapper.class,
+                Map.of("findByDateAndTime", Collections.<TimeSlot>emptyList()));
+
+        LocalSlotHoldStore holds = new LocalSlotHoldStore();
+        holds.tryHold("benchmark-hold", OUTLET_ID, DATE, LocalTime.of(10, 0), staff, Duration.ofHours(1));
+
+        scheduleIndex = new StaffScheduleIndex(appointmentMapper, 300);
+        AppointmentDayBook dayBook = new AppointmentDayBook(appointmentMapper, timeSlotMapper, staffMapper, false, 30, 15);
+        ServiceDurationStats durationStats = new ServiceDurationStats(null, 20, 0.5);
+        timeSlotService = new TimeSlotService(timeSlotMapper, staffMapper, appointmentMapper, holds,
+                scheduleIndex, dayBook, durationStats);
+    }
+
+    @Benchmark
+    public List<TimeSlot> availabilityWarmIndex() {
+        return timeSlotService.getAvailableTimeSlots((short) DATE.getYear(), (short) DATE.getMonthValue(),
+                (short) DATE.getDayOfMonth(), OUTLET_ID);
+    }
+
+    @Benchmark
+    public List<TimeSlot> availabilityColdIndex() {
+        scheduleIndex.clear();
+        return timeSlotService.getAvailableTimeSlots((short) DATE.getYear(), (short) DATE.getMonthValue(),
+                (short) DATE.getDayOfMonth(), OUTLET_ID);
+    }
+}
@@ -13,13 +13,18 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
     private static final Logger logger = LoggerFactory.getLogger(CustomUserDetailsService.class);
 
+    // Staff roles that may reach the /api/staff/admin endpoints
+    private static final List<String> ADMIN_STAFF_ROLES = List.of("Manager", "Admin");
+
     @Autowired
     private CustomerMapper customerMapper;
 
@@ -42,7 +47,7 @@ public class CustomUserDetailsService implements UserDetailsService {
                 true, // accountNonExpired
                 true, // credentialsNonExpired
                 true, // accountNonLocked
-                Collections.singletonList(new SimpleGrantedAuthority("ROLE_STAFF"))
+                staffAuthorities(staff)
             );
         }
 
@@ -66,4 +71,18 @@ public class CustomUserDetailsService implements UserDetailsService {
         logger.error("User not found with username: {}", username);
         throw new UsernameNotFoundException("User not found with username: " + username);
     }
+
+    /**
+     * Every staff member gets ROLE_STAFF; managers additionally get ROLE_ADMIN,
+     * which guards the diagnostics under /api/staff/admin.
+     */
+    public static List<SimpleGrantedAuthority> staffAuthorities(Staff staff) {
+        List<SimpleGrantedAuthority> authorities = new ArrayList<>();
+        authorities.add(new SimpleGrantedAuthority("ROLE_STAFF"));
+        String role = staff.getStaffRole();
+        if (role != null && ADMIN_STAFF_ROLES.stream().anyMatch(role.trim()::equalsIgnoreCase)) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_ADMIN"));
+        }
+        return authorities;
+    }
 }
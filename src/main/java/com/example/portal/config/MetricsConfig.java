@@ -0,0 +1,125 @@
+package com.example.portal.config;
+
+import com.example.portal.service.AppointmentDayBook;
+import com.example.portal.service.AppointmentFactStore;
+import com.example.portal.service.CustomerCohortIndex;
+import com.example.portal.service.ReportJobService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Metrics beyond what Spring Boot instruments by itself (HTTP, Hikari, Lettuce, JVM):
+ * sizes of the in-memory stores and statistics of the in-memory fallback caches.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Entries and bytes of the in-memory stores, read from their stats on every scrape
+     */
+    @Bean
+    public MeterBinder inMemoryStoreMetrics(AppointmentDayBook dayBook, AppointmentFactStore factStore,
+                                            CustomerCohortIndex cohortIndex, ReportJobService reportJobs) {
+        return registry -> {
+            storeGauge(registry, "daybook", "entries", dayBook::getStats, "appointments");
+            storeGauge(registry, "daybook", "bytes", dayBook::getStats, "estimatedBytes");
+            storeGauge(registry, "fact-store", "entries", factStore::getStats, "rows");
+            storeGauge(registry, "fact-store", "bytes", factStore::getStats, "offHeapBytes");
+            storeGauge(registry, "cohorts", "entries", cohortIndex::getStats, "bitmaps");
+            storeGauge(registry, "cohorts", "bytes", cohortIndex::getStats, "sizeInBytes");
+            Gauge.builder("portal.report.jobs.queued", reportJobs, ReportJobService::getQueuedJobs)
+                    .description("Report jobs waiting for a thread")
+                    .register(registry);
+        };
+    }
+
+    private static void storeGauge(MeterRegistry registry, String store, String measure,
+                                   Supplier<Map<String, Object>> stats, String key) {
+        Gauge.builder("portal.store." + measure, stats, supplier -> {
+                    Object value = supplier.get().get(key);
+                    return value instanceof Number number ? number.doubleValue() : Double.NaN;
+                })
+                .tag("store", store)
+                .register(registry);
+    }
+
+    /**
+     * Lets Spring Boot bind hit and miss counts of the caches created by the fallback cache manager
+     */
+    @Bean
+    public CacheMeterBinderProvider<CountingConcurrentMapCache> countingCacheMeterBinderProvider() {
+        return (cache, tags) -> new CacheMeterBinder<>(cache, cache.getName(), tags) {
+            @Override
+            protected Long size() {
+                return (long) cache.getNativeCache().size();
+            }
+
+            @Override
+            protected long hitCount() {
+                return cache.hits.sum();
+            }
+
+            @Override
+            protected Long missCount() {
+                return cache.misses.sum();
+            }
+
+            @Override
+            protected Long evictionCount() {
+                return cache.evictions.sum();
+            }
+
+            @Override
+            protected long putCount() {
+                return cache.puts.sum();
+            }
+
+            @Override
+            protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+            }
+        };
+    }
+
+    /**
+     * In-memory cache that counts lookups, puts and evictions, which ConcurrentMapCache does not
+     */
+    public static class CountingConcurrentMapCache extends ConcurrentMapCache {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder puts = new LongAdder();
+        final LongAdder evictions = new LongAdder();
+
+        public CountingConcurrentMapCache(String name, boolean allowNullValues) {
+            super(name, allowNullValues);
+        }
+
+        @Override
+        protected Object lookup(Object key) {
+            Object value = super.lookup(key);
+            (value != null ? hits : misses).increment();
+            return value;
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            super.put(key, value);
+            puts.increment();
+        }
+
+        @Override
+        public void evict(Object key) {
+            super.evict(key);
+            evictions.increment();
+        }
+    }
+}
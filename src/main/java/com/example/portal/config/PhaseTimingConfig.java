@@ -0,0 +1,265 @@
+package com.example.portal.config;
+
+import com.example.portal.service.RequestPhaseTimer;
+import com.example.portal.service.RequestPhaseTimer.Phase;
+import com.example.portal.service.RequestPhaseTimer.Timings;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.lettuce.core.event.command.CommandFailedEvent;
+import io.lettuce.core.event.command.CommandListener;
+import io.lettuce.core.event.command.CommandStartedEvent;
+import io.lettuce.core.event.command.CommandSucceededEvent;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachingConfigurer;
+import org.springframework.cache.interceptor.CacheResolver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Feeds the phases of {@link RequestPhaseTimer} that are not timed where they happen: JSON
+ * bodies, Spring cache operations and Redis commands. Database statements are timed by the
+ * MyBatis plugin, password hashing by the password encoder and e-mail by the EmailService.
+ */
+@Configuration
+public class PhaseTimingConfig implements CachingConfigurer {
+
+    private final ObjectProvider<CacheManager> cacheManager;
+    private final RequestPhaseTimer phaseTimer;
+
+    public PhaseTimingConfig(ObjectProvider<CacheManager> cacheManager, RequestPhaseTimer phaseTimer) {
+        this.cacheManager = cacheManager;
+        this.phaseTimer = phaseTimer;
+    }
+
+    /**
+     * Replaces Spring Boot's JSON converter with one timing reading and writing bodies. Writing
+     * includes handing the bytes to the response, which is buffered while Server-Timing is on.
+     */
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2HttpMessageConverter(objectMapper) {
+            @Override
+            protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+                    throws IOException, HttpMessageNotWritableException {
+                phaseTimer.start(Phase.SERIALIZATION);
+                try {
+                    super.writeInternal(object, type, outputMessage);
+                } finally {
+                    phaseTimer.stop(Phase.SERIALIZATION);
+                }
+            }
+
+            @Override
+            public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage)
+                    throws IOException, HttpMessageNotReadableException {
+                phaseTimer.start(Phase.SERIALIZATION);
+                try {
+                    return super.read(type, contextClass, inputMessage);
+                } finally {
+                    phaseTimer.stop(Phase.SERIALIZATION);
+                }
+            }
+
+            @Override
+            protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage)
+                    throws IOException, HttpMessageNotReadableException {
+                phaseTimer.start(Phase.SERIALIZATION);
+                try {
+                    return super.readInternal(clazz, inputMessage);
+                } finally {
+                    phaseTimer.stop(Phase.SERIALIZATION);
+                }
+            }
+        };
+    }
+
+    /**
+     * Resolves the caches of @Cacheable and @CacheEvict from the primary cache manager, wrapped to
+     * time their operations. Only the annotations see the wrappers; the cache metrics are still
+     * bound to the caches of the manager itself.
+     */
+    @Override
+    public CacheResolver cacheResolver() {
+        Map<Cache, Cache> timedCaches = new ConcurrentHashMap<>();
+        return context -> {
+            Collection<Cache> caches = new ArrayList<>();
+            for (String name : context.getOperation().getCacheNames()) {
+                Cache cache = cacheManager.getObject().getCache(name);
+                if (cache == null) {
+                    throw new IllegalArgumentException("Cannot find cache named '" + name + "' for " + context.getOperation());
+                }
+                caches.add(timedCaches.computeIfAbsent(cache, TimedCache::new));
+            }
+            return caches;
+        };
+    }
+
+    /**
+     * Adds a command listener to the Lettuce client once the connection factory has created it,
+     * before any connection is opened; connections only pick up the listeners present when they connect.
+     */
+    @Bean
+    public static BeanPostProcessor redisPhaseTimingPostProcessor(ObjectProvider<RequestPhaseTimer> phaseTimer) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof LettuceConnectionFactory factory && factory.isRunning()) {
+                    factory.getRequiredNativeClient().addListener(new RedisPhaseListener(phaseTimer.getObject()));
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Times Redis commands from being written to their reply. Replies complete on Lettuce's I/O
+     * threads, so the request's timings travel with the command in its event context.
+     */
+    static class RedisPhaseListener implements CommandListener {
+        private static final String TIMINGS = RedisPhaseListener.class.getName();
+
+        private final RequestPhaseTimer phaseTimer;
+
+        RedisPhaseListener(RequestPhaseTimer phaseTimer) {
+            this.phaseTimer = phaseTimer;
+        }
+
+        @Override
+        public void commandStarted(CommandStartedEvent event) {
+            Timings timings = phaseTimer.current();
+            if (timings != null) {
+                timings.start(Phase.REDIS);
+                event.getContext().put(TIMINGS, timings);
+            }
+        }
+
+        @Override
+        public void commandSucceeded(CommandSucceededEvent event) {
+            stop(event.getContext());
+        }
+
+        @Override
+        public void commandFailed(CommandFailedEvent event) {
+            stop(event.getContext());
+        }
+
+        private static void stop(Map<String, Object> context) {
+            if (context.get(TIMINGS) instanceof Timings timings) {
+                timings.stop(Phase.REDIS);
+            }
+        }
+    }
+
+    /**
+     * Cache timing its reads and writes as the cache phase; against Redis they count as Redis too
+     */
+    private class TimedCache implements Cache {
+        private final Cache delegate;
+
+        TimedCache(Cache delegate) {
+            this.delegate = delegate;
+        }
+
+        private <T> T timed(Supplier<T> operation) {
+            phaseTimer.start(Phase.CACHE);
+            try {
+                return operation.get();
+            } finally {
+                phaseTimer.stop(Phase.CACHE);
+            }
+        }
+
+        private void timed(Runnable operation) {
+            phaseTimer.start(Phase.CACHE);
+            try {
+                operation.run();
+            } finally {
+                phaseTimer.stop(Phase.CACHE);
+            }
+        }
+
+        @Override
+        public String getName() {
+            return delegate.getName();
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return delegate.getNativeCache();
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            return timed(() -> delegate.get(key));
+        }
+
+        @Override
+        public <T> T get(Object key, Class<T> type) {
+            return timed(() -> delegate.get(key, type));
+        }
+
+        // Not timed: the time to load a missing value belongs to the loader's own phases
+        @Override
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            return delegate.get(key, valueLoader);
+        }
+
+        @Override
+        public CompletableFuture<?> retrieve(Object key) {
+            return delegate.retrieve(key);
+        }
+
+        @Override
+        public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+            return delegate.retrieve(key, valueLoader);
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            timed(() -> delegate.put(key, value));
+        }
+
+        @Override
+        public ValueWrapper putIfAbsent(Object key, Object value) {
+            return timed(() -> delegate.putIfAbsent(key, value));
+        }
+
+        @Override
+        public void evict(Object key) {
+            timed(() -> delegate.evict(key));
+        }
+
+        @Override
+        public boolean evictIfPresent(Object key) {
+            return timed(() -> delegate.evictIfPresent(key));
+        }
+
+        @Override
+        public void clear() {
+            timed(delegate::clear);
+        }
+
+        @Override
+        public boolean invalidate() {
+            return timed(delegate::invalidate);
+        }
+    }
+}
@@ -5,6 +5,8 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import io.lettuce.core.resource.ClientResources;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
@@ -50,7 +52,7 @@ public class RedisConfig {
      * Create a Redis connection factory with SSL and authentication support
      */
     @Bean
-    public RedisConnectionFactory redisConnectionFactory() {
+    public RedisConnectionFactory redisConnectionFactory(ObjectProvider<ClientResources> clientResources) {
         try {
             // Configure Redis connection
             RedisStandaloneConfiguration redisConfig = new RedisStandaloneConfiguration();
@@ -71,6 +73,9 @@ public class RedisConfig {
                 LettuceClientConfiguration.builder()
                     .commandTimeout(Duration.ofSeconds(5));
 
+            // Spring Boot's client resources record command latencies as metrics
+            clientResources.ifAvailable(builder::clientResources);
+
             if (redisSslEnabled) {
                 logger.info("Enabling SSL for Redis connection to {}:{}", redisHost, redisPort);
                 builder.useSsl();
@@ -117,6 +122,7 @@ public class RedisConfig {
             // Build cache manager with specific TTLs for different caches
             return RedisCacheManager.builder(connectionFactory)
                     .cacheDefaults(cacheConfig)
+                    .enableStatistics() // Hit and miss counts for the cache metrics
                     .withCacheConfiguration("services",
                             RedisCacheConfiguration.defaultCacheConfig()
                                     .entryTtl(Duration.ofHours(24))
@@ -3,6 +3,7 @@ package com.example.portal.config;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
@@ -32,6 +33,12 @@ public class RedisFallbackConfig {
                 "vehicles", 
                 "appointments", 
                 "outlets"
-        );
+        ) {
+            @Override
+            protected Cache createConcurrentMapCache(String name) {
+                // Counts hits and misses for the cache metrics, like the Redis cache statistics
+                return new MetricsConfig.CountingConcurrentMapCache(name, isAllowNullValues());
+            }
+        };
     }
 }
@@ -1,5 +1,6 @@
 package com.example.portal.config;
 
+import com.example.portal.service.RequestPhaseTimer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -26,6 +27,7 @@ import java.util.Arrays;
 public class SecurityConfig {
 
     private final UserDetailsService userDetailsService;
+    private final RequestPhaseTimer phaseTimer;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -37,6 +39,7 @@ public class SecurityConfig {
                 .requestMatchers("/api/public/**", "/api/auth/**").permitAll()
                 .requestMatchers("/api/services/**").permitAll() // Allow access to service endpoints
                 .requestMatchers("/api/outlets/**").permitAll() // Allow access to outlet endpoints
+                .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll() // Health checks and metric scrapes
 
                 // Temporarily allow access to these endpoints for debugging
                 .requestMatchers("/api/customer/vehicles/**").permitAll()
@@ -57,6 +60,7 @@ public class SecurityConfig {
                 .requestMatchers("/api/appointments/{id}").permitAll()
 
                 // Role-based access
+                .requestMatchers("/api/staff/admin/**").hasRole("ADMIN")
                 .requestMatchers("/api/staff/**").hasRole("STAFF")
                 .requestMatchers("/api/customer/**").hasRole("CUSTOMER")
                 .anyRequest().authenticated()
@@ -76,9 +80,38 @@ public class SecurityConfig {
         return new ProviderManager(authProvider);
     }
 
+    /**
+     * BCrypt, timed as the auth phase of the current request since each hash costs tens of milliseconds
+     */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(10);
+        PasswordEncoder bcrypt = new BCryptPasswordEncoder(10);
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                phaseTimer.start(RequestPhaseTimer.Phase.AUTH);
+                try {
+                    return bcrypt.encode(rawPassword);
+                } finally {
+                    phaseTimer.stop(RequestPhaseTimer.Phase.AUTH);
+                }
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                phaseTimer.start(RequestPhaseTimer.Phase.AUTH);
+                try {
+                    return bcrypt.matches(rawPassword, encodedPassword);
+                } finally {
+                    phaseTimer.stop(RequestPhaseTimer.Phase.AUTH);
+                }
+            }
+
+            @Override
+            public boolean upgradeEncoding(String encodedPassword) {
+                return bcrypt.upgradeEncoding(encodedPassword);
+            }
+        };
     }
 
     @Bean
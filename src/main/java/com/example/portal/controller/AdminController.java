@@ -0,0 +1,153 @@
+package com.example.portal.controller;
+
+import com.example.portal.interceptor.StreamedResponse;
+import com.example.portal.service.AppointmentDayBook;
+import com.example.portal.service.AppointmentFactStore;
+import com.example.portal.service.CustomerCohortIndex;
+import com.example.portal.service.FlightRecordingService;
+import com.example.portal.service.QueryAuditService;
+import com.example.portal.service.RequestStatementTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Operational endpoints for staff, e.g. inspecting the in-memory caches
+ */
+@RestController
+@RequestMapping("/api/staff/admin")
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final AppointmentDayBook dayBook;
+    private final AppointmentFactStore factStore;
+    private final CustomerCohortIndex cohortIndex;
+    private final QueryAuditService queryAudit;
+    private final RequestStatementTracker statementTracker;
+    private final FlightRecordingService flightRecording;
+
+    @GetMapping("/daybook")
+    public ResponseEntity<?> getDayBookStats() {
+        return ResponseEntity.ok(dayBook.getStats());
+    }
+
+    @PostMapping("/daybook/verify")
+    public ResponseEntity<?> verifyDayBook(@RequestParam(defaultValue = "true") boolean repair) {
+        AppointmentDayBook.ConsistencyReport report = dayBook.verify(repair);
+        if (report == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of(
+                "error", "The day book is not loaded"
+            ));
+        }
+        return ResponseEntity.ok(Map.of(
+            "checkedAppointments", report.getCheckedAppointments(),
+            "driftedOutletDays", report.getDriftedOutletDays(),
+            "repaired", report.isRepaired()
+        ));
+    }
+
+    @GetMapping("/fact-store")
+    public ResponseEntity<?> getFactStoreStats() {
+        return ResponseEntity.ok(factStore.getStats());
+    }
+
+    @PostMapping("/fact-store/reload")
+    public ResponseEntity<?> reloadFactStore() {
+        factStore.reload();
+        return ResponseEntity.accepted().body(Map.of("message", "Fact store reload started"));
+    }
+
+    @GetMapping("/cohorts")
+    public ResponseEntity<?> getCohortIndexStats() {
+        return ResponseEntity.ok(cohortIndex.getStats());
+    }
+
+    @GetMapping("/queries")
+    public ResponseEntity<?> getQueryStats() {
+        return ResponseEntity.ok(queryAudit.getStatementStats());
+    }
+
+    @GetMapping("/queries/slow")
+    public ResponseEntity<?> getSlowQueries(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(queryAudit.getSlowStatements(Math.max(1, limit)));
+    }
+
+    @PostMapping("/queries/explain")
+    public ResponseEntity<?> explainSlowQueries(@RequestParam(defaultValue = "5") int limit) {
+        return ResponseEntity.ok(queryAudit.explainSlowest(Math.max(1, Math.min(limit, 20))));
+    }
+
+    @PostMapping("/queries/reset")
+    public ResponseEntity<?> resetQueryStats() {
+        queryAudit.reset();
+        statementTracker.reset();
+        return ResponseEntity.ok(Map.of("message", "Query statistics cleared"));
+    }
+
+    @GetMapping("/queries/endpoints")
+    public ResponseEntity<?> getStatementsPerEndpoint() {
+        return ResponseEntity.ok(statementTracker.getEndpointStats());
+    }
+
+    @GetMapping("/jfr")
+    public ResponseEntity<?> getFlightRecording() {
+        Map<String, Object> status = flightRecording.getStatus();
+        if (status == null) {
+            return ResponseEntity.ok(Map.of("state", "NONE"));
+        }
+        return ResponseEntity.ok(status);
+    }
+
+    @PostMapping("/jfr/start")
+    public ResponseEntity<?> startFlightRecording(@RequestParam(defaultValue = "60") long durationSeconds,
+                                                  @RequestParam(defaultValue = "default") String settings,
+                                                  @RequestParam(defaultValue = "1") long statementThresholdMs)
+            throws IOException, ParseException {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(flightRecording.start(
+                    durationSeconds, settings, Duration.ofMillis(Math.max(0, statementThresholdMs))));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", e.getMessage(),
+                "settings", FlightRecordingService.SETTINGS
+            ));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Stop the recording and download it, to be opened in JDK Mission Control or with the jfr tool
+     */
+    @PostMapping("/jfr/stop")
+    @StreamedResponse
+    public ResponseEntity<?> stopFlightRecording() throws IOException {
+        Path file = flightRecording.stop();
+        if (file == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "No flight recording to stop"));
+        }
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFileName() + "\"")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(Files.size(file))
+                .body(body);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.portal.controller;
 
+import com.example.portal.config.CustomUserDetailsService;
 import com.example.portal.model.Customer;
 import com.example.portal.model.Staff;
 import com.example.portal.service.CustomerService;
@@ -61,7 +62,7 @@ public class AuthController {
             // Create authentication token and set in security context
             Authentication authentication = new UsernamePasswordAuthenticationToken(
                 username, null, // Don't include credentials in the token
-                Collections.singletonList(new SimpleGrantedAuthority("ROLE_STAFF"))
+                CustomUserDetailsService.staffAuthorities(staff)
             );
 
             SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -1,15 +1,30 @@
 package com.example.portal.controller;
 
+import com.example.portal.interceptor.StreamedResponse;
 import com.example.portal.model.ServiceAppointment;
+import com.example.portal.service.CustomerCohortIndex;
+import com.example.portal.service.DistinctVisitorCounter;
+import com.example.portal.service.ReportExportService;
+import com.example.portal.service.ReportJobService;
 import com.example.portal.service.ReportingService;
+import com.example.portal.service.StaffLeaderboard;
+import com.example.portal.service.TrendingServiceTracker;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.OutputStream;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/reports")
@@ -17,6 +32,12 @@ import java.util.Map;
 public class ReportingController {
 
     private final ReportingService reportingService;
+    private final ReportExportService reportExportService;
+    private final ReportJobService reportJobService;
+    private final CustomerCohortIndex cohortIndex;
+    private final DistinctVisitorCounter distinctVisitorCounter;
+    private final TrendingServiceTracker trendingServiceTracker;
+    private final StaffLeaderboard staffLeaderboard;
 
     @GetMapping("/customer/{customerId}/history")
     public ResponseEntity<List<ServiceAppointment>> getCustomerServiceHistory(@PathVariable Integer customerId) {
@@ -33,6 +54,17 @@ public class ReportingController {
         return ResponseEntity.ok(popularServices);
     }
 
+    @GetMapping("/services/trending")
+    public ResponseEntity<List<Map<String, Object>>> getTrendingServices(
+            @RequestParam(required = false) Integer outletId,
+            @RequestParam(defaultValue = "24") int hours,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        List<Map<String, Object>> trending = trendingServiceTracker.getTrending(outletId, hours, limit);
+        reportingService.addServiceNames(trending);
+        return ResponseEntity.ok(trending);
+    }
+
     @GetMapping("/busy-periods")
     public ResponseEntity<Map<String, Object>> getBusyPeriodsAnalysis(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
@@ -51,6 +83,36 @@ public class ReportingController {
         return ResponseEntity.ok(staffPerformance);
     }
 
+    @GetMapping("/staff/utilization")
+    public ResponseEntity<?> getStaffUtilization(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Integer outletId) {
+
+        LocalDate end = endDate != null ? endDate : LocalDate.now();
+        LocalDate start = startDate != null ? startDate : end.minusDays(6);
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "startDate must not be after endDate"));
+        }
+        return ResponseEntity.ok(reportingService.getStaffUtilization(start, end, outletId));
+    }
+
+    @GetMapping("/staff/leaderboard")
+    public ResponseEntity<?> getStaffLeaderboard(
+            @RequestParam Integer outletId,
+            @RequestParam(defaultValue = "month") String period,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        if (!StaffLeaderboard.PERIODS.contains(period)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "period must be one of " + StaffLeaderboard.PERIODS));
+        }
+        List<Map<String, Object>> leaderboard = staffLeaderboard.getTop(outletId, period,
+                date != null ? date : LocalDate.now(), Math.max(1, Math.min(limit, 100)));
+        reportingService.addStaffNames(leaderboard);
+        return ResponseEntity.ok(leaderboard);
+    }
+
     @GetMapping("/revenue")
     public ResponseEntity<Map<String, Object>> getRevenueReporting(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
@@ -59,4 +121,173 @@ public class ReportingController {
         Map<String, Object> revenue = reportingService.getRevenueReporting(startDate, endDate);
         return ResponseEntity.ok(revenue);
     }
+
+    @GetMapping("/combined")
+    public ResponseEntity<Map<String, Object>> getCombinedReport(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+
+        Map<String, Object> report = reportingService.getCombinedReport(startDate, endDate);
+        return ResponseEntity.ok(report);
+    }
+
+    @GetMapping("/durations")
+    public ResponseEntity<?> getServiceDurations(@RequestParam(defaultValue = "service") String groupBy) {
+        if (!groupBy.equals("service") && !groupBy.equals("staff")) {
+            return ResponseEntity.badRequest().body(Map.of("error", "groupBy must be 'service' or 'staff'"));
+        }
+        return ResponseEntity.ok(reportingService.getDurationReport(groupBy.equals("staff")));
+    }
+
+    @GetMapping("/outlets/{outletId}/unique-visitors")
+    public ResponseEntity<?> getOutletUniqueVisitors(
+            @PathVariable Integer outletId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+
+        Map<String, Long> counts = distinctVisitorCounter.countForOutlet(outletId, startDate, endDate);
+        if (counts == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of(
+                "error", "Distinct counts are still loading"
+            ));
+        }
+        return ResponseEntity.ok(counts);
+    }
+
+    @GetMapping("/customers/retention")
+    public ResponseEntity<?> getCustomerRetention(
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth startMonth,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth endMonth,
+            @RequestParam(defaultValue = "3") int months,
+            @RequestParam(required = false) Integer outletId,
+            @RequestParam(required = false) Integer serviceId) {
+
+        YearMonth end = endMonth != null ? endMonth : YearMonth.now();
+        YearMonth start = startMonth != null ? startMonth : end.minusMonths(11);
+        if (start.isAfter(end) || months < 1 || months > 36) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "startMonth must not be after endMonth and months must be between 1 and 36"
+            ));
+        }
+        List<Map<String, Object>> retention = cohortIndex.getRetention(start, end, months, outletId, serviceId);
+        if (retention == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of(
+                "error", "Customer cohorts are still loading"
+            ));
+        }
+        return ResponseEntity.ok(retention);
+    }
+
+    @PostMapping("/jobs")
+    public ResponseEntity<?> submitReportJob(
+            @RequestParam String report,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Integer outletId) {
+
+        if (!ReportingService.REPORTS.contains(report)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Unknown report: " + report));
+        }
+        try {
+            ReportJobService.ReportJob job = reportJobService.submit(report, startDate, endDate, outletId);
+            return ResponseEntity.accepted()
+                    .header(HttpHeaders.LOCATION, "/api/reports/jobs/" + job.getId())
+                    .body(job.describe());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of(
+                "error", "Too many report jobs queued, please try again later"
+            ));
+        }
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<?> getReportJob(@PathVariable String jobId) {
+        ReportJobService.ReportJob job = reportJobService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Report job not found or expired"));
+        }
+        return ResponseEntity.ok(job.describe());
+    }
+
+    @GetMapping("/jobs/{jobId}/result")
+    public ResponseEntity<?> getReportJobResult(@PathVariable String jobId) {
+        ReportJobService.ReportJob job = reportJobService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Report job not found or expired"));
+        }
+        switch (job.getStatus()) {
+            case DONE:
+                return ResponseEntity.ok(job.getResult());
+            case FAILED:
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of(
+                    "error", "Report job failed: " + job.getError()
+                ));
+            default:
+                return ResponseEntity.accepted().body(job.describe());
+        }
+    }
+
+    @GetMapping("/export/appointments")
+    @StreamedResponse
+    public ResponseEntity<?> exportAppointments(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Integer outletId,
+            @RequestParam(required = false) String status,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        ReportExportService.Format exportFormat = ReportExportService.Format.parse(format);
+        if (exportFormat == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Unsupported format: " + format));
+        }
+        boolean gzip = acceptsGzip(acceptEncoding);
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 8192) : out;
+            reportExportService.writeAppointments(target, exportFormat, startDate, endDate, outletId, status);
+            if (gzip) ((GZIPOutputStream) target).finish();
+        };
+        return exportResponse("appointments", exportFormat, gzip, body);
+    }
+
+    @GetMapping("/export/{report}")
+    @StreamedResponse
+    public ResponseEntity<?> exportReport(
+            @PathVariable String report,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        ReportExportService.Format exportFormat = ReportExportService.Format.parse(format);
+        if (exportFormat == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Unsupported format: " + format));
+        }
+        if (!reportExportService.isSupportedReport(report)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Unknown report: " + report));
+        }
+        boolean gzip = acceptsGzip(acceptEncoding);
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, 8192) : out;
+            reportExportService.writeReport(target, exportFormat, report, startDate, endDate);
+            if (gzip) ((GZIPOutputStream) target).finish();
+        };
+        return exportResponse(report, exportFormat, gzip, body);
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
+    private static ResponseEntity<StreamingResponseBody> exportResponse(String name, ReportExportService.Format format,
+                                                                        boolean gzip, StreamingResponseBody body) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "." + format.getExtension() + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
 }
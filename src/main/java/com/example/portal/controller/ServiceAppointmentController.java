@@ -1,21 +1,39 @@
 package com.example.portal.controller;
 
+import com.example.portal.event.AppointmentChangedEvent;
+import com.example.portal.event.FlightRecorderEvents;
+import com.example.portal.interceptor.StatementBudget;
 import com.example.portal.model.*;
 import com.example.portal.repository.*;
+import com.example.portal.service.AppointmentBulkService;
+import com.example.portal.service.AppointmentDayBook;
+import com.example.portal.service.BookingSequencer;
 import com.example.portal.service.NotificationService;
+import com.example.portal.service.OutletDaySchedule;
 import com.example.portal.service.ServiceOutletService;
 import com.example.portal.service.ServiceService;
+import com.example.portal.service.SlotHoldService;
+import com.example.portal.service.StaffScheduleIndex;
 import com.example.portal.service.TimeSlotService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api")
@@ -23,6 +41,8 @@ import java.util.Map;
 public class ServiceAppointmentController {
 
     private static final Logger logger = LoggerFactory.getLogger(ServiceAppointmentController.class);
+    private static final int MAX_BULK_TRANSITIONS = 500;
+    private static final long SEQUENCER_TIMEOUT_SECONDS = 10;
 
     private final ServiceAppointmentMapper appointmentMapper;
     private final CustomerMapper customerMapper;
@@ -33,16 +53,41 @@ public class ServiceAppointmentController {
     private final NotificationService notificationService;
     private final ServiceService serviceService;
     private final ServiceOutletService outletService;
+    private final AppointmentBulkService appointmentBulkService;
+    private final BookingSequencer bookingSequencer;
+    private final SlotHoldService slotHoldService;
+    private final StaffScheduleIndex staffScheduleIndex;
+    private final AppointmentDayBook dayBook;
+    private final ApplicationEventPublisher eventPublisher;
 
     // Customer endpoints
+    // One list query plus the nested customer, service, outlet, time slot, vehicle and staff selects
     @GetMapping("/customer/appointments")
+    @StatementBudget(60)
     public ResponseEntity<?> getCustomerAppointments(@RequestParam Integer custId) {
         List<ServiceAppointment> appointments = appointmentMapper.findByCustomerIdWithDetails(custId);
         return ResponseEntity.ok(appointments);
     }
 
     @PostMapping("/customer/appointments")
-    public ResponseEntity<?> createAppointment(@RequestBody ServiceAppointment appointment) {
+    public ResponseEntity<?> createAppointment(
+            @RequestBody ServiceAppointment appointment,
+            @RequestParam(required = false) String holdId) {
+        FlightRecorderEvents.Booking event = new FlightRecorderEvents.Booking();
+        event.begin();
+        ResponseEntity<?> response = bookAppointment(appointment, holdId);
+        event.end();
+        if (event.shouldCommit()) {
+            event.customerId = appointment.getCustId() != null ? appointment.getCustId() : 0;
+            event.outletId = appointment.getOutletId() != null ? appointment.getOutletId() : 0;
+            event.serviceId = appointment.getServiceId() != null ? appointment.getServiceId() : 0;
+            event.status = response.getStatusCode().value();
+            event.commit();
+        }
+        return response;
+    }
+
+    private ResponseEntity<?> bookAppointment(ServiceAppointment appointment, String holdId) {
         logger.debug("Creating appointment: {}", appointment);
 
         try {
@@ -181,11 +226,20 @@ public class ServiceAppointmentController {
             // A real staff member will be assigned during confirmation
             appointment.setStaffId(9999); // Unassigned staff ID
 
-            // Insert appointment
-            logger.debug("Inserting appointment into database: {}", appointment);
-            appointmentMapper.insert(appointment);
+            // Insert appointment through the outlet's booking sequencer, which rejects overbooked slots
+            // and holds for another slot, and uses up the customer's hold when it accepts the booking
+            logger.debug("Submitting appointment booking: {}", appointment);
+            BookingSequencer.Outcome outcome = bookingSequencer.submitBooking(appointment, timeSlot, holdId)
+                .get(SEQUENCER_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (!outcome.isAccepted()) {
+                logger.warn("Appointment booking rejected: {}", outcome.getReason());
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", outcome.getReason()));
+            }
             logger.debug("Appointment inserted with ID: {}", appointment.getAppointmentId());
 
+            appointment.setTimeSlot(timeSlot);
+            eventPublisher.publishEvent(new AppointmentChangedEvent(appointment, null));
+
             // Format date for notification
             String appointmentDate = timeSlot.getTimeYear() + "-" +
                                     timeSlot.getTimeMonth() + "-" +
@@ -221,6 +275,42 @@ public class ServiceAppointmentController {
         }
     }
 
+    @PostMapping("/customer/appointments/holds")
+    public ResponseEntity<?> holdTimeSlot(@RequestBody Map<String, Object> holdRequest) {
+        LocalDate date;
+        LocalTime time;
+        Integer outletId;
+        try {
+            outletId = Integer.parseInt(String.valueOf(holdRequest.get("outletId")));
+            date = LocalDate.of(
+                Integer.parseInt(String.valueOf(holdRequest.get("year"))),
+                Integer.parseInt(String.valueOf(holdRequest.get("month"))),
+                Integer.parseInt(String.valueOf(holdRequest.get("day"))));
+            time = LocalTime.parse(String.valueOf(holdRequest.get("time")));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "outletId, year, month, day and time (HH:MM:SS) are required"
+            ));
+        }
+
+        String holdId = slotHoldService.hold(outletId, date, time);
+        if (holdId == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "The selected time slot is no longer available"));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("holdId", holdId);
+        response.put("ttlSeconds", slotHoldService.getHoldTtl().getSeconds());
+        response.put("message", "Time slot held");
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @DeleteMapping("/customer/appointments/holds/{holdId}")
+    public ResponseEntity<?> releaseTimeSlotHold(@PathVariable String holdId) {
+        boolean released = slotHoldService.release(holdId);
+        return ResponseEntity.ok(Map.of("released", released));
+    }
+
     @GetMapping("/customer/appointments/{id}")
     public ResponseEntity<?> getCustomerAppointmentDetails(@PathVariable Integer id) {
         ServiceAppointment appointment = appointmentMapper.findByIdWithDetails(id);
@@ -241,7 +331,9 @@ public class ServiceAppointmentController {
     }
 
     // Staff endpoints
+    // Lists the whole outlet; the nested selects make this the largest statement count of the API
     @GetMapping("/staff/appointments")
+    @StatementBudget(250)
     public ResponseEntity<?> getStaffAppointments(@RequestParam Integer staffId) {
         // First, get the staff's outlet ID
         Staff staff = staffMapper.findById(staffId);
@@ -254,17 +346,13 @@ public class ServiceAppointmentController {
         return ResponseEntity.ok(appointments);
     }
 
+    // Served from the day book for the coming weeks; older days load one staff member's day with nested selects
     @GetMapping("/staff/appointments/schedule")
+    @StatementBudget(40)
     public ResponseEntity<?> getStaffSchedule(
             @RequestParam Integer staffId,
             @RequestParam String date) {
 
-        // Validate staff
-        Staff staff = staffMapper.findById(staffId);
-        if (staff == null) {
-            return ResponseEntity.badRequest().body(Map.of("error", "Invalid staff ID"));
-        }
-
         try {
             // Parse the date
             String[] dateParts = date.split("-");
@@ -275,9 +363,22 @@ public class ServiceAppointmentController {
             Short year = Short.parseShort(dateParts[0]);
             Short month = Short.parseShort(dateParts[1]);
             Short day = Short.parseShort(dateParts[2]);
+            LocalDate scheduleDate = LocalDate.of(year, month, day);
+            boolean fromDayBook = dayBook.covers(scheduleDate);
 
-            // Get appointments for the staff on the specified date
-            List<ServiceAppointment> appointments = appointmentMapper.findByStaffIdAndDateWithDetails(staffId, year, month, day);
+            // Validate staff
+            Staff staff = fromDayBook ? dayBook.getStaff(staffId) : null;
+            if (staff == null) {
+                staff = staffMapper.findById(staffId);
+            }
+            if (staff == null) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Invalid staff ID"));
+            }
+
+            // Get appointments for the staff on the specified date, from the day book for the coming weeks
+            List<ServiceAppointment> appointments = fromDayBook
+                ? dayBook.getStaffAppointments(staffId, scheduleDate)
+                : appointmentMapper.findByStaffIdAndDateWithDetails(staffId, year, month, day);
 
             // Filter to only include confirmed appointments (SCHEDULED, IN_PROGRESS)
             List<ServiceAppointment> confirmedAppointments = appointments.stream()
@@ -287,7 +388,7 @@ public class ServiceAppointmentController {
 
             return ResponseEntity.ok(confirmedAppointments);
 
-        } catch (NumberFormatException e) {
+        } catch (NumberFormatException | DateTimeException e) {
             return ResponseEntity.badRequest().body(Map.of("error", "Invalid date format. Use YYYY-MM-DD"));
         }
     }
@@ -316,11 +417,16 @@ public class ServiceAppointmentController {
             return ResponseEntity.badRequest().body(Map.of("error", "Status cannot be empty"));
         }
 
+        String previousStatus = appointment.getAppointmentStatus();
         appointment.setAppointmentStatus(newStatus);
+        appointment.recordStatusTimestamps(previousStatus, LocalDateTime.now());
         appointmentMapper.update(appointment);
 
         // Get full appointment details for notification
         ServiceAppointment fullAppointment = appointmentMapper.findByIdWithDetails(id);
+        if (fullAppointment != null) {
+            eventPublisher.publishEvent(new AppointmentChangedEvent(fullAppointment, previousStatus));
+        }
 
         // Use the simplified notification method
         notificationService.notifyCustomerAboutAppointment(fullAppointment, newStatus);
@@ -397,18 +503,43 @@ public class ServiceAppointmentController {
 
                 appointment.setStaffId(staffId);
             } else {
-                logger.warn("No staff ID provided for appointment: {}", id);
+                logger.debug("No staff ID provided for appointment {}, a staff member will be assigned automatically", id);
             }
 
-            // Update the appointment
-            logger.debug("Updating appointment in database: {}", appointment);
-            int updated = appointmentMapper.update(appointment);
-            logger.debug("Appointment updated, rows affected: {}", updated);
+            TimeSlot timeSlot = timeSlotMapper.findById(appointment.getTimeId());
+            if (timeSlot == null) {
+                logger.warn("Time slot not found for appointment: {}", id);
+                return ResponseEntity.badRequest().body(Map.of("error", "Appointment has no valid time slot"));
+            }
+
+            // Cheap pre-check against the staff schedule index, the sequencer still has the final say
+            if (staffId != null && timeSlot.getTimeClocktime() != null) {
+                OutletDaySchedule.Entry entry = OutletDaySchedule.entryOf(appointment, timeSlot.getTimeClocktime());
+                LocalDate date = LocalDate.of(timeSlot.getTimeYear(), timeSlot.getTimeMonth(), timeSlot.getTimeDay());
+                if (!staffScheduleIndex.isStaffFree(staffId, date, entry.getStart(), entry.getEnd())) {
+                    logger.warn("Staff {} is already booked for appointment {}", staffId, id);
+                    return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                        "error", "Staff " + staffId + " already has an appointment overlapping this time"
+                    ));
+                }
+            }
+
+            // Update the appointment through the outlet's booking sequencer, which rejects double-assigned staff
+            logger.debug("Submitting appointment confirmation: {}", appointment);
+            BookingSequencer.Outcome outcome = bookingSequencer.submitConfirmation(appointment, timeSlot)
+                .get(SEQUENCER_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (!outcome.isAccepted()) {
+                logger.warn("Appointment confirmation rejected: {}", outcome.getReason());
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", outcome.getReason()));
+            }
+            logger.debug("Appointment confirmed: {}", id);
 
             // Get full appointment details for notification
             ServiceAppointment fullAppointment = appointmentMapper.findByIdWithDetails(id);
             if (fullAppointment == null) {
                 logger.warn("Could not retrieve full appointment details for ID: {}", id);
+            } else {
+                eventPublisher.publishEvent(new AppointmentChangedEvent(fullAppointment, "PENDING"));
             }
 
             // Use the simplified notification method for confirmation
@@ -438,6 +569,148 @@ public class ServiceAppointmentController {
         }
     }
 
+    @PostMapping("/staff/appointments/bulk")
+    public ResponseEntity<?> bulkUpdateAppointments(@RequestBody List<AppointmentTransition> transitions) {
+        if (transitions == null || transitions.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "At least one transition is required"));
+        }
+        if (transitions.size() > MAX_BULK_TRANSITIONS) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "At most " + MAX_BULK_TRANSITIONS + " transitions can be applied per request"
+            ));
+        }
+
+        try {
+            logger.debug("Applying {} bulk appointment transitions", transitions.size());
+            AppointmentBulkService.BulkResult result = appointmentBulkService.applyTransitions(transitions);
+
+            // Staff assignments are only written by the outlets' booking sequencers, as for single confirmations.
+            // Submit everything first so each sequencer can group-commit its whole queue.
+            List<AppointmentBulkService.Confirmation> confirmations = result.getConfirmations();
+            List<CompletableFuture<BookingSequencer.Outcome>> futures = new ArrayList<>();
+            for (AppointmentBulkService.Confirmation confirmation : confirmations) {
+                ServiceAppointment appointment = confirmation.getAppointment();
+                futures.add(bookingSequencer.submitConfirmation(appointment, appointment.getTimeSlot()));
+            }
+            for (int i = 0; i < confirmations.size(); i++) {
+                AppointmentBulkService.Confirmation confirmation = confirmations.get(i);
+                BookingSequencer.Outcome outcome;
+                try {
+                    outcome = futures.get(i).get(SEQUENCER_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    logger.error("Bulk confirmation failed for appointment {}: {}",
+                        confirmation.getAppointment().getAppointmentId(), e.getMessage(), e);
+                    outcome = BookingSequencer.Outcome.rejected("Confirmation failed: " + e.getMessage());
+                }
+                result.completeConfirmation(confirmation, outcome);
+            }
+
+            // Notify after the transaction has committed, all customers in one batch
+            if (!result.getChangedAppointmentIds().isEmpty()) {
+                try {
+                    List<ServiceAppointment> changed = appointmentMapper.findByIdsWithDetails(result.getChangedAppointmentIds());
+                    for (ServiceAppointment appointment : changed) {
+                        eventPublisher.publishEvent(new AppointmentChangedEvent(appointment,
+                            result.getPreviousStatuses().get(appointment.getAppointmentId())));
+                    }
+                    notificationService.notifyCustomersAboutAppointments(changed);
+                } catch (Exception e) {
+                    // Log but don't fail the bulk update if notifications fail
+                    logger.error("Failed to send notifications for bulk update: {}", e.getMessage(), e);
+                }
+            }
+
+            long succeeded = result.getResults().stream()
+                .filter(r -> Boolean.TRUE.equals(r.get("success")))
+                .count();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("results", result.getResults());
+            response.put("succeeded", succeeded);
+            response.put("failed", transitions.size() - succeeded);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error applying bulk appointment update: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of(
+                "error", "An unexpected error occurred while updating the appointments: " + e.getMessage()
+            ));
+        }
+    }
+
+    @PostMapping("/staff/appointments/auto-assign")
+    public ResponseEntity<?> autoAssignPendingAppointments(
+            @RequestParam Integer outletId,
+            @RequestParam String date) {
+
+        LocalDate day;
+        try {
+            day = LocalDate.parse(date);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid date format. Use YYYY-MM-DD"));
+        }
+
+        try {
+            List<ServiceAppointment> pending = appointmentMapper.findByOutletIdDateAndStatus(outletId,
+                (short) day.getYear(), (short) day.getMonthValue(), (short) day.getDayOfMonth(), "PENDING");
+            logger.debug("Auto-assigning {} pending appointments for outlet {} on {}", pending.size(), outletId, day);
+
+            // Submit everything first so the sequencer can group-commit the whole queue, in time order
+            List<CompletableFuture<BookingSequencer.Outcome>> futures = new ArrayList<>();
+            for (ServiceAppointment appointment : pending) {
+                appointment.setAppointmentStatus("SCHEDULED");
+                appointment.setStaffId(OutletDaySchedule.UNASSIGNED_STAFF_ID);
+                futures.add(bookingSequencer.submitConfirmation(appointment, appointment.getTimeSlot()));
+            }
+
+            List<Map<String, Object>> results = new ArrayList<>();
+            List<Integer> assignedIds = new ArrayList<>();
+            for (int i = 0; i < pending.size(); i++) {
+                ServiceAppointment appointment = pending.get(i);
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("appointmentId", appointment.getAppointmentId());
+                try {
+                    BookingSequencer.Outcome outcome = futures.get(i).get(SEQUENCER_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                    result.put("success", outcome.isAccepted());
+                    if (outcome.isAccepted()) {
+                        result.put("staffId", appointment.getStaffId());
+                        assignedIds.add(appointment.getAppointmentId());
+                    } else {
+                        result.put("error", outcome.getReason());
+                    }
+                } catch (Exception e) {
+                    logger.error("Auto-assignment failed for appointment {}: {}", appointment.getAppointmentId(), e.getMessage(), e);
+                    result.put("success", false);
+                    result.put("error", "Assignment failed: " + e.getMessage());
+                }
+                results.add(result);
+            }
+
+            if (!assignedIds.isEmpty()) {
+                try {
+                    List<ServiceAppointment> assigned = appointmentMapper.findByIdsWithDetails(assignedIds);
+                    for (ServiceAppointment appointment : assigned) {
+                        eventPublisher.publishEvent(new AppointmentChangedEvent(appointment, "PENDING"));
+                    }
+                    notificationService.notifyCustomersAboutAppointments(assigned);
+                } catch (Exception e) {
+                    // Log but don't fail the assignment if notifications fail
+                    logger.error("Failed to send notifications for auto-assignment: {}", e.getMessage(), e);
+                }
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("results", results);
+            response.put("assigned", assignedIds.size());
+            response.put("unassigned", pending.size() - assignedIds.size());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            logger.error("Error auto-assigning appointments: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of(
+                "error", "An unexpected error occurred while assigning the appointments: " + e.getMessage()
+            ));
+        }
+    }
+
     // Public endpoints for services and outlets
     @GetMapping("/public/services")
     public ResponseEntity<?> getAllServices() {
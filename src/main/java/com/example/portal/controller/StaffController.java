@@ -1,5 +1,6 @@
 package com.example.portal.controller;
 
+import com.example.portal.interceptor.StatementBudget;
 import com.example.portal.model.Staff;
 import com.example.portal.service.StaffService;
 import lombok.RequiredArgsConstructor;
@@ -35,7 +36,9 @@ public class StaffController {
         return ResponseEntity.notFound().build();
     }
 
+    // The nested outlet select runs once, every staff member shares it
     @GetMapping("/outlet/{outletId}")
+    @StatementBudget(5)
     public ResponseEntity<List<Staff>> getStaffByOutletId(@PathVariable Integer outletId) {
         List<Staff> staffList = staffService.findByOutletId(outletId);
         return ResponseEntity.ok(staffList);
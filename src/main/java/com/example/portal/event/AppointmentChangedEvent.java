@@ -0,0 +1,34 @@
+package com.example.portal.event;
+
+import com.example.portal.model.ServiceAppointment;
+
+/**
+ * Published after an appointment has been created or updated in the database.
+ * The appointment carries its time slot so listeners can tell which day it belongs to.
+ */
+public class AppointmentChangedEvent {
+
+    private final ServiceAppointment appointment;
+    private final String previousStatus; // null for newly created appointments
+
+    public AppointmentChangedEvent(ServiceAppointment appointment, String previousStatus) {
+        this.appointment = appointment;
+        this.previousStatus = previousStatus;
+    }
+
+    public ServiceAppointment getAppointment() {
+        return appointment;
+    }
+
+    public String getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public boolean isNew() {
+        return previousStatus == null;
+    }
+
+    public boolean isStatusChange() {
+        return previousStatus != null && !previousStatus.equals(appointment.getAppointmentStatus());
+    }
+}
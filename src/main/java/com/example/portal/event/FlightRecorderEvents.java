@@ -0,0 +1,102 @@
+package com.example.portal.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Java Flight Recorder events of the portal's own operations, shown under "Portal" in JDK Mission
+ * Control next to the JVM's events. They are recorded by any recording, e.g. one started from
+ * the admin endpoint or with -XX:StartFlightRecording; while none runs they cost next to nothing.
+ *
+ * Each event is begun before the operation and committed after it, filling its fields only if
+ * {@code shouldCommit()} says the recording wants it.
+ */
+public final class FlightRecorderEvents {
+
+    private FlightRecorderEvents() {
+    }
+
+    @Name("com.example.portal.Booking")
+    @Label("Booking")
+    @Category({"Portal", "Appointments"})
+    @Description("A customer booking an appointment, from validation to the booking sequencer's decision")
+    @StackTrace(false)
+    public static class Booking extends Event {
+        @Label("Customer ID")
+        public int customerId;
+        @Label("Outlet ID")
+        public int outletId;
+        @Label("Service ID")
+        public int serviceId;
+        @Label("HTTP Status")
+        public int status;
+    }
+
+    @Name("com.example.portal.Availability")
+    @Label("Availability Calculation")
+    @Category({"Portal", "Appointments"})
+    @Description("Free time slots computed for an outlet and day")
+    @StackTrace(false)
+    public static class Availability extends Event {
+        @Label("Outlet ID")
+        public int outletId;
+        @Label("Date")
+        public String date;
+        @Label("Staff")
+        public int staff;
+        @Label("Free Slots")
+        public int slots;
+    }
+
+    @Name("com.example.portal.Report")
+    @Label("Report Generation")
+    @Category({"Portal", "Reports"})
+    @StackTrace(false)
+    public static class Report extends Event {
+        @Label("Report")
+        public String report;
+        @Label("Start Date")
+        public String startDate;
+        @Label("End Date")
+        public String endDate;
+        @Label("Outlet ID")
+        @Description("0 for all outlets")
+        public int outletId;
+        @Label("Failed")
+        public boolean failed;
+    }
+
+    @Name("com.example.portal.RedisNotification")
+    @Label("Redis Notification Operation")
+    @Category({"Portal", "Redis"})
+    @StackTrace(false)
+    public static class RedisNotification extends Event {
+        @Label("Operation")
+        public String operation;
+        @Label("Failed")
+        public boolean failed;
+    }
+
+    /**
+     * Statements faster than the threshold are dropped; a recording can lower it for the event name
+     */
+    @Name(Statement.NAME)
+    @Label("Mapper Statement")
+    @Category({"Portal", "Database"})
+    @Description("A MyBatis mapped statement, including mapping its rows and nested selects")
+    @Threshold("1 ms")
+    @StackTrace(false)
+    public static class Statement extends Event {
+        public static final String NAME = "com.example.portal.Statement";
+
+        @Label("Statement ID")
+        public String statementId;
+        @Label("Command")
+        public String command;
+    }
+}
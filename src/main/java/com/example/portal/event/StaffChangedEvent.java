@@ -0,0 +1,17 @@
+package com.example.portal.event;
+
+/**
+ * Published after a staff member has been created, updated or deleted in the database.
+ */
+public class StaffChangedEvent {
+
+    private final Integer staffId;
+
+    public StaffChangedEvent(Integer staffId) {
+        this.staffId = staffId;
+    }
+
+    public Integer getStaffId() {
+        return staffId;
+    }
+}
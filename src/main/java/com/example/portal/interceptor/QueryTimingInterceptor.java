@@ -0,0 +1,85 @@
+package com.example.portal.interceptor;
+
+import com.example.portal.event.FlightRecorderEvents;
+import com.example.portal.service.QueryAuditService;
+import com.example.portal.service.RequestPhaseTimer;
+import com.example.portal.service.RequestStatementTracker;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.ResultHandler;
+import org.springframework.stereotype.Component;
+
+import java.sql.Statement;
+
+/**
+ * MyBatis plugin timing every executed statement, registered with the SqlSessionFactory by the
+ * MyBatis auto-configuration.
+ *
+ * It wraps the statement handler rather than the executor, so the nested selects of result maps
+ * are timed too. A query's time includes mapping its rows, and with them any nested selects;
+ * for cursor queries only opening the cursor is timed. Each statement is also counted for the
+ * HTTP request running on the thread, see {@link RequestStatementTracker}, and timed as its
+ * database phase, see {@link RequestPhaseTimer}, and recorded as a flight recorder event.
+ */
+@Component
+@Intercepts({
+    @Signature(type = StatementHandler.class, method = "query", args = {Statement.class, ResultHandler.class}),
+    @Signature(type = StatementHandler.class, method = "queryCursor", args = {Statement.class}),
+    @Signature(type = StatementHandler.class, method = "update", args = {Statement.class}),
+    @Signature(type = StatementHandler.class, method = "batch", args = {Statement.class})
+})
+public class QueryTimingInterceptor implements Interceptor {
+
+    private final QueryAuditService queryAudit;
+    private final RequestStatementTracker statementTracker;
+    private final RequestPhaseTimer phaseTimer;
+
+    public QueryTimingInterceptor(QueryAuditService queryAudit, RequestStatementTracker statementTracker,
+                                  RequestPhaseTimer phaseTimer) {
+        this.queryAudit = queryAudit;
+        this.statementTracker = statementTracker;
+        this.phaseTimer = phaseTimer;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        FlightRecorderEvents.Statement event = new FlightRecorderEvents.Statement();
+        event.begin();
+        long started = System.nanoTime();
+        phaseTimer.start(RequestPhaseTimer.Phase.DB);
+        try {
+            return invocation.proceed();
+        } finally {
+            long nanos = System.nanoTime() - started;
+            phaseTimer.stop(RequestPhaseTimer.Phase.DB);
+            StatementHandler handler = (StatementHandler) invocation.getTarget();
+            MappedStatement statement = mappedStatement(handler);
+            event.end();
+            if (event.shouldCommit()) {
+                event.statementId = statement.getId();
+                event.command = statement.getSqlCommandType().name();
+                event.commit();
+            }
+            statementTracker.record(statement.getId());
+            queryAudit.record(statement, handler.getBoundSql(), nanos);
+        }
+    }
+
+    /**
+     * The mapped statement of a handler; MyBatis always hands out a RoutingStatementHandler
+     * that keeps the actual handler as its delegate
+     */
+    static MappedStatement mappedStatement(StatementHandler handler) {
+        MetaObject metaObject = SystemMetaObject.forObject(handler);
+        while (metaObject.hasGetter("h")) { // Unwrap handlers proxied by other plugins
+            metaObject = SystemMetaObject.forObject(metaObject.getValue("h.target"));
+        }
+        return (MappedStatement) metaObject.getValue("delegate.mappedStatement");
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.portal.interceptor;
+
+import com.example.portal.service.RequestPhaseTimer;
+import com.example.portal.service.RequestPhaseTimer.Phase;
+import com.example.portal.service.RequestPhaseTimer.Timings;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.server.RequestPath;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.ServletRequestPathUtils;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Times the phases of every API request with {@link RequestPhaseTimer} and reports them as
+ * phase.*.ms MDC fields on a DEBUG log line and, when enabled or asked for with the
+ * X-Server-Timing request header, as a Server-Timing response header.
+ *
+ * The header has to be set before the body is sent, so responses that get it are buffered.
+ * Endpoints marked {@link StreamedResponse} are never buffered, which would hold a whole export or
+ * recording in memory; they get the timings as a Server-Timing trailer where the connection supports
+ * trailers. They finish on an async dispatch and are reported from there; work done on other
+ * threads, like the export rows themselves, is not attributed to the request.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    public static final String OPT_IN_HEADER = "X-Server-Timing";
+    private static final String TIMINGS_ATTRIBUTE = ServerTimingFilter.class.getName() + ".timings";
+    private static final Logger logger = LoggerFactory.getLogger(ServerTimingFilter.class);
+
+    private final RequestPhaseTimer phaseTimer;
+    private final ObjectProvider<HandlerMapping> handlerMapping;
+    private final boolean enabled;
+    private final boolean headerOptIn;
+
+    public ServerTimingFilter(RequestPhaseTimer phaseTimer,
+                              @Qualifier("requestMappingHandlerMapping") ObjectProvider<HandlerMapping> handlerMapping,
+                              @Value("${app.server-timing.enabled:false}") boolean enabled,
+                              @Value("${app.server-timing.header-opt-in:false}") boolean headerOptIn) {
+        this.phaseTimer = phaseTimer;
+        this.handlerMapping = handlerMapping;
+        this.enabled = enabled;
+        this.headerOptIn = headerOptIn;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Timings timings;
+        ContentCachingResponseWrapper buffered = null;
+        if (isAsyncDispatch(request) && request.getAttribute(TIMINGS_ATTRIBUTE) instanceof Timings started) {
+            timings = started;
+            phaseTimer.resume(timings);
+            buffered = WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class);
+        } else {
+            timings = phaseTimer.begin();
+            request.setAttribute(TIMINGS_ATTRIBUTE, timings);
+            if (enabled || (headerOptIn && request.getHeader(OPT_IN_HEADER) != null)) {
+                if (isStreamed(request)) {
+                    addTrailer(response, timings);
+                } else {
+                    buffered = new ContentCachingResponseWrapper(response);
+                }
+            }
+        }
+
+        try {
+            chain.doFilter(request, buffered != null ? buffered : response);
+        } finally {
+            phaseTimer.end();
+        }
+        if (request.isAsyncStarted()) {
+            return;
+        }
+
+        Map<Phase, double[]> phases = timings.snapshot();
+        double totalMillis = timings.getElapsedNanos() / 1_000_000.0;
+        if (buffered != null) {
+            if (!buffered.isCommitted()) {
+                buffered.setHeader("Server-Timing", serverTiming(phases, totalMillis));
+            }
+            buffered.copyBodyToResponse();
+        }
+        log(request, response.getStatus(), phases, totalMillis);
+    }
+
+    /**
+     * Whether the request goes to a {@link StreamedResponse} endpoint. The filter runs before the
+     * dispatcher, so the handler is looked up here with the path parsed the way the dispatcher
+     * parses it; a failed lookup is left to the dispatcher to report.
+     */
+    private boolean isStreamed(HttpServletRequest request) {
+        HandlerMapping mapping = handlerMapping.getIfAvailable();
+        if (mapping == null) {
+            return false;
+        }
+        RequestPath previousPath = (RequestPath) request.getAttribute(ServletRequestPathUtils.PATH_ATTRIBUTE);
+        ServletRequestPathUtils.parseAndCache(request);
+        try {
+            HandlerExecutionChain chain = mapping.getHandler(request);
+            return chain != null && chain.getHandler() instanceof HandlerMethod handlerMethod
+                    && handlerMethod.hasMethodAnnotation(StreamedResponse.class);
+        } catch (Exception e) {
+            return false;
+        } finally {
+            ServletRequestPathUtils.setParsedRequestPath(previousPath, request);
+        }
+    }
+
+    /**
+     * Server-Timing as a trailer, computed when the response completes; left off when the
+     * response cannot carry trailers, e.g. over HTTP/1.0
+     */
+    private static void addTrailer(HttpServletResponse response, Timings timings) {
+        try {
+            response.setTrailerFields(() -> Map.of("Server-Timing",
+                    serverTiming(timings.snapshot(), timings.getElapsedNanos() / 1_000_000.0)));
+            response.setHeader("Trailer", "Server-Timing");
+        } catch (IllegalStateException e) {
+            logger.debug("No Server-Timing trailer: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Header value such as db;dur=12.3;desc="MySQL (4)", total;dur=20.1
+     */
+    static String serverTiming(Map<Phase, double[]> phases, double totalMillis) {
+        StringBuilder header = new StringBuilder();
+        phases.forEach((phase, timing) -> header.append(phase.getMetricName())
+                .append(";dur=").append(millis(timing[0]))
+                .append(";desc=\"").append(phase.getDescription()).append(" (").append((int) timing[1]).append(")\", "));
+        return header.append("total;dur=").append(millis(totalMillis)).toString();
+    }
+
+    private static void log(HttpServletRequest request, int status, Map<Phase, double[]> phases, double totalMillis) {
+        if (!logger.isDebugEnabled()) {
+            return;
+        }
+        // MDC fields end up as separate fields when structured console logging is configured
+        phases.forEach((phase, timing) -> MDC.put("phase." + phase.getMetricName() + ".ms", millis(timing[0])));
+        MDC.put("phase.total.ms", millis(totalMillis));
+        try {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            logger.debug("{} {} {} in {} ms, {}", request.getMethod(), pattern != null ? pattern : "(unmatched)",
+                    status, millis(totalMillis), serverTiming(phases, totalMillis));
+        } finally {
+            phases.keySet().forEach(phase -> MDC.remove("phase." + phase.getMetricName() + ".ms"));
+            MDC.remove("phase.total.ms");
+        }
+    }
+
+    private static String millis(double value) {
+        return String.format(Locale.ROOT, "%.1f", value);
+    }
+}
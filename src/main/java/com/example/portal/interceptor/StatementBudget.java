@@ -0,0 +1,16 @@
+package com.example.portal.interceptor;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Most SQL statements one request to the annotated endpoint may run, overriding
+ * app.query-audit.statement-budget. Exceeding it is logged, and fails the request in strict mode.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface StatementBudget {
+    int value();
+}
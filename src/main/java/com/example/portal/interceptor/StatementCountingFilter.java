@@ -0,0 +1,70 @@
+package com.example.portal.interceptor;
+
+import com.example.portal.service.RequestStatementTracker;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Tracks the SQL statements of every API request, including those run by the security filters,
+ * and attributes them to the matched endpoint pattern once the request is handled.
+ *
+ * In strict mode a request over its statement budget ends in an IllegalStateException, so tests
+ * driving the endpoints fail instead of the budget only being logged.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class StatementCountingFilter extends OncePerRequestFilter {
+
+    private final RequestStatementTracker tracker;
+
+    public StatementCountingFilter(RequestStatementTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        tracker.begin();
+        String violation;
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            violation = tracker.end(endpoint(request), budget(request));
+        }
+        if (violation != null) {
+            throw new IllegalStateException(violation);
+        }
+    }
+
+    private static String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        // Unmatched paths are pooled, so arbitrary URLs cannot grow the statistics
+        return request.getMethod() + " " + (pattern != null ? pattern : "(unmatched)");
+    }
+
+    private static Integer budget(HttpServletRequest request) {
+        Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (handler instanceof HandlerMethod handlerMethod) {
+            StatementBudget budget = handlerMethod.getMethodAnnotation(StatementBudget.class);
+            if (budget != null) {
+                return budget.value();
+            }
+        }
+        return null;
+    }
+}
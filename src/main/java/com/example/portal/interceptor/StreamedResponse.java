@@ -0,0 +1,15 @@
+package com.example.portal.interceptor;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an endpoint that streams its body, such as an export or a recording download.
+ * {@link ServerTimingFilter} never buffers these responses and sends their timings as a trailer.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface StreamedResponse {
+}
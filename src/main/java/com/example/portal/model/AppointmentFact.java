@@ -0,0 +1,33 @@
+package com.example.portal.model;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+
+/**
+ * Flat row with just the appointment fields the reports read, instead of the full object graph
+ */
+@Data
+public class AppointmentFact {
+    private Integer appointmentId;
+    private Integer custId;
+    private Integer vehId;
+    private Integer outletId;
+    private Integer serviceId;
+    private Integer staffId;
+    private String appointmentStatus;
+    private BigDecimal appointmentCost;
+    private Integer appointmentDuration;
+    private Integer actualMinutes;
+    private LocalTime estimatedFinishTime;
+    private Short timeYear;
+    private Short timeMonth;
+    private Short timeDay;
+    private LocalTime timeClocktime;
+    private String serviceType;
+    private String serviceCategory;
+    private Double servicePrice;
+    private String staffName;
+    private String outletName;
+}
@@ -0,0 +1,16 @@
+package com.example.portal.model;
+
+import lombok.Data;
+
+/**
+ * A single item of a bulk appointment update request.
+ * action is either "confirm" (uses staffId and estimatedFinishTime) or "status" (uses status).
+ */
+@Data
+public class AppointmentTransition {
+    private Integer appointmentId;
+    private String action;
+    private String status;
+    private Integer staffId;
+    private String estimatedFinishTime; // HH:mm:ss, only for "confirm"
+}
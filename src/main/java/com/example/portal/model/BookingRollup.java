@@ -0,0 +1,14 @@
+package com.example.portal.model;
+
+import lombok.Data;
+
+/**
+ * Number of appointments booked for one service at one outlet within one hour
+ */
+@Data
+public class BookingRollup {
+    private Integer outletId;
+    private Integer serviceId;
+    private Long epochHour; // hours since 1970-01-01T00:00Z
+    private Long bookings;
+}
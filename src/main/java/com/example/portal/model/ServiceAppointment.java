@@ -8,6 +8,7 @@ import com.fasterxml.jackson.datatype.jsr310.ser.LocalTimeSerializer;
 import lombok.Data;
 import java.io.Serializable;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 
 @Data
@@ -28,6 +29,10 @@ public class ServiceAppointment implements Serializable {
     @JsonDeserialize(using = LocalTimeDeserializer.class)
     private LocalTime estimatedFinishTime;
 
+    // Set on the moves to IN_PROGRESS and COMPLETED, to measure how long services really take
+    private LocalDateTime actualStartTime;
+    private LocalDateTime actualFinishTime;
+
     // Relationships
     private Customer customer;
     private Object service; // Using Object to handle both ServiceType and LinkedHashMap
@@ -181,4 +186,20 @@ public class ServiceAppointment implements Serializable {
 
         return null;
     }
+
+    /**
+     * Record when work actually started or finished, for a status change from previousStatus
+     * to the current status
+     */
+    public void recordStatusTimestamps(String previousStatus, LocalDateTime now) {
+        if (appointmentStatus == null || appointmentStatus.equals(previousStatus)) {
+            return;
+        }
+        if ("IN_PROGRESS".equals(appointmentStatus)) {
+            actualStartTime = now;
+            actualFinishTime = null;
+        } else if ("COMPLETED".equals(appointmentStatus)) {
+            actualFinishTime = now;
+        }
+    }
 }
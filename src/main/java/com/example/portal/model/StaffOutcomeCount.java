@@ -0,0 +1,17 @@
+package com.example.portal.model;
+
+import lombok.Data;
+
+/**
+ * Number of appointments of one staff member at one outlet that ended with one status on one day
+ */
+@Data
+public class StaffOutcomeCount {
+    private Integer outletId;
+    private Integer staffId;
+    private String appointmentStatus;
+    private Short timeYear;
+    private Short timeMonth;
+    private Short timeDay;
+    private Long appointments;
+}
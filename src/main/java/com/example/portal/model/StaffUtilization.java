@@ -0,0 +1,16 @@
+package com.example.portal.model;
+
+import lombok.Data;
+
+/**
+ * Minutes one staff member was booked at one outlet on one day, overlapping appointments counted once
+ */
+@Data
+public class StaffUtilization {
+    private Integer staffId;
+    private Integer outletId;
+    private Integer dateKey; // yyyyMMdd
+    private Integer bookedMinutes;
+    private Integer appointments;
+    private Integer busyBlocks; // runs of back-to-back or overlapping appointments
+}
@@ -13,6 +13,15 @@ public interface NotificationMapper {
     @Options(useGeneratedKeys = true, keyProperty = "notificationId")
     int insert(Notification notification);
 
+    @Insert("<script>" +
+            "INSERT INTO NOTIFICATION (user_id, user_type, title, message, type, is_read, created_at, link) VALUES " +
+            "<foreach item='n' collection='list' separator=','>" +
+            "(#{n.userId}, #{n.userType}, #{n.title}, #{n.message}, #{n.type}, #{n.read}, #{n.createdAt}, #{n.link})" +
+            "</foreach>" +
+            "</script>")
+    @Options(useGeneratedKeys = true, keyProperty = "notificationId")
+    int insertAll(List<Notification> notifications);
+
     @Select("SELECT notification_id as notificationId, user_id as userId, user_type as userType, " +
             "title, message, type, is_read as `read`, created_at as createdAt, link " +
             "FROM NOTIFICATION WHERE notification_id = #{notificationId}")
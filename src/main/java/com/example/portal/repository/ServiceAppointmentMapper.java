@@ -1,8 +1,16 @@
 package com.example.portal.repository;
 
+import com.example.portal.model.AppointmentFact;
+import com.example.portal.model.BookingRollup;
 import com.example.portal.model.ServiceAppointment;
+import com.example.portal.model.StaffOutcomeCount;
+import com.example.portal.model.StaffUtilization;
 import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Mapper
@@ -20,6 +28,8 @@ public interface ServiceAppointmentMapper {
         @Result(property = "appointmentDuration", column = "appointment_duration"),
         @Result(property = "appointmentStatus", column = "appointment_status"),
         @Result(property = "estimatedFinishTime", column = "estimated_finish_time"),
+        @Result(property = "actualStartTime", column = "actual_start_time"),
+        @Result(property = "actualFinishTime", column = "actual_finish_time"),
         @Result(property = "customer", javaType = com.example.portal.model.Customer.class,
                 column = "cust_id", one = @One(select = "com.example.portal.repository.CustomerMapper.findById")),
         @Result(property = "service", javaType = com.example.portal.model.ServiceType.class,
@@ -37,6 +47,12 @@ public interface ServiceAppointmentMapper {
     @Select("SELECT * FROM SERVICEAPPOINTMENT WHERE appointment_id = #{appointmentId}")
     ServiceAppointment findById(Integer appointmentId);
 
+    @Select("<script>" +
+            "SELECT * FROM SERVICEAPPOINTMENT WHERE appointment_id IN " +
+            "<foreach item='id' collection='appointmentIds' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<ServiceAppointment> findByIds(@Param("appointmentIds") List<Integer> appointmentIds);
+
     @Select("SELECT * FROM SERVICEAPPOINTMENT WHERE cust_id = #{custId}")
     List<ServiceAppointment> findByCustomerId(Integer custId);
 
@@ -76,9 +92,15 @@ public interface ServiceAppointmentMapper {
             "JOIN VEHICLE v ON sa.veh_id = v.veh_id " +
             "JOIN STAFF st ON sa.staff_id = st.staff_id " +
             "WHERE sa.staff_id = #{staffId} " +
-            "AND t.time_year = #{year} AND t.time_month = #{month} AND t.time_day = #{day}")
+            "AND t.slot_start >= #{from} AND t.slot_start < #{to}")
     @ResultMap("appointmentResultMap")
-    List<ServiceAppointment> findByStaffIdAndDateWithDetails(Integer staffId, Short year, Short month, Short day);
+    List<ServiceAppointment> findByStaffIdAndSlotRangeWithDetails(@Param("staffId") Integer staffId,
+                                                                  @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    default List<ServiceAppointment> findByStaffIdAndDateWithDetails(Integer staffId, Short year, Short month, Short day) {
+        LocalDateTime start = LocalDate.of(year, month, day).atStartOfDay();
+        return findByStaffIdAndSlotRangeWithDetails(staffId, start, start.plusDays(1));
+    }
 
     @Select("SELECT * FROM SERVICEAPPOINTMENT WHERE outlet_id = #{outletId}")
     List<ServiceAppointment> findByOutletId(Integer outletId);
@@ -104,21 +126,104 @@ public interface ServiceAppointmentMapper {
             "JOIN VEHICLE v ON sa.veh_id = v.veh_id " +
             "JOIN STAFF st ON sa.staff_id = st.staff_id " +
             "WHERE sa.outlet_id = #{outletId} " +
-            "AND t.time_year = #{year} AND t.time_month = #{month} AND t.time_day = #{day}")
+            "AND t.slot_start >= #{from} AND t.slot_start < #{to}")
     @ResultMap("appointmentResultMap")
-    List<ServiceAppointment> findByOutletIdAndDate(Integer outletId, Short year, Short month, Short day);
+    List<ServiceAppointment> findByOutletIdAndSlotRange(@Param("outletId") Integer outletId,
+                                                        @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    default List<ServiceAppointment> findByOutletIdAndDate(Integer outletId, Short year, Short month, Short day) {
+        LocalDateTime start = LocalDate.of(year, month, day).atStartOfDay();
+        return findByOutletIdAndSlotRange(outletId, start, start.plusDays(1));
+    }
+
+    @Select("SELECT sa.*, c.*, s.*, so.*, t.*, v.*, st.* " +
+            "FROM SERVICEAPPOINTMENT sa " +
+            "JOIN CUSTOMER c ON sa.cust_id = c.cust_id " +
+            "JOIN SERVICE s ON sa.service_id = s.service_id " +
+            "JOIN SERVICEOUTLET so ON sa.outlet_id = so.outlet_id " +
+            "JOIN TIME t ON sa.time_id = t.time_id " +
+            "JOIN VEHICLE v ON sa.veh_id = v.veh_id " +
+            "JOIN STAFF st ON sa.staff_id = st.staff_id " +
+            "WHERE t.slot_start >= STR_TO_DATE(#{fromDate}, '%Y%m%d') AND t.slot_start < STR_TO_DATE(#{toDate}, '%Y%m%d') + INTERVAL 1 DAY")
+    @ResultMap("appointmentResultMap")
+    List<ServiceAppointment> findByDateRangeWithDetails(int fromDate, int toDate);
+
+    @Select("SELECT sa.appointment_id, sa.outlet_id, sa.staff_id, sa.time_id, sa.appointment_status, " +
+            "sa.estimated_finish_time, t.time_year, t.time_month, t.time_day " +
+            "FROM SERVICEAPPOINTMENT sa " +
+            "JOIN TIME t ON sa.time_id = t.time_id " +
+            "WHERE t.slot_start >= STR_TO_DATE(#{fromDate}, '%Y%m%d') AND t.slot_start < STR_TO_DATE(#{toDate}, '%Y%m%d') + INTERVAL 1 DAY")
+    @Results({
+        @Result(property = "appointmentId", column = "appointment_id"),
+        @Result(property = "outletId", column = "outlet_id"),
+        @Result(property = "staffId", column = "staff_id"),
+        @Result(property = "timeId", column = "time_id"),
+        @Result(property = "appointmentStatus", column = "appointment_status"),
+        @Result(property = "estimatedFinishTime", column = "estimated_finish_time"),
+        @Result(property = "timeSlot.timeYear", column = "time_year"),
+        @Result(property = "timeSlot.timeMonth", column = "time_month"),
+        @Result(property = "timeSlot.timeDay", column = "time_day")
+    })
+    List<ServiceAppointment> findStateByDateRange(int fromDate, int toDate);
+
+    @Select("SELECT sa.appointment_id, sa.outlet_id, sa.staff_id, sa.appointment_duration, " +
+            "sa.appointment_status, sa.estimated_finish_time, t.time_clocktime " +
+            "FROM SERVICEAPPOINTMENT sa " +
+            "JOIN TIME t ON sa.time_id = t.time_id " +
+            "WHERE sa.outlet_id = #{outletId} " +
+            "AND t.slot_start >= #{from} AND t.slot_start < #{to}")
+    @Results(id = "scheduleEntryResultMap", value = {
+        @Result(property = "appointmentId", column = "appointment_id"),
+        @Result(property = "outletId", column = "outlet_id"),
+        @Result(property = "staffId", column = "staff_id"),
+        @Result(property = "appointmentDuration", column = "appointment_duration"),
+        @Result(property = "appointmentStatus", column = "appointment_status"),
+        @Result(property = "estimatedFinishTime", column = "estimated_finish_time"),
+        @Result(property = "timeSlot.timeClocktime", column = "time_clocktime")
+    })
+    List<ServiceAppointment> findScheduleByOutletIdAndSlotRange(@Param("outletId") Integer outletId,
+                                                                @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    default List<ServiceAppointment> findScheduleByOutletIdAndDate(Integer outletId, Short year, Short month, Short day) {
+        LocalDateTime start = LocalDate.of(year, month, day).atStartOfDay();
+        return findScheduleByOutletIdAndSlotRange(outletId, start, start.plusDays(1));
+    }
+
+    @Select("SELECT sa.*, t.time_year, t.time_month, t.time_day, t.time_clocktime " +
+            "FROM SERVICEAPPOINTMENT sa " +
+            "JOIN TIME t ON sa.time_id = t.time_id " +
+            "WHERE sa.outlet_id = #{outletId} AND sa.appointment_status = #{status} " +
+            "AND t.slot_start >= #{from} AND t.slot_start < #{to} " +
+            "ORDER BY t.slot_start, sa.appointment_id")
+    @Results({
+        @Result(property = "timeSlot.timeId", column = "time_id"),
+        @Result(property = "timeId", column = "time_id"),
+        @Result(property = "timeSlot.timeYear", column = "time_year"),
+        @Result(property = "timeSlot.timeMonth", column = "time_month"),
+        @Result(property = "timeSlot.timeDay", column = "time_day"),
+        @Result(property = "timeSlot.timeClocktime", column = "time_clocktime")
+    })
+    List<ServiceAppointment> findByOutletIdSlotRangeAndStatus(@Param("outletId") Integer outletId,
+                                                              @Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                                              @Param("status") String status);
+
+    default List<ServiceAppointment> findByOutletIdDateAndStatus(Integer outletId, Short year, Short month, Short day, String status) {
+        LocalDateTime start = LocalDate.of(year, month, day).atStartOfDay();
+        return findByOutletIdSlotRangeAndStatus(outletId, start, start.plusDays(1), status);
+    }
 
     @Insert("INSERT INTO SERVICEAPPOINTMENT (cust_id, service_id, outlet_id, time_id, veh_id, staff_id, " +
-            "appointment_cost, appointment_duration, appointment_status, estimated_finish_time) " +
+            "appointment_cost, appointment_duration, appointment_status, estimated_finish_time, created_at) " +
             "VALUES (#{custId}, #{serviceId}, #{outletId}, #{timeId}, #{vehId}, #{staffId}, " +
-            "#{appointmentCost}, #{appointmentDuration}, #{appointmentStatus}, #{estimatedFinishTime})")
+            "#{appointmentCost}, #{appointmentDuration}, #{appointmentStatus}, #{estimatedFinishTime}, CURRENT_TIMESTAMP)")
     @Options(useGeneratedKeys = true, keyProperty = "appointmentId")
     int insert(ServiceAppointment appointment);
 
     @Update("UPDATE SERVICEAPPOINTMENT SET cust_id = #{custId}, service_id = #{serviceId}, " +
             "outlet_id = #{outletId}, time_id = #{timeId}, veh_id = #{vehId}, staff_id = #{staffId}, " +
             "appointment_cost = #{appointmentCost}, appointment_duration = #{appointmentDuration}, " +
-            "appointment_status = #{appointmentStatus}, estimated_finish_time = #{estimatedFinishTime} " +
+            "appointment_status = #{appointmentStatus}, estimated_finish_time = #{estimatedFinishTime}, " +
+            "actual_start_time = #{actualStartTime}, actual_finish_time = #{actualFinishTime} " +
             "WHERE appointment_id = #{appointmentId}")
     int update(ServiceAppointment appointment);
 
@@ -137,6 +242,21 @@ public interface ServiceAppointmentMapper {
     @ResultMap("appointmentResultMap")
     ServiceAppointment findByIdWithDetails(Integer appointmentId);
 
+    @Select("<script>" +
+            "SELECT sa.*, c.*, s.*, so.*, t.*, v.*, st.* " +
+            "FROM SERVICEAPPOINTMENT sa " +
+            "JOIN CUSTOMER c ON sa.cust_id = c.cust_id " +
+            "JOIN SERVICE s ON sa.service_id = s.service_id " +
+            "JOIN SERVICEOUTLET so ON sa.outlet_id = so.outlet_id " +
+            "JOIN TIME t ON sa.time_id = t.time_id " +
+            "JOIN VEHICLE v ON sa.veh_id = v.veh_id " +
+            "JOIN STAFF st ON sa.staff_id = st.staff_id " +
+            "WHERE sa.appointment_id IN " +
+            "<foreach item='id' collection='appointmentIds' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    @ResultMap("appointmentResultMap")
+    List<ServiceAppointment> findByIdsWithDetails(@Param("appointmentIds") List<Integer> appointmentIds);
+
     @Select("SELECT sa.*, c.*, s.*, so.*, t.*, v.*, st.* " +
             "FROM SERVICEAPPOINTMENT sa " +
             "JOIN CUSTOMER c ON sa.cust_id = c.cust_id " +
@@ -147,4 +267,124 @@ public interface ServiceAppointmentMapper {
             "LEFT JOIN STAFF st ON sa.staff_id = st.staff_id")
     @ResultMap("appointmentResultMap")
     List<ServiceAppointment> findAllWithDetails();
+
+    @Select("SELECT sa.appointment_id, sa.cust_id, sa.veh_id, sa.outlet_id, sa.service_id, sa.staff_id, " +
+            "sa.appointment_status, sa.appointment_cost, sa.appointment_duration, " +
+            "t.time_year, t.time_month, t.time_day, t.time_clocktime, " +
+            "s.service_type, s.service_category, s.service_price, st.staff_name " +
+            "FROM SERVICEAPPOINTMENT sa " +
+            "JOIN SERVICE s ON sa.service_id = s.service_id " +
+            "JOIN TIME t ON sa.time_id = t.time_id " +
+            "LEFT JOIN STAFF st ON sa.staff_id = st.staff_id")
+    List<AppointmentFact> findAllFacts();
+
+    @Select("SELECT sa.appointment_id, sa.cust_id, sa.veh_id, sa.outlet_id, sa.service_id, sa.staff_id, " +
+            "sa.appointment_status, sa.appointment_cost, t.time_year, t.time_month, t.time_day, t.time_clocktime " +
+            "FROM SERVICEAPPOINTMENT sa " +
+            "JOIN TIME t ON sa.time_id = t.time_id " +
+            "ORDER BY sa.appointment_id")
+    @Options(fetchSize = Integer.MIN_VALUE, resultSetType = ResultSetType.FORWARD_ONLY) // MySQL streams rows with this fetch size
+    Cursor<AppointmentFact> scanAllFacts();
+
+    @Select("<script>" +
+            "SELECT sa.appointment_id, sa.cust_id, sa.veh_id, sa.outlet_id, sa.service_id, sa.staff_id, " +
+            "sa.appointment_status, sa.appointment_cost, sa.appointment_duration, sa.estimated_finish_time, " +
+            "t.time_year, t.time_month, t.time_day, t.time_clocktime, " +
+            "s.service_type, s.service_category, st.staff_name, so.outlet_name " +
+            "FROM SERVICEAPPOINTMENT sa " +
+            "JOIN SERVICE s ON sa.service_id = s.service_id " +
+            "JOIN SERVICEOUTLET so ON sa.outlet_id = so.outlet_id " +
+            "JOIN TIME t ON sa.time_id = t.time_id " +
+            "LEFT JOIN STAFF st ON sa.staff_id = st.staff_id " +
+            "<where>" +
+            "<if test='fromDate != null'>AND t.slot_start &gt;= STR_TO_DATE(#{fromDate}, '%Y%m%d') </if>" +
+            "<if test='toDate != null'>AND t.slot_start &lt; STR_TO_DATE(#{toDate}, '%Y%m%d') + INTERVAL 1 DAY </if>" +
+            "<if test='outletId != null'>AND sa.outlet_id = #{outletId} </if>" +
+            "<if test='status != null'>AND sa.appointment_status = #{status} </if>" +
+            "</where>" +
+            "ORDER BY sa.appointment_id" +
+            "</script>")
+    @Options(fetchSize = Integer.MIN_VALUE, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<AppointmentFact> scanFactsForExport(@Param("fromDate") Integer fromDate, @Param("toDate") Integer toDate,
+                                               @Param("outletId") Integer outletId, @Param("status") String status);
+
+    @Select("SELECT sa.appointment_id, sa.cust_id, sa.veh_id, sa.outlet_id, sa.service_id, sa.staff_id, " +
+            "t.time_year, t.time_month, t.time_day " +
+            "FROM SERVICEAPPOINTMENT sa " +
+            "JOIN TIME t ON sa.time_id = t.time_id " +
+            "WHERE sa.appointment_status = 'COMPLETED'")
+    @Options(fetchSize = Integer.MIN_VALUE, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<AppointmentFact> scanCompletedFacts();
+
+    @Select("SELECT sa.appointment_id, sa.service_id, sa.staff_id, sa.appointment_duration, " +
+            "TIMESTAMPDIFF(MINUTE, sa.actual_start_time, sa.actual_finish_time) AS actual_minutes " +
+            "FROM SERVICEAPPOINTMENT sa " +
+            "WHERE sa.appointment_status = 'COMPLETED' " +
+            "AND sa.actual_start_time IS NOT NULL AND sa.actual_finish_time IS NOT NULL")
+    @Options(fetchSize = Integer.MIN_VALUE, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<AppointmentFact> scanActualDurations();
+
+    @Select("SELECT COALESCE(MAX(appointment_id), 0) FROM SERVICEAPPOINTMENT")
+    int findMaxAppointmentId();
+
+    @Select("SELECT outlet_id, service_id, FLOOR(UNIX_TIMESTAMP(created_at) / 3600) AS epoch_hour, COUNT(*) AS bookings " +
+            "FROM SERVICEAPPOINTMENT " +
+            "WHERE created_at >= FROM_UNIXTIME(#{sinceEpochSecond}) AND appointment_id <= #{maxAppointmentId} " +
+            "GROUP BY outlet_id, service_id, epoch_hour")
+    List<BookingRollup> countBookingsByHour(@Param("sinceEpochSecond") long sinceEpochSecond,
+                                            @Param("maxAppointmentId") int maxAppointmentId);
+
+    @Select("SELECT sa.outlet_id, sa.staff_id, sa.appointment_status, t.time_year, t.time_month, t.time_day, " +
+            "COUNT(*) AS appointments " +
+            "FROM SERVICEAPPOINTMENT sa " +
+            "JOIN TIME t ON sa.time_id = t.time_id " +
+            "WHERE sa.appointment_status IN ('COMPLETED', 'CANCELLED') " +
+            "AND t.slot_start >= STR_TO_DATE(#{fromDate}, '%Y%m%d') " +
+            "GROUP BY sa.outlet_id, sa.staff_id, sa.appointment_status, t.time_year, t.time_month, t.time_day")
+    List<StaffOutcomeCount> countStaffOutcomesByDay(@Param("fromDate") int fromDate);
+
+    /**
+     * Booked minutes per staff member, outlet and day. Overlapping appointments are merged into
+     * busy blocks (gaps and islands): an appointment starts a new block unless it begins before
+     * the latest end of the earlier appointments of that staff day.
+     */
+    @Select("<script>" +
+            "WITH intervals AS (" +
+            "  SELECT sa.staff_id, sa.outlet_id, " +
+            "    t.time_year * 10000 + t.time_month * 100 + t.time_day AS date_key, " +
+            "    TIME_TO_SEC(t.time_clocktime) DIV 60 AS start_minute, " +
+            "    CASE WHEN sa.estimated_finish_time IS NOT NULL " +
+            "           AND TIME_TO_SEC(sa.estimated_finish_time) &gt; TIME_TO_SEC(t.time_clocktime) " +
+            "         THEN TIME_TO_SEC(sa.estimated_finish_time) DIV 60 " +
+            "         ELSE TIME_TO_SEC(t.time_clocktime) DIV 60 + COALESCE(NULLIF(sa.appointment_duration, 0), 60) " +
+            "    END AS end_minute " +
+            "  FROM SERVICEAPPOINTMENT sa " +
+            "  JOIN TIME t ON sa.time_id = t.time_id " +
+            "  WHERE sa.appointment_status IN ('SCHEDULED', 'IN_PROGRESS', 'COMPLETED') " +
+            "    AND sa.staff_id &lt;&gt; 9999 " +
+            "    AND t.slot_start &gt;= STR_TO_DATE(#{fromDate}, '%Y%m%d') AND t.slot_start &lt; STR_TO_DATE(#{toDate}, '%Y%m%d') + INTERVAL 1 DAY " +
+            "    <if test='outletId != null'>AND sa.outlet_id = #{outletId} </if>" +
+            "), marked AS (" +
+            "  SELECT i.*, CASE WHEN start_minute &lt; MAX(end_minute) OVER (" +
+            "      PARTITION BY staff_id, outlet_id, date_key ORDER BY start_minute, end_minute " +
+            "      ROWS BETWEEN UNBOUNDED PRECEDING AND 1 PRECEDING) THEN 0 ELSE 1 END AS block_start " +
+            "  FROM intervals i" +
+            "), numbered AS (" +
+            "  SELECT m.*, SUM(block_start) OVER (" +
+            "      PARTITION BY staff_id, outlet_id, date_key ORDER BY start_minute, end_minute " +
+            "      ROWS UNBOUNDED PRECEDING) AS block " +
+            "  FROM marked m" +
+            "), blocks AS (" +
+            "  SELECT staff_id, outlet_id, date_key, MAX(end_minute) - MIN(start_minute) AS minutes, COUNT(*) AS appointments " +
+            "  FROM numbered " +
+            "  GROUP BY staff_id, outlet_id, date_key, block" +
+            ") " +
+            "SELECT staff_id, outlet_id, date_key, SUM(minutes) AS booked_minutes, " +
+            "  SUM(appointments) AS appointments, COUNT(*) AS busy_blocks " +
+            "FROM blocks " +
+            "GROUP BY staff_id, outlet_id, date_key " +
+            "ORDER BY date_key, outlet_id, staff_id" +
+            "</script>")
+    List<StaffUtilization> findStaffUtilization(@Param("fromDate") int fromDate, @Param("toDate") int toDate,
+                                                @Param("outletId") Integer outletId);
 }
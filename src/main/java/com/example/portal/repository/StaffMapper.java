@@ -34,6 +34,23 @@ public interface StaffMapper {
     })
     List<Staff> findByOutletId(Integer outletId);
 
+    @Select("SELECT * FROM STAFF")
+    @Results({
+        @Result(property = "staffId", column = "staff_id"),
+        @Result(property = "staffName", column = "staff_name"),
+        @Result(property = "staffRole", column = "staff_role"),
+        @Result(property = "staffPhone", column = "staff_phone"),
+        @Result(property = "staffPassword", column = "staff_password"),
+        @Result(property = "outletId", column = "outlet_id")
+    })
+    List<Staff> findAll();
+
+    @Select("<script>" +
+            "SELECT * FROM STAFF WHERE staff_id IN " +
+            "<foreach item='id' collection='staffIds' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<Staff> findByIds(@Param("staffIds") List<Integer> staffIds);
+
     @Insert("INSERT INTO STAFF (staff_name, staff_role, staff_phone, staff_password, outlet_id) " +
             "VALUES (#{staffName}, #{staffRole}, #{staffPhone}, #{staffPassword}, #{outletId})")
     @Options(useGeneratedKeys = true, keyProperty = "staffId")
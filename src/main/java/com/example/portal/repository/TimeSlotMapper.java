@@ -3,6 +3,8 @@ package com.example.portal.repository;
 import com.example.portal.model.TimeSlot;
 import org.apache.ibatis.annotations.*;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.List;
 
@@ -12,12 +14,33 @@ public interface TimeSlotMapper {
     @Select("SELECT * FROM TIME WHERE time_id = #{timeId}")
     TimeSlot findById(Integer timeId);
 
-    @Select("SELECT * FROM TIME WHERE time_year = #{year} AND time_month = #{month} AND time_day = #{day}")
-    List<TimeSlot> findByDate(Short year, Short month, Short day);
-
-    @Select("SELECT * FROM TIME WHERE time_year = #{year} AND time_month = #{month} " +
-            "AND time_day = #{day} AND time_clocktime = #{time}")
-    List<TimeSlot> findByDateAndTime(Short year, Short month, Short day, LocalTime time);
+    @Select("<script>" +
+            "SELECT * FROM TIME WHERE time_id IN " +
+            "<foreach item='id' collection='timeIds' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<TimeSlot> findByIds(@Param("timeIds") List<Integer> timeIds);
+
+    @Select("SELECT * FROM TIME WHERE slot_start >= #{from} AND slot_start < #{to} ORDER BY slot_start")
+    List<TimeSlot> findBySlotRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Select("SELECT * FROM TIME WHERE slot_start = #{slotStart}")
+    List<TimeSlot> findBySlotStart(LocalDateTime slotStart);
+
+    default List<TimeSlot> findByDate(Short year, Short month, Short day) {
+        LocalDateTime start = LocalDate.of(year, month, day).atStartOfDay();
+        return findBySlotRange(start, start.plusDays(1));
+    }
+
+    /**
+     * Time slots of the days from fromDate to toDate inclusive, both given as yyyyMMdd
+     */
+    @Select("SELECT * FROM TIME WHERE slot_start >= STR_TO_DATE(#{fromDate}, '%Y%m%d') " +
+            "AND slot_start < STR_TO_DATE(#{toDate}, '%Y%m%d') + INTERVAL 1 DAY")
+    List<TimeSlot> findByDateRange(int fromDate, int toDate);
+
+    default List<TimeSlot> findByDateAndTime(Short year, Short month, Short day, LocalTime time) {
+        return findBySlotStart(LocalDate.of(year, month, day).atTime(time));
+    }
 
     @Insert("INSERT INTO TIME (time_year, time_quarter, time_month, time_day, time_clocktime) " +
             "VALUES (#{timeYear}, #{timeQuarter}, #{timeMonth}, #{timeDay}, #{timeClocktime})")
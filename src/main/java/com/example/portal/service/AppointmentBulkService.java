@@ -0,0 +1,323 @@
+package com.example.portal.service;
+
+import com.example.portal.model.AppointmentTransition;
+import com.example.portal.model.ServiceAppointment;
+import com.example.portal.model.Staff;
+import com.example.portal.model.TimeSlot;
+import com.example.portal.repository.ServiceAppointmentMapper;
+import com.example.portal.repository.StaffMapper;
+import com.example.portal.repository.TimeSlotMapper;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Applies many appointment transitions (confirm / status change). Status changes are written in
+ * one transaction using MyBatis batch execution; confirmations are validated here and handed back
+ * for the outlets' {@link BookingSequencer}, the only writer of staff assignments.
+ */
+@Service
+public class AppointmentBulkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentBulkService.class);
+
+    private final SqlSessionTemplate batchSqlSession;
+
+    public AppointmentBulkService(SqlSessionFactory sqlSessionFactory) {
+        // A dedicated template so that updates are queued as JDBC batches instead of executed one by one
+        this.batchSqlSession = new SqlSessionTemplate(sqlSessionFactory, ExecutorType.BATCH);
+    }
+
+    /**
+     * Validate and apply all transitions. Invalid items are reported and skipped, valid status
+     * changes are written with a single batch flush. Valid confirmations are not written: they come
+     * back as {@link BulkResult#getConfirmations()} to be submitted to the booking sequencer, with
+     * their results completed through {@link BulkResult#completeConfirmation}. Every mapper call in
+     * here must go through the batch session because the executor type cannot change inside a transaction.
+     */
+    @Transactional
+    public BulkResult applyTransitions(List<AppointmentTransition> transitions) {
+        ServiceAppointmentMapper appointmentMapper = batchSqlSession.getMapper(ServiceAppointmentMapper.class);
+        StaffMapper staffMapper = batchSqlSession.getMapper(StaffMapper.class);
+        TimeSlotMapper timeSlotMapper = batchSqlSession.getMapper(TimeSlotMapper.class);
+
+        // Load everything the transitions refer to up front, one query per table
+        Set<Integer> appointmentIds = new LinkedHashSet<>();
+        Set<Integer> staffIds = new LinkedHashSet<>();
+        for (AppointmentTransition transition : transitions) {
+            if (transition == null) continue;
+            if (transition.getAppointmentId() != null) appointmentIds.add(transition.getAppointmentId());
+            if (transition.getStaffId() != null) staffIds.add(transition.getStaffId());
+        }
+
+        Map<Integer, ServiceAppointment> appointments = new HashMap<>();
+        if (!appointmentIds.isEmpty()) {
+            for (ServiceAppointment appointment : appointmentMapper.findByIds(new ArrayList<>(appointmentIds))) {
+                appointments.put(appointment.getAppointmentId(), appointment);
+            }
+        }
+
+        Map<Integer, Staff> staffById = new HashMap<>();
+        if (!staffIds.isEmpty()) {
+            for (Staff staff : staffMapper.findByIds(new ArrayList<>(staffIds))) {
+                staffById.put(staff.getStaffId(), staff);
+            }
+        }
+
+        // Time slots of the appointments being confirmed, which the sequencer schedules them by
+        Set<Integer> timeIds = new LinkedHashSet<>();
+        for (AppointmentTransition transition : transitions) {
+            if (transition == null || !"confirm".equalsIgnoreCase(transition.getAction())) continue;
+            ServiceAppointment appointment = appointments.get(transition.getAppointmentId());
+            if (appointment != null && appointment.getTimeId() != null) timeIds.add(appointment.getTimeId());
+        }
+        Map<Integer, TimeSlot> timeSlots = new HashMap<>();
+        if (!timeIds.isEmpty()) {
+            for (TimeSlot timeSlot : timeSlotMapper.findByIds(new ArrayList<>(timeIds))) {
+                timeSlots.put(timeSlot.getTimeId(), timeSlot);
+            }
+        }
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        Map<Integer, ServiceAppointment> changed = new LinkedHashMap<>();
+        Map<Integer, String> previousStatuses = new HashMap<>();
+        Map<Integer, Confirmation> confirmations = new LinkedHashMap<>();
+
+        for (int i = 0; i < transitions.size(); i++) {
+            AppointmentTransition transition = transitions.get(i);
+            Integer appointmentId = transition != null ? transition.getAppointmentId() : null;
+            ServiceAppointment appointment = appointmentId != null ? appointments.get(appointmentId) : null;
+
+            String error = null;
+            if (transition == null || appointmentId == null) {
+                error = "Appointment ID is required";
+            } else if (appointment == null) {
+                error = "Appointment not found";
+            } else if (confirmations.containsKey(appointmentId)) {
+                error = "A confirmed appointment cannot take further transitions in the same request";
+            } else if ("confirm".equalsIgnoreCase(transition.getAction())) {
+                if (changed.containsKey(appointmentId)) {
+                    error = "An appointment must be confirmed before other transitions in the same request";
+                } else {
+                    error = prepareConfirmation(appointment, transition, staffById, timeSlots);
+                }
+                if (error == null) {
+                    confirmations.put(appointmentId, new Confirmation(i, appointment));
+                }
+            } else {
+                String previousStatus = appointment.getAppointmentStatus();
+                error = applyStatusTransition(appointment, transition);
+                if (error == null) {
+                    previousStatuses.putIfAbsent(appointmentId, previousStatus);
+                    changed.put(appointmentId, appointment);
+                }
+            }
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("index", i);
+            result.put("appointmentId", appointmentId);
+            if (error == null && confirmations.containsKey(appointmentId)) {
+                // Completed once the sequencer has accepted or rejected the confirmation
+                results.add(result);
+                continue;
+            }
+            result.put("success", error == null);
+            if (error == null) {
+                result.put("status", appointment.getAppointmentStatus());
+                result.put("staffId", appointment.getStaffId());
+            } else {
+                result.put("error", error);
+            }
+            results.add(result);
+        }
+
+        // Each appointment is written once with its final state, however many transitions touched it
+        for (ServiceAppointment appointment : changed.values()) {
+            appointmentMapper.update(appointment);
+        }
+        if (!changed.isEmpty()) {
+            batchSqlSession.flushStatements();
+        }
+
+        logger.debug("Bulk update applied {} of {} transitions to {} appointments, {} confirmations to sequence",
+                results.stream().filter(r -> Boolean.TRUE.equals(r.get("success"))).count(),
+                transitions.size(), changed.size(), confirmations.size());
+
+        return new BulkResult(results, new ArrayList<>(changed.keySet()), previousStatuses,
+                new ArrayList<>(confirmations.values()));
+    }
+
+    /**
+     * Insert and update appointments in one transaction with a single batch flush.
+     * Generated IDs are set on the inserted appointments once this returns.
+     */
+    @Transactional
+    public void persist(List<ServiceAppointment> inserts, List<ServiceAppointment> updates) {
+        ServiceAppointmentMapper appointmentMapper = batchSqlSession.getMapper(ServiceAppointmentMapper.class);
+
+        for (ServiceAppointment appointment : inserts) {
+            appointmentMapper.insert(appointment);
+        }
+        for (ServiceAppointment appointment : updates) {
+            appointmentMapper.update(appointment);
+        }
+        if (!inserts.isEmpty() || !updates.isEmpty()) {
+            batchSqlSession.flushStatements();
+        }
+    }
+
+    /**
+     * Validate a confirm transition and set the appointment's new status, staff and estimated finish
+     * time, as the booking sequencer expects them. Staff left unset are assigned by the sequencer.
+     * @return an error message, or null if the confirmation can be submitted
+     */
+    private String prepareConfirmation(ServiceAppointment appointment, AppointmentTransition transition,
+                                       Map<Integer, Staff> staffById, Map<Integer, TimeSlot> timeSlots) {
+        if (!"PENDING".equals(appointment.getAppointmentStatus())) {
+            return "Only pending appointments can be confirmed";
+        }
+
+        LocalTime estimatedFinishTime = null;
+        String finishTime = transition.getEstimatedFinishTime();
+        if (finishTime != null && !finishTime.isEmpty()) {
+            try {
+                estimatedFinishTime = LocalTime.parse(finishTime);
+            } catch (DateTimeParseException e) {
+                return "Invalid time format for estimated finish time. Use HH:MM:SS format.";
+            }
+        }
+
+        Integer staffId = transition.getStaffId();
+        if (staffId != null && !staffById.containsKey(staffId)) {
+            return "Staff with ID " + staffId + " not found";
+        }
+
+        TimeSlot timeSlot = timeSlots.get(appointment.getTimeId());
+        if (timeSlot == null || timeSlot.getTimeClocktime() == null) {
+            return "Appointment has no valid time slot";
+        }
+
+        appointment.setAppointmentStatus("SCHEDULED");
+        if (estimatedFinishTime != null) {
+            appointment.setEstimatedFinishTime(estimatedFinishTime);
+        }
+        if (staffId != null) {
+            appointment.setStaffId(staffId);
+        }
+        appointment.setTimeSlot(timeSlot);
+        return null;
+    }
+
+    /**
+     * Apply one status transition to the in-memory appointment
+     * @return an error message, or null if the transition was applied
+     */
+    private String applyStatusTransition(ServiceAppointment appointment, AppointmentTransition transition) {
+        String action = transition.getAction();
+        if ("status".equalsIgnoreCase(action)) {
+            String newStatus = transition.getStatus();
+            if (newStatus == null || newStatus.isEmpty()) {
+                return "Status cannot be empty";
+            }
+            String previousStatus = appointment.getAppointmentStatus();
+            appointment.setAppointmentStatus(newStatus);
+            appointment.recordStatusTimestamps(previousStatus, LocalDateTime.now());
+            return null;
+        }
+
+        return "Unknown action: " + action + ". Use 'confirm' or 'status'";
+    }
+
+    /**
+     * A validated confirm transition waiting for the booking sequencer
+     */
+    public static class Confirmation {
+        private final int index;
+        private final ServiceAppointment appointment;
+
+        Confirmation(int index, ServiceAppointment appointment) {
+            this.index = index;
+            this.appointment = appointment;
+        }
+
+        /**
+         * Position of the transition in the request
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * The appointment with its new status, staff, estimated finish time and time slot set
+         */
+        public ServiceAppointment getAppointment() {
+            return appointment;
+        }
+    }
+
+    /**
+     * Outcome of a bulk update: per-item results plus the appointments that were written
+     */
+    public static class BulkResult {
+        private final List<Map<String, Object>> results;
+        private final List<Integer> changedAppointmentIds;
+        private final Map<Integer, String> previousStatuses;
+        private final List<Confirmation> confirmations;
+
+        public BulkResult(List<Map<String, Object>> results, List<Integer> changedAppointmentIds,
+                          Map<Integer, String> previousStatuses, List<Confirmation> confirmations) {
+            this.results = results;
+            this.changedAppointmentIds = changedAppointmentIds;
+            this.previousStatuses = previousStatuses;
+            this.confirmations = confirmations;
+        }
+
+        /**
+         * Record the sequencer's outcome for a confirmation; accepted ones count as changed
+         */
+        public void completeConfirmation(Confirmation confirmation, BookingSequencer.Outcome outcome) {
+            ServiceAppointment appointment = confirmation.getAppointment();
+            Map<String, Object> result = results.get(confirmation.getIndex());
+            result.put("success", outcome.isAccepted());
+            if (outcome.isAccepted()) {
+                result.put("status", appointment.getAppointmentStatus());
+                result.put("staffId", appointment.getStaffId());
+                changedAppointmentIds.add(appointment.getAppointmentId());
+                previousStatuses.put(appointment.getAppointmentId(), "PENDING");
+            } else {
+                result.put("error", outcome.getReason());
+            }
+        }
+
+        public List<Map<String, Object>> getResults() {
+            return results;
+        }
+
+        public List<Integer> getChangedAppointmentIds() {
+            return changedAppointmentIds;
+        }
+
+        /**
+         * Confirmations still to be submitted to the booking sequencer
+         */
+        public List<Confirmation> getConfirmations() {
+            return confirmations;
+        }
+
+        /**
+         * Status each changed appointment had before the bulk update
+         */
+        public Map<Integer, String> getPreviousStatuses() {
+            return previousStatuses;
+        }
+    }
+}
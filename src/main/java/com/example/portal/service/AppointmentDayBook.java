@@ -0,0 +1,520 @@
+package com.example.portal.service;
+
+import com.example.portal.event.AppointmentChangedEvent;
+import com.example.portal.event.StaffChangedEvent;
+import com.example.portal.model.ServiceAppointment;
+import com.example.portal.model.Staff;
+import com.example.portal.model.TimeSlot;
+import com.example.portal.repository.ServiceAppointmentMapper;
+import com.example.portal.repository.StaffMapper;
+import com.example.portal.repository.TimeSlotMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * In-memory replica of the appointments of the next days, per outlet and date, so that
+ * availability checks and staff schedules do not query MySQL.
+ *
+ * The window [today, today + window-days) is loaded on startup, rolled forward once a day and
+ * kept current from {@link AppointmentChangedEvent}s; staff are reloaded on every
+ * {@link StaffChangedEvent}. A periodic consistency check compares it
+ * with the database and reloads the outlet days that drifted. Until the first load has finished,
+ * {@link #covers(LocalDate)} is false and callers fall back to the database.
+ */
+@Service
+public class AppointmentDayBook {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentDayBook.class);
+
+    // A hash map node with its boxed key, and a hash map node keyed by a time the slot already holds
+    private static final long ID_ENTRY_BYTES = 48;
+    private static final long TIME_ENTRY_BYTES = 32;
+
+    private final ServiceAppointmentMapper appointmentMapper;
+    private final TimeSlotMapper timeSlotMapper;
+    private final StaffMapper staffMapper;
+    private final boolean enabled;
+    private final int windowDays;
+    private final long verifyIntervalMinutes;
+
+    private final Map<Integer, Map<LocalDate, DayPage>> outlets = new ConcurrentHashMap<>();
+    private final Map<LocalDate, Map<LocalTime, TimeSlot>> timeSlots = new ConcurrentHashMap<>();
+    private volatile Map<Integer, Staff> staffById = Collections.emptyMap();
+    private volatile Map<Integer, List<Staff>> staffByOutlet = Collections.emptyMap();
+    // Where each appointment currently sits, so moves between outlets or days can be undone
+    private final Map<Integer, Location> locations = new ConcurrentHashMap<>();
+
+    private volatile LocalDate windowStart;
+    private volatile LocalDate windowEnd;
+    // Events seen while a load is running, replayed on top of the loaded state
+    private volatile Queue<ServiceAppointment> replayBuffer;
+
+    private volatile long lastLoadMillis;
+    private volatile long lastVerifiedAt;
+    private volatile ConsistencyReport lastReport;
+
+    private final ScheduledExecutorService maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "day-book-maintenance");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public AppointmentDayBook(ServiceAppointmentMapper appointmentMapper,
+                              TimeSlotMapper timeSlotMapper,
+                              StaffMapper staffMapper,
+                              @Value("${app.daybook.enabled:true}") boolean enabled,
+                              @Value("${app.daybook.window-days:30}") int windowDays,
+                              @Value("${app.daybook.verify-interval-minutes:15}") long verifyIntervalMinutes) {
+        this.appointmentMapper = appointmentMapper;
+        this.timeSlotMapper = timeSlotMapper;
+        this.staffMapper = staffMapper;
+        this.enabled = enabled;
+        this.windowDays = windowDays;
+        this.verifyIntervalMinutes = verifyIntervalMinutes;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            logger.info("Appointment day book disabled");
+            return;
+        }
+        maintenance.execute(this::roll);
+        // Hourly so the window moves shortly after midnight, a no-op the rest of the day
+        maintenance.scheduleWithFixedDelay(this::roll, 1, 1, TimeUnit.HOURS);
+        maintenance.scheduleWithFixedDelay(() -> verify(true), verifyIntervalMinutes, verifyIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * True if the day book holds the given date and can answer for it
+     */
+    public boolean covers(LocalDate date) {
+        LocalDate start = windowStart;
+        LocalDate end = windowEnd;
+        return start != null && !date.isBefore(start) && !date.isAfter(end);
+    }
+
+    /**
+     * All appointments of an outlet on a covered date, whatever their status
+     */
+    public List<ServiceAppointment> getAppointments(Integer outletId, LocalDate date) {
+        DayPage page = page(outletId, date);
+        return page != null ? new ArrayList<>(page.byId.values()) : new ArrayList<>();
+    }
+
+    /**
+     * All appointments assigned to a staff member on a covered date, whatever their status
+     */
+    public List<ServiceAppointment> getStaffAppointments(Integer staffId, LocalDate date) {
+        Staff staff = staffById.get(staffId);
+        if (staff == null) {
+            return new ArrayList<>();
+        }
+        DayPage page = page(staff.getOutletId(), date);
+        return page != null ? new ArrayList<>(page.byStaff.getOrDefault(staffId, Collections.emptyList())) : new ArrayList<>();
+    }
+
+    public List<Staff> getOutletStaff(Integer outletId) {
+        return staffByOutlet.getOrDefault(outletId, Collections.emptyList());
+    }
+
+    public Staff getStaff(Integer staffId) {
+        return staffById.get(staffId);
+    }
+
+    /**
+     * The stored time slot for a covered date and time, or null if the database has none yet
+     */
+    public TimeSlot findTimeSlot(LocalDate date, LocalTime time) {
+        Map<LocalTime, TimeSlot> slots = timeSlots.get(date);
+        return slots != null ? slots.get(time) : null;
+    }
+
+    /**
+     * Record a time slot that was just inserted
+     */
+    public void recordTimeSlot(TimeSlot timeSlot) {
+        LocalDate date = LocalDate.of(timeSlot.getTimeYear(), timeSlot.getTimeMonth(), timeSlot.getTimeDay());
+        if (covers(date)) {
+            timeSlots.computeIfAbsent(date, d -> new ConcurrentHashMap<>()).putIfAbsent(timeSlot.getTimeClocktime(), timeSlot);
+        }
+    }
+
+    @EventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        ServiceAppointment appointment = event.getAppointment();
+        if (!enabled || appointment.getAppointmentId() == null) {
+            return;
+        }
+        apply(appointment);
+        Queue<ServiceAppointment> buffer = replayBuffer;
+        if (buffer != null) {
+            buffer.add(appointment);
+        }
+    }
+
+    /**
+     * Reload the staff on the maintenance thread once the change is committed, so the outlet
+     * staff used for availability include new members right away
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStaffChanged(StaffChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        maintenance.execute(this::refreshStaff);
+    }
+
+    private synchronized void refreshStaff() {
+        try {
+            reloadStaff();
+        } catch (Exception e) {
+            logger.error("Failed to reload the day book staff", e);
+        }
+    }
+
+    private void apply(ServiceAppointment appointment) {
+        Location previous = locations.remove(appointment.getAppointmentId());
+        if (previous != null) {
+            Map<LocalDate, DayPage> days = outlets.get(previous.outletId);
+            if (days != null) {
+                days.computeIfPresent(previous.date, (d, page) -> page.without(appointment.getAppointmentId()));
+            }
+        }
+
+        LocalDate date = dateOf(appointment);
+        if (date == null || appointment.getOutletId() == null || !covers(date)) {
+            return;
+        }
+        outlets.computeIfAbsent(appointment.getOutletId(), id -> new ConcurrentHashMap<>())
+                .compute(date, (d, page) -> (page != null ? page : DayPage.EMPTY).with(appointment));
+        locations.put(appointment.getAppointmentId(), new Location(appointment.getOutletId(), date));
+        if (appointment.getTimeSlot().getTimeId() != null) {
+            recordTimeSlot(appointment.getTimeSlot());
+        }
+    }
+
+    /**
+     * Move the window to start today: drop past days and load the days that entered it.
+     * Runs on the maintenance thread only.
+     */
+    private synchronized void roll() {
+        LocalDate today = LocalDate.now();
+        if (today.equals(windowStart)) {
+            return;
+        }
+        LocalDate newEnd = today.plusDays(windowDays - 1L);
+        LocalDate loadFrom = windowEnd != null && !windowEnd.isBefore(today) ? windowEnd.plusDays(1) : today;
+
+        try {
+            long started = System.currentTimeMillis();
+            replayBuffer = new ConcurrentLinkedQueue<>();
+            reloadStaff();
+            Map<LocalDate, Map<LocalTime, TimeSlot>> loadedSlots = loadTimeSlots(loadFrom, newEnd);
+            List<ServiceAppointment> loaded = appointmentMapper.findByDateRangeWithDetails(dateKey(loadFrom), dateKey(newEnd));
+
+            // Install the new days, then open the window over them
+            timeSlots.putAll(loadedSlots);
+            for (ServiceAppointment appointment : loaded) {
+                LocalDate date = dateOf(appointment);
+                if (date == null) continue;
+                outlets.computeIfAbsent(appointment.getOutletId(), id -> new ConcurrentHashMap<>())
+                        .compute(date, (d, page) -> (page != null ? page : DayPage.EMPTY).with(appointment));
+                locations.put(appointment.getAppointmentId(), new Location(appointment.getOutletId(), date));
+            }
+            windowEnd = newEnd;
+            windowStart = today;
+            replay();
+
+            evictBefore(today);
+            lastLoadMillis = System.currentTimeMillis() - started;
+            logger.info("Day book window now {} to {}, loaded {} appointments in {} ms",
+                    today, newEnd, loaded.size(), lastLoadMillis);
+        } catch (Exception e) {
+            logger.error("Failed to load the appointment day book from {} to {}", loadFrom, newEnd, e);
+            replayBuffer = null;
+        }
+    }
+
+    private void replay() {
+        Queue<ServiceAppointment> buffer = replayBuffer;
+        ServiceAppointment appointment;
+        while ((appointment = buffer.poll()) != null) {
+            apply(appointment);
+        }
+        replayBuffer = null;
+        // Anything added after the last poll was also applied directly by the listener
+    }
+
+    private void evictBefore(LocalDate date) {
+        for (Map<LocalDate, DayPage> days : outlets.values()) {
+            days.keySet().removeIf(day -> day.isBefore(date));
+        }
+        timeSlots.keySet().removeIf(day -> day.isBefore(date));
+        locations.values().removeIf(location -> location.date.isBefore(date));
+    }
+
+    private void reloadStaff() {
+        Map<Integer, Staff> byId = new HashMap<>();
+        Map<Integer, List<Staff>> byOutlet = new HashMap<>();
+        for (Staff staff : staffMapper.findAll()) {
+            byId.put(staff.getStaffId(), staff);
+            byOutlet.computeIfAbsent(staff.getOutletId(), id -> new ArrayList<>()).add(staff);
+        }
+        staffById = byId;
+        staffByOutlet = byOutlet;
+    }
+
+    private Map<LocalDate, Map<LocalTime, TimeSlot>> loadTimeSlots(LocalDate from, LocalDate to) {
+        Map<LocalDate, Map<LocalTime, TimeSlot>> loaded = new HashMap<>();
+        for (TimeSlot timeSlot : timeSlotMapper.findByDateRange(dateKey(from), dateKey(to))) {
+            LocalDate date = LocalDate.of(timeSlot.getTimeYear(), timeSlot.getTimeMonth(), timeSlot.getTimeDay());
+            // Keep the first slot per time, like the lookups by date and time do
+            loaded.computeIfAbsent(date, d -> new ConcurrentHashMap<>()).putIfAbsent(timeSlot.getTimeClocktime(), timeSlot);
+        }
+        return loaded;
+    }
+
+    /**
+     * Compare the day book with the database over the whole window
+     * @param repair reload the outlet days that differ
+     */
+    public synchronized ConsistencyReport verify(boolean repair) {
+        LocalDate start = windowStart;
+        LocalDate end = windowEnd;
+        if (start == null) {
+            return null;
+        }
+
+        try {
+            List<ServiceAppointment> stored = appointmentMapper.findStateByDateRange(dateKey(start), dateKey(end));
+            Set<Location> drifted = new HashSet<>();
+            Set<Integer> seen = new HashSet<>();
+            for (ServiceAppointment row : stored) {
+                seen.add(row.getAppointmentId());
+                Location location = new Location(row.getOutletId(), dateOf(row));
+                DayPage page = page(row.getOutletId(), location.date);
+                ServiceAppointment cached = page != null ? page.byId.get(row.getAppointmentId()) : null;
+                if (cached == null || !sameState(cached, row)) {
+                    drifted.add(location);
+                    Location cachedLocation = locations.get(row.getAppointmentId());
+                    if (cachedLocation != null) drifted.add(cachedLocation);
+                }
+            }
+            for (Map.Entry<Integer, Location> entry : locations.entrySet()) {
+                if (!seen.contains(entry.getKey())) {
+                    drifted.add(entry.getValue());
+                }
+            }
+
+            if (repair) {
+                reloadStaff();
+                for (Location location : drifted) {
+                    reloadDay(location);
+                }
+            }
+
+            ConsistencyReport report = new ConsistencyReport(stored.size(), drifted.size(), repair);
+            lastVerifiedAt = System.currentTimeMillis();
+            lastReport = report;
+            if (!drifted.isEmpty()) {
+                logger.warn("Day book differed from the database on {} outlet days{}", drifted.size(),
+                        repair ? ", reloaded them" : "");
+            }
+            return report;
+        } catch (Exception e) {
+            logger.error("Day book consistency check failed", e);
+            return null;
+        }
+    }
+
+    private void reloadDay(Location location) {
+        if (!covers(location.date)) {
+            return;
+        }
+        List<ServiceAppointment> appointments = appointmentMapper.findByOutletIdAndDate(location.outletId,
+                (short) location.date.getYear(), (short) location.date.getMonthValue(), (short) location.date.getDayOfMonth());
+        DayPage page = DayPage.EMPTY;
+        for (ServiceAppointment appointment : appointments) {
+            page = page.with(appointment);
+        }
+        DayPage reloaded = page;
+        outlets.computeIfAbsent(location.outletId, id -> new ConcurrentHashMap<>()).put(location.date, reloaded);
+        locations.values().removeIf(l -> l.equals(location));
+        for (Integer appointmentId : reloaded.byId.keySet()) {
+            locations.put(appointmentId, location);
+        }
+    }
+
+    private static boolean sameState(ServiceAppointment cached, ServiceAppointment stored) {
+        return Objects.equals(cached.getStaffId(), stored.getStaffId())
+                && Objects.equals(cached.getTimeId(), stored.getTimeId())
+                && Objects.equals(cached.getAppointmentStatus(), stored.getAppointmentStatus())
+                && Objects.equals(cached.getEstimatedFinishTime(), stored.getEstimatedFinishTime());
+    }
+
+    /**
+     * Size of the day book and the outcome of the last consistency check
+     */
+    public Map<String, Object> getStats() {
+        int days = 0;
+        int appointments = 0;
+        HeapEstimate heap = new HeapEstimate();
+        for (Map<LocalDate, DayPage> outletDays : outlets.values()) {
+            days += outletDays.size();
+            for (DayPage page : outletDays.values()) {
+                appointments += page.byId.size();
+                page.byId.values().forEach(heap::add);
+            }
+        }
+        int slots = 0;
+        for (Map<LocalTime, TimeSlot> daySlots : timeSlots.values()) {
+            slots += daySlots.size();
+            daySlots.values().forEach(heap::add);
+        }
+        Map<Integer, Staff> staffMembers = staffById;
+        int staff = staffMembers.size();
+        staffMembers.values().forEach(heap::add);
+        // Each appointment sits in its page's ID map and in one staff list
+        heap.addOverhead(appointments * (ID_ENTRY_BYTES + 4) + slots * TIME_ENTRY_BYTES + staff * ID_ENTRY_BYTES);
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("windowStart", windowStart != null ? windowStart.toString() : null);
+        stats.put("windowEnd", windowEnd != null ? windowEnd.toString() : null);
+        stats.put("outlets", outlets.size());
+        stats.put("outletDays", days);
+        stats.put("appointments", appointments);
+        stats.put("timeSlots", slots);
+        stats.put("staff", staff);
+        stats.put("estimatedBytes", heap.getBytes());
+        stats.put("lastLoadMillis", lastLoadMillis);
+        stats.put("lastVerifiedAt", lastVerifiedAt > 0 ? Instant.ofEpochMilli(lastVerifiedAt).toString() : null);
+        ConsistencyReport report = lastReport;
+        if (report != null) {
+            stats.put("lastCheckedAppointments", report.getCheckedAppointments());
+            stats.put("lastDriftedOutletDays", report.getDriftedOutletDays());
+        }
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        maintenance.shutdownNow();
+    }
+
+    private DayPage page(Integer outletId, LocalDate date) {
+        Map<LocalDate, DayPage> days = outlets.get(outletId);
+        return days != null ? days.get(date) : null;
+    }
+
+    private static LocalDate dateOf(ServiceAppointment appointment) {
+        TimeSlot timeSlot = appointment.getTimeSlot();
+        if (timeSlot == null || timeSlot.getTimeYear() == null || timeSlot.getTimeMonth() == null || timeSlot.getTimeDay() == null) {
+            return null;
+        }
+        return LocalDate.of(timeSlot.getTimeYear(), timeSlot.getTimeMonth(), timeSlot.getTimeDay());
+    }
+
+    private static int dateKey(LocalDate date) {
+        return date.getYear() * 10000 + date.getMonthValue() * 100 + date.getDayOfMonth();
+    }
+
+    /**
+     * Appointments of one outlet on one day, by ID and by staff. Immutable, replaced on every change.
+     */
+    private static class DayPage {
+        static final DayPage EMPTY = new DayPage(Collections.emptyMap());
+
+        final Map<Integer, ServiceAppointment> byId;
+        final Map<Integer, List<ServiceAppointment>> byStaff;
+
+        DayPage(Map<Integer, ServiceAppointment> byId) {
+            this.byId = byId;
+            Map<Integer, List<ServiceAppointment>> staff = new HashMap<>();
+            for (ServiceAppointment appointment : byId.values()) {
+                if (appointment.getStaffId() != null) {
+                    staff.computeIfAbsent(appointment.getStaffId(), id -> new ArrayList<>()).add(appointment);
+                }
+            }
+            this.byStaff = staff;
+        }
+
+        DayPage with(ServiceAppointment appointment) {
+            Map<Integer, ServiceAppointment> updated = new LinkedHashMap<>(byId);
+            updated.put(appointment.getAppointmentId(), appointment);
+            return new DayPage(updated);
+        }
+
+        DayPage without(Integer appointmentId) {
+            if (!byId.containsKey(appointmentId)) {
+                return this;
+            }
+            Map<Integer, ServiceAppointment> updated = new LinkedHashMap<>(byId);
+            updated.remove(appointmentId);
+            return new DayPage(updated);
+        }
+    }
+
+    private static class Location {
+        final Integer outletId;
+        final LocalDate date;
+
+        Location(Integer outletId, LocalDate date) {
+            this.outletId = outletId;
+            this.date = date;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Location)) return false;
+            Location other = (Location) o;
+            return Objects.equals(outletId, other.outletId) && Objects.equals(date, other.date);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(outletId, date);
+        }
+    }
+
+    /**
+     * Outcome of a consistency check
+     */
+    public static class ConsistencyReport {
+        private final int checkedAppointments;
+        private final int driftedOutletDays;
+        private final boolean repaired;
+
+        public ConsistencyReport(int checkedAppointments, int driftedOutletDays, boolean repaired) {
+            this.checkedAppointments = checkedAppointments;
+            this.driftedOutletDays = driftedOutletDays;
+            this.repaired = repaired;
+        }
+
+        public int getCheckedAppointments() {
+            return checkedAppointments;
+        }
+
+        public int getDriftedOutletDays() {
+            return driftedOutletDays;
+        }
+
+        public boolean isRepaired() {
+            return repaired;
+        }
+    }
+}
@@ -0,0 +1,443 @@
+package com.example.portal.service;
+
+import com.example.portal.event.AppointmentChangedEvent;
+import com.example.portal.model.AppointmentFact;
+import com.example.portal.model.ServiceAppointment;
+import com.example.portal.model.TimeSlot;
+import com.example.portal.repository.ServiceAppointmentMapper;
+import jakarta.annotation.PreDestroy;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Appointment facts for analytics, stored as primitive columns in direct (off-heap) buffers:
+ * a few dozen bytes per appointment instead of a full ServiceAppointment object graph.
+ *
+ * Loaded after startup by streaming a MyBatis cursor, then kept current from appointment change
+ * events. Rows are kept sorted by appointment ID, except for a short tail of appointments whose
+ * events arrived out of order; the store is rebuilt once that tail grows too long.
+ */
+@Service
+public class AppointmentFactStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentFactStore.class);
+
+    public static final byte STATUS_PENDING = 0;
+    public static final byte STATUS_SCHEDULED = 1;
+    public static final byte STATUS_IN_PROGRESS = 2;
+    public static final byte STATUS_COMPLETED = 3;
+    public static final byte STATUS_CANCELLED = 4;
+    public static final byte STATUS_OTHER = 5;
+
+    public static final int NO_STAFF = 0;
+
+    private static final int MAX_UNSORTED_TAIL = 4096;
+    private static final int SCAN_CHUNK_ROWS = 64 * 1024;
+
+    private final SqlSessionFactory sqlSessionFactory;
+    private final boolean enabled;
+    private final int initialCapacity;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Columns columns;
+    // Events seen while a load is running, replayed on top of the loaded rows
+    private volatile Queue<ServiceAppointment> replayBuffer;
+    private volatile long lastLoadMillis;
+
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "fact-store-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public AppointmentFactStore(SqlSessionFactory sqlSessionFactory,
+                                @Value("${app.reporting.fact-store.enabled:true}") boolean enabled,
+                                @Value("${app.reporting.fact-store.initial-capacity:65536}") int initialCapacity) {
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.enabled = enabled;
+        this.initialCapacity = initialCapacity;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            loader.execute(this::load);
+        }
+    }
+
+    public boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return columns != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuild the store from the database in the background
+     */
+    public void reload() {
+        if (enabled) {
+            loader.execute(this::load);
+        }
+    }
+
+    private void load() {
+        long started = System.currentTimeMillis();
+        replayBuffer = new ConcurrentLinkedQueue<>();
+        Columns loaded = new Columns(initialCapacity);
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Cursor<AppointmentFact> cursor = session.getMapper(ServiceAppointmentMapper.class).scanAllFacts()) {
+            for (AppointmentFact fact : cursor) {
+                loaded = loaded.ensureCapacity(loaded.size + 1);
+                loaded.upsert(fact.getAppointmentId(), epochDay(fact.getTimeYear(), fact.getTimeMonth(), fact.getTimeDay()),
+                        fact.getTimeClocktime() != null ? fact.getTimeClocktime().toSecondOfDay() / 60 : 0,
+                        fact.getOutletId(), fact.getServiceId(), fact.getStaffId(), fact.getCustId(), fact.getVehId(),
+                        statusCode(fact.getAppointmentStatus()), cents(fact.getAppointmentCost()));
+            }
+        } catch (Exception e) {
+            logger.error("Failed to load the appointment fact store", e);
+            replayBuffer = null;
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            columns = loaded;
+            Queue<ServiceAppointment> buffer = replayBuffer;
+            ServiceAppointment appointment;
+            while ((appointment = buffer.poll()) != null) {
+                apply(appointment);
+            }
+            replayBuffer = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        lastLoadMillis = System.currentTimeMillis() - started;
+        logger.info("Loaded {} appointment facts ({} bytes off-heap) in {} ms",
+                loaded.size, (long) loaded.capacity * Columns.ROW_BYTES, lastLoadMillis);
+    }
+
+    @EventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        ServiceAppointment appointment = event.getAppointment();
+        if (!enabled || appointment.getAppointmentId() == null) {
+            return;
+        }
+
+        boolean rebuild;
+        lock.writeLock().lock();
+        try {
+            Queue<ServiceAppointment> buffer = replayBuffer;
+            if (buffer != null) {
+                buffer.add(appointment);
+            }
+            if (columns == null) {
+                return;
+            }
+            apply(appointment);
+            rebuild = columns.size - columns.sortedCount > MAX_UNSORTED_TAIL && buffer == null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (rebuild) {
+            logger.debug("Rebuilding the fact store to sort {} out-of-order rows", MAX_UNSORTED_TAIL);
+            reload();
+        }
+    }
+
+    /**
+     * Insert or update one appointment, the caller holds the write lock
+     */
+    private void apply(ServiceAppointment appointment) {
+        TimeSlot timeSlot = appointment.getTimeSlot();
+        if (timeSlot == null || timeSlot.getTimeYear() == null || appointment.getOutletId() == null
+                || appointment.getServiceId() == null) {
+            return;
+        }
+        columns = columns.ensureCapacity(columns.size + 1);
+        columns.upsert(appointment.getAppointmentId(),
+                epochDay(timeSlot.getTimeYear(), timeSlot.getTimeMonth(), timeSlot.getTimeDay()),
+                timeSlot.getTimeClocktime() != null ? timeSlot.getTimeClocktime().toSecondOfDay() / 60 : 0,
+                appointment.getOutletId(), appointment.getServiceId(), appointment.getStaffId(),
+                appointment.getCustId(), appointment.getVehId(),
+                statusCode(appointment.getAppointmentStatus()), cents(appointment.getAppointmentCost()));
+    }
+
+    /**
+     * Run an aggregation over all rows with an epoch day in [fromEpochDay, toEpochDay].
+     * Rows are split into chunks counted in parallel on the given pool, each into its own
+     * accumulator, which are then merged.
+     * @return the merged accumulator, or null if the store is not loaded
+     */
+    public <A> A scan(int fromEpochDay, int toEpochDay, ForkJoinPool pool,
+                      Supplier<A> newAccumulator, RowVisitor<A> visitor, BinaryOperator<A> merge) {
+        lock.readLock().lock();
+        try {
+            if (columns == null) {
+                return null;
+            }
+            return pool.invoke(new ScanTask<>(columns, 0, columns.size, fromEpochDay, toEpochDay,
+                    newAccumulator, visitor, merge));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Size of the store in rows and bytes
+     */
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("enabled", enabled);
+            stats.put("loaded", columns != null);
+            stats.put("rows", columns != null ? columns.size : 0);
+            stats.put("unsortedRows", columns != null ? columns.size - columns.sortedCount : 0);
+            stats.put("capacityRows", columns != null ? columns.capacity : 0);
+            stats.put("bytesPerRow", Columns.ROW_BYTES);
+            stats.put("offHeapBytes", columns != null ? (long) columns.capacity * Columns.ROW_BYTES : 0L);
+            stats.put("lastLoadMillis", lastLoadMillis);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    public static int epochDay(int year, int month, int day) {
+        return (int) LocalDate.of(year, month, day).toEpochDay();
+    }
+
+    public static byte statusCode(String status) {
+        if (status == null) return STATUS_OTHER;
+        switch (status) {
+            case "PENDING": return STATUS_PENDING;
+            case "SCHEDULED": return STATUS_SCHEDULED;
+            case "IN_PROGRESS": return STATUS_IN_PROGRESS;
+            case "COMPLETED": return STATUS_COMPLETED;
+            case "CANCELLED": return STATUS_CANCELLED;
+            default: return STATUS_OTHER;
+        }
+    }
+
+    static long cents(BigDecimal amount) {
+        return amount != null ? amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact() : 0;
+    }
+
+    /**
+     * Called for every row in range; read the row through the given view
+     */
+    @FunctionalInterface
+    public interface RowVisitor<A> {
+        void visit(A accumulator, Row row);
+    }
+
+    /**
+     * Read-only view of the row at the current position
+     */
+    public static class Row {
+        private final Columns columns;
+        private int index;
+
+        private Row(Columns columns) {
+            this.columns = columns;
+        }
+
+        public int appointmentId() { return columns.appointmentId.getInt(index * 4); }
+        public int epochDay() { return columns.epochDay.getInt(index * 4); }
+        public int minuteOfDay() { return columns.minuteOfDay.getShort(index * 2); }
+        public int outletId() { return columns.outletId.getInt(index * 4); }
+        public int serviceId() { return columns.serviceId.getInt(index * 4); }
+        public int staffId() { return columns.staffId.getInt(index * 4); }
+        public int customerId() { return columns.customerId.getInt(index * 4); }
+        public int vehicleId() { return columns.vehicleId.getInt(index * 4); }
+        public byte status() { return columns.status.get(index); }
+        public long costCents() { return columns.costCents.getLong(index * 8); }
+    }
+
+    /**
+     * The column buffers. Rows [0, sortedCount) are sorted by appointment ID, the rest is an
+     * unsorted tail that is searched linearly.
+     */
+    private static class Columns {
+        static final int ROW_BYTES = 4 + 4 + 2 + 4 + 4 + 4 + 4 + 4 + 1 + 8;
+
+        final int capacity;
+        int size;
+        int sortedCount;
+
+        final ByteBuffer appointmentId;
+        final ByteBuffer epochDay;
+        final ByteBuffer minuteOfDay;
+        final ByteBuffer outletId;
+        final ByteBuffer serviceId;
+        final ByteBuffer staffId;
+        final ByteBuffer customerId;
+        final ByteBuffer vehicleId;
+        final ByteBuffer status;
+        final ByteBuffer costCents;
+
+        Columns(int capacity) {
+            this.capacity = Math.max(capacity, 16);
+            appointmentId = allocate(this.capacity * 4);
+            epochDay = allocate(this.capacity * 4);
+            minuteOfDay = allocate(this.capacity * 2);
+            outletId = allocate(this.capacity * 4);
+            serviceId = allocate(this.capacity * 4);
+            staffId = allocate(this.capacity * 4);
+            customerId = allocate(this.capacity * 4);
+            vehicleId = allocate(this.capacity * 4);
+            status = allocate(this.capacity);
+            costCents = allocate(this.capacity * 8);
+        }
+
+        private static ByteBuffer allocate(int bytes) {
+            return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+        }
+
+        /**
+         * This instance if it has room for the rows, otherwise a copy with doubled capacity
+         */
+        Columns ensureCapacity(int rows) {
+            if (rows <= capacity) {
+                return this;
+            }
+            Columns grown = new Columns(Math.max(rows, capacity * 2));
+            copy(appointmentId, grown.appointmentId, size * 4);
+            copy(epochDay, grown.epochDay, size * 4);
+            copy(minuteOfDay, grown.minuteOfDay, size * 2);
+            copy(outletId, grown.outletId, size * 4);
+            copy(serviceId, grown.serviceId, size * 4);
+            copy(staffId, grown.staffId, size * 4);
+            copy(customerId, grown.customerId, size * 4);
+            copy(vehicleId, grown.vehicleId, size * 4);
+            copy(status, grown.status, size);
+            copy(costCents, grown.costCents, size * 8);
+            grown.size = size;
+            grown.sortedCount = sortedCount;
+            return grown;
+        }
+
+        private static void copy(ByteBuffer from, ByteBuffer to, int bytes) {
+            to.put(0, from, 0, bytes);
+        }
+
+        int find(int id) {
+            int low = 0;
+            int high = sortedCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int midId = appointmentId.getInt(mid * 4);
+                if (midId < id) {
+                    low = mid + 1;
+                } else if (midId > id) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            for (int i = sortedCount; i < size; i++) {
+                if (appointmentId.getInt(i * 4) == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Update the row of the appointment, or append one. Needs capacity for one more row.
+         */
+        void upsert(int id, int day, int minute, Integer outlet, Integer service, Integer staff,
+                    Integer customer, Integer vehicle, byte statusCode, long cost) {
+            int row = find(id);
+            if (row < 0) {
+                row = size++;
+                boolean inOrder = sortedCount == row && (row == 0 || appointmentId.getInt((row - 1) * 4) < id);
+                if (inOrder) {
+                    sortedCount++;
+                }
+            }
+            appointmentId.putInt(row * 4, id);
+            epochDay.putInt(row * 4, day);
+            minuteOfDay.putShort(row * 2, (short) minute);
+            outletId.putInt(row * 4, outlet != null ? outlet : 0);
+            serviceId.putInt(row * 4, service != null ? service : 0);
+            staffId.putInt(row * 4, staff != null ? staff : NO_STAFF);
+            customerId.putInt(row * 4, customer != null ? customer : 0);
+            vehicleId.putInt(row * 4, vehicle != null ? vehicle : 0);
+            status.put(row, statusCode);
+            costCents.putLong(row * 8, cost);
+        }
+    }
+
+    private static class ScanTask<A> extends RecursiveTask<A> {
+        private final Columns columns;
+        private final int start;
+        private final int end;
+        private final int fromEpochDay;
+        private final int toEpochDay;
+        private final Supplier<A> newAccumulator;
+        private final RowVisitor<A> visitor;
+        private final BinaryOperator<A> merge;
+
+        ScanTask(Columns columns, int start, int end, int fromEpochDay, int toEpochDay,
+                 Supplier<A> newAccumulator, RowVisitor<A> visitor, BinaryOperator<A> merge) {
+            this.columns = columns;
+            this.start = start;
+            this.end = end;
+            this.fromEpochDay = fromEpochDay;
+            this.toEpochDay = toEpochDay;
+            this.newAccumulator = newAccumulator;
+            this.visitor = visitor;
+            this.merge = merge;
+        }
+
+        @Override
+        protected A compute() {
+            if (end - start <= SCAN_CHUNK_ROWS) {
+                A accumulator = newAccumulator.get();
+                Row row = new Row(columns);
+                ByteBuffer days = columns.epochDay;
+                for (int i = start; i < end; i++) {
+                    int day = days.getInt(i * 4);
+                    if (day < fromEpochDay || day > toEpochDay) {
+                        continue;
+                    }
+                    row.index = i;
+                    visitor.visit(accumulator, row);
+                }
+                return accumulator;
+            }
+            int middle = (start + end) >>> 1;
+            ScanTask<A> left = new ScanTask<>(columns, start, middle, fromEpochDay, toEpochDay, newAccumulator, visitor, merge);
+            left.fork();
+            A right = new ScanTask<>(columns, middle, end, fromEpochDay, toEpochDay, newAccumulator, visitor, merge).compute();
+            return merge.apply(left.join(), right);
+        }
+    }
+}
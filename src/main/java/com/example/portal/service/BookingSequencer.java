@@ -0,0 +1,414 @@
+package com.example.portal.service;
+
+import com.example.portal.event.AppointmentChangedEvent;
+import com.example.portal.event.StaffChangedEvent;
+import com.example.portal.model.ServiceAppointment;
+import com.example.portal.model.Staff;
+import com.example.portal.model.TimeSlot;
+import com.example.portal.repository.ServiceAppointmentMapper;
+import com.example.portal.repository.StaffMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serializes booking and confirmation commands per outlet.
+ *
+ * Every outlet has a lock-free multi-producer queue drained by at most one writer at a time.
+ * The writer checks each command against its in-memory schedule of the outlet's day, then
+ * group-commits all accepted commands of a drain in one batch transaction. Conflicts are
+ * therefore resolved in memory instead of with row locks in MySQL. Bookings also count the
+ * slot holds other customers keep at their start time, and use up the hold they bring.
+ */
+@Service
+public class BookingSequencer {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingSequencer.class);
+
+    private final ServiceAppointmentMapper appointmentMapper;
+    private final StaffMapper staffMapper;
+    private final AppointmentBulkService appointmentBulkService;
+    private final StaffAssignmentEngine assignmentEngine;
+    private final SlotHoldStore slotHoldStore;
+
+    private final Map<Integer, OutletLane> lanes = new ConcurrentHashMap<>();
+    private final ExecutorService writers;
+    private final int maxBatchSize;
+
+    public BookingSequencer(ServiceAppointmentMapper appointmentMapper,
+                            StaffMapper staffMapper,
+                            AppointmentBulkService appointmentBulkService,
+                            StaffAssignmentEngine assignmentEngine,
+                            SlotHoldStore slotHoldStore,
+                            @Value("${app.booking.sequencer.writer-threads:4}") int writerThreads,
+                            @Value("${app.booking.sequencer.batch-size:64}") int maxBatchSize) {
+        this.appointmentMapper = appointmentMapper;
+        this.staffMapper = staffMapper;
+        this.appointmentBulkService = appointmentBulkService;
+        this.assignmentEngine = assignmentEngine;
+        this.slotHoldStore = slotHoldStore;
+        this.maxBatchSize = maxBatchSize;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(writerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "booking-writer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.info("BookingSequencer initialized with {} writer threads, batch size {}", writerThreads, maxBatchSize);
+    }
+
+    /**
+     * Queue a new PENDING appointment for insertion.
+     * Completes once the appointment is committed (with its generated ID) or rejected.
+     * @param holdId slot hold the customer took for this slot, released when the booking is accepted;
+     *               a hold for another slot rejects the booking, an expired one is ignored
+     */
+    public CompletableFuture<Outcome> submitBooking(ServiceAppointment appointment, TimeSlot timeSlot, String holdId) {
+        Command command = new Command(CommandType.BOOK, appointment, timeSlot);
+        command.holdId = holdId != null && !holdId.isEmpty() ? holdId : null;
+        return submit(command);
+    }
+
+    /**
+     * Queue the confirmation of a PENDING appointment. The appointment must already carry
+     * its new status, staff and estimated finish time. If it is still on the unassigned staff,
+     * the least-loaded free staff member is assigned to it.
+     */
+    public CompletableFuture<Outcome> submitConfirmation(ServiceAppointment appointment, TimeSlot timeSlot) {
+        return submit(new Command(CommandType.CONFIRM, appointment, timeSlot));
+    }
+
+    /**
+     * Keep loaded schedules in line with appointment writes that did not go through the sequencer,
+     * such as status changes. Applied by the outlet's writer like any other command.
+     */
+    @EventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        ServiceAppointment appointment = event.getAppointment();
+        if (appointment.getOutletId() == null || appointment.getTimeSlot() == null
+                || appointment.getTimeSlot().getTimeClocktime() == null) {
+            return;
+        }
+        submit(new Command(CommandType.SYNC, appointment, appointment.getTimeSlot()));
+    }
+
+    /**
+     * Drop the loaded schedules once a staff member is added, changed or removed, so capacity
+     * and assignment use the new staff list. The event does not say which outlet the member
+     * left, so every lane reloads its days on next use. Applied by each outlet's writer.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStaffChanged(StaffChangedEvent event) {
+        for (OutletLane lane : lanes.values()) {
+            submit(lane, new Command(CommandType.STAFF, null, null));
+        }
+    }
+
+    private CompletableFuture<Outcome> submit(Command command) {
+        return submit(lanes.computeIfAbsent(command.appointment.getOutletId(), OutletLane::new), command);
+    }
+
+    private CompletableFuture<Outcome> submit(OutletLane lane, Command command) {
+        lane.queue.offer(command);
+        if (lane.scheduled.compareAndSet(false, true)) {
+            writers.execute(() -> drain(lane));
+        }
+        return command.result;
+    }
+
+    /**
+     * Process one batch of the lane's queue. Only ever runs on one thread per lane at a time,
+     * guarded by the lane's scheduled flag.
+     */
+    private void drain(OutletLane lane) {
+        List<Command> batch = new ArrayList<>(maxBatchSize);
+        Command command;
+        while (batch.size() < maxBatchSize && (command = lane.queue.poll()) != null) {
+            batch.add(command);
+        }
+
+        if (!batch.isEmpty()) {
+            try {
+                process(lane, batch);
+            } catch (Exception e) {
+                logger.error("Unexpected error in booking writer for outlet {}", lane.outletId, e);
+                lane.days.clear();
+                batch.forEach(c -> c.result.completeExceptionally(e));
+            }
+        }
+
+        if (!lane.queue.isEmpty()) {
+            // Hand the lane back to the pool so other outlets get a turn on this thread
+            writers.execute(() -> drain(lane));
+            return;
+        }
+
+        lane.scheduled.set(false);
+        // A producer may have offered after our last poll but before the flag was cleared
+        if (!lane.queue.isEmpty() && lane.scheduled.compareAndSet(false, true)) {
+            writers.execute(() -> drain(lane));
+        }
+    }
+
+    private void process(OutletLane lane, List<Command> batch) {
+        lane.evictBefore(LocalDate.now());
+        // No pending keys survive between batches, so the days can be dropped before this one runs
+        if (batch.stream().anyMatch(c -> c.type == CommandType.STAFF)) {
+            lane.days.clear();
+        }
+
+        List<Command> accepted = new ArrayList<>();
+        List<ServiceAppointment> inserts = new ArrayList<>();
+        List<ServiceAppointment> updates = new ArrayList<>();
+        Set<LocalDate> touchedDays = new HashSet<>();
+
+        for (Command command : batch) {
+            try {
+                if (command.type == CommandType.STAFF) {
+                    command.result.complete(Outcome.accepted());
+                    continue;
+                }
+
+                LocalDate date = command.date();
+
+                if (command.type == CommandType.SYNC) {
+                    OutletDaySchedule day = lane.days.get(date);
+                    if (day != null) {
+                        applySync(day, command.appointment, command.startTime());
+                    }
+                    command.result.complete(Outcome.accepted());
+                    continue;
+                }
+
+                OutletDaySchedule day = lane.day(date);
+                OutletDaySchedule.Entry entry = OutletDaySchedule.entryOf(command.appointment, command.startTime());
+
+                String rejection;
+                if (command.type == CommandType.BOOK) {
+                    rejection = checkBooking(lane, day, command, entry);
+                } else {
+                    rejection = checkConfirmation(day, entry);
+                    if (rejection == null && entry.getStaffId() == OutletDaySchedule.UNASSIGNED_STAFF_ID) {
+                        Integer staffId = assignmentEngine.pickStaff(day, entry.getStart(), entry.getEnd(), entry.getAppointmentId());
+                        if (staffId == null) {
+                            rejection = "No staff member is free for this appointment";
+                        } else {
+                            command.appointment.setStaffId(staffId);
+                            entry = entry.withStaffId(staffId);
+                        }
+                    }
+                }
+                if (rejection != null) {
+                    command.result.complete(Outcome.rejected(rejection));
+                    continue;
+                }
+
+                if (command.type == CommandType.BOOK) {
+                    // Track the booking under a temporary key until the database assigns its ID
+                    command.pendingKey = lane.nextPendingKey--;
+                    day.put(entry.withAppointmentId(command.pendingKey));
+                    inserts.add(command.appointment);
+                    // The booking now takes the capacity the hold kept; if the commit fails,
+                    // the customer books again without it
+                    if (command.holdId != null) {
+                        slotHoldStore.release(command.holdId);
+                    }
+                } else {
+                    day.put(entry);
+                    updates.add(command.appointment);
+                }
+                touchedDays.add(date);
+                accepted.add(command);
+            } catch (Exception e) {
+                command.result.completeExceptionally(e);
+            }
+        }
+
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        try {
+            appointmentBulkService.persist(inserts, updates);
+        } catch (Exception e) {
+            logger.error("Group commit of {} booking commands failed for outlet {}", accepted.size(), lane.outletId, e);
+            // The in-memory state no longer matches the database, reload those days on next use
+            touchedDays.forEach(lane.days::remove);
+            accepted.forEach(c -> c.result.completeExceptionally(e));
+            return;
+        }
+
+        for (Command command : accepted) {
+            if (command.pendingKey != null) {
+                OutletDaySchedule day = lane.days.get(command.date());
+                OutletDaySchedule.Entry entry = day.remove(command.pendingKey);
+                day.put(entry.withAppointmentId(command.appointment.getAppointmentId()));
+            }
+            command.result.complete(Outcome.accepted());
+        }
+        logger.debug("Group committed {} booking commands for outlet {} ({} inserts, {} updates)",
+                accepted.size(), lane.outletId, inserts.size(), updates.size());
+    }
+
+    /**
+     * Check capacity left after the outlet's bookings and the holds of other customers. Clears the
+     * command's hold ID when the hold has expired, so only a live hold is released on acceptance.
+     */
+    private String checkBooking(OutletLane lane, OutletDaySchedule day, Command command, OutletDaySchedule.Entry entry) {
+        if (day.getCapacity() == 0) {
+            return "No staff available at this outlet";
+        }
+
+        LocalDate date = command.date();
+        LocalTime time = command.startTime();
+        if (command.holdId != null) {
+            SlotHoldStore.HeldSlot held = slotHoldStore.find(command.holdId);
+            if (held == null) {
+                command.holdId = null;
+            } else if (!held.matches(lane.outletId, date, time)) {
+                return "The slot hold is for a different outlet, date or time";
+            }
+        }
+        int otherHolds = slotHoldStore.countActiveHolds(lane.outletId, date).getOrDefault(time, 0)
+                - (command.holdId != null ? 1 : 0);
+
+        if (day.countActiveOverlapping(entry.getStart(), entry.getEnd()) + Math.max(0, otherHolds) >= day.getCapacity()) {
+            return "The selected time slot is fully booked";
+        }
+        return null;
+    }
+
+    private String checkConfirmation(OutletDaySchedule day, OutletDaySchedule.Entry entry) {
+        OutletDaySchedule.Entry current = day.get(entry.getAppointmentId());
+        if (current == null || !"PENDING".equals(current.getStatus())) {
+            return "Only pending appointments can be confirmed";
+        }
+        if (entry.getStaffId() != OutletDaySchedule.UNASSIGNED_STAFF_ID
+                && !day.isStaffFree(entry.getStaffId(), entry.getStart(), entry.getEnd(), entry.getAppointmentId())) {
+            return "Staff " + entry.getStaffId() + " already has an appointment overlapping this time";
+        }
+        return null;
+    }
+
+    private void applySync(OutletDaySchedule day, ServiceAppointment appointment, LocalTime startTime) {
+        if (appointment.getAppointmentId() == null) {
+            return;
+        }
+        day.put(OutletDaySchedule.entryOf(appointment, startTime));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writers.shutdown();
+    }
+
+    private enum CommandType {
+        BOOK, CONFIRM, SYNC, STAFF
+    }
+
+    private static class Command {
+        private final CommandType type;
+        private final ServiceAppointment appointment;
+        private final TimeSlot timeSlot;
+        private final CompletableFuture<Outcome> result = new CompletableFuture<>();
+        private String holdId;
+        private Integer pendingKey; // only touched by the lane's writer
+
+        Command(CommandType type, ServiceAppointment appointment, TimeSlot timeSlot) {
+            this.type = type;
+            this.appointment = appointment;
+            this.timeSlot = timeSlot;
+        }
+
+        LocalDate date() {
+            return LocalDate.of(timeSlot.getTimeYear(), timeSlot.getTimeMonth(), timeSlot.getTimeDay());
+        }
+
+        LocalTime startTime() {
+            return timeSlot.getTimeClocktime();
+        }
+    }
+
+    /**
+     * Queue and schedule state of one outlet. The days map is only accessed by the current writer.
+     */
+    private class OutletLane {
+        private final Integer outletId;
+        private final Queue<Command> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final Map<LocalDate, OutletDaySchedule> days = new HashMap<>();
+        private int nextPendingKey = -1;
+
+        OutletLane(Integer outletId) {
+            this.outletId = outletId;
+        }
+
+        OutletDaySchedule day(LocalDate date) {
+            return days.computeIfAbsent(date, this::load);
+        }
+
+        private OutletDaySchedule load(LocalDate date) {
+            List<Integer> staffIds = new ArrayList<>();
+            for (Staff staff : staffMapper.findByOutletId(outletId)) {
+                staffIds.add(staff.getStaffId());
+            }
+
+            OutletDaySchedule day = new OutletDaySchedule(date, staffIds);
+            List<ServiceAppointment> appointments = appointmentMapper.findScheduleByOutletIdAndDate(outletId,
+                    (short) date.getYear(), (short) date.getMonthValue(), (short) date.getDayOfMonth());
+            for (ServiceAppointment appointment : appointments) {
+                if (appointment.getTimeSlot() != null && appointment.getTimeSlot().getTimeClocktime() != null) {
+                    day.put(OutletDaySchedule.entryOf(appointment, appointment.getTimeSlot().getTimeClocktime()));
+                }
+            }
+            logger.debug("Loaded schedule for outlet {} on {}: {} appointments, {} staff",
+                    outletId, date, appointments.size(), staffIds.size());
+            return day;
+        }
+
+        void evictBefore(LocalDate today) {
+            days.keySet().removeIf(date -> date.isBefore(today));
+        }
+    }
+
+    /**
+     * Result of a sequenced command
+     */
+    public static class Outcome {
+        private final boolean accepted;
+        private final String reason;
+
+        private Outcome(boolean accepted, String reason) {
+            this.accepted = accepted;
+            this.reason = reason;
+        }
+
+        public static Outcome accepted() {
+            return new Outcome(true, null);
+        }
+
+        public static Outcome rejected(String reason) {
+            return new Outcome(false, reason);
+        }
+
+        public boolean isAccepted() {
+            return accepted;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+    }
+}
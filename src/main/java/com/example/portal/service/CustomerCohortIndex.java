@@ -0,0 +1,269 @@
+package com.example.portal.service;
+
+import com.example.portal.event.AppointmentChangedEvent;
+import com.example.portal.model.AppointmentFact;
+import com.example.portal.model.ServiceAppointment;
+import com.example.portal.model.TimeSlot;
+import com.example.portal.repository.ServiceAppointmentMapper;
+import jakarta.annotation.PreDestroy;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compressed bitmaps of the customers served per (month, outlet, service), for cohort and
+ * retention reports.
+ *
+ * A customer is in a bitmap once they have a COMPLETED appointment of that service at that
+ * outlet in that month. Cohorts and returns are then unions and intersections of bitmaps
+ * rather than scans over the appointments. The bitmaps are loaded once from the database and
+ * kept current from completion events; a completion that is reverted later is not removed,
+ * since the customer may have another completed visit in the same bitmap.
+ */
+@Service
+public class CustomerCohortIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerCohortIndex.class);
+
+    private final SqlSessionFactory sqlSessionFactory;
+    private final boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // year * 12 + month - 1 -> (outlet, service) -> customers
+    private TreeMap<Integer, Map<Long, RoaringBitmap>> months;
+    // Completions seen while a load is running, replayed on top of the loaded bitmaps
+    private volatile Queue<ServiceAppointment> replayBuffer;
+
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cohort-index-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CustomerCohortIndex(SqlSessionFactory sqlSessionFactory,
+                               @Value("${app.reporting.cohorts.enabled:true}") boolean enabled) {
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            loader.execute(this::load);
+        }
+    }
+
+    public boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return months != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void load() {
+        long started = System.currentTimeMillis();
+        replayBuffer = new ConcurrentLinkedQueue<>();
+        TreeMap<Integer, Map<Long, RoaringBitmap>> loaded = new TreeMap<>();
+        long completions = 0;
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Cursor<AppointmentFact> cursor = session.getMapper(ServiceAppointmentMapper.class).scanCompletedFacts()) {
+            for (AppointmentFact fact : cursor) {
+                if (fact.getCustId() == null) continue;
+                add(loaded, monthIndex(fact.getTimeYear(), fact.getTimeMonth()),
+                        fact.getOutletId(), fact.getServiceId(), fact.getCustId());
+                completions++;
+            }
+        } catch (Exception e) {
+            logger.error("Failed to load the customer cohort index", e);
+            replayBuffer = null;
+            return;
+        }
+        loaded.values().forEach(bitmaps -> bitmaps.values().forEach(RoaringBitmap::runOptimize));
+
+        lock.writeLock().lock();
+        try {
+            months = loaded;
+            Queue<ServiceAppointment> buffer = replayBuffer;
+            ServiceAppointment appointment;
+            while ((appointment = buffer.poll()) != null) {
+                apply(appointment);
+            }
+            replayBuffer = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Loaded customer cohorts from {} completed appointments ({} bytes) in {} ms",
+                completions, sizeInBytes(loaded), System.currentTimeMillis() - started);
+    }
+
+    @EventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        ServiceAppointment appointment = event.getAppointment();
+        if (!enabled || !event.isStatusChange() || !"COMPLETED".equals(appointment.getAppointmentStatus())) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Queue<ServiceAppointment> buffer = replayBuffer;
+            if (buffer != null) {
+                buffer.add(appointment);
+            }
+            if (months != null) {
+                apply(appointment);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Record one completion, the caller holds the write lock
+     */
+    private void apply(ServiceAppointment appointment) {
+        TimeSlot timeSlot = appointment.getTimeSlot();
+        if (timeSlot == null || timeSlot.getTimeYear() == null || appointment.getCustId() == null
+                || appointment.getOutletId() == null || appointment.getServiceId() == null) {
+            return;
+        }
+        add(months, monthIndex(timeSlot.getTimeYear(), timeSlot.getTimeMonth()),
+                appointment.getOutletId(), appointment.getServiceId(), appointment.getCustId());
+    }
+
+    private static void add(TreeMap<Integer, Map<Long, RoaringBitmap>> target, int month, int outletId, int serviceId, int customerId) {
+        target.computeIfAbsent(month, m -> new HashMap<>())
+                .computeIfAbsent(outletServiceKey(outletId, serviceId), k -> new RoaringBitmap())
+                .add(customerId);
+    }
+
+    /**
+     * Retention of the customers whose first completed visit fell in each month of the range.
+     * A customer is retained after k months if they were served again k months after their first
+     * visit, and "returned" if that happened within the horizon.
+     * @param outletId only visits to this outlet count, all outlets if null
+     * @param serviceId only visits for this service count, all services if null
+     * @return one entry per cohort month, or null if the index is not loaded
+     */
+    public List<Map<String, Object>> getRetention(YearMonth startMonth, YearMonth endMonth, int horizonMonths,
+                                                  Integer outletId, Integer serviceId) {
+        int first = monthIndex(startMonth.getYear(), startMonth.getMonthValue());
+        int last = monthIndex(endMonth.getYear(), endMonth.getMonthValue());
+
+        lock.readLock().lock();
+        try {
+            if (months == null) {
+                return null;
+            }
+            // Everyone served before the range, so only first visits form a cohort
+            RoaringBitmap seen = new RoaringBitmap();
+            for (Map.Entry<Integer, Map<Long, RoaringBitmap>> entry : months.headMap(first).entrySet()) {
+                seen.or(active(entry.getValue(), outletId, serviceId));
+            }
+
+            List<Map<String, Object>> result = new ArrayList<>();
+            for (int month = first; month <= last; month++) {
+                RoaringBitmap served = active(months.get(month), outletId, serviceId);
+                RoaringBitmap cohort = RoaringBitmap.andNot(served, seen);
+                seen.or(served);
+
+                List<Integer> retainedByMonth = new ArrayList<>(horizonMonths);
+                RoaringBitmap returned = new RoaringBitmap();
+                for (int offset = 1; offset <= horizonMonths; offset++) {
+                    RoaringBitmap retained = RoaringBitmap.and(cohort, active(months.get(month + offset), outletId, serviceId));
+                    retainedByMonth.add(retained.getCardinality());
+                    returned.or(retained);
+                }
+
+                int cohortSize = cohort.getCardinality();
+                double retentionRate = cohortSize > 0 ? (double) returned.getCardinality() / cohortSize * 100 : 0;
+
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("cohortMonth", YearMonth.of(month / 12, month % 12 + 1).toString());
+                item.put("customersServed", served.getCardinality());
+                item.put("newCustomers", cohortSize);
+                item.put("retainedByMonth", retainedByMonth);
+                item.put("returnedWithinHorizon", returned.getCardinality());
+                item.put("retentionRate", Math.round(retentionRate * 100) / 100.0); // Round to 2 decimal places
+                result.add(item);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Union of the customers served in one month that match the filters
+     */
+    private static RoaringBitmap active(Map<Long, RoaringBitmap> bitmaps, Integer outletId, Integer serviceId) {
+        if (bitmaps == null) {
+            return new RoaringBitmap();
+        }
+        if (outletId != null && serviceId != null) {
+            RoaringBitmap bitmap = bitmaps.get(outletServiceKey(outletId, serviceId));
+            return bitmap != null ? bitmap.clone() : new RoaringBitmap();
+        }
+        List<RoaringBitmap> matching = new ArrayList<>();
+        bitmaps.forEach((key, bitmap) -> {
+            if ((outletId == null || (int) (key >>> 32) == outletId)
+                    && (serviceId == null || (int) (long) key == serviceId)) {
+                matching.add(bitmap);
+            }
+        });
+        return RoaringBitmap.or(matching.iterator());
+    }
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("loaded", months != null);
+            if (months != null) {
+                stats.put("months", months.size());
+                stats.put("bitmaps", months.values().stream().mapToInt(Map::size).sum());
+                stats.put("sizeInBytes", sizeInBytes(months));
+            }
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long sizeInBytes(TreeMap<Integer, Map<Long, RoaringBitmap>> months) {
+        long bytes = 0;
+        for (Map<Long, RoaringBitmap> bitmaps : months.values()) {
+            for (RoaringBitmap bitmap : bitmaps.values()) {
+                bytes += bitmap.getLongSizeInBytes();
+            }
+        }
+        return bytes;
+    }
+
+    private static int monthIndex(int year, int month) {
+        return year * 12 + month - 1;
+    }
+
+    private static long outletServiceKey(int outletId, int serviceId) {
+        return (long) outletId << 32 | (serviceId & 0xffffffffL);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+}
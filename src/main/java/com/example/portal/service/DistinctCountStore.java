@@ -0,0 +1,32 @@
+package com.example.portal.service;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Storage for HyperLogLog sketches of distinct IDs, addressed by key.
+ * Counting several keys returns the size of their union, so sketches of short periods
+ * can be combined into any longer one.
+ */
+public interface DistinctCountStore {
+
+    /**
+     * Add IDs to the sketch of each key
+     */
+    void add(Map<String, Collection<Integer>> idsByKey);
+
+    /**
+     * Approximate number of distinct IDs over the union of the given sketches, missing keys count as empty
+     */
+    long count(Collection<String> keys);
+
+    /**
+     * Value stored with {@link #setMarker}, or null if none was stored
+     */
+    String getMarker();
+
+    /**
+     * Remember a small value next to the sketches, e.g. that they have been filled
+     */
+    void setMarker(String value);
+}
@@ -0,0 +1,242 @@
+package com.example.portal.service;
+
+import com.example.portal.event.AppointmentChangedEvent;
+import com.example.portal.model.AppointmentFact;
+import com.example.portal.model.ServiceAppointment;
+import com.example.portal.model.TimeSlot;
+import com.example.portal.repository.ServiceAppointmentMapper;
+import jakarta.annotation.PreDestroy;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Approximate numbers of distinct customers and vehicles served, per outlet, service, staff
+ * member and outlet-service pair.
+ *
+ * Every completed appointment is added to a daily and a monthly HyperLogLog sketch of each of
+ * these scopes. A date range is counted as the union of the monthly sketches it fully covers
+ * and the daily sketches at its edges, so the cost depends on the length of the range in
+ * months, not on the number of appointments.
+ */
+@Service
+public class DistinctVisitorCounter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DistinctVisitorCounter.class);
+    private static final int BACKFILL_BATCH_ROWS = 10000;
+
+    private final DistinctCountStore store;
+    private final SqlSessionFactory sqlSessionFactory;
+    private final boolean enabled;
+
+    // First month with sketches, null until the sketches have been filled from the database
+    private volatile YearMonth firstMonth;
+
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "distinct-count-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DistinctVisitorCounter(DistinctCountStore store,
+                                  SqlSessionFactory sqlSessionFactory,
+                                  @Value("${app.reporting.distinct-counts.enabled:true}") boolean enabled) {
+        this.store = store;
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        loader.execute(() -> {
+            try {
+                String marker = store.getMarker();
+                if (marker != null) {
+                    firstMonth = YearMonth.parse(marker);
+                    logger.info("Distinct count sketches already filled from {}", marker);
+                } else {
+                    backfill();
+                }
+            } catch (Exception e) {
+                logger.error("Failed to prepare the distinct count sketches", e);
+            }
+        });
+    }
+
+    public boolean isReady() {
+        return firstMonth != null;
+    }
+
+    private void backfill() {
+        long started = System.currentTimeMillis();
+        Map<String, Collection<Integer>> batch = new HashMap<>();
+        YearMonth earliest = YearMonth.now();
+        long rows = 0;
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Cursor<AppointmentFact> cursor = session.getMapper(ServiceAppointmentMapper.class).scanCompletedFacts()) {
+            for (AppointmentFact fact : cursor) {
+                LocalDate date = LocalDate.of(fact.getTimeYear(), fact.getTimeMonth(), fact.getTimeDay());
+                addKeys(batch, date, fact.getOutletId(), fact.getServiceId(), fact.getStaffId(), fact.getCustId(), fact.getVehId());
+                YearMonth month = YearMonth.from(date);
+                if (month.isBefore(earliest)) earliest = month;
+                if (++rows % BACKFILL_BATCH_ROWS == 0) {
+                    store.add(batch);
+                    batch.clear();
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Failed to fill the distinct count sketches", e);
+            return;
+        }
+        store.add(batch);
+        store.setMarker(earliest.toString());
+        firstMonth = earliest;
+        logger.info("Filled distinct count sketches from {} completed appointments in {} ms",
+                rows, System.currentTimeMillis() - started);
+    }
+
+    @EventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        ServiceAppointment appointment = event.getAppointment();
+        TimeSlot timeSlot = appointment.getTimeSlot();
+        if (!enabled || !event.isStatusChange() || !"COMPLETED".equals(appointment.getAppointmentStatus())
+                || timeSlot == null || timeSlot.getTimeYear() == null) {
+            return;
+        }
+        LocalDate date = LocalDate.of(timeSlot.getTimeYear(), timeSlot.getTimeMonth(), timeSlot.getTimeDay());
+        Map<String, Collection<Integer>> keys = new HashMap<>();
+        addKeys(keys, date, appointment.getOutletId(), appointment.getServiceId(), appointment.getStaffId(),
+                appointment.getCustId(), appointment.getVehId());
+        try {
+            store.add(keys);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to update distinct counts for appointment {}", appointment.getAppointmentId(), e);
+            return;
+        }
+
+        YearMonth month = YearMonth.from(date);
+        YearMonth first = firstMonth;
+        if (first != null && month.isBefore(first)) {
+            firstMonth = month;
+            store.setMarker(month.toString());
+        }
+    }
+
+    /**
+     * Distinct customers and vehicles a staff member has served
+     * @return uniqueCustomers and uniqueVehicles, or null if the sketches are not ready
+     */
+    public Map<String, Long> countForStaff(int staffId, LocalDate startDate, LocalDate endDate) {
+        return count(List.of("st:" + staffId), startDate, endDate);
+    }
+
+    /**
+     * Distinct customers and vehicles served with any of the given services, at one outlet or all of them
+     * @return uniqueCustomers and uniqueVehicles, or null if the sketches are not ready
+     */
+    public Map<String, Long> countForServices(Collection<Integer> serviceIds, Integer outletId,
+                                             LocalDate startDate, LocalDate endDate) {
+        List<String> scopes = new ArrayList<>();
+        for (Integer serviceId : serviceIds) {
+            scopes.add(outletId != null ? "os:" + outletId + ":" + serviceId : "s:" + serviceId);
+        }
+        return count(scopes, startDate, endDate);
+    }
+
+    /**
+     * Distinct customers and vehicles served at an outlet
+     * @return uniqueCustomers and uniqueVehicles, or null if the sketches are not ready
+     */
+    public Map<String, Long> countForOutlet(int outletId, LocalDate startDate, LocalDate endDate) {
+        return count(List.of("o:" + outletId), startDate, endDate);
+    }
+
+    private Map<String, Long> count(List<String> scopes, LocalDate startDate, LocalDate endDate) {
+        YearMonth first = firstMonth;
+        if (first == null) {
+            return null;
+        }
+        // Without both dates everything counts, as in the other reports
+        boolean filtered = startDate != null && endDate != null;
+        LocalDate start = filtered ? startDate : first.atDay(1);
+        LocalDate end = filtered ? endDate : YearMonth.now().plusMonths(1).atEndOfMonth();
+        if (start.isBefore(first.atDay(1))) {
+            start = first.atDay(1);
+        }
+        List<String> periods = periods(start, end);
+
+        List<String> customerKeys = new ArrayList<>(scopes.size() * periods.size());
+        List<String> vehicleKeys = new ArrayList<>(scopes.size() * periods.size());
+        for (String scope : scopes) {
+            for (String period : periods) {
+                customerKeys.add(key(scope, "c", period));
+                vehicleKeys.add(key(scope, "v", period));
+            }
+        }
+        Map<String, Long> counts = new HashMap<>();
+        counts.put("uniqueCustomers", store.count(customerKeys));
+        counts.put("uniqueVehicles", store.count(vehicleKeys));
+        return counts;
+    }
+
+    /**
+     * Fewest sketch periods covering [start, end]: whole months where possible, days at the edges
+     */
+    static List<String> periods(LocalDate start, LocalDate end) {
+        List<String> periods = new ArrayList<>();
+        LocalDate date = start;
+        while (!date.isAfter(end)) {
+            YearMonth month = YearMonth.from(date);
+            if (date.getDayOfMonth() == 1 && !month.atEndOfMonth().isAfter(end)) {
+                periods.add(month.toString());
+                date = month.plusMonths(1).atDay(1);
+            } else {
+                periods.add(date.toString());
+                date = date.plusDays(1);
+            }
+        }
+        return periods;
+    }
+
+    private static void addKeys(Map<String, Collection<Integer>> keys, LocalDate date, Integer outletId,
+                                Integer serviceId, Integer staffId, Integer customerId, Integer vehicleId) {
+        List<String> scopes = new ArrayList<>(4);
+        if (outletId != null) scopes.add("o:" + outletId);
+        if (serviceId != null) scopes.add("s:" + serviceId);
+        if (outletId != null && serviceId != null) scopes.add("os:" + outletId + ":" + serviceId);
+        if (staffId != null) scopes.add("st:" + staffId);
+
+        String day = date.toString();
+        String month = YearMonth.from(date).toString();
+        for (String scope : scopes) {
+            for (String period : List.of(day, month)) {
+                if (customerId != null) keys.computeIfAbsent(key(scope, "c", period), k -> new ArrayList<>()).add(customerId);
+                if (vehicleId != null) keys.computeIfAbsent(key(scope, "v", period), k -> new ArrayList<>()).add(vehicleId);
+            }
+        }
+    }
+
+    private static String key(String scope, String kind, String period) {
+        return "hll:" + scope + ":" + kind + ":" + period;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+}
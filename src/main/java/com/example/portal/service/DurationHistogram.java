@@ -0,0 +1,84 @@
+package com.example.portal.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Distribution of service durations in whole minutes.
+ *
+ * Durations are short and integral, so one counter per minute up to eight hours gives exact
+ * quantiles in constant time and merges by adding counters, which is all a quantile sketch
+ * would offer here. Longer durations share an overflow counter and report the longest seen.
+ */
+public class DurationHistogram {
+
+    static final int MAX_TRACKED_MINUTES = 480;
+
+    private final long[] counts = new long[MAX_TRACKED_MINUTES + 2];
+    private long samples;
+    private long totalMinutes;
+    private int longestMinutes;
+    // Booked durations of the same appointments, to compare estimates with reality
+    private long plannedSamples;
+    private long plannedMinutes;
+
+    public synchronized void add(int minutes, Integer planned) {
+        if (minutes < 0) {
+            return;
+        }
+        counts[Math.min(minutes, MAX_TRACKED_MINUTES + 1)]++;
+        samples++;
+        totalMinutes += minutes;
+        longestMinutes = Math.max(longestMinutes, minutes);
+        if (planned != null && planned > 0) {
+            plannedSamples++;
+            plannedMinutes += planned;
+        }
+    }
+
+    public synchronized void merge(DurationHistogram other) {
+        synchronized (other) {
+            for (int i = 0; i < counts.length; i++) counts[i] += other.counts[i];
+            samples += other.samples;
+            totalMinutes += other.totalMinutes;
+            longestMinutes = Math.max(longestMinutes, other.longestMinutes);
+            plannedSamples += other.plannedSamples;
+            plannedMinutes += other.plannedMinutes;
+        }
+    }
+
+    public synchronized long getSamples() {
+        return samples;
+    }
+
+    /**
+     * Smallest duration that at least the given fraction of samples did not exceed
+     * @return minutes, or 0 without samples
+     */
+    public synchronized int quantile(double fraction) {
+        if (samples == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * samples));
+        long seen = 0;
+        for (int minutes = 0; minutes <= MAX_TRACKED_MINUTES; minutes++) {
+            seen += counts[minutes];
+            if (seen >= rank) {
+                return minutes;
+            }
+        }
+        return longestMinutes;
+    }
+
+    public synchronized Map<String, Object> summary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("samples", samples);
+        summary.put("p50", quantile(0.5));
+        summary.put("p90", quantile(0.9));
+        summary.put("p99", quantile(0.99));
+        summary.put("meanMinutes", samples > 0 ? Math.round((double) totalMinutes / samples * 10) / 10.0 : 0);
+        summary.put("meanBookedMinutes", plannedSamples > 0 ? Math.round((double) plannedMinutes / plannedSamples * 10) / 10.0 : null);
+        summary.put("longestMinutes", longestMinutes);
+        return summary;
+    }
+}
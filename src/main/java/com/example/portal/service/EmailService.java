@@ -1,5 +1,7 @@
 package com.example.portal.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,6 +17,8 @@ public class EmailService {
     private static final Logger logger = LoggerFactory.getLogger(EmailService.class);
 
     private final JavaMailSender mailSender;
+    private final MeterRegistry meterRegistry;
+    private final RequestPhaseTimer phaseTimer;
 
     @Value("${spring.mail.username:noreply@autoservice.com}")
     private String fromEmail;
@@ -25,6 +29,8 @@ public class EmailService {
     /**
      * Sends an email if email sending is enabled in the application configuration.
      * Logs errors but does not throw exceptions to prevent disrupting the main application flow.
+     * Attempted sends are timed as portal.email.sends, tagged with their outcome, and as the
+     * external phase of the current request.
      *
      * @param to The recipient's email address
      * @param subject The email subject
@@ -35,15 +41,20 @@ public class EmailService {
         // Skip sending if email is disabled in configuration
         if (!emailEnabled) {
             logger.debug("Email sending is disabled. Would have sent email to: {}", to);
+            meterRegistry.counter("portal.email.skipped", "reason", "disabled").increment();
             return true;
         }
 
         // Skip if recipient email is invalid
         if (to == null || to.isEmpty() || !to.contains("@")) {
             logger.debug("Invalid recipient email address: {}", to);
+            meterRegistry.counter("portal.email.skipped", "reason", "invalid-recipient").increment();
             return false;
         }
 
+        Timer.Sample sample = Timer.start(meterRegistry);
+        phaseTimer.start(RequestPhaseTimer.Phase.EXTERNAL);
+        String outcome = "sent";
         try {
             SimpleMailMessage message = new SimpleMailMessage();
             message.setFrom(fromEmail);
@@ -56,8 +67,12 @@ public class EmailService {
             return true;
         } catch (Exception e) {
             // Log the error but don't throw exception to prevent disrupting the main flow
+            outcome = "failed";
             logger.warn("Failed to send email: {}", e.getMessage());
             return false;
+        } finally {
+            phaseTimer.stop(RequestPhaseTimer.Phase.EXTERNAL);
+            sample.stop(meterRegistry.timer("portal.email.sends", "outcome", outcome));
         }
     }
 }
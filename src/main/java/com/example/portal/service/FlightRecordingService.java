@@ -0,0 +1,135 @@
+package com.example.portal.service;
+
+import com.example.portal.event.FlightRecorderEvents;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * On-demand Java Flight Recorder recordings, one at a time, with the JVM's events and the portal's
+ * {@link FlightRecorderEvents}. A recording stops by itself after its duration, which is capped
+ * like its size, so a forgotten recording cannot fill the disk; its data is kept until it is
+ * fetched or the next recording starts.
+ */
+@Service
+public class FlightRecordingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecordingService.class);
+
+    // The JDK's own settings: "default" has about 1% overhead, "profile" more detail at about 2%
+    public static final Set<String> SETTINGS = Set.of("default", "profile");
+
+    private final long maxDurationSeconds;
+    private final long maxSizeBytes;
+
+    private Recording recording; // guarded by this
+
+    public FlightRecordingService(@Value("${app.jfr.max-duration-seconds:600}") long maxDurationSeconds,
+                                  @Value("${app.jfr.max-size-mb:250}") long maxSizeMb) {
+        this.maxDurationSeconds = maxDurationSeconds;
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+    }
+
+    /**
+     * Start a recording, replacing a finished one that was not fetched
+     * @param durationSeconds how long to record, capped at the configured maximum
+     * @param statementThreshold shortest mapper statement to record
+     * @throws IllegalStateException if a recording is already running
+     * @throws IllegalArgumentException for settings other than {@link #SETTINGS}
+     */
+    public synchronized Map<String, Object> start(long durationSeconds, String settings, Duration statementThreshold)
+            throws IOException, ParseException {
+        if (!SETTINGS.contains(settings)) {
+            throw new IllegalArgumentException("Unknown settings: " + settings);
+        }
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new IllegalStateException("A recording is already running");
+        }
+        closeRecording();
+
+        Recording started = new Recording(Configuration.getConfiguration(settings));
+        started.setName("portal-" + Instant.now().getEpochSecond());
+        started.setToDisk(true);
+        started.setDuration(Duration.ofSeconds(Math.max(1, Math.min(durationSeconds, maxDurationSeconds))));
+        started.setMaxSize(maxSizeBytes);
+        started.enable(FlightRecorderEvents.Statement.NAME).withThreshold(statementThreshold);
+        // The environment and system properties carry datasource and Redis credentials
+        started.disable("jdk.InitialEnvironmentVariable");
+        started.disable("jdk.InitialSystemProperty");
+        started.start();
+        recording = started;
+        logger.info("Started flight recording {} for {} with {} settings",
+                started.getName(), started.getDuration(), settings);
+        return describe(started);
+    }
+
+    /**
+     * The current or last recording, or null if there is none
+     */
+    public synchronized Map<String, Object> getStatus() {
+        return recording != null ? describe(recording) : null;
+    }
+
+    /**
+     * Stop the recording if still running and write it to a temporary file, which the caller
+     * deletes; the recording is discarded
+     * @return the .jfr file, or null if there is no recording
+     */
+    public synchronized Path stop() throws IOException {
+        if (recording == null) {
+            return null;
+        }
+        Path file = Files.createTempFile(recording.getName() + "-", ".jfr");
+        try {
+            if (recording.getState() == RecordingState.RUNNING) {
+                recording.stop();
+            }
+            recording.dump(file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        } finally {
+            closeRecording();
+        }
+        logger.info("Wrote flight recording to {} ({} bytes)", file, Files.size(file));
+        return file;
+    }
+
+    private void closeRecording() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    private static Map<String, Object> describe(Recording recording) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("name", recording.getName());
+        status.put("state", recording.getState().name());
+        status.put("startTime", recording.getStartTime());
+        status.put("durationSeconds", recording.getDuration().getSeconds());
+        status.put("maxSizeBytes", recording.getMaxSize());
+        status.put("sizeBytes", recording.getSize());
+        return status;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        closeRecording();
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.portal.service;
+
+import com.example.portal.model.*;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Rough heap size of cached model objects, for store metrics. Counts object headers and one
+ * compressed reference per field, boxed values and Latin-1 strings by their length, as a 64-bit
+ * JVM with compressed references lays them out. Objects reachable from several places, such as a
+ * customer shared by two appointments, are counted once.
+ */
+class HeapEstimate {
+
+    private static final int HEADER_BYTES = 12;
+    private static final int REFERENCE_BYTES = 4;
+    private static final long STRING_BYTES = 24;
+    private static final long ARRAY_HEADER_BYTES = 16;
+    private static final long BOXED_BYTES = 16;
+    private static final long LOCAL_TIME_BYTES = 24;
+    // LocalDateTime plus its LocalDate and LocalTime
+    private static final long LOCAL_DATE_TIME_BYTES = 72;
+    // BigDecimal plus the BigInteger of larger unscaled values
+    private static final long BIG_DECIMAL_BYTES = 40;
+
+    private final Set<Object> counted = Collections.newSetFromMap(new IdentityHashMap<>());
+    private long bytes;
+
+    long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Add bytes of containers holding the counted objects, such as map entries and index lists
+     */
+    void addOverhead(long overheadBytes) {
+        bytes += overheadBytes;
+    }
+
+    void add(ServiceAppointment appointment) {
+        if (appointment == null || !counted.add(appointment)) {
+            return;
+        }
+        bytes += object(19)
+                + boxed(appointment.getAppointmentId(), appointment.getCustId(), appointment.getServiceId(),
+                        appointment.getOutletId(), appointment.getTimeId(), appointment.getVehId(),
+                        appointment.getStaffId(), appointment.getAppointmentDuration())
+                + string(appointment.getAppointmentStatus())
+                + (appointment.getAppointmentCost() != null ? BIG_DECIMAL_BYTES : 0)
+                + (appointment.getEstimatedFinishTime() != null ? LOCAL_TIME_BYTES : 0)
+                + (appointment.getActualStartTime() != null ? LOCAL_DATE_TIME_BYTES : 0)
+                + (appointment.getActualFinishTime() != null ? LOCAL_DATE_TIME_BYTES : 0);
+        add(appointment.getCustomer());
+        if (appointment.getService() instanceof ServiceType service) {
+            add(service);
+        }
+        if (appointment.getOutlet() instanceof ServiceOutlet outlet) {
+            add(outlet);
+        }
+        add(appointment.getTimeSlot());
+        add(appointment.getVehicle());
+        add(appointment.getStaff());
+    }
+
+    void add(TimeSlot timeSlot) {
+        if (timeSlot == null || !counted.add(timeSlot)) {
+            return;
+        }
+        bytes += object(6)
+                + boxed(timeSlot.getTimeId(), timeSlot.getTimeYear(), timeSlot.getTimeQuarter(),
+                        timeSlot.getTimeMonth(), timeSlot.getTimeDay())
+                + (timeSlot.getTimeClocktime() != null ? LOCAL_TIME_BYTES : 0);
+    }
+
+    void add(Staff staff) {
+        if (staff == null || !counted.add(staff)) {
+            return;
+        }
+        bytes += object(7)
+                + boxed(staff.getStaffId(), staff.getOutletId())
+                + string(staff.getStaffName()) + string(staff.getStaffRole())
+                + string(staff.getStaffPhone()) + string(staff.getStaffPassword());
+        add(staff.getOutlet());
+    }
+
+    private void add(Customer customer) {
+        if (customer == null || !counted.add(customer)) {
+            return;
+        }
+        bytes += object(6)
+                + boxed(customer.getCustId())
+                + string(customer.getCustName()) + string(customer.getCustPhone()) + string(customer.getCustEmail())
+                + string(customer.getCustAddress()) + string(customer.getCustPassword());
+    }
+
+    private void add(ServiceType service) {
+        if (service == null || !counted.add(service)) {
+            return;
+        }
+        bytes += object(6)
+                + boxed(service.getServiceId(), service.getServicePrice(), service.getServiceDuration())
+                + string(service.getServiceType()) + string(service.getServiceDesc()) + string(service.getServiceCategory());
+    }
+
+    private void add(ServiceOutlet outlet) {
+        if (outlet == null || !counted.add(outlet)) {
+            return;
+        }
+        bytes += object(6)
+                + boxed(outlet.getOutletId())
+                + string(outlet.getOutletName()) + string(outlet.getOutletAddress()) + string(outlet.getOutletCity())
+                + string(outlet.getOutletState()) + string(outlet.getOutletPostalCode());
+    }
+
+    private void add(Vehicle vehicle) {
+        if (vehicle == null || !counted.add(vehicle)) {
+            return;
+        }
+        bytes += object(8)
+                + boxed(vehicle.getVehId(), vehicle.getVehYear(), vehicle.getCustId())
+                + string(vehicle.getVehPlateno()) + string(vehicle.getVehModel())
+                + string(vehicle.getVehBrand()) + string(vehicle.getVehType());
+        add(vehicle.getCustomer());
+    }
+
+    static long object(int fields) {
+        return align(HEADER_BYTES + (long) REFERENCE_BYTES * fields);
+    }
+
+    /**
+     * A String with its byte array, one byte per character as for Latin-1 text
+     */
+    static long string(String value) {
+        return value == null ? 0 : STRING_BYTES + align(ARRAY_HEADER_BYTES + value.length());
+    }
+
+    private static long boxed(Object... values) {
+        long total = 0;
+        for (Object value : values) {
+            if (value != null) {
+                total += BOXED_BYTES;
+            }
+        }
+        return total;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.portal.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Sorted scores of staff members per leaderboard key, in the manner of Redis sorted sets
+ */
+public interface LeaderboardStore {
+
+    /**
+     * Add each change's delta to the member's score, creating boards as needed
+     */
+    void apply(List<ScoreChange> changes);
+
+    /**
+     * Highest scores first, at most limit members
+     */
+    LinkedHashMap<Integer, Double> top(String key, int limit);
+
+    /**
+     * Score of one member, 0 if the member or the board does not exist
+     */
+    double score(String key, Integer member);
+
+    /**
+     * Value stored with {@link #setMarker}, or null if none was stored
+     */
+    String getMarker();
+
+    /**
+     * Remember a small value next to the boards, e.g. that they have been filled
+     */
+    void setMarker(String value);
+
+    class ScoreChange {
+        private final String key;
+        private final Integer member;
+        private final double delta;
+        private final Duration ttl; // null to keep the board indefinitely
+
+        public ScoreChange(String key, Integer member, double delta, Duration ttl) {
+            this.key = key;
+            this.member = member;
+            this.delta = delta;
+            this.ttl = ttl;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public Integer getMember() {
+            return member;
+        }
+
+        public double getDelta() {
+            return delta;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+    }
+}
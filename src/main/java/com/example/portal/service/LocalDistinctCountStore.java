@@ -0,0 +1,64 @@
+package com.example.portal.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process distinct counts for single-node setups without Redis.
+ * Sketches are lost on restart, so they are refilled from the database on every start.
+ */
+@Service
+@ConditionalOnProperty(name = "app.cache.use-redis", havingValue = "false")
+public class LocalDistinctCountStore implements DistinctCountStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalDistinctCountStore.class);
+
+    private final Map<String, HyperLogLog> sketches = new ConcurrentHashMap<>();
+    private volatile String marker;
+
+    public LocalDistinctCountStore() {
+        logger.info("Using in-memory distinct count store");
+    }
+
+    @Override
+    public void add(Map<String, Collection<Integer>> idsByKey) {
+        idsByKey.forEach((key, ids) -> {
+            HyperLogLog sketch = sketches.computeIfAbsent(key, k -> new HyperLogLog());
+            synchronized (sketch) {
+                for (Integer id : ids) {
+                    sketch.add(id);
+                }
+            }
+        });
+    }
+
+    @Override
+    public long count(Collection<String> keys) {
+        HyperLogLog union = new HyperLogLog();
+        for (String key : keys) {
+            HyperLogLog sketch = sketches.get(key);
+            if (sketch != null) {
+                synchronized (sketch) {
+                    union.merge(sketch);
+                }
+            }
+        }
+        return union.count();
+    }
+
+    @Override
+    public String getMarker() {
+        return marker;
+    }
+
+    @Override
+    public void setMarker(String value) {
+        this.marker = value;
+    }
+}
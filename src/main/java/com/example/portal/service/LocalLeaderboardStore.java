@@ -0,0 +1,105 @@
+package com.example.portal.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process leaderboards for single-node setups without Redis.
+ * Each board keeps a score per member and the same entries ordered by score, like a sorted set.
+ */
+@Service
+@ConditionalOnProperty(name = "app.cache.use-redis", havingValue = "false")
+public class LocalLeaderboardStore implements LeaderboardStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalLeaderboardStore.class);
+
+    private final Map<String, Board> boards = new ConcurrentHashMap<>();
+    private volatile String marker;
+
+    public LocalLeaderboardStore() {
+        logger.info("Using in-memory leaderboard store");
+    }
+
+    @Override
+    public void apply(List<ScoreChange> changes) {
+        long now = System.currentTimeMillis();
+        boards.values().removeIf(board -> board.expiresAt < now);
+        for (ScoreChange change : changes) {
+            Board board = boards.computeIfAbsent(change.getKey(), k -> new Board());
+            synchronized (board) {
+                board.increment(change.getMember(), change.getDelta());
+                board.expiresAt = change.getTtl() != null ? now + change.getTtl().toMillis() : Long.MAX_VALUE;
+            }
+        }
+    }
+
+    @Override
+    public LinkedHashMap<Integer, Double> top(String key, int limit) {
+        LinkedHashMap<Integer, Double> top = new LinkedHashMap<>();
+        Board board = boards.get(key);
+        if (board == null) {
+            return top;
+        }
+        synchronized (board) {
+            for (Entry entry : board.ordered) {
+                if (top.size() == limit) break;
+                top.put(entry.member, entry.score);
+            }
+        }
+        return top;
+    }
+
+    @Override
+    public double score(String key, Integer member) {
+        Board board = boards.get(key);
+        if (board == null) {
+            return 0;
+        }
+        synchronized (board) {
+            return board.scores.getOrDefault(member, 0.0);
+        }
+    }
+
+    @Override
+    public String getMarker() {
+        return marker;
+    }
+
+    @Override
+    public void setMarker(String value) {
+        this.marker = value;
+    }
+
+    private static class Board {
+        private final Map<Integer, Double> scores = new HashMap<>();
+        // Highest score first, ties by member like Redis orders equal scores in reverse
+        private final TreeSet<Entry> ordered = new TreeSet<>(Comparator.comparingDouble((Entry e) -> -e.score)
+                .thenComparing(e -> -e.member));
+        private long expiresAt = Long.MAX_VALUE;
+
+        void increment(Integer member, double delta) {
+            Double previous = scores.get(member);
+            if (previous != null) {
+                ordered.remove(new Entry(member, previous));
+            }
+            double score = (previous != null ? previous : 0) + delta;
+            scores.put(member, score);
+            ordered.add(new Entry(member, score));
+        }
+    }
+
+    private static class Entry {
+        private final int member;
+        private final double score;
+
+        Entry(int member, double score) {
+            this.member = member;
+            this.score = score;
+        }
+    }
+}
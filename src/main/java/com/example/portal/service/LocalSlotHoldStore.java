@@ -0,0 +1,151 @@
+package com.example.portal.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process slot holds for single-node setups without Redis.
+ * Each outlet day is guarded by one of a fixed set of lock stripes.
+ */
+@Service
+@ConditionalOnProperty(name = "app.cache.use-redis", havingValue = "false")
+public class LocalSlotHoldStore implements SlotHoldStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalSlotHoldStore.class);
+    private static final int STRIPES = 64;
+
+    private final Object[] locks = new Object[STRIPES];
+    // Outlet day key -> hold ID -> hold. Inner maps are only touched under the day's stripe lock.
+    private final Map<String, Map<String, Hold>> holdsByDay = new ConcurrentHashMap<>();
+    private final Map<String, String> dayKeyByHoldId = new ConcurrentHashMap<>();
+
+    public LocalSlotHoldStore() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        logger.info("Using in-memory slot hold store");
+    }
+
+    @Override
+    public boolean tryHold(String holdId, Integer outletId, LocalDate date, LocalTime time, int capacity, Duration ttl) {
+        String dayKey = dayKey(outletId, date);
+        long now = System.currentTimeMillis();
+
+        synchronized (lockFor(dayKey)) {
+            Map<String, Hold> holds = holdsByDay.computeIfAbsent(dayKey, k -> new HashMap<>());
+            purgeExpired(holds, now);
+
+            int active = 0;
+            for (Hold hold : holds.values()) {
+                if (hold.time.equals(time)) {
+                    active++;
+                }
+            }
+            if (active >= capacity) {
+                return false;
+            }
+
+            holds.put(holdId, new Hold(outletId, date, time, now + ttl.toMillis()));
+            dayKeyByHoldId.put(holdId, dayKey);
+            return true;
+        }
+    }
+
+    @Override
+    public Map<LocalTime, Integer> countActiveHolds(Integer outletId, LocalDate date) {
+        String dayKey = dayKey(outletId, date);
+        Map<LocalTime, Integer> counts = new HashMap<>();
+
+        synchronized (lockFor(dayKey)) {
+            Map<String, Hold> holds = holdsByDay.get(dayKey);
+            if (holds == null) {
+                return counts;
+            }
+            purgeExpired(holds, System.currentTimeMillis());
+            for (Hold hold : holds.values()) {
+                counts.merge(hold.time, 1, Integer::sum);
+            }
+            if (holds.isEmpty()) {
+                holdsByDay.remove(dayKey);
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public HeldSlot find(String holdId) {
+        String dayKey = dayKeyByHoldId.get(holdId);
+        if (dayKey == null) {
+            return null;
+        }
+
+        synchronized (lockFor(dayKey)) {
+            Map<String, Hold> holds = holdsByDay.get(dayKey);
+            Hold hold = holds != null ? holds.get(holdId) : null;
+            if (hold == null || hold.expiresAt <= System.currentTimeMillis()) {
+                return null;
+            }
+            return new HeldSlot(hold.outletId, hold.date, hold.time);
+        }
+    }
+
+    @Override
+    public boolean release(String holdId) {
+        String dayKey = dayKeyByHoldId.remove(holdId);
+        if (dayKey == null) {
+            return false;
+        }
+
+        synchronized (lockFor(dayKey)) {
+            Map<String, Hold> holds = holdsByDay.get(dayKey);
+            if (holds == null) {
+                return false;
+            }
+            Hold hold = holds.remove(holdId);
+            return hold != null && hold.expiresAt > System.currentTimeMillis();
+        }
+    }
+
+    private void purgeExpired(Map<String, Hold> holds, long now) {
+        Iterator<Map.Entry<String, Hold>> it = holds.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Hold> entry = it.next();
+            if (entry.getValue().expiresAt <= now) {
+                dayKeyByHoldId.remove(entry.getKey());
+                it.remove();
+            }
+        }
+    }
+
+    private Object lockFor(String dayKey) {
+        return locks[(dayKey.hashCode() & 0x7fffffff) % STRIPES];
+    }
+
+    private static String dayKey(Integer outletId, LocalDate date) {
+        return outletId + ":" + date;
+    }
+
+    private static class Hold {
+        private final Integer outletId;
+        private final LocalDate date;
+        private final LocalTime time;
+        private final long expiresAt;
+
+        Hold(Integer outletId, LocalDate date, LocalTime time, long expiresAt) {
+            this.outletId = outletId;
+            this.date = date;
+            this.time = time;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
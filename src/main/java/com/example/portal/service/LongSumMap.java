@@ -0,0 +1,103 @@
+package com.example.portal.service;
+
+import java.util.Arrays;
+
+/**
+ * Sums of long values per long key in an open-addressing table, so adding to a sum neither
+ * boxes nor allocates once the key exists. Not thread-safe.
+ */
+public class LongSumMap {
+
+    private static final long FREE = Long.MIN_VALUE;
+
+    private long[] keys;
+    private long[] sums;
+    private int size;
+
+    public LongSumMap() {
+        this(16);
+    }
+
+    public LongSumMap(int expectedKeys) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedKeys * 2 - 1)) << 1;
+        keys = new long[capacity];
+        sums = new long[capacity];
+        Arrays.fill(keys, FREE);
+    }
+
+    /**
+     * Add delta to the sum of key. Long.MIN_VALUE cannot be used as a key.
+     */
+    public void add(long key, long delta) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                sums[slot] += delta;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        sums[slot] = delta;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    public long get(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                return sums[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void merge(LongSumMap other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] != FREE) {
+                add(other.keys[i], other.sums[i]);
+            }
+        }
+    }
+
+    public void forEach(Consumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) {
+                consumer.accept(keys[i], sums[i]);
+            }
+        }
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldSums = sums;
+        keys = new long[oldKeys.length * 2];
+        sums = new long[oldSums.length * 2];
+        Arrays.fill(keys, FREE);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                add(oldKeys[i], oldSums[i]);
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @FunctionalInterface
+    public interface Consumer {
+        void accept(long key, long sum);
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -203,107 +204,169 @@ public class NotificationService {
      */
     public void notifyCustomerAboutAppointment(ServiceAppointment appointment, String status) {
         try {
-            if (appointment == null || appointment.getCustId() == null) {
-                logger.warn("Cannot create notification: appointment or customer ID is null");
+            Notification template = buildAppointmentNotification(appointment, status);
+            if (template == null) {
                 return; // Skip if appointment or required data is missing
             }
 
-            String title;
-            String message;
-            String type = "appointment";
+            logger.debug("Creating notification for customer {} about appointment {}: {}",
+                    appointment.getCustId(), appointment.getAppointmentId(), template.getTitle());
+
+            Notification notification = createNotification(template.getUserId(), template.getUserType(),
+                    template.getTitle(), template.getMessage(), template.getType(), template.getLink());
 
-            // Get service type name
-            String serviceTypeName = "your service";
+            if (notification != null && notification.getNotificationId() != null) {
+                logger.debug("Successfully created notification ID {} for customer {}: {}",
+                        notification.getNotificationId(), appointment.getCustId(), template.getTitle());
+            } else {
+                logger.warn("Notification might not have been created properly for customer {}", appointment.getCustId());
+            }
+        } catch (Exception e) {
+            logger.error("Error creating notification for appointment status change: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Notify customers about the current status of many appointments at once.
+     * All notifications are written with one multi-row insert and one Redis pipeline.
+     */
+    public List<Notification> notifyCustomersAboutAppointments(List<ServiceAppointment> appointments) {
+        List<Notification> notifications = new ArrayList<>();
+        for (ServiceAppointment appointment : appointments) {
             try {
-                // Use the safe method to get service type
-                com.example.portal.model.ServiceType serviceType = appointment.getServiceTypeSafe();
-                if (serviceType != null && serviceType.getServiceType() != null) {
-                    serviceTypeName = serviceType.getServiceType();
-                    logger.debug("Got service type using getServiceTypeSafe: {}", serviceTypeName);
-                } else if (appointment.getService() != null) {
-                    // Fallback to the old approach if needed
-                    Object serviceObj = appointment.getService();
-                    logger.debug("Service object class: {}", serviceObj.getClass().getName());
-
-                    if (serviceObj instanceof com.example.portal.model.ServiceType) {
-                        serviceTypeName = ((com.example.portal.model.ServiceType) serviceObj).getServiceType();
-                        logger.debug("Got service type from ServiceType object: {}", serviceTypeName);
-                    } else if (serviceObj instanceof java.util.Map) {
-                        // Handle the case where service is a Map (including LinkedHashMap)
-                        @SuppressWarnings("unchecked")
-                        java.util.Map<String, Object> serviceMap = (java.util.Map<String, Object>) serviceObj;
-                        if (serviceMap.containsKey("serviceType")) {
-                            Object serviceTypeObj = serviceMap.get("serviceType");
-                            if (serviceTypeObj != null) {
-                                serviceTypeName = serviceTypeObj.toString();
-                                logger.debug("Extracted service type from Map: {}", serviceTypeName);
-                            }
-                        }
-                    } else {
-                        // Try to get service type using reflection
-                        try {
-                            java.lang.reflect.Method getTypeMethod = serviceObj.getClass().getMethod("getServiceType");
-                            Object result = getTypeMethod.invoke(serviceObj);
-                            if (result != null) {
-                                serviceTypeName = result.toString();
-                                logger.debug("Got service type using reflection: {}", serviceTypeName);
-                            }
-                        } catch (Exception e) {
-                            logger.warn("Could not get service type using reflection: {}", e.getMessage());
-                            logger.warn("Unexpected service object type: {}", serviceObj.getClass().getName());
-                        }
-                    }
-                } else if (appointment.getServiceId() != null) {
-                    // Try to get service type from service ID
-                    logger.debug("Service object is null, trying to get service type from service ID: {}", appointment.getServiceId());
+                Notification notification = buildAppointmentNotification(appointment, appointment.getAppointmentStatus());
+                if (notification != null) {
+                    notifications.add(notification);
                 }
             } catch (Exception e) {
-                logger.error("Error getting service type name: {}", e.getMessage(), e);
-                // Continue with default service type name
+                logger.error("Error building notification for appointment {}: {}",
+                        appointment.getAppointmentId(), e.getMessage(), e);
             }
+        }
+
+        if (notifications.isEmpty()) {
+            return notifications;
+        }
+
+        try {
+            notificationMapper.insertAll(notifications);
+            logger.debug("Stored {} notifications in database", notifications.size());
 
-            // Set title and message based on status
-            switch (status) {
-                case "SCHEDULED":
-                    title = "Appointment Confirmed";
-                    message = "Your appointment for " + serviceTypeName + " has been confirmed.";
-                    break;
-                case "IN_PROGRESS":
-                    title = "Service Started";
-                    message = "Your " + serviceTypeName + " service has started.";
-                    type = "service";
-                    break;
-                case "COMPLETED":
-                    title = "Service Completed";
-                    message = "Your " + serviceTypeName + " service has been completed. Your vehicle is ready for pickup.";
-                    type = "service";
-                    break;
-                case "CANCELLED":
-                    title = "Appointment Cancelled";
-                    message = "Your appointment for " + serviceTypeName + " has been cancelled.";
-                    break;
-                default:
-                    title = "Appointment Update";
-                    message = "Your appointment for " + serviceTypeName + " has been updated to " + status + ".";
+            if (useRedisNotifications) {
+                try {
+                    redisNotificationService.storeNotifications(notifications);
+                } catch (Exception e) {
+                    logger.error("Failed to store notifications in Redis: {}", e.getMessage(), e);
+                }
             }
+        } catch (Exception e) {
+            logger.error("Failed to create notifications: {}", e.getMessage(), e);
+        }
 
-            // Create the notification
-            String link = "/customer/appointments/" + appointment.getAppointmentId();
+        return notifications;
+    }
 
-            logger.debug("Creating notification for customer {} about appointment {}: {}",
-                    appointment.getCustId(), appointment.getAppointmentId(), title);
+    /**
+     * Build (but do not store) the customer notification for an appointment status
+     * @return the notification, or null if the appointment has no customer
+     */
+    private Notification buildAppointmentNotification(ServiceAppointment appointment, String status) {
+        if (appointment == null || appointment.getCustId() == null) {
+            logger.warn("Cannot create notification: appointment or customer ID is null");
+            return null;
+        }
 
-            Notification notification = createNotification(appointment.getCustId(), "customer", title, message, type, link);
+        String title;
+        String message;
+        String type = "appointment";
 
-            if (notification != null && notification.getNotificationId() != null) {
-                logger.debug("Successfully created notification ID {} for customer {}: {}",
-                        notification.getNotificationId(), appointment.getCustId(), title);
-            } else {
-                logger.warn("Notification might not have been created properly for customer {}", appointment.getCustId());
+        // Get service type name
+        String serviceTypeName = "your service";
+        try {
+            // Use the safe method to get service type
+            com.example.portal.model.ServiceType serviceType = appointment.getServiceTypeSafe();
+            if (serviceType != null && serviceType.getServiceType() != null) {
+                serviceTypeName = serviceType.getServiceType();
+                logger.debug("Got service type using getServiceTypeSafe: {}", serviceTypeName);
+            } else if (appointment.getService() != null) {
+                // Fallback to the old approach if needed
+                Object serviceObj = appointment.getService();
+                logger.debug("Service object class: {}", serviceObj.getClass().getName());
+
+                if (serviceObj instanceof com.example.portal.model.ServiceType) {
+                    serviceTypeName = ((com.example.portal.model.ServiceType) serviceObj).getServiceType();
+                    logger.debug("Got service type from ServiceType object: {}", serviceTypeName);
+                } else if (serviceObj instanceof java.util.Map) {
+                    // Handle the case where service is a Map (including LinkedHashMap)
+                    @SuppressWarnings("unchecked")
+                    java.util.Map<String, Object> serviceMap = (java.util.Map<String, Object>) serviceObj;
+                    if (serviceMap.containsKey("serviceType")) {
+                        Object serviceTypeObj = serviceMap.get("serviceType");
+                        if (serviceTypeObj != null) {
+                            serviceTypeName = serviceTypeObj.toString();
+                            logger.debug("Extracted service type from Map: {}", serviceTypeName);
+                        }
+                    }
+                } else {
+                    // Try to get service type using reflection
+                    try {
+                        java.lang.reflect.Method getTypeMethod = serviceObj.getClass().getMethod("getServiceType");
+                        Object result = getTypeMethod.invoke(serviceObj);
+                        if (result != null) {
+                            serviceTypeName = result.toString();
+                            logger.debug("Got service type using reflection: {}", serviceTypeName);
+                        }
+                    } catch (Exception e) {
+                        logger.warn("Could not get service type using reflection: {}", e.getMessage());
+                        logger.warn("Unexpected service object type: {}", serviceObj.getClass().getName());
+                    }
+                }
+            } else if (appointment.getServiceId() != null) {
+                // Try to get service type from service ID
+                logger.debug("Service object is null, trying to get service type from service ID: {}", appointment.getServiceId());
             }
         } catch (Exception e) {
-            logger.error("Error creating notification for appointment status change: {}", e.getMessage(), e);
+            logger.error("Error getting service type name: {}", e.getMessage(), e);
+            // Continue with default service type name
+        }
+
+        // Set title and message based on status
+        switch (status) {
+            case "SCHEDULED":
+                title = "Appointment Confirmed";
+                message = "Your appointment for " + serviceTypeName + " has been confirmed.";
+                break;
+            case "IN_PROGRESS":
+                title = "Service Started";
+                message = "Your " + serviceTypeName + " service has started.";
+                type = "service";
+                break;
+            case "COMPLETED":
+                title = "Service Completed";
+                message = "Your " + serviceTypeName + " service has been completed. Your vehicle is ready for pickup.";
+                type = "service";
+                break;
+            case "CANCELLED":
+                title = "Appointment Cancelled";
+                message = "Your appointment for " + serviceTypeName + " has been cancelled.";
+                break;
+            default:
+                title = "Appointment Update";
+                message = "Your appointment for " + serviceTypeName + " has been updated to " + status + ".";
         }
+
+        String link = "/customer/appointments/" + appointment.getAppointmentId();
+
+        Notification notification = new Notification();
+        notification.setUserId(appointment.getCustId());
+        notification.setUserType("customer");
+        notification.setTitle(title);
+        notification.setMessage(message);
+        notification.setType(type);
+        notification.setRead(false);
+        notification.setCreatedAt(LocalDateTime.now());
+        notification.setLink(link);
+        return notification;
     }
 
     // Create notification and send email
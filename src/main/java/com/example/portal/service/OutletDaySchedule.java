@@ -0,0 +1,224 @@
+package com.example.portal.service;
+
+import com.example.portal.model.ServiceAppointment;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * In-memory view of one outlet's appointments on one day, used to detect booking conflicts.
+ * Not thread safe: each instance is owned by the outlet's single writer in {@link BookingSequencer}.
+ */
+public class OutletDaySchedule {
+
+    public static final int UNASSIGNED_STAFF_ID = 9999;
+    private static final int DEFAULT_DURATION_MINUTES = 60;
+
+    private final LocalDate date;
+    private final Set<Integer> staffIds;
+    private final Map<Integer, Entry> entries = new HashMap<>();
+
+    // Interval index of confirmed work: entries keyed by start minute. Any entry overlapping
+    // [start, end) must start in (start - longestConfirmed, end), which bounds every range scan.
+    private final TreeMap<Integer, List<Entry>> confirmedByStart = new TreeMap<>();
+    private int longestConfirmed;
+    private final Map<Integer, Integer> confirmedMinutesByStaff = new HashMap<>();
+
+    public OutletDaySchedule(LocalDate date, Collection<Integer> staffIds) {
+        this.date = date;
+        this.staffIds = new HashSet<>(staffIds);
+        this.staffIds.remove(UNASSIGNED_STAFF_ID);
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public Set<Integer> getStaffIds() {
+        return Collections.unmodifiableSet(staffIds);
+    }
+
+    /**
+     * Number of appointments that can run at the same time (one per real staff member)
+     */
+    public int getCapacity() {
+        return staffIds.size();
+    }
+
+    public Entry get(Integer appointmentId) {
+        return entries.get(appointmentId);
+    }
+
+    public void put(Entry entry) {
+        Entry previous = entries.put(entry.getAppointmentId(), entry);
+        if (previous != null) {
+            unindex(previous);
+        }
+        index(entry);
+    }
+
+    public Entry remove(Integer appointmentId) {
+        Entry removed = entries.remove(appointmentId);
+        if (removed != null) {
+            unindex(removed);
+        }
+        return removed;
+    }
+
+    public Collection<Entry> getEntries() {
+        return Collections.unmodifiableCollection(entries.values());
+    }
+
+    /**
+     * Count active (pending or confirmed) appointments overlapping [start, end)
+     */
+    public int countActiveOverlapping(int start, int end) {
+        int count = 0;
+        for (Entry entry : entries.values()) {
+            if (entry.isActive() && entry.overlaps(start, end)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Check that a staff member has no confirmed work overlapping [start, end)
+     * @param ignoreAppointmentId appointment to leave out of the check (the one being confirmed)
+     */
+    public boolean isStaffFree(int staffId, int start, int end, Integer ignoreAppointmentId) {
+        return !findBusyStaff(start, end, ignoreAppointmentId).contains(staffId);
+    }
+
+    /**
+     * Staff members with confirmed work overlapping [start, end)
+     * @param ignoreAppointmentId appointment to leave out of the check (the one being confirmed)
+     */
+    public Set<Integer> findBusyStaff(int start, int end, Integer ignoreAppointmentId) {
+        Set<Integer> busy = new HashSet<>();
+        if (confirmedByStart.isEmpty()) {
+            return busy;
+        }
+        for (List<Entry> startingTogether : confirmedByStart.subMap(start - longestConfirmed, false, end, false).values()) {
+            for (Entry entry : startingTogether) {
+                if (entry.overlaps(start, end) && !Objects.equals(entry.getAppointmentId(), ignoreAppointmentId)) {
+                    busy.add(entry.getStaffId());
+                }
+            }
+        }
+        return busy;
+    }
+
+    /**
+     * Minutes of confirmed work assigned to a staff member on this day
+     */
+    public int getConfirmedMinutes(int staffId) {
+        return confirmedMinutesByStaff.getOrDefault(staffId, 0);
+    }
+
+    private void index(Entry entry) {
+        if (!entry.isConfirmed()) {
+            return;
+        }
+        confirmedByStart.computeIfAbsent(entry.getStart(), k -> new ArrayList<>(1)).add(entry);
+        longestConfirmed = Math.max(longestConfirmed, entry.getEnd() - entry.getStart());
+        confirmedMinutesByStaff.merge(entry.getStaffId(), entry.getEnd() - entry.getStart(), Integer::sum);
+    }
+
+    private void unindex(Entry entry) {
+        if (!entry.isConfirmed()) {
+            return;
+        }
+        List<Entry> startingTogether = confirmedByStart.get(entry.getStart());
+        if (startingTogether != null) {
+            startingTogether.remove(entry);
+            if (startingTogether.isEmpty()) {
+                confirmedByStart.remove(entry.getStart());
+            }
+        }
+        // longestConfirmed is only an upper bound, so it is not shrunk on removal
+        confirmedMinutesByStaff.merge(entry.getStaffId(), -(entry.getEnd() - entry.getStart()), Integer::sum);
+    }
+
+    /**
+     * Build a schedule entry from an appointment whose time slot clock time is known
+     */
+    public static Entry entryOf(ServiceAppointment appointment, LocalTime startTime) {
+        int start = startTime.getHour() * 60 + startTime.getMinute();
+        int end;
+        if (appointment.getEstimatedFinishTime() != null) {
+            LocalTime finish = appointment.getEstimatedFinishTime();
+            end = finish.getHour() * 60 + finish.getMinute();
+        } else {
+            Integer duration = appointment.getAppointmentDuration();
+            end = start + (duration != null && duration > 0 ? duration : DEFAULT_DURATION_MINUTES);
+        }
+        if (end <= start) {
+            // A finish time before the start makes no sense, treat it as a default-length appointment
+            end = start + DEFAULT_DURATION_MINUTES;
+        }
+
+        int staffId = appointment.getStaffId() != null ? appointment.getStaffId() : UNASSIGNED_STAFF_ID;
+        return new Entry(appointment.getAppointmentId(), staffId, appointment.getAppointmentStatus(), start, end);
+    }
+
+    /**
+     * One appointment on the day, times in minutes since midnight
+     */
+    public static class Entry {
+        private final Integer appointmentId;
+        private final int staffId;
+        private final String status;
+        private final int start;
+        private final int end;
+
+        public Entry(Integer appointmentId, int staffId, String status, int start, int end) {
+            this.appointmentId = appointmentId;
+            this.staffId = staffId;
+            this.status = status;
+            this.start = start;
+            this.end = end;
+        }
+
+        public Integer getAppointmentId() {
+            return appointmentId;
+        }
+
+        public int getStaffId() {
+            return staffId;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        public boolean overlaps(int otherStart, int otherEnd) {
+            return start < otherEnd && otherStart < end;
+        }
+
+        public boolean isActive() {
+            return "PENDING".equals(status) || isConfirmed();
+        }
+
+        public boolean isConfirmed() {
+            return "SCHEDULED".equals(status) || "IN_PROGRESS".equals(status);
+        }
+
+        public Entry withAppointmentId(Integer newAppointmentId) {
+            return new Entry(newAppointmentId, staffId, status, start, end);
+        }
+
+        public Entry withStaffId(int newStaffId) {
+            return new Entry(appointmentId, newStaffId, status, start, end);
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.example.portal.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency of every mapped statement, kept as a histogram per statement ID, and the slowest
+ * execution of each statement that crossed the slow threshold, with its SQL and parameters.
+ *
+ * The fast path is a few LongAdder increments; parameter values are only read for slow
+ * executions. Values bound to a property whose name contains one of the redacted names
+ * (passwords, emails, phone numbers, tokens by default) are never logged or reported, only
+ * their type; they are kept in memory solely for EXPLAIN. Query plans of the slowest statements
+ * are taken on demand by running EXPLAIN with the captured parameters. Every statement is also
+ * timed in the metrics registry as portal.mybatis.statement, tagged with the statement ID.
+ */
+@Service
+public class QueryAuditService {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryAuditService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final long slowThresholdNanos;
+    private final int maxParameterLength;
+    private final String[] redactedNames;
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, SlowExecution> slowest = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public QueryAuditService(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                             @Value("${app.query-audit.slow-threshold-ms:200}") long slowThresholdMillis,
+                             @Value("${app.query-audit.max-parameter-length:200}") int maxParameterLength,
+                             @Value("${app.query-audit.redacted-parameters:password,email,phone,token}") String redactedParameters) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.slowThresholdNanos = slowThresholdMillis * 1_000_000L;
+        this.maxParameterLength = maxParameterLength;
+        this.redactedNames = Arrays.stream(redactedParameters.split(","))
+                .map(name -> name.trim().toLowerCase(Locale.ROOT))
+                .filter(name -> !name.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Record one execution of a mapped statement
+     * @param boundSql the SQL and parameters the statement was executed with
+     */
+    public void record(MappedStatement statement, BoundSql boundSql, long nanos) {
+        histograms.computeIfAbsent(statement.getId(), id -> new LatencyHistogram()).add(nanos);
+        timers.computeIfAbsent(statement.getId(), id -> Timer.builder("portal.mybatis.statement")
+                .description("Execution time of mapped statements")
+                .tag("statement", id)
+                .tag("command", statement.getSqlCommandType().name())
+                .register(meterRegistry)).record(nanos, TimeUnit.NANOSECONDS);
+        if (nanos < slowThresholdNanos) {
+            return;
+        }
+
+        SlowExecution execution;
+        try {
+            List<String> properties = new ArrayList<>();
+            List<Object> values = parameterValues(statement.getConfiguration(), boundSql, properties);
+            execution = new SlowExecution(statement.getId(), statement.getSqlCommandType(),
+                    boundSql.getSql().replaceAll("\\s+", " ").trim(),
+                    values, displayValues(properties, values), nanos);
+        } catch (RuntimeException e) {
+            logger.warn("Slow statement {} took {} ms; its parameters could not be read", statement.getId(), nanos / 1_000_000, e);
+            return;
+        }
+        logger.warn("Slow statement {} took {} ms: {} with parameters {}",
+                execution.statementId, execution.millis(), execution.sql, execution.displayedParameters);
+        slowest.merge(statement.getId(), execution, (kept, latest) -> latest.nanos > kept.nanos ? latest : kept);
+    }
+
+    /**
+     * Values bound to the placeholders of the statement, in order, resolved like the
+     * default MyBatis parameter handler does
+     * @param properties receives the property name of each value
+     */
+    private static List<Object> parameterValues(Configuration configuration, BoundSql boundSql, List<String> properties) {
+        Object parameterObject = boundSql.getParameterObject();
+        MetaObject metaObject = null;
+        List<Object> values = new ArrayList<>();
+        for (ParameterMapping mapping : boundSql.getParameterMappings()) {
+            if (mapping.getMode() == ParameterMode.OUT) continue;
+            String property = mapping.getProperty();
+            Object value;
+            if (boundSql.hasAdditionalParameter(property)) {
+                value = boundSql.getAdditionalParameter(property);
+            } else if (parameterObject == null) {
+                value = null;
+            } else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameterObject.getClass())) {
+                value = parameterObject;
+            } else {
+                if (metaObject == null) {
+                    metaObject = configuration.newMetaObject(parameterObject);
+                }
+                value = metaObject.getValue(property);
+            }
+            values.add(value);
+            properties.add(property);
+        }
+        return values;
+    }
+
+    /**
+     * The parameter values as they may be logged and reported: cut to the maximum length, and
+     * only the type of values bound to a redacted property
+     */
+    private List<String> displayValues(List<String> properties, List<Object> values) {
+        List<String> displayed = new ArrayList<>(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            Object value = values.get(i);
+            if (value != null && isRedacted(properties.get(i))) {
+                displayed.add("<redacted " + value.getClass().getSimpleName() + ">");
+                continue;
+            }
+            String text = String.valueOf(value);
+            displayed.add(text.length() > maxParameterLength ? text.substring(0, maxParameterLength) + "..." : text);
+        }
+        return displayed;
+    }
+
+    private boolean isRedacted(String property) {
+        String name = property.toLowerCase(Locale.ROOT);
+        for (String redacted : redactedNames) {
+            if (name.contains(redacted)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Latency summary per statement ID, most total time first
+     */
+    public List<Map<String, Object>> getStatementStats() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        histograms.forEach((statementId, histogram) -> {
+            Map<String, Object> item = histogram.summary();
+            item.put("statementId", statementId);
+            result.add(item);
+        });
+        result.sort((a, b) -> Double.compare((Double) b.get("totalMs"), (Double) a.get("totalMs")));
+        return result;
+    }
+
+    /**
+     * The slowest captured execution of each slow statement, slowest first
+     */
+    public List<Map<String, Object>> getSlowStatements(int limit) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (SlowExecution execution : slowestFirst(limit)) {
+            result.add(execution.toMap());
+        }
+        return result;
+    }
+
+    /**
+     * Run EXPLAIN for the slowest captured SELECT statements with the parameters they ran with
+     * @return the slow executions, each with a plan (rows of the EXPLAIN output) or an error
+     */
+    public List<Map<String, Object>> explainSlowest(int limit) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (SlowExecution execution : slowestFirst(limit)) {
+            if (execution.commandType != SqlCommandType.SELECT) continue;
+            Map<String, Object> item = execution.toMap();
+            try {
+                item.put("plan", jdbcTemplate.queryForList("EXPLAIN " + execution.sql, execution.parameters.toArray()));
+            } catch (DataAccessException e) {
+                item.put("error", e.getMostSpecificCause().getMessage());
+            }
+            result.add(item);
+        }
+        return result;
+    }
+
+    private List<SlowExecution> slowestFirst(int limit) {
+        List<SlowExecution> executions = new ArrayList<>(slowest.values());
+        executions.sort((a, b) -> Long.compare(b.nanos, a.nanos));
+        return executions.size() > limit ? executions.subList(0, limit) : executions;
+    }
+
+    /**
+     * Forget all histograms and slow executions, e.g. after adding an index
+     */
+    public void reset() {
+        histograms.clear();
+        slowest.clear();
+    }
+
+    private static class SlowExecution {
+        final String statementId;
+        final SqlCommandType commandType;
+        final String sql;
+        final List<Object> parameters; // Only for EXPLAIN, never shown
+        final List<String> displayedParameters;
+        final long nanos;
+        final LocalDateTime capturedAt = LocalDateTime.now();
+
+        SlowExecution(String statementId, SqlCommandType commandType, String sql, List<Object> parameters,
+                      List<String> displayedParameters, long nanos) {
+            this.statementId = statementId;
+            this.commandType = commandType;
+            this.sql = sql;
+            this.parameters = parameters;
+            this.displayedParameters = displayedParameters;
+            this.nanos = nanos;
+        }
+
+        long millis() {
+            return nanos / 1_000_000;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("statementId", statementId);
+            item.put("millis", millis());
+            item.put("capturedAt", capturedAt.toString());
+            item.put("sql", sql);
+            item.put("parameters", displayedParameters);
+            return item;
+        }
+    }
+
+    /**
+     * Execution counts in fixed latency buckets. Quantiles are reported as the upper bound of
+     * the bucket they fall in, which is precise enough to tell a 2 ms statement from a 200 ms one.
+     */
+    static class LatencyHistogram {
+        // Upper bucket bounds in microseconds; the last bucket takes everything slower
+        private static final long[] BOUNDS_MICROS = {250, 500, 1_000, 2_000, 5_000, 10_000, 25_000, 50_000,
+                100_000, 250_000, 500_000, 1_000_000, 2_500_000, 5_000_000, 10_000_000};
+
+        private final LongAdder[] buckets = new LongAdder[BOUNDS_MICROS.length + 1];
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        LatencyHistogram() {
+            for (int i = 0; i < buckets.length; i++) buckets[i] = new LongAdder();
+        }
+
+        void add(long nanos) {
+            long micros = nanos / 1_000;
+            int bucket = 0;
+            while (bucket < BOUNDS_MICROS.length && micros > BOUNDS_MICROS[bucket]) bucket++;
+            buckets[bucket].increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        Map<String, Object> summary() {
+            long[] counts = new long[buckets.length];
+            long calls = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                counts[i] = buckets[i].sum();
+                calls += counts[i];
+            }
+            double totalMs = totalNanos.sum() / 1_000_000.0;
+            double maxMs = maxNanos.get() / 1_000_000.0;
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("calls", calls);
+            summary.put("totalMs", round(totalMs));
+            summary.put("meanMs", calls > 0 ? round(totalMs / calls) : 0.0);
+            summary.put("p50Ms", quantile(counts, calls, 0.5, maxMs));
+            summary.put("p95Ms", quantile(counts, calls, 0.95, maxMs));
+            summary.put("p99Ms", quantile(counts, calls, 0.99, maxMs));
+            summary.put("maxMs", round(maxMs));
+            return summary;
+        }
+
+        private static double quantile(long[] counts, long calls, double fraction, double maxMs) {
+            if (calls == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(fraction * calls));
+            long seen = 0;
+            for (int i = 0; i < BOUNDS_MICROS.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(BOUNDS_MICROS[i] / 1_000.0, round(maxMs));
+                }
+            }
+            return round(maxMs);
+        }
+
+        private static double round(double millis) {
+            return Math.round(millis * 100) / 100.0; // Round to 2 decimal places
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.portal.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Distinct counts shared by all nodes through Redis HyperLogLogs (PFADD / PFCOUNT).
+ * All keys of one update are sent in a single pipeline.
+ */
+@Service
+@ConditionalOnProperty(name = "app.cache.use-redis", havingValue = "true", matchIfMissing = true)
+public class RedisDistinctCountStore implements DistinctCountStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisDistinctCountStore.class);
+    private static final String MARKER_KEY = "hll:marker";
+
+    private final StringRedisTemplate redisTemplate;
+
+    public RedisDistinctCountStore(RedisConnectionFactory connectionFactory) {
+        this.redisTemplate = new StringRedisTemplate(connectionFactory);
+        logger.info("Using Redis distinct count store");
+    }
+
+    @Override
+    public void add(Map<String, Collection<Integer>> idsByKey) {
+        if (idsByKey.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            idsByKey.forEach((key, ids) -> {
+                String[] values = new String[ids.size()];
+                int i = 0;
+                for (Integer id : ids) {
+                    values[i++] = id.toString();
+                }
+                stringConnection.pfAdd(key, values);
+            });
+            return null;
+        });
+    }
+
+    @Override
+    public long count(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        Long size = redisTemplate.opsForHyperLogLog().size(keys.toArray(new String[0]));
+        return size != null ? size : 0;
+    }
+
+    @Override
+    public String getMarker() {
+        return redisTemplate.opsForValue().get(MARKER_KEY);
+    }
+
+    @Override
+    public void setMarker(String value) {
+        redisTemplate.opsForValue().set(MARKER_KEY, value);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.portal.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Leaderboards shared by all nodes as Redis sorted sets (ZINCRBY / ZREVRANGE WITHSCORES).
+ * All changes of one update are sent in a single pipeline.
+ */
+@Service
+@ConditionalOnProperty(name = "app.cache.use-redis", havingValue = "true", matchIfMissing = true)
+public class RedisLeaderboardStore implements LeaderboardStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisLeaderboardStore.class);
+    private static final String MARKER_KEY = "leaderboard:marker";
+
+    private final StringRedisTemplate redisTemplate;
+
+    public RedisLeaderboardStore(RedisConnectionFactory connectionFactory) {
+        this.redisTemplate = new StringRedisTemplate(connectionFactory);
+        logger.info("Using Redis leaderboard store");
+    }
+
+    @Override
+    public void apply(List<ScoreChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (ScoreChange change : changes) {
+                stringConnection.zIncrBy(change.getKey(), change.getDelta(), change.getMember().toString());
+                if (change.getTtl() != null) {
+                    stringConnection.expire(change.getKey(), change.getTtl().getSeconds());
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public LinkedHashMap<Integer, Double> top(String key, int limit) {
+        LinkedHashMap<Integer, Double> top = new LinkedHashMap<>();
+        Set<ZSetOperations.TypedTuple<String>> tuples = redisTemplate.opsForZSet().reverseRangeWithScores(key, 0, limit - 1);
+        if (tuples != null) {
+            for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+                if (tuple.getValue() != null && tuple.getScore() != null) {
+                    top.put(Integer.valueOf(tuple.getValue()), tuple.getScore());
+                }
+            }
+        }
+        return top;
+    }
+
+    @Override
+    public double score(String key, Integer member) {
+        Double score = redisTemplate.opsForZSet().score(key, member.toString());
+        return score != null ? score : 0;
+    }
+
+    @Override
+    public String getMarker() {
+        return redisTemplate.opsForValue().get(MARKER_KEY);
+    }
+
+    @Override
+    public void setMarker(String value) {
+        redisTemplate.opsForValue().set(MARKER_KEY, value);
+    }
+}
@@ -1,11 +1,16 @@
 package com.example.portal.service;
 
+import com.example.portal.event.FlightRecorderEvents;
 import com.example.portal.model.Notification;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -13,7 +18,9 @@ import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Service for managing notifications using Redis
+ * Service for managing notifications using Redis. Each operation is timed as
+ * portal.notifications.redis, tagged with the operation and its outcome, and recorded as a
+ * flight recorder event.
  */
 @Service
 public class RedisNotificationService {
@@ -21,11 +28,14 @@ public class RedisNotificationService {
     private static final Logger logger = LoggerFactory.getLogger(RedisNotificationService.class);
     private final RedisTemplate<String, Object> redisTemplate;
     private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
 
     public RedisNotificationService(RedisTemplate<String, Object> redisTemplate,
-                                   @Qualifier("redisObjectMapper") ObjectMapper objectMapper) {
+                                   @Qualifier("redisObjectMapper") ObjectMapper objectMapper,
+                                   MeterRegistry meterRegistry) {
         this.redisTemplate = redisTemplate;
         this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
         logger.info("RedisNotificationService initialized with custom ObjectMapper");
     }
 
@@ -34,6 +44,10 @@ public class RedisNotificationService {
      * @param notification The notification to store
      */
     public void storeNotification(Notification notification) {
+        FlightRecorderEvents.RedisNotification event = new FlightRecorderEvents.RedisNotification();
+        event.begin();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        boolean failed = false;
         try {
             String key = getNotificationKey(notification.getUserType(), notification.getUserId(), notification.getNotificationId());
             redisTemplate.opsForValue().set(key, notification);
@@ -48,7 +62,47 @@ public class RedisNotificationService {
 
             logger.debug("Stored notification in Redis: {}", notification.getNotificationId());
         } catch (Exception e) {
+            failed = true;
             logger.error("Error storing notification in Redis", e);
+        } finally {
+            record("store", sample, event, failed);
+        }
+    }
+
+    /**
+     * Store many notifications in Redis with a single pipelined round trip
+     * @param notifications The notifications to store
+     */
+    public void storeNotifications(List<Notification> notifications) {
+        FlightRecorderEvents.RedisNotification event = new FlightRecorderEvents.RedisNotification();
+        event.begin();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        boolean failed = false;
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                    for (Notification notification : notifications) {
+                        String key = getNotificationKey(notification.getUserType(), notification.getUserId(), notification.getNotificationId());
+                        String listKey = getNotificationListKey(notification.getUserType(), notification.getUserId());
+
+                        ops.opsForValue().set(key, notification);
+                        ops.opsForList().leftPush(listKey, notification.getNotificationId().toString());
+                        ops.expire(key, 30, TimeUnit.DAYS);
+                        ops.expire(listKey, 30, TimeUnit.DAYS);
+                    }
+                    return null;
+                }
+            });
+
+            logger.debug("Stored {} notifications in Redis", notifications.size());
+        } catch (Exception e) {
+            failed = true;
+            logger.error("Error storing notifications in Redis", e);
+        } finally {
+            record("store-batch", sample, event, failed);
         }
     }
 
@@ -59,6 +113,10 @@ public class RedisNotificationService {
      * @return List of notifications
      */
     public List<Notification> getUserNotifications(Integer userId, String userType) {
+        FlightRecorderEvents.RedisNotification event = new FlightRecorderEvents.RedisNotification();
+        event.begin();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        boolean failed = false;
         try {
             String listKey = getNotificationListKey(userType, userId);
             List<Object> notificationIds = redisTemplate.opsForList().range(listKey, 0, -1);
@@ -85,8 +143,11 @@ public class RedisNotificationService {
 
             return notifications;
         } catch (Exception e) {
+            failed = true;
             logger.error("Error retrieving notifications from Redis", e);
             return new ArrayList<>();
+        } finally {
+            record("list", sample, event, failed);
         }
     }
 
@@ -97,6 +158,10 @@ public class RedisNotificationService {
      * @param userType The user type
      */
     public void markNotificationAsRead(Integer notificationId, Integer userId, String userType) {
+        FlightRecorderEvents.RedisNotification event = new FlightRecorderEvents.RedisNotification();
+        event.begin();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        boolean failed = false;
         try {
             String key = getNotificationKey(userType, userId, notificationId);
             Object notificationObj = redisTemplate.opsForValue().get(key);
@@ -114,7 +179,10 @@ public class RedisNotificationService {
                 logger.debug("Marked notification as read: {}", notificationId);
             }
         } catch (Exception e) {
+            failed = true;
             logger.error("Error marking notification as read in Redis", e);
+        } finally {
+            record("mark-read", sample, event, failed);
         }
     }
 
@@ -138,6 +206,10 @@ public class RedisNotificationService {
      * @param userType The user type
      */
     public void deleteNotification(Integer notificationId, Integer userId, String userType) {
+        FlightRecorderEvents.RedisNotification event = new FlightRecorderEvents.RedisNotification();
+        event.begin();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        boolean failed = false;
         try {
             String key = getNotificationKey(userType, userId, notificationId);
             String listKey = getNotificationListKey(userType, userId);
@@ -147,8 +219,24 @@ public class RedisNotificationService {
 
             logger.debug("Deleted notification: {}", notificationId);
         } catch (Exception e) {
+            failed = true;
             logger.error("Error deleting notification from Redis", e);
+        } finally {
+            record("delete", sample, event, failed);
+        }
+    }
+
+    private void record(String operation, Timer.Sample sample, FlightRecorderEvents.RedisNotification event, boolean failed) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.failed = failed;
+            event.commit();
         }
+        sample.stop(Timer.builder("portal.notifications.redis")
+                .tag("operation", operation)
+                .tag("outcome", failed ? "error" : "success")
+                .register(meterRegistry));
     }
 
     /**
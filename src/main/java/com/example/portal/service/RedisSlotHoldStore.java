@@ -0,0 +1,147 @@
+package com.example.portal.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Slot holds shared by all nodes through Redis.
+ *
+ * Holds of one outlet day live in a sorted set scored by expiry time, with members
+ * "HH:mm:ss|holdId". A second key per hold points back to its sorted set member so a hold
+ * can be released by ID. Check-and-reserve and release each run as one Lua script, which
+ * declares every key it touches in KEYS.
+ */
+@Service
+@ConditionalOnProperty(name = "app.cache.use-redis", havingValue = "true", matchIfMissing = true)
+public class RedisSlotHoldStore implements SlotHoldStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisSlotHoldStore.class);
+
+    private static final String HOLD_SCRIPT =
+            "redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', ARGV[3]) " +
+            "local members = redis.call('ZRANGEBYSCORE', KEYS[1], '(' .. ARGV[3], '+inf') " +
+            "local active = 0 " +
+            "for _, m in ipairs(members) do " +
+            "  if string.sub(m, 1, string.len(ARGV[2])) == ARGV[2] then active = active + 1 end " +
+            "end " +
+            "if active >= tonumber(ARGV[5]) then return 0 end " +
+            "redis.call('ZADD', KEYS[1], ARGV[4], ARGV[1]) " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[6]) " +
+            "redis.call('SET', KEYS[2], KEYS[1] .. '\\n' .. ARGV[1], 'PX', ARGV[6]) " +
+            "return 1";
+
+    // KEYS[2] is the day key read from the pointer beforehand; a pointer naming another day is left alone
+    private static final String RELEASE_SCRIPT =
+            "local v = redis.call('GET', KEYS[1]) " +
+            "if not v then return 0 end " +
+            "local prefix = KEYS[2] .. '\\n' " +
+            "if string.sub(v, 1, string.len(prefix)) ~= prefix then return 0 end " +
+            "redis.call('DEL', KEYS[1]) " +
+            "local member = string.sub(v, string.len(prefix) + 1) " +
+            "local score = redis.call('ZSCORE', KEYS[2], member) " +
+            "redis.call('ZREM', KEYS[2], member) " +
+            "if score and tonumber(score) > tonumber(ARGV[1]) then return 1 end " +
+            "return 0";
+
+    private final StringRedisTemplate redisTemplate;
+    private final DefaultRedisScript<Long> holdScript = new DefaultRedisScript<>(HOLD_SCRIPT, Long.class);
+    private final DefaultRedisScript<Long> releaseScript = new DefaultRedisScript<>(RELEASE_SCRIPT, Long.class);
+
+    public RedisSlotHoldStore(RedisConnectionFactory connectionFactory) {
+        this.redisTemplate = new StringRedisTemplate(connectionFactory);
+        logger.info("Using Redis slot hold store");
+    }
+
+    @Override
+    public boolean tryHold(String holdId, Integer outletId, LocalDate date, LocalTime time, int capacity, Duration ttl) {
+        long now = System.currentTimeMillis();
+        String timePrefix = time + "|";
+        Long stored = redisTemplate.execute(holdScript,
+                List.of(getDayKey(outletId, date), getHoldKey(holdId)),
+                timePrefix + holdId,
+                timePrefix,
+                String.valueOf(now),
+                String.valueOf(now + ttl.toMillis()),
+                String.valueOf(capacity),
+                String.valueOf(ttl.toMillis()));
+        return stored != null && stored == 1L;
+    }
+
+    @Override
+    public Map<LocalTime, Integer> countActiveHolds(Integer outletId, LocalDate date) {
+        Map<LocalTime, Integer> counts = new HashMap<>();
+        Set<String> members = redisTemplate.opsForZSet()
+                .rangeByScore(getDayKey(outletId, date), System.currentTimeMillis() + 1, Double.POSITIVE_INFINITY);
+        if (members == null) {
+            return counts;
+        }
+        for (String member : members) {
+            int sep = member.indexOf('|');
+            if (sep > 0) {
+                counts.merge(LocalTime.parse(member.substring(0, sep)), 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public HeldSlot find(String holdId) {
+        // "slotholds:<outletId>:<date>\n<time>|<holdId>", see HOLD_SCRIPT
+        String pointer = redisTemplate.opsForValue().get(getHoldKey(holdId));
+        if (pointer == null) {
+            return null;
+        }
+        int sep = pointer.indexOf('\n');
+        String dayKey = pointer.substring(0, sep);
+        String member = pointer.substring(sep + 1);
+        Double expiresAt = redisTemplate.opsForZSet().score(dayKey, member);
+        if (expiresAt == null || expiresAt <= System.currentTimeMillis()) {
+            return null;
+        }
+
+        String[] day = dayKey.split(":");
+        return new HeldSlot(Integer.valueOf(day[1]), LocalDate.parse(day[2]),
+                LocalTime.parse(member.substring(0, member.indexOf('|'))));
+    }
+
+    @Override
+    public boolean release(String holdId) {
+        String holdKey = getHoldKey(holdId);
+        String pointer = redisTemplate.opsForValue().get(holdKey);
+        if (pointer == null) {
+            return false;
+        }
+        String dayKey = pointer.substring(0, pointer.indexOf('\n'));
+        Long released = redisTemplate.execute(releaseScript,
+                List.of(holdKey, dayKey),
+                String.valueOf(System.currentTimeMillis()));
+        return released != null && released == 1L;
+    }
+
+    /**
+     * Get the Redis key for an outlet day's holds
+     */
+    private String getDayKey(Integer outletId, LocalDate date) {
+        return String.format("slotholds:%d:%s", outletId, date);
+    }
+
+    /**
+     * Get the Redis key pointing from a hold ID to its sorted set member
+     */
+    private String getHoldKey(String holdId) {
+        return String.format("slothold:%s", holdId);
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.portal.service;
+
+import com.example.portal.model.ServiceType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Counters for all appointment reports, filled in one pass over the appointments.
+ *
+ * Only counts and sums are kept, keyed by service, staff and outlet ID; names are looked up when
+ * the results are built. Revenue is the stored cost of completed appointments summed as whole
+ * cents in primitive maps, so it is exact, does not move when a service price is edited later
+ * and costs no allocation per row. Accumulators of disjoint partitions can therefore be merged
+ * exactly, in any order.
+ */
+public class ReportAccumulator {
+
+    private static final String[] DAYS_OF_WEEK = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
+    private static final String[] MONTHS = {"January", "February", "March", "April", "May", "June",
+            "July", "August", "September", "October", "November", "December"};
+
+    private final long[] byDayOfWeek = new long[7];
+    private final long[] byHour = new long[24];
+    private final long[] byMonth = new long[12];
+    private final Map<Integer, long[]> byService = new HashMap<>();
+    private final Map<Integer, long[]> staffTallies = new HashMap<>(); // total, completed, cancelled
+    private final LongSumMap revenueByMonthAndService = new LongSumMap(); // yearMonth << 32 | serviceId -> cents
+    private final LongSumMap revenueByOutlet = new LongSumMap(); // outletId -> cents
+    private long totalRevenueCents;
+
+    // Calendar fields of the last day seen, rows of the same day tend to come together
+    private int cachedEpochDay = Integer.MIN_VALUE;
+    private int cachedYearMonth;
+    private int cachedDayOfWeek;
+
+    /**
+     * Count one appointment
+     * @param staffId {@link AppointmentFactStore#NO_STAFF} if the appointment has no staff
+     * @param status one of the {@link AppointmentFactStore} status codes
+     * @param costCents stored cost of the appointment in cents, counted as revenue once completed
+     */
+    public void add(int epochDay, int minuteOfDay, int serviceId, int staffId, int outletId, byte status, long costCents) {
+        if (epochDay != cachedEpochDay) {
+            LocalDate date = LocalDate.ofEpochDay(epochDay);
+            cachedEpochDay = epochDay;
+            cachedYearMonth = date.getYear() * 100 + date.getMonthValue();
+            cachedDayOfWeek = date.getDayOfWeek().getValue();
+        }
+        boolean completed = status == AppointmentFactStore.STATUS_COMPLETED;
+
+        byDayOfWeek[cachedDayOfWeek - 1]++;
+        byHour[minuteOfDay / 60]++;
+        byMonth[cachedYearMonth % 100 - 1]++;
+        byService.computeIfAbsent(serviceId, id -> new long[1])[0]++;
+
+        if (staffId != AppointmentFactStore.NO_STAFF) {
+            long[] tally = staffTallies.computeIfAbsent(staffId, id -> new long[3]);
+            tally[0]++;
+            if (completed) tally[1]++;
+            if (status == AppointmentFactStore.STATUS_CANCELLED) tally[2]++;
+        }
+
+        if (completed && costCents != 0) {
+            totalRevenueCents += costCents;
+            revenueByMonthAndService.add((long) cachedYearMonth << 32 | (serviceId & 0xffffffffL), costCents);
+            revenueByOutlet.add(outletId, costCents);
+        }
+    }
+
+    /**
+     * Add the counts of another partition to this one
+     */
+    public ReportAccumulator merge(ReportAccumulator other) {
+        for (int i = 0; i < byDayOfWeek.length; i++) byDayOfWeek[i] += other.byDayOfWeek[i];
+        for (int i = 0; i < byHour.length; i++) byHour[i] += other.byHour[i];
+        for (int i = 0; i < byMonth.length; i++) byMonth[i] += other.byMonth[i];
+        mergeCounts(byService, other.byService);
+        mergeCounts(staffTallies, other.staffTallies);
+        revenueByMonthAndService.merge(other.revenueByMonthAndService);
+        revenueByOutlet.merge(other.revenueByOutlet);
+        totalRevenueCents += other.totalRevenueCents;
+        return this;
+    }
+
+    private static <K> void mergeCounts(Map<K, long[]> target, Map<K, long[]> source) {
+        source.forEach((key, counts) -> {
+            long[] existing = target.get(key);
+            if (existing == null) {
+                target.put(key, counts.clone());
+            } else {
+                for (int i = 0; i < counts.length; i++) existing[i] += counts[i];
+            }
+        });
+    }
+
+    /**
+     * Appointment counts per service type name, most booked first
+     */
+    public List<Map<String, Object>> popularServices(Map<Integer, ServiceType> services) {
+        Map<String, Long> countsByType = new HashMap<>();
+        byService.forEach((serviceId, count) -> {
+            ServiceType service = services.get(serviceId);
+            if (service != null && service.getServiceType() != null) {
+                countsByType.merge(service.getServiceType(), count[0], Long::sum);
+            }
+        });
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        countsByType.forEach((serviceType, count) -> {
+            Map<String, Object> item = new HashMap<>();
+            item.put("serviceType", serviceType);
+            item.put("count", count);
+            result.add(item);
+        });
+        result.sort((a, b) -> Long.compare((Long) b.get("count"), (Long) a.get("count")));
+        return result;
+    }
+
+    /**
+     * Appointment counts by day of week, hour of day and month
+     */
+    public Map<String, Object> busyPeriods() {
+        Map<String, Long> dayOfWeekCounts = new HashMap<>();
+        for (int i = 0; i < DAYS_OF_WEEK.length; i++) {
+            dayOfWeekCounts.put(DAYS_OF_WEEK[i], byDayOfWeek[i]);
+        }
+
+        // Business hours are always listed, other hours only if something was booked then
+        Map<Integer, Long> hourOfDayCounts = new HashMap<>();
+        for (int hour = 0; hour < byHour.length; hour++) {
+            if ((hour >= 8 && hour <= 18) || byHour[hour] > 0) {
+                hourOfDayCounts.put(hour, byHour[hour]);
+            }
+        }
+
+        Map<String, Long> monthCounts = new HashMap<>();
+        for (int i = 0; i < MONTHS.length; i++) {
+            monthCounts.put(MONTHS[i], byMonth[i]);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("byDayOfWeek", dayOfWeekCounts);
+        result.put("byHourOfDay", hourOfDayCounts);
+        result.put("byMonth", monthCounts);
+        return result;
+    }
+
+    /**
+     * Appointment counts and completion rate per staff member, busiest first
+     */
+    public List<Map<String, Object>> staffPerformance(Map<Integer, String> staffNames) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        staffTallies.forEach((staffId, tally) -> {
+            long totalAppointments = tally[0];
+            double completionRate = totalAppointments > 0 ? (double) tally[1] / totalAppointments * 100 : 0;
+
+            Map<String, Object> staffMetrics = new HashMap<>();
+            staffMetrics.put("staffId", staffId);
+            staffMetrics.put("staffName", staffNames.getOrDefault(staffId, "Unknown Staff"));
+            staffMetrics.put("totalAppointments", totalAppointments);
+            staffMetrics.put("completedAppointments", tally[1]);
+            staffMetrics.put("cancelledAppointments", tally[2]);
+            staffMetrics.put("completionRate", Math.round(completionRate * 100) / 100.0); // Round to 2 decimal places
+            result.add(staffMetrics);
+        });
+        result.sort((a, b) -> Long.compare((Long) b.get("totalAppointments"), (Long) a.get("totalAppointments")));
+        return result;
+    }
+
+    /**
+     * Revenue of completed appointments in total, per service type, service category, outlet and month.
+     * Amounts are exact decimals with two places; totalRevenueCents is the same total in cents.
+     */
+    public Map<String, Object> revenue(Map<Integer, ServiceType> services, Map<Integer, String> outletNames) {
+        Map<String, long[]> centsByService = new HashMap<>();
+        Map<String, long[]> centsByCategory = new HashMap<>();
+        Map<String, long[]> centsByMonth = new TreeMap<>();
+        revenueByMonthAndService.forEach((key, cents) -> {
+            int yearMonth = (int) (key >>> 32);
+            ServiceType service = services.get((int) key);
+            String serviceType = service != null && service.getServiceType() != null ? service.getServiceType() : "Unknown Service";
+            String category = service != null && service.getServiceCategory() != null ? service.getServiceCategory() : "Uncategorized";
+            String monthKey = (yearMonth / 100) + "-" + String.format("%02d", yearMonth % 100);
+            centsByService.computeIfAbsent(serviceType, k -> new long[1])[0] += cents;
+            centsByCategory.computeIfAbsent(category, k -> new long[1])[0] += cents;
+            centsByMonth.computeIfAbsent(monthKey, k -> new long[1])[0] += cents;
+        });
+        Map<String, long[]> centsByOutlet = new HashMap<>();
+        revenueByOutlet.forEach((outletId, cents) ->
+                centsByOutlet.computeIfAbsent(outletNames.getOrDefault((int) outletId, "Outlet " + outletId), k -> new long[1])[0] += cents);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("totalRevenue", amount(totalRevenueCents));
+        result.put("totalRevenueCents", totalRevenueCents);
+        result.put("revenueByService", amounts(centsByService, new HashMap<>()));
+        result.put("revenueByCategory", amounts(centsByCategory, new HashMap<>()));
+        result.put("revenueByOutlet", amounts(centsByOutlet, new HashMap<>()));
+        result.put("revenueByMonth", amounts(centsByMonth, new TreeMap<>()));
+        return result;
+    }
+
+    private static Map<String, BigDecimal> amounts(Map<String, long[]> cents, Map<String, BigDecimal> target) {
+        cents.forEach((key, sum) -> target.put(key, amount(sum[0])));
+        return target;
+    }
+
+    private static BigDecimal amount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.portal.service;
+
+import com.example.portal.model.AppointmentFact;
+import com.example.portal.repository.ServiceAppointmentMapper;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Writes appointments and report rows as CSV or NDJSON straight to an output stream.
+ * Appointments are read through a streaming MyBatis cursor, so memory use does not depend
+ * on the number of exported rows.
+ */
+@Service
+public class ReportExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportExportService.class);
+
+    private static final List<String> APPOINTMENT_COLUMNS = List.of(
+            "appointmentId", "date", "time", "outletId", "outletName", "serviceId", "serviceType",
+            "staffId", "staffName", "customerId", "vehicleId", "status", "cost", "durationMinutes", "estimatedFinishTime");
+
+    private static final Map<String, List<String>> REPORT_COLUMNS = Map.of(
+            "popular-services", List.of("serviceType", "count"),
+            "staff-performance", List.of("staffId", "staffName", "totalAppointments", "completedAppointments",
+                    "cancelledAppointments", "completionRate"),
+            "busy-periods", List.of("dimension", "key", "count"),
+            "revenue-by-service", List.of("serviceType", "revenue"),
+            "revenue-by-month", List.of("month", "revenue"));
+
+    private static final int FLUSH_EVERY_ROWS = 1000;
+
+    private final SqlSessionFactory sqlSessionFactory;
+    private final ReportingService reportingService;
+    private final ObjectMapper objectMapper;
+
+    public ReportExportService(SqlSessionFactory sqlSessionFactory, ReportingService reportingService, ObjectMapper objectMapper) {
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.reportingService = reportingService;
+        this.objectMapper = objectMapper;
+    }
+
+    public enum Format {
+        CSV("text/csv"), NDJSON("application/x-ndjson");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return name().toLowerCase();
+        }
+
+        /**
+         * @return the format, or null if the name is not supported
+         */
+        public static Format parse(String name) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+
+    public boolean isSupportedReport(String report) {
+        return REPORT_COLUMNS.containsKey(report);
+    }
+
+    /**
+     * Stream the appointments matching the filters, all of them if every filter is null
+     * @return the number of rows written
+     */
+    public long writeAppointments(OutputStream out, Format format, LocalDate startDate, LocalDate endDate,
+                                  Integer outletId, String status) throws IOException {
+        RowWriter writer = newWriter(out, format, APPOINTMENT_COLUMNS);
+        long rows = 0;
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Cursor<AppointmentFact> cursor = session.getMapper(ServiceAppointmentMapper.class)
+                     .scanFactsForExport(dateKey(startDate), dateKey(endDate), outletId, status)) {
+            Object[] values = new Object[APPOINTMENT_COLUMNS.size()];
+            for (AppointmentFact fact : cursor) {
+                values[0] = fact.getAppointmentId();
+                values[1] = LocalDate.of(fact.getTimeYear(), fact.getTimeMonth(), fact.getTimeDay());
+                values[2] = fact.getTimeClocktime();
+                values[3] = fact.getOutletId();
+                values[4] = fact.getOutletName();
+                values[5] = fact.getServiceId();
+                values[6] = fact.getServiceType();
+                values[7] = fact.getStaffId();
+                values[8] = fact.getStaffName();
+                values[9] = fact.getCustId();
+                values[10] = fact.getVehId();
+                values[11] = fact.getAppointmentStatus();
+                values[12] = fact.getAppointmentCost();
+                values[13] = fact.getAppointmentDuration();
+                values[14] = fact.getEstimatedFinishTime();
+                writer.write(values);
+                if (++rows % FLUSH_EVERY_ROWS == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.finish();
+        logger.debug("Exported {} appointments as {}", rows, format);
+        return rows;
+    }
+
+    /**
+     * Stream the rows of one report
+     * @param report one of popular-services, staff-performance, busy-periods, revenue-by-service, revenue-by-month
+     */
+    public long writeReport(OutputStream out, Format format, String report, LocalDate startDate, LocalDate endDate) throws IOException {
+        List<String> columns = REPORT_COLUMNS.get(report);
+        RowWriter writer = newWriter(out, format, columns);
+        long rows = 0;
+        for (Map<String, Object> row : reportRows(report, startDate, endDate)) {
+            Object[] values = new Object[columns.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = row.get(columns.get(i));
+            }
+            writer.write(values);
+            rows++;
+        }
+        writer.finish();
+        return rows;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> reportRows(String report, LocalDate startDate, LocalDate endDate) {
+        switch (report) {
+            case "popular-services":
+                return reportingService.getPopularServiceTypes(startDate, endDate);
+            case "staff-performance":
+                return reportingService.getStaffPerformanceMetrics(startDate, endDate);
+            case "busy-periods": {
+                List<Map<String, Object>> rows = new ArrayList<>();
+                Map<String, Object> busyPeriods = reportingService.getBusyPeriodsAnalysis(startDate, endDate);
+                for (String dimension : List.of("byDayOfWeek", "byHourOfDay", "byMonth")) {
+                    new TreeMap<>((Map<Object, Object>) busyPeriods.get(dimension)).forEach((key, count) ->
+                            rows.add(Map.of("dimension", dimension, "key", key, "count", count)));
+                }
+                return rows;
+            }
+            case "revenue-by-service":
+            case "revenue-by-month": {
+                boolean byService = report.equals("revenue-by-service");
+                Map<String, Object> revenue = reportingService.getRevenueReporting(startDate, endDate);
+                Map<String, Object> amounts = (Map<String, Object>) revenue.get(byService ? "revenueByService" : "revenueByMonth");
+                List<Map<String, Object>> rows = new ArrayList<>();
+                new TreeMap<>(amounts).forEach((key, amount) ->
+                        rows.add(Map.of(byService ? "serviceType" : "month", key, "revenue", amount)));
+                return rows;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown report: " + report);
+        }
+    }
+
+    private RowWriter newWriter(OutputStream out, Format format, List<String> columns) throws IOException {
+        return format == Format.CSV ? new CsvRowWriter(out, columns) : new NdjsonRowWriter(out, columns, objectMapper);
+    }
+
+    private static Integer dateKey(LocalDate date) {
+        return date != null ? date.getYear() * 10000 + date.getMonthValue() * 100 + date.getDayOfMonth() : null;
+    }
+
+    private interface RowWriter {
+        void write(Object[] values) throws IOException;
+
+        void flush() throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private static class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        CsvRowWriter(OutputStream out, List<String> columns) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            write(columns.toArray());
+        }
+
+        @Override
+        public void write(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) writer.write(',');
+                if (values[i] != null) writer.write(escape(values[i].toString()));
+            }
+            writer.write("\r\n");
+        }
+
+        // RFC 4180: quote fields with separators, quotes or line breaks and double the quotes
+        private static String escape(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+    }
+
+    private static class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+        private final List<String> columns;
+
+        NdjsonRowWriter(OutputStream out, List<String> columns, ObjectMapper objectMapper) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out);
+            this.generator.setRootValueSeparator(null);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.columns = columns;
+        }
+
+        @Override
+        public void write(Object[] values) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+                generator.writeFieldName(columns.get(i));
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof Number || value instanceof Boolean) {
+                    generator.writeObject(value);
+                } else {
+                    generator.writeString(value.toString());
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.portal.service;
+
+import com.example.portal.event.AppointmentChangedEvent;
+import com.example.portal.model.ServiceAppointment;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs reports in the background so that wide date ranges do not hold a request thread.
+ *
+ * Jobs are keyed by (report, startDate, endDate, outlet): submitting a report that is already
+ * queued, running or finished within the result TTL returns the existing job instead of
+ * computing it again. A finished result stops being reused as soon as an appointment inside
+ * its date range and outlet changes.
+ */
+@Service
+public class ReportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobService.class);
+
+    private final ReportingService reportingService;
+    private final ThreadPoolExecutor executor;
+    private final long resultTtlMillis;
+
+    private final Map<String, ReportJob> jobsById = new ConcurrentHashMap<>();
+    // The job whose result is reused for a key; cleared when appointments in its range change
+    private final Map<JobKey, ReportJob> jobsByKey = new ConcurrentHashMap<>();
+
+    public ReportJobService(ReportingService reportingService,
+                            @Value("${app.reporting.jobs.threads:2}") int threads,
+                            @Value("${app.reporting.jobs.queue-capacity:50}") int queueCapacity,
+                            @Value("${app.reporting.jobs.result-ttl-seconds:600}") long resultTtlSeconds) {
+        this.reportingService = reportingService;
+        this.resultTtlMillis = resultTtlSeconds * 1000;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "report-job-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        logger.info("ReportJobService initialized with {} threads, queue capacity {}", threads, queueCapacity);
+    }
+
+    public enum Status { QUEUED, RUNNING, DONE, FAILED }
+
+    /**
+     * Submit a report, or return the job already computing or holding the same report.
+     * Dates only filter if both are given, as in {@link ReportingService}.
+     * @throws RejectedExecutionException if the job queue is full
+     */
+    public ReportJob submit(String report, LocalDate startDate, LocalDate endDate, Integer outletId) {
+        if (!ReportingService.REPORTS.contains(report)) {
+            throw new IllegalArgumentException("Unknown report: " + report);
+        }
+        boolean filtered = startDate != null && endDate != null;
+        JobKey key = new JobKey(report, filtered ? startDate : null, filtered ? endDate : null, outletId);
+        removeExpired();
+
+        ReportJob[] created = new ReportJob[1];
+        ReportJob job = jobsByKey.compute(key, (k, existing) -> {
+            if (existing != null && existing.isReusable()) {
+                return existing;
+            }
+            created[0] = new ReportJob(UUID.randomUUID().toString(), k);
+            return created[0];
+        });
+        if (created[0] == null) {
+            logger.debug("Report {} reuses job {}", key, job.id);
+            return job;
+        }
+
+        jobsById.put(job.id, job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobsByKey.remove(key, job);
+            jobsById.remove(job.id);
+            throw e;
+        }
+        logger.debug("Queued report job {} for {}", job.id, key);
+        return job;
+    }
+
+    /**
+     * @return the job, or null if it does not exist or its result has expired
+     */
+    public ReportJob getJob(String jobId) {
+        ReportJob job = jobsById.get(jobId);
+        if (job != null && job.isExpired()) {
+            jobsById.remove(jobId);
+            jobsByKey.remove(job.key, job);
+            return null;
+        }
+        return job;
+    }
+
+    private void run(ReportJob job) {
+        job.status = Status.RUNNING;
+        job.startedAt = System.currentTimeMillis();
+        try {
+            JobKey key = job.key;
+            job.result = reportingService.getReport(key.report, key.startDate, key.endDate, key.outletId);
+            job.status = Status.DONE;
+        } catch (RuntimeException e) {
+            logger.error("Report job {} failed", job.id, e);
+            job.error = e.getMessage();
+            job.status = Status.FAILED;
+            jobsByKey.remove(job.key, job);
+        } finally {
+            job.finishedAt = System.currentTimeMillis();
+            job.expiresAt = job.finishedAt + resultTtlMillis;
+        }
+        logger.debug("Report job {} finished in {} ms", job.id, job.finishedAt - job.startedAt);
+    }
+
+    /**
+     * Stop reusing results that cover the changed appointment. Jobs still running keep going
+     * for their current pollers but are not handed out to new submissions, since they may
+     * have read the data before the change.
+     */
+    @EventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        ServiceAppointment appointment = event.getAppointment();
+        if (appointment.getTimeSlot() == null || appointment.getTimeSlot().getTimeYear() == null) {
+            jobsByKey.clear();
+            return;
+        }
+        LocalDate date = LocalDate.of(appointment.getTimeSlot().getTimeYear(), appointment.getTimeSlot().getTimeMonth(),
+                appointment.getTimeSlot().getTimeDay());
+        Integer outletId = appointment.getOutletId();
+        jobsByKey.keySet().removeIf(key -> key.covers(date, outletId));
+    }
+
+    private void removeExpired() {
+        jobsById.values().removeIf(job -> {
+            if (!job.isExpired()) return false;
+            jobsByKey.remove(job.key, job);
+            return true;
+        });
+    }
+
+    /**
+     * Jobs submitted but not yet picked up by a thread
+     */
+    public int getQueuedJobs() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public static class ReportJob {
+        private final String id;
+        private final JobKey key;
+        private final long submittedAt = System.currentTimeMillis();
+        private volatile Status status = Status.QUEUED;
+        private volatile long startedAt;
+        private volatile long finishedAt;
+        private volatile long expiresAt = Long.MAX_VALUE;
+        private volatile Object result;
+        private volatile String error;
+
+        ReportJob(String id, JobKey key) {
+            this.id = id;
+            this.key = key;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public Object getResult() {
+            return result;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+
+        boolean isReusable() {
+            return status != Status.FAILED && !isExpired();
+        }
+
+        /**
+         * Job state without the result, for polling
+         */
+        public Map<String, Object> describe() {
+            Map<String, Object> description = new LinkedHashMap<>();
+            description.put("jobId", id);
+            description.put("report", key.report);
+            description.put("startDate", key.startDate);
+            description.put("endDate", key.endDate);
+            description.put("outletId", key.outletId);
+            description.put("status", status);
+            description.put("submittedAt", submittedAt);
+            if (finishedAt > 0) {
+                description.put("durationMillis", finishedAt - startedAt);
+            }
+            if (error != null) {
+                description.put("error", error);
+            }
+            return description;
+        }
+    }
+
+    private static class JobKey {
+        private final String report;
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final Integer outletId;
+
+        JobKey(String report, LocalDate startDate, LocalDate endDate, Integer outletId) {
+            this.report = report;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.outletId = outletId;
+        }
+
+        boolean covers(LocalDate date, Integer changedOutletId) {
+            if (outletId != null && changedOutletId != null && !outletId.equals(changedOutletId)) {
+                return false;
+            }
+            return startDate == null || (!date.isBefore(startDate) && !date.isAfter(endDate));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof JobKey)) return false;
+            JobKey other = (JobKey) o;
+            return report.equals(other.report) && Objects.equals(startDate, other.startDate)
+                    && Objects.equals(endDate, other.endDate) && Objects.equals(outletId, other.outletId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(report, startDate, endDate, outletId);
+        }
+
+        @Override
+        public String toString() {
+            return report + "[" + startDate + ".." + endDate + ", outlet " + outletId + "]";
+        }
+    }
+}
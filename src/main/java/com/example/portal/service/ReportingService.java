@@ -1,21 +1,47 @@
 package com.example.portal.service;
 
+import com.example.portal.event.FlightRecorderEvents;
+import com.example.portal.model.AppointmentFact;
 import com.example.portal.model.ServiceAppointment;
+import com.example.portal.model.ServiceOutlet;
 import com.example.portal.model.ServiceType;
+import com.example.portal.model.Staff;
+import com.example.portal.model.StaffUtilization;
 import com.example.portal.repository.ServiceAppointmentMapper;
+import com.example.portal.repository.ServiceMapper;
+import com.example.portal.repository.ServiceOutletMapper;
+import com.example.portal.repository.StaffMapper;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
-import java.time.LocalTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 public class ReportingService {
 
     private final ServiceAppointmentMapper appointmentMapper;
+    private final ServiceMapper serviceMapper;
+    private final StaffMapper staffMapper;
+    private final ServiceOutletMapper outletMapper;
+    private final AppointmentFactStore factStore;
+    private final DistinctVisitorCounter distinctVisitorCounter;
+    private final ServiceDurationStats durationStats;
+    private final ServiceService serviceService;
+
+    @Value("${app.reporting.utilization.workday-minutes:480}")
+    private int workdayMinutes;
+
+    public static final Set<String> REPORTS = Set.of("popular-services", "busy-periods", "staff-performance", "revenue", "combined");
+
+    // Dedicated so that long reports do not occupy the common pool used by parallel streams
+    private final ForkJoinPool reportPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
 
     // Get customer service history
     public List<ServiceAppointment> getCustomerServiceHistory(Integer customerId) {
@@ -24,285 +50,364 @@ public class ReportingService {
 
     // Get popular service types
     public List<Map<String, Object>> getPopularServiceTypes(LocalDate startDate, LocalDate endDate) {
-        List<ServiceAppointment> appointments = appointmentMapper.findAllWithDetails();
-
-        // Filter by date range if provided
-        if (startDate != null && endDate != null) {
-            appointments = appointments.stream()
-                .filter(appointment -> {
-                    if (appointment.getTimeSlot() == null) return false;
-
-                    LocalDate appointmentDate = LocalDate.of(
-                        appointment.getTimeSlot().getTimeYear(),
-                        appointment.getTimeSlot().getTimeMonth(),
-                        appointment.getTimeSlot().getTimeDay()
-                    );
-
-                    return !appointmentDate.isBefore(startDate) && !appointmentDate.isAfter(endDate);
-                })
-                .collect(Collectors.toList());
-        }
+        return generate("popular-services", startDate, endDate, null,
+                () -> popularServices(accumulate(startDate, endDate, null), findServices(), startDate, endDate, null));
+    }
 
-        // Group by service type and count
-        Map<String, Long> serviceTypeCounts = appointments.stream()
-            .filter(appointment -> appointment.getServiceTypeSafe() != null && appointment.getServiceTypeSafe().getServiceType() != null)
-            .collect(Collectors.groupingBy(
-                appointment -> appointment.getServiceTypeSafe().getServiceType(),
-                Collectors.counting()
-            ));
+    // Get busy periods analysis
+    public Map<String, Object> getBusyPeriodsAnalysis(LocalDate startDate, LocalDate endDate) {
+        return generate("busy-periods", startDate, endDate, null,
+                () -> accumulate(startDate, endDate, null).busyPeriods());
+    }
+
+    // Get staff performance metrics
+    public List<Map<String, Object>> getStaffPerformanceMetrics(LocalDate startDate, LocalDate endDate) {
+        return generate("staff-performance", startDate, endDate, null,
+                () -> staffPerformance(accumulate(startDate, endDate, null), startDate, endDate));
+    }
+
+    // Get revenue reporting (completed appointments only)
+    public Map<String, Object> getRevenueReporting(LocalDate startDate, LocalDate endDate) {
+        return generate("revenue", startDate, endDate, null,
+                () -> accumulate(startDate, endDate, null).revenue(findServices(), findOutletNames()));
+    }
+
+    /**
+     * Popular services, busy periods, staff performance and revenue from a single scan of the
+     * appointments
+     */
+    public Map<String, Object> getCombinedReport(LocalDate startDate, LocalDate endDate) {
+        return generate("combined", startDate, endDate, null,
+                () -> getCombinedReport(accumulate(startDate, endDate, null), startDate, endDate, null));
+    }
+
+    /**
+     * Measured service durations (p50 / p90 / p99 and booked vs. actual mean) per service or per staff member
+     * @param byStaff group by staff member instead of by service
+     */
+    public List<Map<String, Object>> getDurationReport(boolean byStaff) {
+        Map<Integer, Map<String, Object>> summaries = byStaff ? durationStats.summarizeByStaff() : durationStats.summarizeByService();
+        Map<Integer, ServiceType> services = byStaff ? Collections.emptyMap() : findServices();
+        Map<Integer, String> staffNames = byStaff ? findStaffNames() : Collections.emptyMap();
 
-        // Convert to list of maps for easier JSON serialization
         List<Map<String, Object>> result = new ArrayList<>();
-        serviceTypeCounts.forEach((serviceType, count) -> {
-            Map<String, Object> item = new HashMap<>();
-            item.put("serviceType", serviceType);
-            item.put("count", count);
+        summaries.forEach((id, summary) -> {
+            Map<String, Object> item = new LinkedHashMap<>();
+            if (byStaff) {
+                item.put("staffId", id);
+                item.put("staffName", staffNames.getOrDefault(id, "Unknown Staff"));
+            } else {
+                ServiceType service = services.get(id);
+                item.put("serviceId", id);
+                item.put("serviceType", service != null ? service.getServiceType() : null);
+                item.put("configuredDuration", service != null ? service.getServiceDuration() : null);
+            }
+            item.putAll(summary);
             result.add(item);
         });
-
-        // Sort by count in descending order
-        result.sort((a, b) -> Long.compare((Long) b.get("count"), (Long) a.get("count")));
-
         return result;
     }
 
-    // Get busy periods analysis
-    public Map<String, Object> getBusyPeriodsAnalysis(LocalDate startDate, LocalDate endDate) {
-        List<ServiceAppointment> appointments = appointmentMapper.findAllWithDetails();
-
-        // Filter by date range if provided
-        if (startDate != null && endDate != null) {
-            appointments = appointments.stream()
-                .filter(appointment -> {
-                    if (appointment.getTimeSlot() == null) return false;
-
-                    LocalDate appointmentDate = LocalDate.of(
-                        appointment.getTimeSlot().getTimeYear(),
-                        appointment.getTimeSlot().getTimeMonth(),
-                        appointment.getTimeSlot().getTimeDay()
-                    );
-
-                    return !appointmentDate.isBefore(startDate) && !appointmentDate.isAfter(endDate);
-                })
-                .collect(Collectors.toList());
+    /**
+     * Add the service type name to items that carry a serviceId, from the cached service list
+     */
+    public void addServiceNames(List<Map<String, Object>> items) {
+        Map<Integer, String> names = new HashMap<>();
+        for (ServiceType service : serviceService.findAllServices()) {
+            names.put(service.getServiceId(), service.getServiceType());
+        }
+        for (Map<String, Object> item : items) {
+            item.put("serviceType", names.get((Integer) item.get("serviceId")));
         }
+    }
 
-        // Count appointments by day of week
-        Map<String, Long> dayOfWeekCounts = new HashMap<>();
-        String[] daysOfWeek = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
-        for (String day : daysOfWeek) {
-            dayOfWeekCounts.put(day, 0L);
+    /**
+     * Booked versus available minutes per staff member and day, and per staff member over the range.
+     * Booked minutes are merged in the database, so only one row per staff day is read.
+     * Every day of the range counts as one workday of available time.
+     */
+    public Map<String, Object> getStaffUtilization(LocalDate startDate, LocalDate endDate, Integer outletId) {
+        List<StaffUtilization> rows = appointmentMapper.findStaffUtilization(dateKey(startDate), dateKey(endDate), outletId);
+        Map<Integer, String> staffNames = findStaffNames();
+        long rangeDays = endDate.toEpochDay() - startDate.toEpochDay() + 1;
+
+        List<Map<String, Object>> days = new ArrayList<>();
+        Map<Integer, long[]> totalsByStaff = new TreeMap<>(); // booked minutes, appointments
+        Map<Integer, Integer> outletByStaff = new HashMap<>();
+        for (StaffUtilization row : rows) {
+            Map<String, Object> day = new LinkedHashMap<>();
+            day.put("date", LocalDate.of(row.getDateKey() / 10000, row.getDateKey() / 100 % 100, row.getDateKey() % 100));
+            day.put("outletId", row.getOutletId());
+            day.put("staffId", row.getStaffId());
+            day.put("staffName", staffNames.getOrDefault(row.getStaffId(), "Unknown Staff"));
+            day.put("bookedMinutes", row.getBookedMinutes());
+            day.put("availableMinutes", workdayMinutes);
+            day.put("utilization", percentage(row.getBookedMinutes(), workdayMinutes));
+            day.put("appointments", row.getAppointments());
+            day.put("busyBlocks", row.getBusyBlocks());
+            days.add(day);
+
+            long[] totals = totalsByStaff.computeIfAbsent(row.getStaffId(), id -> new long[2]);
+            totals[0] += row.getBookedMinutes();
+            totals[1] += row.getAppointments();
+            outletByStaff.putIfAbsent(row.getStaffId(), row.getOutletId());
         }
 
-        appointments.forEach(appointment -> {
-            if (appointment.getTimeSlot() != null) {
-                LocalDate appointmentDate = LocalDate.of(
-                    appointment.getTimeSlot().getTimeYear(),
-                    appointment.getTimeSlot().getTimeMonth(),
-                    appointment.getTimeSlot().getTimeDay()
-                );
+        List<Map<String, Object>> staff = new ArrayList<>();
+        totalsByStaff.forEach((staffId, totals) -> {
+            long available = rangeDays * workdayMinutes;
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("staffId", staffId);
+            item.put("staffName", staffNames.getOrDefault(staffId, "Unknown Staff"));
+            item.put("outletId", outletByStaff.get(staffId));
+            item.put("bookedMinutes", totals[0]);
+            item.put("availableMinutes", available);
+            item.put("utilization", percentage(totals[0], available));
+            item.put("appointments", totals[1]);
+            staff.add(item);
+        });
+        staff.sort((a, b) -> Double.compare((Double) b.get("utilization"), (Double) a.get("utilization")));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("startDate", startDate);
+        result.put("endDate", endDate);
+        result.put("workdayMinutes", workdayMinutes);
+        result.put("staff", staff);
+        result.put("days", days);
+        return result;
+    }
 
-                String dayOfWeek = appointmentDate.getDayOfWeek().toString();
-                dayOfWeek = dayOfWeek.charAt(0) + dayOfWeek.substring(1).toLowerCase();
+    private static double percentage(long part, long whole) {
+        return whole > 0 ? Math.round((double) part / whole * 10000) / 100.0 : 0; // Round to 2 decimal places
+    }
 
-                dayOfWeekCounts.put(dayOfWeek, dayOfWeekCounts.getOrDefault(dayOfWeek, 0L) + 1);
-            }
-        });
+    private static int dateKey(LocalDate date) {
+        return date.getYear() * 10000 + date.getMonthValue() * 100 + date.getDayOfMonth();
+    }
 
-        // Count appointments by hour of day
-        Map<Integer, Long> hourOfDayCounts = new HashMap<>();
-        for (int hour = 8; hour <= 18; hour++) {
-            hourOfDayCounts.put(hour, 0L);
+    /**
+     * Add the staff member's name to items that carry a staffId
+     */
+    public void addStaffNames(List<Map<String, Object>> items) {
+        Map<Integer, String> staffNames = findStaffNames();
+        for (Map<String, Object> item : items) {
+            item.put("staffName", staffNames.getOrDefault((Integer) item.get("staffId"), "Unknown Staff"));
         }
+    }
 
-        appointments.forEach(appointment -> {
-            if (appointment.getTimeSlot() != null && appointment.getTimeSlot().getTimeClocktime() != null) {
-                LocalTime time = appointment.getTimeSlot().getTimeClocktime();
-                int hour = time.getHour();
-
-                hourOfDayCounts.put(hour, hourOfDayCounts.getOrDefault(hour, 0L) + 1);
+    /**
+     * Compute one report by name, optionally limited to one outlet
+     * @param report one of {@link #REPORTS}
+     */
+    public Object getReport(String report, LocalDate startDate, LocalDate endDate, Integer outletId) {
+        return generate(report, startDate, endDate, outletId, () -> {
+            ReportAccumulator accumulator = accumulate(startDate, endDate, outletId);
+            switch (report) {
+                case "popular-services":
+                    return popularServices(accumulator, findServices(), startDate, endDate, outletId);
+                case "busy-periods":
+                    return accumulator.busyPeriods();
+                case "staff-performance":
+                    return staffPerformance(accumulator, startDate, endDate);
+                case "revenue":
+                    return accumulator.revenue(findServices(), findOutletNames());
+                case "combined":
+                    return getCombinedReport(accumulator, startDate, endDate, outletId);
+                default:
+                    throw new IllegalArgumentException("Unknown report: " + report);
             }
         });
+    }
 
-        // Count appointments by month
-        Map<String, Long> monthCounts = new HashMap<>();
-        String[] months = {"January", "February", "March", "April", "May", "June",
-                          "July", "August", "September", "October", "November", "December"};
-        for (String month : months) {
-            monthCounts.put(month, 0L);
+    /**
+     * Run a report as a flight recorder event
+     */
+    private <T> T generate(String report, LocalDate startDate, LocalDate endDate, Integer outletId, Supplier<T> body) {
+        FlightRecorderEvents.Report event = new FlightRecorderEvents.Report();
+        event.begin();
+        boolean failed = true;
+        try {
+            T result = body.get();
+            failed = false;
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.report = report;
+                event.startDate = startDate != null ? startDate.toString() : null;
+                event.endDate = endDate != null ? endDate.toString() : null;
+                event.outletId = outletId != null ? outletId : 0;
+                event.failed = failed;
+                event.commit();
+            }
         }
+    }
 
-        appointments.forEach(appointment -> {
-            if (appointment.getTimeSlot() != null) {
-                int monthIndex = appointment.getTimeSlot().getTimeMonth() - 1;
-                String month = months[monthIndex];
-
-                monthCounts.put(month, monthCounts.getOrDefault(month, 0L) + 1);
-            }
-        });
+    private Map<String, Object> getCombinedReport(ReportAccumulator accumulator, LocalDate startDate, LocalDate endDate,
+                                                  Integer outletId) {
+        Map<Integer, ServiceType> services = findServices();
 
-        // Prepare result
         Map<String, Object> result = new HashMap<>();
-        result.put("byDayOfWeek", dayOfWeekCounts);
-        result.put("byHourOfDay", hourOfDayCounts);
-        result.put("byMonth", monthCounts);
-
+        result.put("popularServices", popularServices(accumulator, services, startDate, endDate, outletId));
+        result.put("busyPeriods", accumulator.busyPeriods());
+        result.put("staffPerformance", staffPerformance(accumulator, startDate, endDate));
+        result.put("revenue", accumulator.revenue(services, findOutletNames()));
         return result;
     }
 
-    // Get staff performance metrics
-    public List<Map<String, Object>> getStaffPerformanceMetrics(LocalDate startDate, LocalDate endDate) {
-        List<ServiceAppointment> appointments = appointmentMapper.findAllWithDetails();
-
-        // Filter by date range if provided
-        if (startDate != null && endDate != null) {
-            appointments = appointments.stream()
-                .filter(appointment -> {
-                    if (appointment.getTimeSlot() == null) return false;
-
-                    LocalDate appointmentDate = LocalDate.of(
-                        appointment.getTimeSlot().getTimeYear(),
-                        appointment.getTimeSlot().getTimeMonth(),
-                        appointment.getTimeSlot().getTimeDay()
-                    );
-
-                    return !appointmentDate.isBefore(startDate) && !appointmentDate.isAfter(endDate);
-                })
-                .collect(Collectors.toList());
+    /**
+     * Popular services with the approximate distinct customers and vehicles served per service type,
+     * the latter left out while the sketches are still being filled
+     */
+    private List<Map<String, Object>> popularServices(ReportAccumulator accumulator, Map<Integer, ServiceType> services,
+                                                      LocalDate startDate, LocalDate endDate, Integer outletId) {
+        List<Map<String, Object>> result = accumulator.popularServices(services);
+        if (!distinctVisitorCounter.isReady()) {
+            return result;
         }
-
-        // Group by staff
-        Map<Integer, List<ServiceAppointment>> appointmentsByStaff = appointments.stream()
-            .filter(appointment -> appointment.getStaffId() != null)
-            .collect(Collectors.groupingBy(ServiceAppointment::getStaffId));
-
-        // Calculate metrics for each staff
-        List<Map<String, Object>> result = new ArrayList<>();
-
-        appointmentsByStaff.forEach((staffId, staffAppointments) -> {
-            Map<String, Object> staffMetrics = new HashMap<>();
-
-            // Get staff name from first appointment
-            String staffName = staffAppointments.stream()
-                .filter(appointment -> appointment.getStaff() != null)
-                .map(appointment -> appointment.getStaff().getStaffName())
-                .findFirst()
-                .orElse("Unknown Staff");
-
-            // Count total appointments
-            long totalAppointments = staffAppointments.size();
-
-            // Count completed appointments
-            long completedAppointments = staffAppointments.stream()
-                .filter(appointment -> "COMPLETED".equals(appointment.getAppointmentStatus()))
-                .count();
-
-            // Count cancelled appointments
-            long cancelledAppointments = staffAppointments.stream()
-                .filter(appointment -> "CANCELLED".equals(appointment.getAppointmentStatus()))
-                .count();
-
-            // Calculate completion rate
-            double completionRate = totalAppointments > 0
-                ? (double) completedAppointments / totalAppointments * 100
-                : 0;
-
-            // Populate metrics
-            staffMetrics.put("staffId", staffId);
-            staffMetrics.put("staffName", staffName);
-            staffMetrics.put("totalAppointments", totalAppointments);
-            staffMetrics.put("completedAppointments", completedAppointments);
-            staffMetrics.put("cancelledAppointments", cancelledAppointments);
-            staffMetrics.put("completionRate", Math.round(completionRate * 100) / 100.0); // Round to 2 decimal places
-
-            result.add(staffMetrics);
+        Map<String, List<Integer>> serviceIdsByType = new HashMap<>();
+        services.forEach((serviceId, service) -> {
+            if (service.getServiceType() != null) {
+                serviceIdsByType.computeIfAbsent(service.getServiceType(), type -> new ArrayList<>()).add(serviceId);
+            }
         });
-
-        // Sort by total appointments in descending order
-        result.sort((a, b) -> Long.compare(
-            (Long) b.get("totalAppointments"),
-            (Long) a.get("totalAppointments")
-        ));
-
+        for (Map<String, Object> item : result) {
+            List<Integer> serviceIds = serviceIdsByType.get((String) item.get("serviceType"));
+            Map<String, Long> counts = distinctVisitorCounter.countForServices(serviceIds, outletId, startDate, endDate);
+            if (counts != null) {
+                item.putAll(counts);
+            }
+        }
         return result;
     }
 
-    // Get revenue reporting
-    public Map<String, Object> getRevenueReporting(LocalDate startDate, LocalDate endDate) {
-        List<ServiceAppointment> appointments = appointmentMapper.findAllWithDetails();
-
-        // Filter by date range and completed status
-        appointments = appointments.stream()
-            .filter(appointment -> {
-                if (appointment.getTimeSlot() == null) return false;
-                if (!"COMPLETED".equals(appointment.getAppointmentStatus())) return false;
-
-                if (startDate != null && endDate != null) {
-                    LocalDate appointmentDate = LocalDate.of(
-                        appointment.getTimeSlot().getTimeYear(),
-                        appointment.getTimeSlot().getTimeMonth(),
-                        appointment.getTimeSlot().getTimeDay()
-                    );
-
-                    return !appointmentDate.isBefore(startDate) && !appointmentDate.isAfter(endDate);
-                }
-
-                return true;
-            })
-            .collect(Collectors.toList());
-
-        // Calculate total revenue
-        double totalRevenue = appointments.stream()
-            .filter(appointment -> appointment.getServiceTypeSafe() != null && appointment.getServiceTypeSafe().getServicePrice() != null)
-            .mapToDouble(appointment -> appointment.getServiceTypeSafe().getServicePrice())
-            .sum();
-
-        // Group by service type
-        Map<String, Double> revenueByService = new HashMap<>();
-
-        appointments.forEach(appointment -> {
-            ServiceType service = appointment.getServiceTypeSafe();
-            if (service != null && service.getServiceType() != null && service.getServicePrice() != null) {
-                String serviceType = service.getServiceType();
-                double price = service.getServicePrice();
-
-                revenueByService.put(
-                    serviceType,
-                    revenueByService.getOrDefault(serviceType, 0.0) + price
-                );
+    /**
+     * Staff performance with the approximate distinct customers and vehicles each staff member served
+     */
+    private List<Map<String, Object>> staffPerformance(ReportAccumulator accumulator, LocalDate startDate, LocalDate endDate) {
+        List<Map<String, Object>> result = accumulator.staffPerformance(findStaffNames());
+        if (!distinctVisitorCounter.isReady()) {
+            return result;
+        }
+        for (Map<String, Object> item : result) {
+            Map<String, Long> counts = distinctVisitorCounter.countForStaff((Integer) item.get("staffId"), startDate, endDate);
+            if (counts != null) {
+                item.putAll(counts);
             }
-        });
+        }
+        return result;
+    }
 
-        // Group by month
-        Map<String, Double> revenueByMonth = new HashMap<>();
+    /**
+     * Count the appointments in the date range (all of them unless both dates are given),
+     * of one outlet or of all outlets if outletId is null. Runs over the columnar fact store; while that is still loading, flat facts are read from
+     * the database and counted per outlet in parallel.
+     */
+    private ReportAccumulator accumulate(LocalDate startDate, LocalDate endDate, Integer outletId) {
+        boolean filtered = startDate != null && endDate != null;
+        int from = filtered ? (int) startDate.toEpochDay() : Integer.MIN_VALUE;
+        int to = filtered ? (int) endDate.toEpochDay() : Integer.MAX_VALUE;
+
+        ReportAccumulator fromStore = factStore.scan(from, to, reportPool, ReportAccumulator::new,
+                (accumulator, row) -> {
+                    if (outletId == null || row.outletId() == outletId) {
+                        accumulator.add(row.epochDay(), row.minuteOfDay(), row.serviceId(), row.staffId(),
+                                row.outletId(), row.status(), row.costCents());
+                    }
+                },
+                ReportAccumulator::merge);
+        if (fromStore != null) {
+            return fromStore;
+        }
 
-        appointments.forEach(appointment -> {
-            ServiceType service = appointment.getServiceTypeSafe();
-            if (appointment.getTimeSlot() != null &&
-                service != null &&
-                service.getServicePrice() != null) {
+        Map<Integer, List<AppointmentFact>> factsByOutlet = new HashMap<>();
+        for (AppointmentFact fact : appointmentMapper.findAllFacts()) {
+            if (outletId != null && !outletId.equals(fact.getOutletId())) continue;
+            factsByOutlet.computeIfAbsent(fact.getOutletId(), id -> new ArrayList<>()).add(fact);
+        }
+        return reportPool.invoke(new OutletPartitionTask(new ArrayList<>(factsByOutlet.values()), 0, factsByOutlet.size(), from, to));
+    }
 
-                int year = appointment.getTimeSlot().getTimeYear();
-                int month = appointment.getTimeSlot().getTimeMonth();
-                String monthKey = year + "-" + String.format("%02d", month);
-                double price = service.getServicePrice();
+    private Map<Integer, ServiceType> findServices() {
+        Map<Integer, ServiceType> services = new HashMap<>();
+        for (ServiceType service : serviceMapper.findAll()) {
+            services.put(service.getServiceId(), service);
+        }
+        return services;
+    }
 
-                revenueByMonth.put(
-                    monthKey,
-                    revenueByMonth.getOrDefault(monthKey, 0.0) + price
-                );
+    private Map<Integer, String> findOutletNames() {
+        Map<Integer, String> outletNames = new HashMap<>();
+        for (ServiceOutlet outlet : outletMapper.findAll()) {
+            if (outlet.getOutletName() != null) {
+                outletNames.put(outlet.getOutletId(), outlet.getOutletName());
             }
-        });
+        }
+        return outletNames;
+    }
 
-        // Sort revenue by month
-        Map<String, Double> sortedRevenueByMonth = new TreeMap<>(revenueByMonth);
+    private Map<Integer, String> findStaffNames() {
+        Map<Integer, String> staffNames = new HashMap<>();
+        for (Staff staff : staffMapper.findAll()) {
+            if (staff.getStaffName() != null) {
+                staffNames.put(staff.getStaffId(), staff.getStaffName());
+            }
+        }
+        return staffNames;
+    }
 
-        // Prepare result
-        Map<String, Object> result = new HashMap<>();
-        result.put("totalRevenue", totalRevenue);
-        result.put("revenueByService", revenueByService);
-        result.put("revenueByMonth", sortedRevenueByMonth);
+    @PreDestroy
+    public void shutdown() {
+        reportPool.shutdown();
+    }
 
-        return result;
+    /**
+     * Splits the outlet partitions in halves until one is left, then counts it
+     */
+    private static class OutletPartitionTask extends RecursiveTask<ReportAccumulator> {
+        private final List<List<AppointmentFact>> partitions;
+        private final int start;
+        private final int end;
+        private final int fromEpochDay;
+        private final int toEpochDay;
+
+        OutletPartitionTask(List<List<AppointmentFact>> partitions, int start, int end, int fromEpochDay, int toEpochDay) {
+            this.partitions = partitions;
+            this.start = start;
+            this.end = end;
+            this.fromEpochDay = fromEpochDay;
+            this.toEpochDay = toEpochDay;
+        }
+
+        @Override
+        protected ReportAccumulator compute() {
+            if (end - start <= 1) {
+                ReportAccumulator accumulator = new ReportAccumulator();
+                if (end > start) {
+                    accumulate(partitions.get(start), accumulator);
+                }
+                return accumulator;
+            }
+            int middle = (start + end) >>> 1;
+            OutletPartitionTask left = new OutletPartitionTask(partitions, start, middle, fromEpochDay, toEpochDay);
+            left.fork();
+            ReportAccumulator right = new OutletPartitionTask(partitions, middle, end, fromEpochDay, toEpochDay).compute();
+            return left.join().merge(right);
+        }
+
+        private void accumulate(List<AppointmentFact> facts, ReportAccumulator accumulator) {
+            for (AppointmentFact fact : facts) {
+                int epochDay = AppointmentFactStore.epochDay(fact.getTimeYear(), fact.getTimeMonth(), fact.getTimeDay());
+                if (epochDay < fromEpochDay || epochDay > toEpochDay) {
+                    continue;
+                }
+                int minuteOfDay = fact.getTimeClocktime() != null ? fact.getTimeClocktime().toSecondOfDay() / 60 : 0;
+                accumulator.add(epochDay, minuteOfDay, fact.getServiceId(),
+                        fact.getStaffId() != null ? fact.getStaffId() : AppointmentFactStore.NO_STAFF,
+                        fact.getOutletId() != null ? fact.getOutletId() : 0,
+                        AppointmentFactStore.statusCode(fact.getAppointmentStatus()),
+                        AppointmentFactStore.cents(fact.getAppointmentCost()));
+            }
+        }
     }
 }
@@ -0,0 +1,135 @@
+package com.example.portal.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Time spent per phase (database, Redis, cache, serialization, password hashing, external calls)
+ * of the HTTP request being handled on the current thread, for Server-Timing headers and logs.
+ *
+ * Each phase measures wall-clock time: a phase entered again while it is already running (a
+ * nested select, a Redis pipeline) is counted once. Different phases may overlap, e.g. a Redis
+ * cache read counts towards both cache and Redis. Code running outside a tracked request costs
+ * one ThreadLocal lookup.
+ */
+@Service
+public class RequestPhaseTimer {
+
+    public enum Phase {
+        DB("db", "MySQL"),
+        REDIS("redis", "Redis"),
+        CACHE("cache", "Cache"),
+        SERIALIZATION("ser", "JSON"),
+        AUTH("auth", "Password hashing"),
+        EXTERNAL("ext", "External calls");
+
+        private final String metricName;
+        private final String description;
+
+        Phase(String metricName, String description) {
+            this.metricName = metricName;
+            this.description = description;
+        }
+
+        public String getMetricName() {
+            return metricName;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private final ThreadLocal<Timings> current = new ThreadLocal<>();
+
+    /**
+     * Start tracking a request on this thread
+     */
+    public Timings begin() {
+        Timings timings = new Timings();
+        current.set(timings);
+        return timings;
+    }
+
+    /**
+     * Continue tracking a request on this thread, e.g. on an async dispatch
+     */
+    public void resume(Timings timings) {
+        current.set(timings);
+    }
+
+    public void end() {
+        current.remove();
+    }
+
+    /**
+     * Timings of the request on this thread, or null outside a tracked request
+     */
+    public Timings current() {
+        return current.get();
+    }
+
+    /**
+     * Enter a phase of the request on this thread; every call must be paired with {@link #stop}
+     */
+    public void start(Phase phase) {
+        Timings timings = current.get();
+        if (timings != null) {
+            timings.start(phase);
+        }
+    }
+
+    public void stop(Phase phase) {
+        Timings timings = current.get();
+        if (timings != null) {
+            timings.stop(phase);
+        }
+    }
+
+    /**
+     * Phase totals of one request. Phases may be entered from other threads than the request's
+     * (Redis replies complete on I/O threads), so updates are synchronized.
+     */
+    public static class Timings {
+        private final long startedNanos = System.nanoTime();
+        private final long[] nanos = new long[Phase.values().length];
+        private final int[] counts = new int[Phase.values().length];
+        private final int[] depth = new int[Phase.values().length];
+        private final long[] enteredNanos = new long[Phase.values().length];
+
+        public synchronized void start(Phase phase) {
+            int i = phase.ordinal();
+            if (depth[i]++ == 0) {
+                enteredNanos[i] = System.nanoTime();
+            }
+            counts[i]++;
+        }
+
+        public synchronized void stop(Phase phase) {
+            int i = phase.ordinal();
+            if (depth[i] > 0 && --depth[i] == 0) {
+                nanos[i] += System.nanoTime() - enteredNanos[i];
+            }
+        }
+
+        public long getElapsedNanos() {
+            return System.nanoTime() - startedNanos;
+        }
+
+        /**
+         * Milliseconds and entry counts of the phases that were entered, in phase order
+         */
+        public synchronized Map<Phase, double[]> snapshot() {
+            Map<Phase, double[]> result = new LinkedHashMap<>();
+            for (Phase phase : Phase.values()) {
+                int i = phase.ordinal();
+                if (counts[i] > 0) {
+                    result.put(phase, new double[]{nanos[i] / 1_000_000.0, counts[i]});
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.portal.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the SQL statements each HTTP request runs, per statement ID, to catch N+1 patterns
+ * such as the nested selects of a result map being run once per row.
+ *
+ * A request is tracked from {@link #begin()} to {@link #end} on its own thread; statements run
+ * elsewhere (background loaders, async work) are not attributed to it. Per endpoint, the totals
+ * and the requests that repeated one statement too often or exceeded the statement budget are kept,
+ * and published as the portal.request.statements summary and counters tagged with the endpoint.
+ */
+@Service
+public class RequestStatementTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestStatementTracker.class);
+
+    private final ThreadLocal<Map<String, int[]>> current = new ThreadLocal<>();
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    private final int repeatThreshold;
+    private final int defaultBudget;
+    private final boolean strict;
+
+    public RequestStatementTracker(MeterRegistry meterRegistry,
+                                   @Value("${app.query-audit.repeat-threshold:10}") int repeatThreshold,
+                                   @Value("${app.query-audit.statement-budget:0}") int defaultBudget,
+                                   @Value("${app.query-audit.strict:false}") boolean strict) {
+        this.meterRegistry = meterRegistry;
+        this.repeatThreshold = repeatThreshold;
+        this.defaultBudget = defaultBudget;
+        this.strict = strict;
+    }
+
+    public void begin() {
+        current.set(new HashMap<>());
+    }
+
+    /**
+     * Count one statement for the request running on this thread, if any
+     */
+    public void record(String statementId) {
+        Map<String, int[]> counts = current.get();
+        if (counts != null) {
+            counts.computeIfAbsent(statementId, id -> new int[1])[0]++;
+        }
+    }
+
+    /**
+     * Stop tracking the request on this thread and add its counts to the endpoint
+     * @param budget the endpoint's own statement budget, or null for the configured default
+     * @return a description of the exceeded budget if the request should fail in strict mode, otherwise null
+     */
+    public String end(String endpoint, Integer budget) {
+        Map<String, int[]> counts = current.get();
+        current.remove();
+        if (counts == null) {
+            return null;
+        }
+
+        int total = 0;
+        String mostRepeated = null;
+        int mostRepeatedCount = 0;
+        for (Map.Entry<String, int[]> entry : counts.entrySet()) {
+            int count = entry.getValue()[0];
+            total += count;
+            if (count > mostRepeatedCount) {
+                mostRepeated = entry.getKey();
+                mostRepeatedCount = count;
+            }
+        }
+        boolean repeated = mostRepeatedCount > repeatThreshold;
+        int limit = budget != null ? budget : defaultBudget;
+        boolean overBudget = limit > 0 && total > limit;
+
+        EndpointStats stats = endpoints.computeIfAbsent(endpoint, key -> new EndpointStats(meterRegistry, key));
+        stats.add(total, repeated ? mostRepeated : null, mostRepeatedCount, overBudget);
+
+        if (repeated) {
+            logger.warn("{} ran {} {} times ({} statements in total), possibly an N+1 query",
+                    endpoint, mostRepeated, mostRepeatedCount, total);
+        }
+        if (overBudget) {
+            String message = endpoint + " ran " + total + " statements, over its budget of " + limit;
+            logger.warn(message);
+            return strict ? message : null;
+        }
+        return null;
+    }
+
+    /**
+     * Statement counts per endpoint, most statements per request first
+     */
+    public List<Map<String, Object>> getEndpointStats() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        endpoints.forEach((endpoint, stats) -> {
+            Map<String, Object> item = stats.summary();
+            item.put("endpoint", endpoint);
+            result.add(item);
+        });
+        result.sort((a, b) -> Double.compare((Double) b.get("meanStatements"), (Double) a.get("meanStatements")));
+        return result;
+    }
+
+    public void reset() {
+        endpoints.clear();
+    }
+
+    private static class EndpointStats {
+        final DistributionSummary statementsPerRequest;
+        final Counter repeatingCounter;
+        final Counter overBudgetCounter;
+        final LongAdder requests = new LongAdder();
+        final LongAdder statements = new LongAdder();
+        final LongAccumulator maxStatements = new LongAccumulator(Math::max, 0);
+        final LongAdder repeatingRequests = new LongAdder();
+        final LongAdder overBudgetRequests = new LongAdder();
+        volatile String lastRepeatedStatement;
+        volatile int lastRepeatCount;
+
+        // Meters survive reset(), the registry keeps them; they are looked up again for the new stats
+        EndpointStats(MeterRegistry registry, String endpoint) {
+            statementsPerRequest = DistributionSummary.builder("portal.request.statements")
+                    .description("SQL statements run per API request")
+                    .tag("endpoint", endpoint)
+                    .register(registry);
+            repeatingCounter = Counter.builder("portal.request.statements.repeated")
+                    .description("Requests that ran one statement more often than the repeat threshold")
+                    .tag("endpoint", endpoint)
+                    .register(registry);
+            overBudgetCounter = Counter.builder("portal.request.statements.over.budget")
+                    .description("Requests that ran more statements than their budget")
+                    .tag("endpoint", endpoint)
+                    .register(registry);
+        }
+
+        void add(int total, String repeatedStatement, int repeatCount, boolean overBudget) {
+            statementsPerRequest.record(total);
+            requests.increment();
+            statements.add(total);
+            maxStatements.accumulate(total);
+            if (repeatedStatement != null) {
+                repeatingRequests.increment();
+                repeatingCounter.increment();
+                lastRepeatedStatement = repeatedStatement;
+                lastRepeatCount = repeatCount;
+            }
+            if (overBudget) {
+                overBudgetRequests.increment();
+                overBudgetCounter.increment();
+            }
+        }
+
+        Map<String, Object> summary() {
+            long count = requests.sum();
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("requests", count);
+            summary.put("statements", statements.sum());
+            summary.put("meanStatements", count > 0 ? Math.round((double) statements.sum() / count * 10) / 10.0 : 0.0);
+            summary.put("maxStatements", maxStatements.get());
+            summary.put("repeatingRequests", repeatingRequests.sum());
+            summary.put("overBudgetRequests", overBudgetRequests.sum());
+            if (lastRepeatedStatement != null) {
+                summary.put("lastRepeatedStatement", lastRepeatedStatement);
+                summary.put("lastRepeatCount", lastRepeatCount);
+            }
+            return summary;
+        }
+    }
+}
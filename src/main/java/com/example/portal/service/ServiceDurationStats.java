@@ -0,0 +1,181 @@
+package com.example.portal.service;
+
+import com.example.portal.event.AppointmentChangedEvent;
+import com.example.portal.model.AppointmentFact;
+import com.example.portal.model.ServiceAppointment;
+import com.example.portal.repository.ServiceAppointmentMapper;
+import jakarta.annotation.PreDestroy;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * How long services really take, per service and per staff member, measured from the actual
+ * start and finish times recorded on the IN_PROGRESS and COMPLETED transitions.
+ *
+ * Loaded once from the database and kept current from completion events. Once a service has
+ * enough samples, its typical duration replaces the fixed default when planning capacity.
+ * Durations under a minute are left out: they come from an appointment started and completed
+ * in the same bulk request, not from measured work.
+ */
+@Service
+public class ServiceDurationStats {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServiceDurationStats.class);
+    private static final int MIN_SAMPLE_MINUTES = 1;
+
+    private final SqlSessionFactory sqlSessionFactory;
+    private final int minSamples;
+    private final double planningQuantile;
+
+    private volatile Map<Integer, DurationHistogram> byService = new ConcurrentHashMap<>();
+    private volatile Map<Integer, DurationHistogram> byStaff = new ConcurrentHashMap<>();
+    // Completions seen while a load is running, replayed unless the load already read them
+    private volatile Queue<ServiceAppointment> replayBuffer;
+    private final Object swapLock = new Object();
+
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "duration-stats-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ServiceDurationStats(SqlSessionFactory sqlSessionFactory,
+                                @Value("${app.reporting.durations.min-samples:20}") int minSamples,
+                                @Value("${app.reporting.durations.planning-quantile:0.5}") double planningQuantile) {
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.minSamples = minSamples;
+        this.planningQuantile = planningQuantile;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        loader.execute(this::load);
+    }
+
+    private void load() {
+        long started = System.currentTimeMillis();
+        replayBuffer = new ConcurrentLinkedQueue<>();
+        Map<Integer, DurationHistogram> services = new ConcurrentHashMap<>();
+        Map<Integer, DurationHistogram> staff = new ConcurrentHashMap<>();
+        RoaringBitmap loadedIds = new RoaringBitmap();
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Cursor<AppointmentFact> cursor = session.getMapper(ServiceAppointmentMapper.class).scanActualDurations()) {
+            for (AppointmentFact fact : cursor) {
+                if (fact.getActualMinutes() == null || fact.getActualMinutes() < MIN_SAMPLE_MINUTES) continue;
+                add(services, staff, fact.getServiceId(), fact.getStaffId(), fact.getActualMinutes(), fact.getAppointmentDuration());
+                loadedIds.add(fact.getAppointmentId());
+            }
+        } catch (Exception e) {
+            logger.error("Failed to load service duration statistics", e);
+            replayBuffer = null;
+            return;
+        }
+
+        synchronized (swapLock) {
+            Queue<ServiceAppointment> buffer = replayBuffer;
+            ServiceAppointment appointment;
+            while ((appointment = buffer.poll()) != null) {
+                if (!loadedIds.contains(appointment.getAppointmentId())) {
+                    record(services, staff, appointment);
+                }
+            }
+            byService = services;
+            byStaff = staff;
+            replayBuffer = null;
+        }
+        logger.info("Loaded {} measured service durations in {} ms",
+                loadedIds.getLongCardinality(), System.currentTimeMillis() - started);
+    }
+
+    @EventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        ServiceAppointment appointment = event.getAppointment();
+        if (!event.isStatusChange() || !"COMPLETED".equals(appointment.getAppointmentStatus())
+                || appointment.getAppointmentId() == null) {
+            return;
+        }
+        synchronized (swapLock) {
+            Queue<ServiceAppointment> buffer = replayBuffer;
+            if (buffer != null) {
+                buffer.add(appointment);
+            } else {
+                record(byService, byStaff, appointment);
+            }
+        }
+    }
+
+    private static void record(Map<Integer, DurationHistogram> services, Map<Integer, DurationHistogram> staff,
+                               ServiceAppointment appointment) {
+        if (appointment.getActualStartTime() == null || appointment.getActualFinishTime() == null) {
+            return;
+        }
+        long minutes = Duration.between(appointment.getActualStartTime(), appointment.getActualFinishTime()).toMinutes();
+        if (minutes >= MIN_SAMPLE_MINUTES && minutes <= Integer.MAX_VALUE) {
+            add(services, staff, appointment.getServiceId(), appointment.getStaffId(), (int) minutes,
+                    appointment.getAppointmentDuration());
+        }
+    }
+
+    private static void add(Map<Integer, DurationHistogram> services, Map<Integer, DurationHistogram> staff,
+                            Integer serviceId, Integer staffId, int minutes, Integer plannedMinutes) {
+        if (serviceId != null) {
+            services.computeIfAbsent(serviceId, id -> new DurationHistogram()).add(minutes, plannedMinutes);
+        }
+        if (staffId != null) {
+            staff.computeIfAbsent(staffId, id -> new DurationHistogram()).add(minutes, plannedMinutes);
+        }
+    }
+
+    /**
+     * Duration to plan for a service when a booking does not say, from measured durations
+     * @return minutes, or null while the service has too few samples
+     */
+    public Integer getPlanningDuration(Integer serviceId) {
+        DurationHistogram histogram = serviceId != null ? byService.get(serviceId) : null;
+        if (histogram == null || histogram.getSamples() < minSamples) {
+            return null;
+        }
+        int minutes = histogram.quantile(planningQuantile);
+        return minutes > 0 ? minutes : null;
+    }
+
+    /**
+     * Quantiles of the measured durations per service ID
+     */
+    public Map<Integer, Map<String, Object>> summarizeByService() {
+        return summarize(byService);
+    }
+
+    /**
+     * Quantiles of the measured durations per staff ID
+     */
+    public Map<Integer, Map<String, Object>> summarizeByStaff() {
+        return summarize(byStaff);
+    }
+
+    private static Map<Integer, Map<String, Object>> summarize(Map<Integer, DurationHistogram> histograms) {
+        Map<Integer, Map<String, Object>> summaries = new TreeMap<>();
+        histograms.forEach((id, histogram) -> summaries.put(id, histogram.summary()));
+        return summaries;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+}
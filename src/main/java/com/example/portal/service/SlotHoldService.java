@@ -0,0 +1,69 @@
+package com.example.portal.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.UUID;
+
+/**
+ * Short-lived reservations that keep a slot's capacity for a customer between seeing it
+ * in the available time slots and submitting the booking
+ */
+@Service
+public class SlotHoldService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlotHoldService.class);
+
+    private final SlotHoldStore slotHoldStore;
+    private final TimeSlotService timeSlotService;
+    private final Duration holdTtl;
+
+    public SlotHoldService(SlotHoldStore slotHoldStore,
+                           TimeSlotService timeSlotService,
+                           @Value("${app.booking.slot-hold.ttl-seconds:300}") long holdTtlSeconds) {
+        this.slotHoldStore = slotHoldStore;
+        this.timeSlotService = timeSlotService;
+        this.holdTtl = Duration.ofSeconds(holdTtlSeconds);
+    }
+
+    /**
+     * Hold one unit of capacity at the slot
+     * @return the hold ID, or null if the slot has no capacity left
+     */
+    public String hold(Integer outletId, LocalDate date, LocalTime time) {
+        int capacity = timeSlotService.getSlotCapacity(
+                (short) date.getYear(), (short) date.getMonthValue(), (short) date.getDayOfMonth(), outletId, time);
+        if (capacity <= 0) {
+            logger.debug("No capacity to hold at outlet {} on {} {}", outletId, date, time);
+            return null;
+        }
+
+        String holdId = UUID.randomUUID().toString();
+        if (!slotHoldStore.tryHold(holdId, outletId, date, time, capacity, holdTtl)) {
+            logger.debug("All {} units at outlet {} on {} {} are already held", capacity, outletId, date, time);
+            return null;
+        }
+
+        logger.debug("Created slot hold {} at outlet {} on {} {}", holdId, outletId, date, time);
+        return holdId;
+    }
+
+    /**
+     * Release a hold, either because the booking was made or the customer moved on
+     * @return true if the hold was still active
+     */
+    public boolean release(String holdId) {
+        boolean released = slotHoldStore.release(holdId);
+        logger.debug("Released slot hold {} (active: {})", holdId, released);
+        return released;
+    }
+
+    public Duration getHoldTtl() {
+        return holdTtl;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.portal.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Storage for short-lived reservations of booking capacity at an (outlet, date, time) slot.
+ * Implementations must make the capacity check and the reservation one atomic step.
+ */
+public interface SlotHoldStore {
+
+    /**
+     * Reserve one unit of capacity if fewer than capacity holds are active for the slot
+     * @return true if the hold was stored
+     */
+    boolean tryHold(String holdId, Integer outletId, LocalDate date, LocalTime time, int capacity, Duration ttl);
+
+    /**
+     * Number of active holds per start time for an outlet's day
+     */
+    Map<LocalTime, Integer> countActiveHolds(Integer outletId, LocalDate date);
+
+    /**
+     * The slot an active hold keeps capacity at
+     * @return the slot, or null if the hold does not exist or has expired
+     */
+    HeldSlot find(String holdId);
+
+    /**
+     * Remove a hold
+     * @return true if the hold existed and had not expired
+     */
+    boolean release(String holdId);
+
+    /**
+     * Outlet, date and start time of a hold
+     */
+    final class HeldSlot {
+        private final Integer outletId;
+        private final LocalDate date;
+        private final LocalTime time;
+
+        public HeldSlot(Integer outletId, LocalDate date, LocalTime time) {
+            this.outletId = outletId;
+            this.date = date;
+            this.time = time;
+        }
+
+        public boolean matches(Integer outletId, LocalDate date, LocalTime time) {
+            return Objects.equals(this.outletId, outletId) && this.date.equals(date) && this.time.equals(time);
+        }
+
+        public Integer getOutletId() {
+            return outletId;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public LocalTime getTime() {
+            return time;
+        }
+    }
+}
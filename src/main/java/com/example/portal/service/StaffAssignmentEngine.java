@@ -0,0 +1,36 @@
+package com.example.portal.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Picks the staff member to assign when an appointment is confirmed without one
+ */
+@Component
+public class StaffAssignmentEngine {
+
+    /**
+     * Choose the least-loaded staff member who is free for [start, end).
+     * Load is the confirmed minutes already assigned that day; ties go to the lowest staff ID
+     * so that repeated runs over the same schedule give the same result.
+     * @return the staff ID, or null if every staff member is busy
+     */
+    public Integer pickStaff(OutletDaySchedule day, int start, int end, Integer appointmentId) {
+        Set<Integer> busy = day.findBusyStaff(start, end, appointmentId);
+
+        Integer best = null;
+        int bestLoad = Integer.MAX_VALUE;
+        for (Integer staffId : day.getStaffIds()) {
+            if (busy.contains(staffId)) {
+                continue;
+            }
+            int load = day.getConfirmedMinutes(staffId);
+            if (load < bestLoad || (load == bestLoad && staffId < best)) {
+                best = staffId;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.portal.service;
+
+import com.example.portal.event.AppointmentChangedEvent;
+import com.example.portal.model.ServiceAppointment;
+import com.example.portal.model.StaffOutcomeCount;
+import com.example.portal.model.TimeSlot;
+import com.example.portal.repository.ServiceAppointmentMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.IsoFields;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Live staff leaderboards per outlet and day, ISO week and month, counting completed and
+ * cancelled appointments.
+ *
+ * Every transition into or out of COMPLETED or CANCELLED changes the staff member's score on
+ * the boards of the appointment's day, week and month. Boards are filled from the database
+ * the first time they are used, for the configured number of months back.
+ */
+@Service
+public class StaffLeaderboard {
+
+    private static final Logger logger = LoggerFactory.getLogger(StaffLeaderboard.class);
+
+    public static final List<String> PERIODS = List.of("day", "week", "month");
+
+    // Old boards are only kept as long as anyone would look at them
+    private static final Duration DAY_BOARD_TTL = Duration.ofDays(35);
+    private static final Duration WEEK_BOARD_TTL = Duration.ofDays(120);
+
+    private final LeaderboardStore store;
+    private final ServiceAppointmentMapper appointmentMapper;
+    private final int backfillMonths;
+
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "leaderboard-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public StaffLeaderboard(LeaderboardStore store,
+                            ServiceAppointmentMapper appointmentMapper,
+                            @Value("${app.reporting.leaderboard.backfill-months:12}") int backfillMonths) {
+        this.store = store;
+        this.appointmentMapper = appointmentMapper;
+        this.backfillMonths = backfillMonths;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        loader.execute(() -> {
+            try {
+                if (store.getMarker() == null) {
+                    backfill();
+                }
+            } catch (Exception e) {
+                logger.error("Failed to fill the staff leaderboards", e);
+            }
+        });
+    }
+
+    private void backfill() {
+        long started = System.currentTimeMillis();
+        LocalDate from = YearMonth.now().minusMonths(backfillMonths).atDay(1);
+        int fromDate = from.getYear() * 10000 + from.getMonthValue() * 100 + from.getDayOfMonth();
+
+        List<LeaderboardStore.ScoreChange> changes = new ArrayList<>();
+        List<StaffOutcomeCount> counts = appointmentMapper.countStaffOutcomesByDay(fromDate);
+        for (StaffOutcomeCount count : counts) {
+            if (count.getOutletId() == null || count.getStaffId() == null) continue;
+            LocalDate date = LocalDate.of(count.getTimeYear(), count.getTimeMonth(), count.getTimeDay());
+            addChanges(changes, count.getOutletId(), count.getStaffId(), date,
+                    kindOf(count.getAppointmentStatus()), count.getAppointments());
+        }
+        store.apply(changes);
+        store.setMarker(from.toString());
+        logger.info("Filled staff leaderboards from {} staff days in {} ms", counts.size(), System.currentTimeMillis() - started);
+    }
+
+    @EventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        ServiceAppointment appointment = event.getAppointment();
+        TimeSlot timeSlot = appointment.getTimeSlot();
+        if (!event.isStatusChange() || appointment.getOutletId() == null || appointment.getStaffId() == null
+                || appointment.getStaffId() == OutletDaySchedule.UNASSIGNED_STAFF_ID
+                || timeSlot == null || timeSlot.getTimeYear() == null) {
+            return;
+        }
+        String previousKind = kindOf(event.getPreviousStatus());
+        String newKind = kindOf(appointment.getAppointmentStatus());
+        if (previousKind == null && newKind == null) {
+            return;
+        }
+
+        LocalDate date = LocalDate.of(timeSlot.getTimeYear(), timeSlot.getTimeMonth(), timeSlot.getTimeDay());
+        List<LeaderboardStore.ScoreChange> changes = new ArrayList<>();
+        if (previousKind != null) {
+            addChanges(changes, appointment.getOutletId(), appointment.getStaffId(), date, previousKind, -1);
+        }
+        if (newKind != null) {
+            addChanges(changes, appointment.getOutletId(), appointment.getStaffId(), date, newKind, 1);
+        }
+        try {
+            store.apply(changes);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to update leaderboards for appointment {}", appointment.getAppointmentId(), e);
+        }
+    }
+
+    /**
+     * Staff members of an outlet with the most completed appointments in the period containing the date
+     * @param period one of {@link #PERIODS}
+     * @return staffId, completed and cancelled, most completed first
+     */
+    public List<Map<String, Object>> getTop(int outletId, String period, LocalDate date, int limit) {
+        String periodKey = periodKey(period, date);
+        LinkedHashMap<Integer, Double> top = store.top(key(outletId, periodKey, "completed"), limit);
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        int rank = 0;
+        for (Map.Entry<Integer, Double> entry : top.entrySet()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("rank", ++rank);
+            item.put("staffId", entry.getKey());
+            item.put("completed", entry.getValue().longValue());
+            item.put("cancelled", (long) store.score(key(outletId, periodKey, "cancelled"), entry.getKey()));
+            result.add(item);
+        }
+        return result;
+    }
+
+    private static void addChanges(List<LeaderboardStore.ScoreChange> changes, int outletId, int staffId,
+                                   LocalDate date, String kind, double delta) {
+        if (kind == null) {
+            return;
+        }
+        changes.add(new LeaderboardStore.ScoreChange(key(outletId, periodKey("day", date), kind), staffId, delta, DAY_BOARD_TTL));
+        changes.add(new LeaderboardStore.ScoreChange(key(outletId, periodKey("week", date), kind), staffId, delta, WEEK_BOARD_TTL));
+        changes.add(new LeaderboardStore.ScoreChange(key(outletId, periodKey("month", date), kind), staffId, delta, null));
+    }
+
+    private static String kindOf(String status) {
+        if ("COMPLETED".equals(status)) return "completed";
+        if ("CANCELLED".equals(status)) return "cancelled";
+        return null;
+    }
+
+    static String periodKey(String period, LocalDate date) {
+        switch (period) {
+            case "day":
+                return date.toString();
+            case "week":
+                return String.format("%d-W%02d", date.get(IsoFields.WEEK_BASED_YEAR), date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+            case "month":
+                return YearMonth.from(date).toString();
+            default:
+                throw new IllegalArgumentException("Unknown period: " + period);
+        }
+    }
+
+    private static String key(int outletId, String periodKey, String kind) {
+        return "leaderboard:" + outletId + ":" + periodKey + ":" + kind;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+}
@@ -0,0 +1,372 @@
+package com.example.portal.service;
+
+import com.example.portal.event.AppointmentChangedEvent;
+import com.example.portal.model.ServiceAppointment;
+import com.example.portal.repository.ServiceAppointmentMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cached index of each staff member's confirmed work per day, used to answer
+ * "is staff X free for [start, end)?" without rescanning appointment lists.
+ *
+ * Each staff day is an immutable sorted array of intervals that is swapped on every change,
+ * so readers never lock. Days are loaded from the database on first use, kept current from
+ * appointment change events and dropped after a TTL as a backstop against missed events.
+ * Changes that arrive while a day is loading are replayed onto it before it is cached.
+ */
+@Service
+public class StaffScheduleIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(StaffScheduleIndex.class);
+
+    private final ServiceAppointmentMapper appointmentMapper;
+    private final long ttlMillis;
+
+    private final Map<StaffDay, CachedIntervals> cache = new ConcurrentHashMap<>();
+    // Where each indexed appointment currently sits, so moves between staff or days can be undone
+    private final Map<Integer, StaffDay> locations = new ConcurrentHashMap<>();
+    private final Set<PendingLoad> loads = ConcurrentHashMap.newKeySet();
+
+    public StaffScheduleIndex(ServiceAppointmentMapper appointmentMapper,
+                              @Value("${app.booking.schedule-index.ttl-seconds:300}") long ttlSeconds) {
+        this.appointmentMapper = appointmentMapper;
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    /**
+     * Check that a staff member has no confirmed work overlapping [start, end), in minutes since midnight
+     */
+    public boolean isStaffFree(int staffId, LocalDate date, int start, int end) {
+        return getIntervals(staffId, date, appointmentMapper).isFree(start, end);
+    }
+
+    /**
+     * Staff members out of the given ones that have no confirmed work overlapping [start, end)
+     */
+    public List<Integer> findFreeStaff(Collection<Integer> staffIds, LocalDate date, int start, int end) {
+        List<Integer> free = new ArrayList<>();
+        for (Integer staffId : staffIds) {
+            if (staffId == OutletDaySchedule.UNASSIGNED_STAFF_ID) continue;
+            if (getIntervals(staffId, date, appointmentMapper).isFree(start, end)) {
+                free.add(staffId);
+            }
+        }
+        return free;
+    }
+
+    /**
+     * Intervals of one staff day, loading them through the given mapper if not cached.
+     * Callers inside a batch transaction pass their batch mapper, since the executor type
+     * cannot change within a transaction.
+     */
+    public StaffIntervals getIntervals(int staffId, LocalDate date, ServiceAppointmentMapper mapper) {
+        StaffDay key = new StaffDay(staffId, date);
+        CachedIntervals cached = cache.get(key);
+        if (cached != null && !cached.isExpired()) {
+            return cached.intervals;
+        }
+
+        // Registered before the query, so a change the query may have missed is seen by the load
+        PendingLoad load = new PendingLoad();
+        loads.add(load);
+        StaffIntervals intervals;
+        try {
+            List<ServiceAppointment> appointments = mapper.findByStaffIdAndDateWithDetails(staffId,
+                    (short) date.getYear(), (short) date.getMonthValue(), (short) date.getDayOfMonth());
+            intervals = StaffIntervals.of(appointments);
+            synchronized (load) {
+                for (ServiceAppointment appointment : load.changes) {
+                    intervals = apply(intervals, key, appointment);
+                }
+                // Later changes find the stored day through the cache
+                store(key, intervals);
+                load.done = true;
+            }
+        } finally {
+            loads.remove(load);
+        }
+        logger.debug("Loaded schedule index for staff {} on {} ({} intervals)", staffId, date, intervals.size());
+        return intervals;
+    }
+
+    /**
+     * Fill the index for several staff members from appointments already loaded for an outlet day,
+     * so an availability check does not need one query per staff member. Cached days are kept.
+     */
+    public void prime(LocalDate date, Collection<Integer> staffIds, List<ServiceAppointment> outletDayAppointments) {
+        Map<Integer, List<ServiceAppointment>> byStaff = new HashMap<>();
+        for (ServiceAppointment appointment : outletDayAppointments) {
+            if (appointment.getStaffId() != null) {
+                byStaff.computeIfAbsent(appointment.getStaffId(), k -> new ArrayList<>()).add(appointment);
+            }
+        }
+        for (Integer staffId : staffIds) {
+            StaffDay key = new StaffDay(staffId, date);
+            CachedIntervals cached = cache.get(key);
+            if (cached == null || cached.isExpired()) {
+                store(key, StaffIntervals.of(byStaff.getOrDefault(staffId, Collections.emptyList())));
+            }
+        }
+    }
+
+    @EventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        ServiceAppointment appointment = event.getAppointment();
+        if (appointment.getAppointmentId() == null) {
+            return;
+        }
+
+        for (PendingLoad load : loads) {
+            synchronized (load) {
+                if (!load.done) {
+                    load.changes.add(appointment);
+                }
+            }
+        }
+
+        StaffDay previous = locations.remove(appointment.getAppointmentId());
+        if (previous != null) {
+            cache.computeIfPresent(previous, (k, cached) ->
+                    cached.with(cached.intervals.without(appointment.getAppointmentId())));
+        }
+
+        StaffDay key = keyOf(appointment);
+        if (key == null) {
+            return;
+        }
+        CachedIntervals updated = cache.computeIfPresent(key, (k, cached) ->
+                cached.with(apply(cached.intervals, k, appointment)));
+        if (updated != null) {
+            locations.put(appointment.getAppointmentId(), key);
+        }
+    }
+
+    /**
+     * Drop every cached day, e.g. after data was changed outside the application
+     */
+    public void clear() {
+        cache.clear();
+        locations.clear();
+    }
+
+    private void store(StaffDay key, StaffIntervals intervals) {
+        // Loads happen at most once per staff day and TTL, which keeps this sweep cheap overall
+        if (cache.values().removeIf(CachedIntervals::isExpired)) {
+            locations.values().removeIf(day -> !cache.containsKey(day));
+        }
+        cache.put(key, new CachedIntervals(intervals, System.currentTimeMillis() + ttlMillis));
+        for (Integer appointmentId : intervals.appointmentIds) {
+            locations.put(appointmentId, key);
+        }
+    }
+
+    /**
+     * A staff day with a changed appointment taken out, and put back in if it is now confirmed work of that day
+     */
+    private static StaffIntervals apply(StaffIntervals intervals, StaffDay key, ServiceAppointment appointment) {
+        StaffIntervals updated = intervals.without(appointment.getAppointmentId());
+        return key.equals(keyOf(appointment)) ? updated.with(Interval.of(appointment)) : updated;
+    }
+
+    /**
+     * Staff day the appointment is confirmed work of, or null if it is not confirmed work
+     */
+    private static StaffDay keyOf(ServiceAppointment appointment) {
+        LocalDate date = dateOf(appointment);
+        if (date == null || appointment.getStaffId() == null || !isConfirmed(appointment)) {
+            return null;
+        }
+        return new StaffDay(appointment.getStaffId(), date);
+    }
+
+    private static LocalDate dateOf(ServiceAppointment appointment) {
+        if (appointment.getTimeSlot() == null || appointment.getTimeSlot().getTimeYear() == null
+                || appointment.getTimeSlot().getTimeClocktime() == null) {
+            return null;
+        }
+        return LocalDate.of(appointment.getTimeSlot().getTimeYear(), appointment.getTimeSlot().getTimeMonth(),
+                appointment.getTimeSlot().getTimeDay());
+    }
+
+    private static boolean isConfirmed(ServiceAppointment appointment) {
+        return "SCHEDULED".equals(appointment.getAppointmentStatus())
+                || "IN_PROGRESS".equals(appointment.getAppointmentStatus());
+    }
+
+    /**
+     * Confirmed intervals of one staff member on one day, sorted by start.
+     * maxEnd[i] is the latest end among the first i + 1 intervals, which makes the free check
+     * a single binary search even if the data already contains overlapping assignments.
+     */
+    public static class StaffIntervals {
+        private static final StaffIntervals EMPTY = new StaffIntervals(new int[0], new int[0], new Integer[0]);
+
+        private final int[] starts;
+        private final int[] ends;
+        private final int[] maxEnd;
+        private final Integer[] appointmentIds;
+
+        private StaffIntervals(int[] starts, int[] ends, Integer[] appointmentIds) {
+            this.starts = starts;
+            this.ends = ends;
+            this.appointmentIds = appointmentIds;
+            this.maxEnd = new int[starts.length];
+            int latest = Integer.MIN_VALUE;
+            for (int i = 0; i < starts.length; i++) {
+                latest = Math.max(latest, ends[i]);
+                maxEnd[i] = latest;
+            }
+        }
+
+        static StaffIntervals of(List<ServiceAppointment> appointments) {
+            List<Interval> intervals = new ArrayList<>();
+            for (ServiceAppointment appointment : appointments) {
+                if (isConfirmed(appointment) && appointment.getTimeSlot() != null
+                        && appointment.getTimeSlot().getTimeClocktime() != null) {
+                    intervals.add(Interval.of(appointment));
+                }
+            }
+            return of(intervals);
+        }
+
+        private static StaffIntervals of(Collection<Interval> intervals) {
+            if (intervals.isEmpty()) {
+                return EMPTY;
+            }
+            List<Interval> sorted = new ArrayList<>(intervals);
+            sorted.sort(Comparator.comparingInt((Interval i) -> i.start).thenComparingInt(i -> i.end));
+            int[] starts = new int[sorted.size()];
+            int[] ends = new int[sorted.size()];
+            Integer[] ids = new Integer[sorted.size()];
+            for (int i = 0; i < sorted.size(); i++) {
+                starts[i] = sorted.get(i).start;
+                ends[i] = sorted.get(i).end;
+                ids[i] = sorted.get(i).appointmentId;
+            }
+            return new StaffIntervals(starts, ends, ids);
+        }
+
+        /**
+         * True if no interval overlaps [start, end)
+         */
+        public boolean isFree(int start, int end) {
+            // Last interval starting before the end of the range
+            int low = 0;
+            int high = starts.length - 1;
+            int last = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] < end) {
+                    last = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return last < 0 || maxEnd[last] <= start;
+        }
+
+        public int size() {
+            return starts.length;
+        }
+
+        StaffIntervals with(Interval interval) {
+            List<Interval> intervals = toList();
+            intervals.add(interval);
+            return of(intervals);
+        }
+
+        StaffIntervals without(Integer appointmentId) {
+            if (!Arrays.asList(appointmentIds).contains(appointmentId)) {
+                return this;
+            }
+            List<Interval> intervals = toList();
+            intervals.removeIf(i -> Objects.equals(i.appointmentId, appointmentId));
+            return of(intervals);
+        }
+
+        private List<Interval> toList() {
+            List<Interval> intervals = new ArrayList<>(starts.length + 1);
+            for (int i = 0; i < starts.length; i++) {
+                intervals.add(new Interval(appointmentIds[i], starts[i], ends[i]));
+            }
+            return intervals;
+        }
+    }
+
+    private static class Interval {
+        private final Integer appointmentId;
+        private final int start;
+        private final int end;
+
+        Interval(Integer appointmentId, int start, int end) {
+            this.appointmentId = appointmentId;
+            this.start = start;
+            this.end = end;
+        }
+
+        static Interval of(ServiceAppointment appointment) {
+            LocalTime startTime = appointment.getTimeSlot().getTimeClocktime();
+            OutletDaySchedule.Entry entry = OutletDaySchedule.entryOf(appointment, startTime);
+            return new Interval(appointment.getAppointmentId(), entry.getStart(), entry.getEnd());
+        }
+    }
+
+    private static class StaffDay {
+        private final int staffId;
+        private final LocalDate date;
+
+        StaffDay(int staffId, LocalDate date) {
+            this.staffId = staffId;
+            this.date = date;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof StaffDay)) return false;
+            StaffDay other = (StaffDay) o;
+            return staffId == other.staffId && date.equals(other.date);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * staffId + date.hashCode();
+        }
+    }
+
+    /**
+     * Changes seen while one staff day is loading; guarded by its own monitor
+     */
+    private static class PendingLoad {
+        private final List<ServiceAppointment> changes = new ArrayList<>();
+        private boolean done;
+    }
+
+    private static class CachedIntervals {
+        private final StaffIntervals intervals;
+        private final long expiresAt;
+
+        CachedIntervals(StaffIntervals intervals, long expiresAt) {
+            this.intervals = intervals;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+
+        CachedIntervals with(StaffIntervals updated) {
+            return new CachedIntervals(updated, expiresAt);
+        }
+    }
+}
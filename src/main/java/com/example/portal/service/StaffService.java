@@ -1,8 +1,10 @@
 package com.example.portal.service;
 
+import com.example.portal.event.StaffChangedEvent;
 import com.example.portal.model.Staff;
 import com.example.portal.repository.StaffMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,6 +16,7 @@ public class StaffService {
 
     private final StaffMapper staffMapper;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
 
     public Staff findById(Integer staffId) {
         return staffMapper.findById(staffId);
@@ -38,13 +41,18 @@ public class StaffService {
 
         // Insert the staff
         staffMapper.insert(staff);
+        eventPublisher.publishEvent(new StaffChangedEvent(staff.getStaffId()));
 
         return staff;
     }
 
     @Transactional
     public boolean updateStaff(Staff staff) {
-        return staffMapper.update(staff) > 0;
+        boolean updated = staffMapper.update(staff) > 0;
+        if (updated) {
+            eventPublisher.publishEvent(new StaffChangedEvent(staff.getStaffId()));
+        }
+        return updated;
     }
 
     @Transactional
@@ -55,7 +63,11 @@ public class StaffService {
 
     @Transactional
     public boolean deleteStaff(Integer staffId) {
-        return staffMapper.delete(staffId) > 0;
+        boolean deleted = staffMapper.delete(staffId) > 0;
+        if (deleted) {
+            eventPublisher.publishEvent(new StaffChangedEvent(staffId));
+        }
+        return deleted;
     }
 
     public boolean checkPassword(Integer staffId, String rawPassword) {
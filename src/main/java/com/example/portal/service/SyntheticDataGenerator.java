@@ -0,0 +1,584 @@
+package com.example.portal.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Bulk-loads synthetic outlets, staff, customers, vehicles, time slots, appointments and
+ * notifications for scale testing, then exits. Runs with the datagen profile, before the
+ * in-memory indexes load, and appends to whatever the database already holds: ids continue
+ * after the current maximum of each table, existing services are used as they are, and
+ * existing time slots are reused.
+ * <p>
+ * The same seed, counts and anchor date produce the same rows. Appointments are spread over
+ * the days before and after the anchor date, weighted by weekday, hour and outlet, with at most
+ * one appointment per staff member at a time; their status follows from when they are relative
+ * to the anchor. Rows are written as multi-row INSERTs, committed one statement at a time.
+ */
+@Component
+@Profile("datagen")
+public class SyntheticDataGenerator implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    private static final int UNASSIGNED_STAFF_ID = 9999;
+    private static final int FIRST_HOUR = 9;
+    private static final int HOURS_PER_DAY = 8; // hourly slots from 9:00 to 16:00, as TimeSlotService books them
+    private static final double[] HOUR_WEIGHTS = {0.8, 1.2, 1.1, 0.7, 0.9, 1.0, 0.9, 0.6};
+    private static final int MAX_PARAMETERS = 65535; // placeholders MySQL accepts in one statement
+    private static final long PROGRESS_ROWS = 1_000_000;
+
+    private static final String[] FIRST_NAMES = {"James", "Mary", "Wei", "Priya", "Carlos", "Aisha", "John", "Mei",
+            "Ahmed", "Sofia", "David", "Nur", "Michael", "Elena", "Raj", "Grace", "Daniel", "Hana", "Luis", "Sarah"};
+    private static final String[] LAST_NAMES = {"Smith", "Tan", "Garcia", "Kumar", "Lee", "Johnson", "Wong", "Rahman",
+            "Brown", "Lim", "Martinez", "Ng", "Davis", "Patel", "Chen", "Wilson", "Ali", "Lopez", "Taylor", "Ong"};
+    private static final String[] STREETS = {"Main St", "Oak Ave", "Maple Dr", "Cedar Ln", "Park Rd", "Lake View",
+            "Hill St", "River Rd", "Sunset Blvd", "Station Rd"};
+    private static final String[][] CITIES = {{"New York", "NY", "100"}, {"Los Angeles", "CA", "900"},
+            {"Chicago", "IL", "606"}, {"Houston", "TX", "770"}, {"Phoenix", "AZ", "850"}, {"Seattle", "WA", "981"},
+            {"Denver", "CO", "802"}, {"Boston", "MA", "021"}, {"Atlanta", "GA", "303"}, {"Miami", "FL", "331"}};
+    private static final String[][] VEHICLES = {{"Toyota", "Corolla", "Sedan"}, {"Toyota", "RAV4", "SUV"},
+            {"Honda", "Civic", "Sedan"}, {"Honda", "CR-V", "SUV"}, {"Ford", "F-150", "Pickup"},
+            {"Ford", "Transit", "Van"}, {"Mazda", "3", "Hatchback"}, {"BMW", "3 Series", "Sedan"},
+            {"Tesla", "Model Y", "SUV"}, {"Volkswagen", "Golf", "Hatchback"}, {"Hyundai", "Tucson", "SUV"},
+            {"Chevrolet", "Silverado", "Pickup"}};
+    private static final String[] STAFF_ROLES = {"Technician", "Technician", "Technician", "Senior Technician",
+            "Service Advisor"};
+
+    private final DataSource dataSource;
+    private final PasswordEncoder passwordEncoder;
+    private final ApplicationContext context;
+
+    private final long seed;
+    private final int outlets;
+    private final int staffPerOutlet;
+    private final int customers;
+    private final int vehicles;
+    private final int historyDays;
+    private final int futureDays;
+    private final long appointments;
+    private final long notifications;
+    private final int batchRows;
+    private final String anchorDate;
+    private final boolean relaxChecks;
+
+    public SyntheticDataGenerator(DataSource dataSource, PasswordEncoder passwordEncoder, ApplicationContext context,
+                                  @Value("${app.datagen.seed:42}") long seed,
+                                  @Value("${app.datagen.outlets:40}") int outlets,
+                                  @Value("${app.datagen.staff-per-outlet:15}") int staffPerOutlet,
+                                  @Value("${app.datagen.customers:200000}") int customers,
+                                  @Value("${app.datagen.vehicles:260000}") int vehicles,
+                                  @Value("${app.datagen.history-days:730}") int historyDays,
+                                  @Value("${app.datagen.future-days:30}") int futureDays,
+                                  @Value("${app.datagen.appointments:2000000}") long appointments,
+                                  @Value("${app.datagen.notifications:1000000}") long notifications,
+                                  @Value("${app.datagen.batch-rows:1000}") int batchRows,
+                                  @Value("${app.datagen.anchor-date:}") String anchorDate,
+                                  @Value("${app.datagen.relax-checks:true}") boolean relaxChecks) {
+        requireAtLeast("outlets", outlets, 1);
+        requireAtLeast("staff-per-outlet", staffPerOutlet, 1);
+        requireAtLeast("customers", customers, 1);
+        requireAtLeast("vehicles", vehicles, 0);
+        requireAtLeast("history-days", historyDays, 0);
+        requireAtLeast("future-days", futureDays, 0);
+        requireAtLeast("history-days plus future-days", (long) historyDays + futureDays, 1);
+        requireAtLeast("appointments", appointments, 0);
+        requireAtLeast("notifications", notifications, 0);
+        requireAtLeast("batch-rows", batchRows, 1);
+        if (!anchorDate.isBlank()) {
+            try {
+                LocalDate.parse(anchorDate);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("app.datagen.anchor-date must be a yyyy-MM-dd date or empty, was " + anchorDate);
+            }
+        }
+        this.dataSource = dataSource;
+        this.passwordEncoder = passwordEncoder;
+        this.context = context;
+        this.seed = seed;
+        this.outlets = outlets;
+        this.staffPerOutlet = staffPerOutlet;
+        this.customers = customers;
+        this.vehicles = Math.max(vehicles, customers); // every customer has a vehicle
+        this.historyDays = historyDays;
+        this.futureDays = futureDays;
+        this.appointments = appointments;
+        this.notifications = notifications;
+        this.batchRows = batchRows;
+        this.anchorDate = anchorDate;
+        this.relaxChecks = relaxChecks;
+    }
+
+    /**
+     * Fail on startup, before anything is written, for counts the generator cannot work with
+     */
+    private static void requireAtLeast(String property, long value, long minimum) {
+        if (value < minimum) {
+            throw new IllegalArgumentException("app.datagen." + property + " must be at least " + minimum + ", was " + value);
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        generate();
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+
+    /**
+     * Write all synthetic rows, committing one multi-row statement at a time
+     */
+    public void generate() throws SQLException {
+        LocalDate anchor = anchorDate.isBlank() ? LocalDate.now() : LocalDate.parse(anchorDate);
+        long started = System.nanoTime();
+        logger.info("Generating synthetic data with seed {} around {}: {} outlets, {} staff, {} customers, " +
+                        "{} vehicles, {} appointments, {} notifications",
+                seed, anchor, outlets, outlets * staffPerOutlet, customers, vehicles, appointments, notifications);
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            String product = connection.getMetaData().getDatabaseProductName();
+            if (relaxChecks && "MySQL".equalsIgnoreCase(product)) {
+                // Every generated key references a row that exists or is written before it is used
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SET SESSION foreign_key_checks = 0");
+                    statement.execute("SET SESSION unique_checks = 0");
+                }
+            }
+
+            List<int[]> services = loadServices(connection);
+            Map<Integer, String> serviceNames = loadServiceNames(connection);
+            if (services.isEmpty()) {
+                throw new IllegalStateException("No services to book; load the schema seed data first");
+            }
+
+            int outletBase = maxId(connection, "SERVICEOUTLET", "outlet_id");
+            int staffBase = maxId(connection, "STAFF", "staff_id");
+            int customerBase = maxId(connection, "CUSTOMER", "cust_id");
+            int vehicleBase = maxId(connection, "VEHICLE", "veh_id");
+            long appointmentBase = maxId(connection, "SERVICEAPPOINTMENT", "appointment_id");
+            String password = passwordEncoder.encode("password");
+
+            writeOutlets(connection, outletBase);
+            writeStaff(connection, staffBase, outletBase, password);
+            writeCustomers(connection, customerBase, password);
+            writeVehicles(connection, vehicleBase, customerBase, anchor.getYear());
+            int[] slotIds = writeTimeSlots(connection, anchor);
+            writeAppointments(connection, anchor, slotIds, services, serviceNames,
+                    outletBase, staffBase, customerBase, vehicleBase, appointmentBase);
+        }
+
+        logger.info("Synthetic data generated in {} s", (System.nanoTime() - started) / 1_000_000_000);
+    }
+
+    private void writeOutlets(Connection connection, int outletBase) throws SQLException {
+        Random random = new Random(seed);
+        try (RowWriter writer = new RowWriter(connection, "SERVICEOUTLET", "outlet_id", "outlet_name",
+                "outlet_address", "outlet_city", "outlet_state", "outlet_postal_code")) {
+            for (int i = 1; i <= outlets; i++) {
+                String[] city = CITIES[random.nextInt(CITIES.length)];
+                writer.row(outletBase + i, city[0] + " Service Center " + i, address(random), city[0], city[1],
+                        city[2] + String.format("%02d", random.nextInt(100)));
+            }
+        }
+    }
+
+    private void writeStaff(Connection connection, int staffBase, int outletBase, String password) throws SQLException {
+        Random random = new Random(seed + 1);
+        try (RowWriter writer = new RowWriter(connection, "STAFF", "staff_id", "staff_name", "staff_role",
+                "staff_phone", "staff_password", "outlet_id")) {
+            for (int i = 0; i < outlets * staffPerOutlet; i++) {
+                // The first staff member of each outlet runs it
+                String role = i % staffPerOutlet == 0 ? "Manager" : STAFF_ROLES[random.nextInt(STAFF_ROLES.length)];
+                writer.row(staffBase + 1 + i, personName(random) + " " + (staffBase + 1 + i), role, phone(random),
+                        password, outletBase + 1 + i / staffPerOutlet);
+            }
+        }
+    }
+
+    private void writeCustomers(Connection connection, int customerBase, String password) throws SQLException {
+        Random random = new Random(seed + 2);
+        try (RowWriter writer = new RowWriter(connection, "CUSTOMER", "cust_id", "cust_name", "cust_phone",
+                "cust_email", "cust_address", "cust_password")) {
+            for (int i = 1; i <= customers; i++) {
+                int id = customerBase + i;
+                String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+                String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+                String[] city = CITIES[random.nextInt(CITIES.length)];
+                // The id keeps names and emails unique
+                writer.row(id, first + " " + last + " " + id, phone(random),
+                        first.toLowerCase() + "." + last.toLowerCase() + "." + id + "@example.com",
+                        address(random) + ", " + city[0] + ", " + city[1], password);
+            }
+        }
+    }
+
+    /**
+     * Vehicle i belongs to customer i modulo the customer count, so an appointment can pick a
+     * vehicle and know its owner without a lookup
+     */
+    private void writeVehicles(Connection connection, int vehicleBase, int customerBase, int year) throws SQLException {
+        Random random = new Random(seed + 3);
+        try (RowWriter writer = new RowWriter(connection, "VEHICLE", "veh_id", "veh_plateno", "veh_model",
+                "veh_brand", "veh_type", "veh_year", "cust_id")) {
+            for (int i = 0; i < vehicles; i++) {
+                String[] vehicle = VEHICLES[random.nextInt(VEHICLES.length)];
+                writer.row(vehicleBase + 1 + i, "SYN" + Integer.toString(vehicleBase + 1 + i, 36).toUpperCase(),
+                        vehicle[1], vehicle[0], vehicle[2], year - random.nextInt(15), customerBase + 1 + i % customers);
+            }
+        }
+    }
+
+    /**
+     * Insert the hourly slots of every day in the generated range that do not exist yet
+     * @return slot ids, indexed by day from the start of the range times HOURS_PER_DAY plus hour
+     */
+    private int[] writeTimeSlots(Connection connection, LocalDate anchor) throws SQLException {
+        LocalDate first = anchor.minusDays(historyDays);
+        int days = historyDays + futureDays + 1;
+        Map<LocalDateTime, Integer> existing = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(
+                     "SELECT time_id, time_year, time_month, time_day, time_clocktime FROM TIME")) {
+            while (rows.next()) {
+                LocalDateTime slot = LocalDate.of(rows.getInt(2), rows.getInt(3), rows.getInt(4))
+                        .atTime(rows.getObject(5, LocalTime.class));
+                existing.putIfAbsent(slot, rows.getInt(1));
+            }
+        }
+
+        int[] slotIds = new int[days * HOURS_PER_DAY];
+        int nextId = maxId(connection, "TIME", "time_id");
+        try (RowWriter writer = new RowWriter(connection, "TIME", "time_id", "time_year", "time_quarter",
+                "time_month", "time_day", "time_clocktime")) {
+            for (int day = 0; day < days; day++) {
+                LocalDate date = first.plusDays(day);
+                for (int hour = 0; hour < HOURS_PER_DAY; hour++) {
+                    LocalTime time = LocalTime.of(FIRST_HOUR + hour, 0);
+                    Integer id = existing.get(date.atTime(time));
+                    if (id == null) {
+                        id = ++nextId;
+                        writer.row(id, date.getYear(), (date.getMonthValue() + 2) / 3, date.getMonthValue(),
+                                date.getDayOfMonth(), time);
+                    }
+                    slotIds[day * HOURS_PER_DAY + hour] = id;
+                }
+            }
+        }
+        return slotIds;
+    }
+
+    /**
+     * Walk the slots in time order and fill each outlet's share of the appointments, carrying what
+     * does not fit its free staff over to the next slot. Notifications are written alongside, spread
+     * evenly over the appointments.
+     */
+    private void writeAppointments(Connection connection, LocalDate anchor, int[] slotIds, List<int[]> services,
+                                   Map<Integer, String> serviceNames, int outletBase, int staffBase,
+                                   int customerBase, int vehicleBase, long appointmentBase) throws SQLException {
+        Random random = new Random(seed + 4);
+        LocalDate first = anchor.minusDays(historyDays);
+        LocalDateTime now = anchor.atTime(12, 0);
+        int days = slotIds.length / HOURS_PER_DAY;
+
+        double[] outletWeights = new double[outlets];
+        for (int outlet = 0; outlet < outlets; outlet++) {
+            outletWeights[outlet] = 0.6 + 0.8 * random.nextDouble();
+        }
+        double totalWeight = 0;
+        for (int day = 0; day < days; day++) {
+            for (int hour = 0; hour < HOURS_PER_DAY; hour++) {
+                for (int outlet = 0; outlet < outlets; outlet++) {
+                    totalWeight += cellWeight(first.plusDays(day), day, hour, outletWeights[outlet]);
+                }
+            }
+        }
+        double slotsPerAppointment = services.stream().mapToDouble(service -> (service[2] + 59) / 60).average().orElse(1);
+        long staffSlots = (long) slotIds.length * outlets * staffPerOutlet;
+        if (appointments * slotsPerAppointment > staffSlots / 2.0) {
+            logger.warn("{} appointments of {} slots on average fill more than half of the {} staff slots; the " +
+                    "busiest slots will be full and the total may fall short", appointments, slotsPerAppointment, staffSlots);
+        }
+
+        int[] busyUntil = new int[outlets * staffPerOutlet];
+        int[] free = new int[staffPerOutlet];
+        double target = 0;
+        long written = 0;
+        long notified = 0;
+        try (RowWriter appointmentWriter = new RowWriter(connection, "SERVICEAPPOINTMENT", "appointment_id",
+                "cust_id", "service_id", "outlet_id", "time_id", "veh_id", "staff_id", "appointment_cost",
+                "appointment_duration", "appointment_status", "estimated_finish_time", "actual_start_time",
+                "actual_finish_time", "created_at");
+             RowWriter notificationWriter = new RowWriter(connection, "NOTIFICATION", "user_id", "user_type",
+                     "title", "message", "type", "is_read", "created_at", "link")) {
+            for (int day = 0; day < days; day++) {
+                LocalDate date = first.plusDays(day);
+                for (int hour = 0; hour < HOURS_PER_DAY; hour++) {
+                    int slot = day * HOURS_PER_DAY + hour;
+                    LocalDateTime start = date.atTime(FIRST_HOUR + hour, 0);
+                    for (int outlet = 0; outlet < outlets; outlet++) {
+                        target += appointments * cellWeight(date, day, hour, outletWeights[outlet]) / totalWeight;
+                        int freeCount = 0;
+                        for (int s = 0; s < staffPerOutlet; s++) {
+                            if (busyUntil[outlet * staffPerOutlet + s] <= slot) {
+                                free[freeCount++] = outlet * staffPerOutlet + s;
+                            }
+                        }
+                        long count = Math.min((long) target - written, freeCount);
+
+                        for (int n = 0; n < count; n++) {
+                            int[] service = services.get(random.nextInt(services.size()));
+                            int duration = service[2];
+                            String status = status(random, start, duration, now);
+                            int staffId = UNASSIGNED_STAFF_ID;
+                            if (!"PENDING".equals(status)) {
+                                int pick = n + random.nextInt(freeCount - n);
+                                int staff = free[pick];
+                                free[pick] = free[n];
+                                free[n] = staff;
+                                // Long services keep the staff member busy into the next slots of the day
+                                busyUntil[staff] = Math.min(slot + (duration + 59) / 60, (day + 1) * HOURS_PER_DAY);
+                                staffId = staffBase + 1 + staff;
+                            }
+
+                            int vehicle = random.nextInt(vehicles);
+                            int customerId = customerBase + 1 + vehicle % customers;
+                            long appointmentId = appointmentBase + 1 + written;
+                            BigDecimal cost = BigDecimal.valueOf(Math.round(service[1] * (0.9 + 0.3 * random.nextDouble())), 2);
+                            LocalDateTime createdAt = start.minusMinutes(60 + random.nextInt(30 * 24 * 60));
+                            if (createdAt.isAfter(now)) {
+                                createdAt = now.minusMinutes(random.nextInt(7 * 24 * 60));
+                            }
+                            LocalDateTime actualStart = null;
+                            LocalDateTime actualFinish = null;
+                            if ("COMPLETED".equals(status) || "IN_PROGRESS".equals(status)) {
+                                actualStart = start.plusMinutes(random.nextInt(25) - 5);
+                            }
+                            if ("COMPLETED".equals(status)) {
+                                double factor = Math.exp(0.25 * random.nextGaussian());
+                                actualFinish = actualStart.plusMinutes(Math.max(10, Math.round(duration * factor)));
+                            }
+                            appointmentWriter.row(appointmentId, customerId, service[0], outletBase + 1 + outlet,
+                                    slotIds[slot], vehicleBase + 1 + vehicle, staffId, cost, duration, status,
+                                    start.toLocalTime().plusMinutes(duration), actualStart, actualFinish, createdAt);
+                            written++;
+
+                            long due = appointments == 0 ? 0 : notifications * written / appointments;
+                            for (; notified < due; notified++) {
+                                writeNotification(notificationWriter, random, customerId, appointmentId,
+                                        serviceNames.get(service[0]), status, start, createdAt, actualFinish, now);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        logger.info("Wrote {} appointments and {} notifications", written, notified);
+    }
+
+    private void writeNotification(RowWriter writer, Random random, int customerId, long appointmentId,
+                                   String serviceName, String status, LocalDateTime start, LocalDateTime createdAt,
+                                   LocalDateTime finishedAt, LocalDateTime now) throws SQLException {
+        String title;
+        String message;
+        LocalDateTime sentAt = createdAt;
+        String when = start.toLocalDate() + " at " + start.toLocalTime();
+        if ("COMPLETED".equals(status) || "CANCELLED".equals(status) && start.isBefore(now)) {
+            title = "Appointment Status Updated";
+            message = "Your appointment for " + serviceName + " has been updated to " + status + ".";
+            sentAt = finishedAt != null ? finishedAt : start.minusHours(random.nextInt(48));
+        } else if ("SCHEDULED".equals(status) && random.nextBoolean()) {
+            title = "Appointment Reminder";
+            message = "Reminder: Your appointment for " + serviceName + " is scheduled for " + when + ".";
+            sentAt = start.minusDays(1).isBefore(createdAt) ? createdAt : start.minusDays(1);
+        } else {
+            title = "New Appointment Booked";
+            message = "Your appointment for " + serviceName + " on " + when + " has been booked successfully.";
+        }
+        if (sentAt.isAfter(now)) {
+            sentAt = createdAt;
+        }
+        // Older notifications have mostly been read
+        boolean read = random.nextDouble() < (sentAt.isBefore(now.minusDays(7)) ? 0.9 : 0.4);
+        writer.row(customerId, "customer", title, message, "appointment", read, sentAt,
+                "/customer/appointments/" + appointmentId);
+    }
+
+    /**
+     * Relative number of appointments in one outlet's slot: fewer at weekends and at lunch, growing
+     * over the history, and thinning out with distance into the future as bookings still come in
+     */
+    private double cellWeight(LocalDate date, int day, int hour, double outletWeight) {
+        DayOfWeek dayOfWeek = date.getDayOfWeek();
+        double weight = dayOfWeek == DayOfWeek.SUNDAY ? 0.3 : dayOfWeek == DayOfWeek.SATURDAY ? 0.7 : 1.0;
+        if (day <= historyDays) {
+            weight *= 0.7 + 0.3 * day / Math.max(1, historyDays);
+        } else {
+            weight *= Math.max(0.1, 1.0 - (double) (day - historyDays) / (futureDays + 1));
+        }
+        return weight * HOUR_WEIGHTS[hour] * outletWeight;
+    }
+
+    private static String status(Random random, LocalDateTime start, int duration, LocalDateTime now) {
+        double r = random.nextDouble();
+        if (!start.plusMinutes(duration).isAfter(now)) {
+            return r < 0.85 ? "COMPLETED" : "CANCELLED";
+        }
+        if (!start.isAfter(now)) {
+            return "IN_PROGRESS";
+        }
+        return r < 0.3 ? "PENDING" : r < 0.92 ? "SCHEDULED" : "CANCELLED";
+    }
+
+    /**
+     * Services as {id, price in cents, duration in minutes}
+     */
+    private static List<int[]> loadServices(Connection connection) throws SQLException {
+        List<int[]> services = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(
+                     "SELECT service_id, service_price, service_duration FROM SERVICE ORDER BY service_id")) {
+            while (rows.next()) {
+                services.add(new int[]{rows.getInt(1), (int) Math.round(rows.getDouble(2) * 100),
+                        Math.max(30, rows.getInt(3))});
+            }
+        }
+        return services;
+    }
+
+    private static Map<Integer, String> loadServiceNames(Connection connection) throws SQLException {
+        Map<Integer, String> names = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT service_id, service_type FROM SERVICE")) {
+            while (rows.next()) {
+                names.put(rows.getInt(1), rows.getString(2));
+            }
+        }
+        return names;
+    }
+
+    private static int maxId(Connection connection, String table, String column) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT COALESCE(MAX(" + column + "), 0) FROM " + table)) {
+            rows.next();
+            return rows.getInt(1);
+        }
+    }
+
+    private static String personName(Random random) {
+        return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+    }
+
+    private static String phone(Random random) {
+        return "555" + String.format("%07d", random.nextInt(10_000_000));
+    }
+
+    private static String address(Random random) {
+        return (1 + random.nextInt(9999)) + " " + STREETS[random.nextInt(STREETS.length)];
+    }
+
+    /**
+     * Buffers rows of one table and writes them as INSERTs of up to batch-rows rows each,
+     * committing after every statement
+     */
+    private final class RowWriter implements AutoCloseable {
+
+        private final Connection connection;
+        private final String table;
+        private final String[] columns;
+        private final int rowsPerStatement;
+        private final Object[] values;
+        private final long started = System.nanoTime();
+        private PreparedStatement fullStatement;
+        private int buffered;
+        private long rows;
+
+        RowWriter(Connection connection, String table, String... columns) {
+            this.connection = connection;
+            this.table = table;
+            this.columns = columns;
+            this.rowsPerStatement = Math.max(1, Math.min(batchRows, MAX_PARAMETERS / columns.length));
+            this.values = new Object[rowsPerStatement * columns.length];
+        }
+
+        void row(Object... row) throws SQLException {
+            System.arraycopy(row, 0, values, buffered * columns.length, columns.length);
+            if (++buffered == rowsPerStatement) {
+                if (fullStatement == null) {
+                    fullStatement = connection.prepareStatement(insertSql(rowsPerStatement));
+                }
+                flush(fullStatement);
+            }
+        }
+
+        private void flush(PreparedStatement statement) throws SQLException {
+            for (int i = 0; i < buffered * columns.length; i++) {
+                statement.setObject(i + 1, values[i]);
+            }
+            statement.executeUpdate();
+            connection.commit();
+            long before = rows;
+            rows += buffered;
+            buffered = 0;
+            if (rows / PROGRESS_ROWS > before / PROGRESS_ROWS) {
+                logProgress();
+            }
+        }
+
+        private String insertSql(int rowCount) {
+            StringBuilder sql = new StringBuilder("INSERT INTO ").append(table)
+                    .append(" (").append(String.join(", ", columns)).append(") VALUES ");
+            String placeholders = "(" + "?, ".repeat(columns.length - 1) + "?)";
+            for (int i = 0; i < rowCount; i++) {
+                sql.append(i == 0 ? "" : ", ").append(placeholders);
+            }
+            return sql.toString();
+        }
+
+        private void logProgress() {
+            double seconds = Math.max(1e-9, (System.nanoTime() - started) / 1e9);
+            logger.info("{}: {} rows ({} rows/s)", table, rows, Math.round(rows / seconds));
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                if (buffered > 0) {
+                    try (PreparedStatement statement = connection.prepareStatement(insertSql(buffered))) {
+                        flush(statement);
+                    }
+                }
+                logProgress();
+            } finally {
+                if (fullStatement != null) {
+                    fullStatement.close();
+                }
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.portal.service;
 
+import com.example.portal.event.FlightRecorderEvents;
 import com.example.portal.model.ServiceAppointment;
 import com.example.portal.model.Staff;
 import com.example.portal.model.TimeSlot;
@@ -10,6 +11,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -21,6 +23,10 @@ public class TimeSlotService {
     private final TimeSlotMapper timeSlotMapper;
     private final StaffMapper staffMapper;
     private final ServiceAppointmentMapper appointmentMapper;
+    private final SlotHoldStore slotHoldStore;
+    private final StaffScheduleIndex staffScheduleIndex;
+    private final AppointmentDayBook dayBook;
+    private final ServiceDurationStats durationStats;
 
     private static final LocalTime BUSINESS_HOURS_START = LocalTime.of(9, 0); // 9:00 AM
     private static final LocalTime BUSINESS_HOURS_END = LocalTime.of(17, 0);  // 5:00 PM
@@ -30,95 +36,118 @@ public class TimeSlotService {
      * Get available time slots for a specific date and outlet
      */
     public List<TimeSlot> getAvailableTimeSlots(Short year, Short month, Short day, Integer outletId) {
-        // Get all staff members for the outlet
-        List<Staff> staffMembers = staffMapper.findByOutletId(outletId);
+        FlightRecorderEvents.Availability event = new FlightRecorderEvents.Availability();
+        event.begin();
+        LocalDate date = LocalDate.of(year, month, day);
 
-        if (staffMembers.isEmpty()) {
-            return Collections.emptyList();
+        // Get all staff members for the outlet
+        List<Staff> staffMembers = findOutletStaff(outletId, date);
+        List<TimeSlot> slots = staffMembers.isEmpty()
+                ? Collections.emptyList()
+                : computeAvailableTimeSlots(year, month, day, outletId, date, staffMembers);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.outletId = outletId;
+            event.date = date.toString();
+            event.staff = staffMembers.size();
+            event.slots = slots.size();
+            event.commit();
         }
+        return slots;
+    }
+
+    private List<TimeSlot> computeAvailableTimeSlots(Short year, Short month, Short day, Integer outletId,
+                                                     LocalDate date, List<Staff> staffMembers) {
 
         // Get all appointments for the outlet on the specified date
-        List<ServiceAppointment> appointments = appointmentMapper.findByOutletIdAndDate(outletId, year, month, day);
+        List<ServiceAppointment> appointments = findOutletAppointments(outletId, date);
+
+        // Index confirmed staff work for the day from the appointments we already have
+        List<Integer> staffIds = collectStaffIds(staffMembers);
+        staffScheduleIndex.prime(date, staffIds, appointments);
 
-        // Calculate staff availability
-        Map<Integer, List<TimeRange>> staffAvailability = calculateStaffAvailability(staffMembers, appointments, year, month, day);
+        // Capacity already promised to customers but not yet given to staff
+        List<TimeRange> pendingBookings = collectPendingBookings(appointments);
+        Map<LocalTime, Integer> activeHolds = slotHoldStore.countActiveHolds(outletId, date);
 
         // Generate available time slots
-        return generateAvailableTimeSlots(year, month, day, staffAvailability);
+        return generateAvailableTimeSlots(year, month, day, staffIds, pendingBookings, activeHolds);
     }
 
     /**
-     * Calculate availability for each staff member
+     * Number of bookings that can still be taken for a slot, not counting slot holds
      */
-    private Map<Integer, List<TimeRange>> calculateStaffAvailability(
-            List<Staff> staffMembers,
-            List<ServiceAppointment> appointments,
-            Short year, Short month, Short day) {
+    public int getSlotCapacity(Short year, Short month, Short day, Integer outletId, LocalTime time) {
+        LocalDate date = LocalDate.of(year, month, day);
+        List<Staff> staffMembers = findOutletStaff(outletId, date);
+        if (staffMembers.isEmpty()) {
+            return 0;
+        }
 
-        Map<Integer, List<TimeRange>> staffAvailability = new HashMap<>();
+        List<ServiceAppointment> appointments = findOutletAppointments(outletId, date);
+        List<Integer> staffIds = collectStaffIds(staffMembers);
+        staffScheduleIndex.prime(date, staffIds, appointments);
 
-        // Initialize availability for each staff member (full day)
-        for (Staff staff : staffMembers) {
-            if (staff.getStaffId() == 9999) continue; // Skip the unassigned staff
+        return countFreeStaff(date, time, staffIds) - countOverlapping(time, collectPendingBookings(appointments));
+    }
+
+    /**
+     * Staff of an outlet, from the day book when it covers the date
+     */
+    private List<Staff> findOutletStaff(Integer outletId, LocalDate date) {
+        if (dayBook.covers(date)) {
+            return dayBook.getOutletStaff(outletId);
+        }
+        return staffMapper.findByOutletId(outletId);
+    }
 
-            List<TimeRange> availability = new ArrayList<>();
-            availability.add(new TimeRange(BUSINESS_HOURS_START, BUSINESS_HOURS_END));
-            staffAvailability.put(staff.getStaffId(), availability);
+    /**
+     * Appointments of an outlet on a date, from the day book when it covers the date
+     */
+    private List<ServiceAppointment> findOutletAppointments(Integer outletId, LocalDate date) {
+        if (dayBook.covers(date)) {
+            return dayBook.getAppointments(outletId, date);
         }
+        return appointmentMapper.findByOutletIdAndDate(outletId,
+                (short) date.getYear(), (short) date.getMonthValue(), (short) date.getDayOfMonth());
+    }
 
-        // Remove time ranges that are already booked
+    /**
+     * Time ranges of pending (not yet assigned) bookings
+     */
+    private List<TimeRange> collectPendingBookings(List<ServiceAppointment> appointments) {
+        List<TimeRange> pending = new ArrayList<>();
         for (ServiceAppointment appointment : appointments) {
-            // Skip appointments that are cancelled or pending
-            if ("CANCELLED".equals(appointment.getAppointmentStatus()) ||
-                "PENDING".equals(appointment.getAppointmentStatus())) {
-                continue;
-            }
-
-            // Skip appointments for unassigned staff
-            if (appointment.getStaffId() == 9999) {
-                continue;
-            }
-
-            Integer staffId = appointment.getStaffId();
-            List<TimeRange> availability = staffAvailability.get(staffId);
-
-            if (availability != null && appointment.getTimeSlot() != null) {
+            if ("PENDING".equals(appointment.getAppointmentStatus()) && appointment.getTimeSlot() != null) {
                 LocalTime startTime = appointment.getTimeSlot().getTimeClocktime();
-
-                // Calculate end time based on duration or estimated finish time
-                LocalTime endTime;
-                if (appointment.getEstimatedFinishTime() != null) {
-                    endTime = appointment.getEstimatedFinishTime();
-                } else {
-                    endTime = startTime.plusMinutes(appointment.getAppointmentDuration());
-                }
-
-                // Update availability by removing the booked time range
-                List<TimeRange> updatedAvailability = new ArrayList<>();
-
-                for (TimeRange range : availability) {
-                    // If appointment is completely outside this range, keep the range unchanged
-                    if (endTime.isBefore(range.getStart()) || startTime.isAfter(range.getEnd())) {
-                        updatedAvailability.add(range);
-                        continue;
-                    }
-
-                    // If appointment starts after range start, keep the beginning part
-                    if (startTime.isAfter(range.getStart())) {
-                        updatedAvailability.add(new TimeRange(range.getStart(), startTime));
-                    }
-
-                    // If appointment ends before range end, keep the ending part
-                    if (endTime.isBefore(range.getEnd())) {
-                        updatedAvailability.add(new TimeRange(endTime, range.getEnd()));
-                    }
-                }
-
-                staffAvailability.put(staffId, updatedAvailability);
+                pending.add(new TimeRange(startTime, startTime.plusMinutes(plannedDuration(appointment))));
             }
         }
+        return pending;
+    }
 
-        return staffAvailability;
+    /**
+     * Minutes a booking is expected to take: as booked, else as the service usually takes, else one slot
+     */
+    private int plannedDuration(ServiceAppointment appointment) {
+        if (appointment.getAppointmentDuration() != null && appointment.getAppointmentDuration() > 0) {
+            return appointment.getAppointmentDuration();
+        }
+        Integer measured = durationStats.getPlanningDuration(appointment.getServiceId());
+        return measured != null ? measured : SLOT_DURATION_MINUTES;
+    }
+
+    /**
+     * IDs of the real staff members (without the unassigned placeholder)
+     */
+    private List<Integer> collectStaffIds(List<Staff> staffMembers) {
+        List<Integer> staffIds = new ArrayList<>();
+        for (Staff staff : staffMembers) {
+            if (staff.getStaffId() == 9999) continue; // Skip the unassigned staff
+            staffIds.add(staff.getStaffId());
+        }
+        return staffIds;
     }
 
     /**
@@ -126,7 +155,9 @@ public class TimeSlotService {
      */
     private List<TimeSlot> generateAvailableTimeSlots(
             Short year, Short month, Short day,
-            Map<Integer, List<TimeRange>> staffAvailability) {
+            List<Integer> staffIds,
+            List<TimeRange> pendingBookings,
+            Map<LocalTime, Integer> activeHolds) {
 
         // Generate all possible hourly time slots during business hours
         Set<LocalTime> allPossibleTimes = new HashSet<>();
@@ -138,42 +169,36 @@ public class TimeSlotService {
             current = current.plusHours(1);
         }
 
-        // For each possible time, check if at least one staff is available
+        // For each possible time, check if some capacity is left
+        LocalDate date = LocalDate.of(year, month, day);
         Set<LocalTime> availableTimes = new HashSet<>();
         for (LocalTime time : allPossibleTimes) {
-            // A time slot is available if at least one staff member is available at that time
-            boolean isTimeAvailable = false;
-
-            // Check each staff's availability
-            for (List<TimeRange> staffRanges : staffAvailability.values()) {
-                // For each available time range of this staff
-                for (TimeRange range : staffRanges) {
-                    // Check if the time slot fits within this range
-                    LocalTime slotEnd = time.plusMinutes(SLOT_DURATION_MINUTES);
-                    if (!time.isBefore(range.getStart()) && !slotEnd.isAfter(range.getEnd())) {
-                        isTimeAvailable = true;
-                        break;
-                    }
-                }
-                if (isTimeAvailable) {
-                    break; // No need to check other staff if one is available
-                }
-            }
+            // A time slot is available if more staff members are free than pending bookings and holds can claim
+            int capacity = countFreeStaff(date, time, staffIds)
+                    - countOverlapping(time, pendingBookings)
+                    - activeHolds.getOrDefault(time, 0);
 
-            if (isTimeAvailable) {
+            if (capacity > 0) {
                 availableTimes.add(time);
             }
         }
 
         // Convert to TimeSlot objects
         List<TimeSlot> timeSlots = new ArrayList<>();
+        boolean fromDayBook = dayBook.covers(date);
         for (LocalTime time : availableTimes) {
             // Check if this time slot already exists in the database
-            List<TimeSlot> existingSlots = timeSlotMapper.findByDateAndTime(year, month, day, time);
+            TimeSlot existingSlot;
+            if (fromDayBook) {
+                existingSlot = dayBook.findTimeSlot(date, time);
+            } else {
+                List<TimeSlot> existingSlots = timeSlotMapper.findByDateAndTime(year, month, day, time);
+                existingSlot = existingSlots.isEmpty() ? null : existingSlots.get(0);
+            }
 
-            if (!existingSlots.isEmpty()) {
+            if (existingSlot != null) {
                 // Use existing time slot
-                timeSlots.add(existingSlots.get(0));
+                timeSlots.add(existingSlot);
             } else {
                 // Create a new time slot
                 TimeSlot slot = new TimeSlot();
@@ -193,6 +218,28 @@ public class TimeSlotService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Count staff members with no confirmed work overlapping the slot starting at time
+     */
+    private int countFreeStaff(LocalDate date, LocalTime time, List<Integer> staffIds) {
+        int start = time.getHour() * 60 + time.getMinute();
+        return staffScheduleIndex.findFreeStaff(staffIds, date, start, start + SLOT_DURATION_MINUTES).size();
+    }
+
+    /**
+     * Count ranges overlapping the slot starting at time
+     */
+    private int countOverlapping(LocalTime time, List<TimeRange> ranges) {
+        LocalTime slotEnd = time.plusMinutes(SLOT_DURATION_MINUTES);
+        int count = 0;
+        for (TimeRange range : ranges) {
+            if (range.getStart().isBefore(slotEnd) && time.isBefore(range.getEnd())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     /**
      * Calculate the quarter based on the month
      */
@@ -225,6 +272,7 @@ public class TimeSlotService {
 
         // Insert into database
         timeSlotMapper.insert(slot);
+        dayBook.recordTimeSlot(slot);
 
         return slot;
     }
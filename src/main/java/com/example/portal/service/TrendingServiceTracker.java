@@ -0,0 +1,218 @@
+package com.example.portal.service;
+
+import com.example.portal.event.AppointmentChangedEvent;
+import com.example.portal.model.BookingRollup;
+import com.example.portal.model.ServiceAppointment;
+import com.example.portal.repository.ServiceAppointmentMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Recent booking counts per service and outlet, for "what is trending" queries that must not
+ * touch the database.
+ *
+ * Each (outlet, service) pair has a ring of hourly LongAdder buckets covering the last week.
+ * Bookings increment the current hour's bucket without locking; a bucket is reset the first
+ * time it is used for a new hour. Scores weight each hour by an exponential decay, so recent
+ * bookings count most. The rings are rebuilt from hourly booking counts in the database on start.
+ */
+@Service
+public class TrendingServiceTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrendingServiceTracker.class);
+
+    static final int HOURS = 168;
+    private static final long MILLIS_PER_HOUR = 3_600_000L;
+
+    private final ServiceAppointmentMapper appointmentMapper;
+    private final double[] decayByAge = new double[HOURS]; // weight of a booking made age hours ago
+
+    private volatile Map<Long, HourlyRing> rings = new ConcurrentHashMap<>();
+    // Bookings seen while the rings are rebuilt, replayed if the rebuild did not count them
+    private volatile Queue<ServiceAppointment> replayBuffer;
+    private final Object swapLock = new Object();
+
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "trending-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TrendingServiceTracker(ServiceAppointmentMapper appointmentMapper,
+                                  @Value("${app.reporting.trending.half-life-hours:12}") double halfLifeHours) {
+        this.appointmentMapper = appointmentMapper;
+        for (int age = 0; age < HOURS; age++) {
+            decayByAge[age] = Math.pow(0.5, age / halfLifeHours);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        loader.execute(this::rebuild);
+    }
+
+    private void rebuild() {
+        long started = System.currentTimeMillis();
+        replayBuffer = new ConcurrentLinkedQueue<>();
+        Map<Long, HourlyRing> rebuilt = new ConcurrentHashMap<>();
+        int maxAppointmentId;
+        try {
+            maxAppointmentId = appointmentMapper.findMaxAppointmentId();
+            long since = (currentHour() - HOURS + 1) * 3600;
+            for (BookingRollup rollup : appointmentMapper.countBookingsByHour(since, maxAppointmentId)) {
+                if (rollup.getOutletId() == null || rollup.getServiceId() == null || rollup.getEpochHour() == null) continue;
+                rebuilt.computeIfAbsent(key(rollup.getOutletId(), rollup.getServiceId()), k -> new HourlyRing())
+                        .add(rollup.getEpochHour(), rollup.getBookings());
+            }
+        } catch (Exception e) {
+            logger.error("Failed to rebuild trending service counters", e);
+            replayBuffer = null;
+            return;
+        }
+
+        synchronized (swapLock) {
+            Queue<ServiceAppointment> buffer = replayBuffer;
+            long hour = currentHour();
+            ServiceAppointment appointment;
+            while ((appointment = buffer.poll()) != null) {
+                if (appointment.getAppointmentId() > maxAppointmentId) {
+                    rebuilt.computeIfAbsent(key(appointment.getOutletId(), appointment.getServiceId()), k -> new HourlyRing())
+                            .add(hour, 1);
+                }
+            }
+            rings = rebuilt;
+            replayBuffer = null;
+        }
+        logger.info("Rebuilt trending counters for {} outlet services in {} ms", rebuilt.size(), System.currentTimeMillis() - started);
+    }
+
+    @EventListener
+    public void onAppointmentChanged(AppointmentChangedEvent event) {
+        ServiceAppointment appointment = event.getAppointment();
+        if (!event.isNew() || appointment.getAppointmentId() == null
+                || appointment.getOutletId() == null || appointment.getServiceId() == null) {
+            return;
+        }
+        Queue<ServiceAppointment> buffer = replayBuffer;
+        if (buffer != null) {
+            synchronized (swapLock) {
+                if (replayBuffer != null) {
+                    replayBuffer.add(appointment);
+                    return;
+                }
+            }
+        }
+        rings.computeIfAbsent(key(appointment.getOutletId(), appointment.getServiceId()), k -> new HourlyRing())
+                .add(currentHour(), 1);
+    }
+
+    /**
+     * Services ranked by their decayed booking score over the last hours
+     * @param outletId one outlet, or all outlets added up if null
+     * @param windowHours how far back bookings count, at most {@value #HOURS} / 2 so the
+     *                    previous window of the same length is still available for growth
+     * @return serviceId, score, bookings and previousBookings in the window, best score first
+     */
+    public List<Map<String, Object>> getTrending(Integer outletId, int windowHours, int limit) {
+        int window = Math.max(1, Math.min(windowHours, HOURS / 2));
+        long now = currentHour();
+        Map<Integer, double[]> byService = new HashMap<>(); // score, bookings, previous bookings
+
+        for (Map.Entry<Long, HourlyRing> entry : rings.entrySet()) {
+            int ringOutletId = (int) (entry.getKey() >>> 32);
+            if (outletId != null && ringOutletId != outletId) continue;
+            double[] totals = byService.computeIfAbsent((int) (long) entry.getKey(), id -> new double[3]);
+            entry.getValue().sum(now, window, decayByAge, totals);
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        byService.forEach((serviceId, totals) -> {
+            if (totals[1] == 0) return;
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("serviceId", serviceId);
+            item.put("score", Math.round(totals[0] * 100) / 100.0); // Round to 2 decimal places
+            item.put("bookings", (long) totals[1]);
+            item.put("previousBookings", (long) totals[2]);
+            result.add(item);
+        });
+        result.sort((a, b) -> Double.compare((Double) b.get("score"), (Double) a.get("score")));
+        int size = Math.max(1, limit);
+        return result.size() > size ? new ArrayList<>(result.subList(0, size)) : result;
+    }
+
+    private static long currentHour() {
+        return System.currentTimeMillis() / MILLIS_PER_HOUR;
+    }
+
+    private static long key(int outletId, int serviceId) {
+        return (long) outletId << 32 | (serviceId & 0xffffffffL);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    /**
+     * Hourly counters of the last {@value #HOURS} hours. Slot i holds the hour whose number
+     * modulo HOURS is i, tagged with that hour so stale slots are recognized and reset.
+     */
+    static class HourlyRing {
+        private final LongAdder[] counts = new LongAdder[HOURS];
+        private final AtomicLongArray hours = new AtomicLongArray(HOURS);
+
+        HourlyRing() {
+            for (int i = 0; i < HOURS; i++) {
+                counts[i] = new LongAdder();
+                hours.set(i, -1);
+            }
+        }
+
+        void add(long hour, long bookings) {
+            int slot = (int) (hour % HOURS);
+            long tagged = hours.get(slot);
+            if (tagged != hour) {
+                if (tagged > hour) {
+                    return; // Older than the ring reaches
+                }
+                // The first writer of a new hour clears the slot; increments racing with the reset
+                // at the hour boundary may be lost, which a trend can tolerate
+                if (hours.compareAndSet(slot, tagged, hour)) {
+                    counts[slot].reset();
+                }
+            }
+            counts[slot].add(bookings);
+        }
+
+        /**
+         * Add the decayed score and the plain counts of the current and the previous window to totals
+         */
+        void sum(long now, int window, double[] decayByAge, double[] totals) {
+            for (int age = 0; age < 2 * window; age++) {
+                long hour = now - age;
+                int slot = (int) (hour % HOURS);
+                if (hours.get(slot) != hour) continue;
+                long count = counts[slot].sum();
+                if (age < window) {
+                    totals[0] += count * decayByAge[age];
+                    totals[1] += count;
+                } else {
+                    totals[2] += count;
+                }
+            }
+        }
+    }
+}
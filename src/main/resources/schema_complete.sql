@@ -1,3 +1,6 @@
+-- Fresh installs: tables with every column and index of the current release.
+-- Databases created by an earlier release are brought up to date by schema_migration.sql.
+
 -- Create tables
 -- CUSTOMER table
 CREATE TABLE IF NOT EXISTS CUSTOMER (
@@ -47,7 +50,10 @@ CREATE TABLE IF NOT EXISTS TIME (
     time_quarter SMALLINT NOT NULL,
     time_month SMALLINT NOT NULL,
     time_day SMALLINT NOT NULL,
-    time_clocktime TIME NOT NULL
+    time_clocktime TIME NOT NULL,
+    -- The slot as one indexable value, so date predicates can be range scans
+    slot_start DATETIME AS (TIMESTAMP(MAKEDATE(time_year, 1) + INTERVAL (time_month - 1) MONTH + INTERVAL (time_day - 1) DAY, time_clocktime)) STORED,
+    INDEX idx_time_slot_start (slot_start)
 );
 
 -- VEHICLE table
@@ -72,13 +78,14 @@ CREATE TABLE IF NOT EXISTS NOTIFICATION (
     type VARCHAR(20) NOT NULL,
     is_read BOOLEAN DEFAULT FALSE,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    link VARCHAR(200)
+    link VARCHAR(200),
+    INDEX idx_notification_user (user_id, user_type),
+    INDEX idx_notification_created_at (created_at),
+    -- A user's notifications newest first, all or only unread ones, without a filesort
+    INDEX idx_notification_user_created (user_id, user_type, created_at),
+    INDEX idx_notification_user_unread (user_id, user_type, is_read, created_at)
 );
 
--- Create indexes for NOTIFICATION table
-CREATE INDEX idx_notification_user ON NOTIFICATION(user_id, user_type);
-CREATE INDEX idx_notification_created_at ON NOTIFICATION(created_at);
-
 -- SERVICEAPPOINTMENT table
 CREATE TABLE IF NOT EXISTS SERVICEAPPOINTMENT (
     appointment_id INTEGER AUTO_INCREMENT PRIMARY KEY,
@@ -92,6 +99,17 @@ CREATE TABLE IF NOT EXISTS SERVICEAPPOINTMENT (
     appointment_duration INTEGER NOT NULL,
     appointment_status VARCHAR(20) NOT NULL,
     estimated_finish_time TIME,
+    actual_start_time DATETIME,
+    actual_finish_time DATETIME,
+    created_at DATETIME,
+    INDEX idx_appointment_created_at (created_at),
+    INDEX idx_appointment_outlet_time (outlet_id, time_id),
+    INDEX idx_appointment_staff_time (staff_id, time_id),
+    -- Status scans (completed facts, staff outcomes, pending bookings of an outlet day)
+    INDEX idx_appointment_status_time (appointment_status, time_id),
+    INDEX idx_appointment_outlet_status_time (outlet_id, appointment_status, time_id),
+    -- Bookings per hour since a point in time, read from the index alone
+    INDEX idx_appointment_created_outlet_service (created_at, outlet_id, service_id),
     FOREIGN KEY (cust_id) REFERENCES CUSTOMER(cust_id),
     FOREIGN KEY (service_id) REFERENCES SERVICE(service_id),
     FOREIGN KEY (outlet_id) REFERENCES SERVICEOUTLET(outlet_id),
@@ -0,0 +1,116 @@
+-- Brings a database created by an earlier release up to the current schema_complete.sql.
+-- Every step checks information_schema first, so the script can be run any number of times:
+--   mysql -u<username> -p<password> portal_db < src/main/resources/schema_migration.sql
+-- Steps are prepared statements rather than procedures, so no DELIMITER is needed and the
+-- dev profile can run the script through spring.sql.init as well.
+
+-- When work on an appointment actually started and finished, for measured service durations
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'SERVICEAPPOINTMENT' AND COLUMN_NAME = 'actual_start_time') = 0,
+    'ALTER TABLE SERVICEAPPOINTMENT ADD COLUMN actual_start_time DATETIME',
+    'DO 0');
+PREPARE migration FROM @ddl;
+EXECUTE migration;
+DEALLOCATE PREPARE migration;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'SERVICEAPPOINTMENT' AND COLUMN_NAME = 'actual_finish_time') = 0,
+    'ALTER TABLE SERVICEAPPOINTMENT ADD COLUMN actual_finish_time DATETIME',
+    'DO 0');
+PREPARE migration FROM @ddl;
+EXECUTE migration;
+DEALLOCATE PREPARE migration;
+
+-- When an appointment was booked, for bookings per hour and trending services
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'SERVICEAPPOINTMENT' AND COLUMN_NAME = 'created_at') = 0,
+    'ALTER TABLE SERVICEAPPOINTMENT ADD COLUMN created_at DATETIME',
+    'DO 0');
+PREPARE migration FROM @ddl;
+EXECUTE migration;
+DEALLOCATE PREPARE migration;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'SERVICEAPPOINTMENT' AND INDEX_NAME = 'idx_appointment_created_at') = 0,
+    'CREATE INDEX idx_appointment_created_at ON SERVICEAPPOINTMENT(created_at)',
+    'DO 0');
+PREPARE migration FROM @ddl;
+EXECUTE migration;
+DEALLOCATE PREPARE migration;
+
+-- Bookings per hour since a point in time, read from the index alone
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'SERVICEAPPOINTMENT' AND INDEX_NAME = 'idx_appointment_created_outlet_service') = 0,
+    'CREATE INDEX idx_appointment_created_outlet_service ON SERVICEAPPOINTMENT(created_at, outlet_id, service_id)',
+    'DO 0');
+PREPARE migration FROM @ddl;
+EXECUTE migration;
+DEALLOCATE PREPARE migration;
+
+-- TIME.slot_start: the slot as one indexable value, so date predicates can be range scans
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'TIME' AND COLUMN_NAME = 'slot_start') = 0,
+    'ALTER TABLE TIME ADD COLUMN slot_start DATETIME AS (TIMESTAMP(MAKEDATE(time_year, 1) + INTERVAL (time_month - 1) MONTH + INTERVAL (time_day - 1) DAY, time_clocktime)) STORED',
+    'DO 0');
+PREPARE migration FROM @ddl;
+EXECUTE migration;
+DEALLOCATE PREPARE migration;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'TIME' AND INDEX_NAME = 'idx_time_slot_start') = 0,
+    'CREATE INDEX idx_time_slot_start ON TIME(slot_start)',
+    'DO 0');
+PREPARE migration FROM @ddl;
+EXECUTE migration;
+DEALLOCATE PREPARE migration;
+
+-- Appointments of an outlet or staff member joined to their time slots
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'SERVICEAPPOINTMENT' AND INDEX_NAME = 'idx_appointment_outlet_time') = 0,
+    'CREATE INDEX idx_appointment_outlet_time ON SERVICEAPPOINTMENT(outlet_id, time_id)',
+    'DO 0');
+PREPARE migration FROM @ddl;
+EXECUTE migration;
+DEALLOCATE PREPARE migration;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'SERVICEAPPOINTMENT' AND INDEX_NAME = 'idx_appointment_staff_time') = 0,
+    'CREATE INDEX idx_appointment_staff_time ON SERVICEAPPOINTMENT(staff_id, time_id)',
+    'DO 0');
+PREPARE migration FROM @ddl;
+EXECUTE migration;
+DEALLOCATE PREPARE migration;
+
+-- Status scans (completed facts, staff outcomes, pending bookings of an outlet day)
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'SERVICEAPPOINTMENT' AND INDEX_NAME = 'idx_appointment_status_time') = 0,
+    'CREATE INDEX idx_appointment_status_time ON SERVICEAPPOINTMENT(appointment_status, time_id)',
+    'DO 0');
+PREPARE migration FROM @ddl;
+EXECUTE migration;
+DEALLOCATE PREPARE migration;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'SERVICEAPPOINTMENT' AND INDEX_NAME = 'idx_appointment_outlet_status_time') = 0,
+    'CREATE INDEX idx_appointment_outlet_status_time ON SERVICEAPPOINTMENT(outlet_id, appointment_status, time_id)',
+    'DO 0');
+PREPARE migration FROM @ddl;
+EXECUTE migration;
+DEALLOCATE PREPARE migration;
+
+-- A user's notifications newest first, all or only unread ones, without a filesort
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'NOTIFICATION' AND INDEX_NAME = 'idx_notification_user_created') = 0,
+    'CREATE INDEX idx_notification_user_created ON NOTIFICATION(user_id, user_type, created_at)',
+    'DO 0');
+PREPARE migration FROM @ddl;
+EXECUTE migration;
+DEALLOCATE PREPARE migration;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'NOTIFICATION' AND INDEX_NAME = 'idx_notification_user_unread') = 0,
+    'CREATE INDEX idx_notification_user_unread ON NOTIFICATION(user_id, user_type, is_read, created_at)',
+    'DO 0');
+PREPARE migration FROM @ddl;
+EXECUTE migration;
+DEALLOCATE PREPARE migration;
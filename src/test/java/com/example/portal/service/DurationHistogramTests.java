@@ -0,0 +1,78 @@
+package com.example.portal.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DurationHistogramTests {
+
+    @Test
+    void emptyHistogramReportsZero() {
+        DurationHistogram histogram = new DurationHistogram();
+        assertEquals(0, histogram.quantile(0.5));
+        assertEquals(0.0, histogram.summary().get("meanMinutes"));
+        assertNull(histogram.summary().get("meanBookedMinutes"));
+    }
+
+    @Test
+    void quantilesAreExactMinutes() {
+        DurationHistogram histogram = new DurationHistogram();
+        for (int minutes = 1; minutes <= 100; minutes++) {
+            histogram.add(minutes, null);
+        }
+
+        assertEquals(1, histogram.quantile(0));
+        assertEquals(1, histogram.quantile(0.01));
+        assertEquals(50, histogram.quantile(0.5));
+        assertEquals(51, histogram.quantile(0.505));
+        assertEquals(90, histogram.quantile(0.9));
+        assertEquals(99, histogram.quantile(0.99));
+        assertEquals(100, histogram.quantile(1));
+    }
+
+    @Test
+    void durationsBeyondTheTrackedRangeReportTheLongest() {
+        DurationHistogram histogram = new DurationHistogram();
+        for (int i = 0; i < 9; i++) {
+            histogram.add(30, null);
+        }
+        histogram.add(DurationHistogram.MAX_TRACKED_MINUTES + 120, null);
+
+        assertEquals(30, histogram.quantile(0.9));
+        assertEquals(DurationHistogram.MAX_TRACKED_MINUTES + 120, histogram.quantile(0.99));
+        assertEquals(DurationHistogram.MAX_TRACKED_MINUTES + 120, histogram.summary().get("longestMinutes"));
+    }
+
+    @Test
+    void negativeDurationsAreIgnored() {
+        DurationHistogram histogram = new DurationHistogram();
+        histogram.add(-5, 30);
+        assertEquals(0, histogram.getSamples());
+    }
+
+    @Test
+    void mergeAddsCountsAndKeepsTheLongest() {
+        DurationHistogram morning = new DurationHistogram();
+        DurationHistogram afternoon = new DurationHistogram();
+        for (int i = 0; i < 50; i++) {
+            morning.add(20, 30);
+            afternoon.add(40, null);
+        }
+        afternoon.add(600, 60);
+
+        morning.merge(afternoon);
+
+        assertEquals(101, morning.getSamples());
+        assertEquals(20, morning.quantile(0.49));
+        assertEquals(40, morning.quantile(0.9));
+        assertEquals(600, morning.quantile(1));
+        Map<String, Object> summary = morning.summary();
+        assertEquals(35.6, summary.get("meanMinutes"));
+        assertEquals(30.6, summary.get("meanBookedMinutes"));
+        assertEquals(600, summary.get("longestMinutes"));
+        // The merged-in histogram is unchanged
+        assertEquals(51, afternoon.getSamples());
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.portal.service;
+
+import com.example.portal.model.Customer;
+import com.example.portal.model.ServiceAppointment;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeapEstimateTests {
+
+    @Test
+    void stringsCountTheirLength() {
+        assertEquals(0, HeapEstimate.string(null));
+        assertEquals(24 + 16, HeapEstimate.string(""));
+        assertEquals(24 + 32, HeapEstimate.string("Oil change"));
+        assertEquals(1000, HeapEstimate.string("x".repeat(1000)) - HeapEstimate.string(""));
+    }
+
+    @Test
+    void objectsAreAlignedToEightBytes() {
+        assertEquals(16, HeapEstimate.object(0));
+        assertEquals(16, HeapEstimate.object(1));
+        assertEquals(24, HeapEstimate.object(2));
+    }
+
+    @Test
+    void sharedObjectsAreCountedOnce() {
+        Customer customer = new Customer();
+        customer.setCustId(7);
+        customer.setCustName("Jamie Tan");
+        customer.setCustAddress("12 Harbour Road");
+
+        HeapEstimate one = new HeapEstimate();
+        one.add(appointment(1, customer));
+        HeapEstimate two = new HeapEstimate();
+        ServiceAppointment second = appointment(2, customer);
+        two.add(appointment(1, customer));
+        two.add(second);
+        two.add(second);
+
+        long customerBytes = HeapEstimate.object(6) + 16 + HeapEstimate.string("Jamie Tan") + HeapEstimate.string("12 Harbour Road");
+        long appointmentBytes = one.getBytes() - customerBytes;
+        assertTrue(appointmentBytes > 0);
+        assertEquals(2 * appointmentBytes + customerBytes, two.getBytes());
+    }
+
+    private static ServiceAppointment appointment(int appointmentId, Customer customer) {
+        ServiceAppointment appointment = new ServiceAppointment();
+        appointment.setAppointmentId(appointmentId);
+        appointment.setCustId(customer.getCustId());
+        appointment.setAppointmentStatus("SCHEDULED");
+        appointment.setCustomer(customer);
+        return appointment;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.portal.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HyperLogLogTests {
+
+    // Three standard errors of 2^14 registers (1.04 / sqrt(16384) = 0.81%)
+    private static final double MAX_RELATIVE_ERROR = 0.025;
+
+    @Test
+    void emptySketchCountsZero() {
+        assertEquals(0, new HyperLogLog().count());
+    }
+
+    @Test
+    void smallSetsAreCountedAlmostExactly() {
+        // Linear counting is exact but for the rare two values sharing a register
+        for (int n : new int[]{1, 10, 100, 1_000}) {
+            assertEquals(n, sketchOf(0, n).count(), n / 100.0 + 1, "distinct values: " + n);
+        }
+    }
+
+    @Test
+    void countStaysWithinErrorBoundAcrossCardinalities() {
+        for (int n : new int[]{1_000, 10_000, 100_000, 1_000_000}) {
+            long count = sketchOf(0, n).count();
+            assertEquals(n, count, n * MAX_RELATIVE_ERROR, "distinct values: " + n);
+        }
+    }
+
+    @Test
+    void duplicatesDoNotChangeTheCount() {
+        HyperLogLog sketch = sketchOf(0, 5_000);
+        long count = sketch.count();
+        for (int i = 0; i < 5_000; i++) {
+            sketch.add(i);
+        }
+        assertEquals(count, sketch.count());
+    }
+
+    @Test
+    void switchesFromSparseToDenseRegisters() {
+        HyperLogLog small = sketchOf(0, 100);
+        assertTrue(small.sizeInBytes() < 1024);
+        assertEquals(1 << 14, sketchOf(0, 100_000).sizeInBytes());
+    }
+
+    @Test
+    void mergeCountsTheUnionForEveryRepresentation() {
+        int[][] sizes = {{200, 300}, {200, 50_000}, {50_000, 200}, {50_000, 80_000}};
+        for (int[] size : sizes) {
+            // Overlapping ranges [0, a) and [a / 2, a / 2 + b)
+            HyperLogLog merged = sketchOf(0, size[0]);
+            merged.merge(sketchOf(size[0] / 2, size[0] / 2 + size[1]));
+            HyperLogLog union = sketchOf(0, Math.max(size[0], size[0] / 2 + size[1]));
+
+            assertEquals(union.count(), merged.count(), "sizes: " + size[0] + ", " + size[1]);
+        }
+    }
+
+    @Test
+    void mergeIntoCopyLeavesOriginalUnchanged() {
+        HyperLogLog original = sketchOf(0, 1_000);
+        long count = original.count();
+
+        HyperLogLog copy = original.copy();
+        copy.merge(sketchOf(1_000, 100_000));
+        copy.merge(copy.copy());
+
+        assertEquals(count, original.count());
+        assertEquals(100_000, copy.count(), 100_000 * MAX_RELATIVE_ERROR);
+    }
+
+    private static HyperLogLog sketchOf(long from, long to) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long value = from; value < to; value++) {
+            sketch.add(value);
+        }
+        return sketch;
+    }
+}
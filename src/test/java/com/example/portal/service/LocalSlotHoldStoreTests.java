@@ -0,0 +1,74 @@
+package com.example.portal.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalSlotHoldStoreTests {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 3, 14);
+    private static final LocalTime NINE = LocalTime.of(9, 0);
+    private static final LocalTime TEN = LocalTime.of(10, 0);
+    private static final Duration TTL = Duration.ofMinutes(5);
+    // Expires as soon as it is stored
+    private static final Duration EXPIRED = Duration.ZERO;
+
+    private final LocalSlotHoldStore store = new LocalSlotHoldStore();
+
+    @Test
+    void holdsUpToCapacityPerSlot() {
+        assertTrue(store.tryHold("a", 1, DATE, NINE, 2, TTL));
+        assertTrue(store.tryHold("b", 1, DATE, NINE, 2, TTL));
+        assertFalse(store.tryHold("c", 1, DATE, NINE, 2, TTL));
+
+        // Other times, outlets and days have their own capacity
+        assertTrue(store.tryHold("d", 1, DATE, TEN, 2, TTL));
+        assertTrue(store.tryHold("e", 2, DATE, NINE, 2, TTL));
+        assertTrue(store.tryHold("f", 1, DATE.plusDays(1), NINE, 2, TTL));
+
+        assertEquals(Map.of(NINE, 2, TEN, 1), store.countActiveHolds(1, DATE));
+    }
+
+    @Test
+    void expiredHoldsFreeTheirCapacity() {
+        assertTrue(store.tryHold("a", 1, DATE, NINE, 1, EXPIRED));
+        assertTrue(store.countActiveHolds(1, DATE).isEmpty());
+        assertNull(store.find("a"));
+
+        assertTrue(store.tryHold("b", 1, DATE, NINE, 1, TTL));
+        assertFalse(store.tryHold("c", 1, DATE, NINE, 1, TTL));
+    }
+
+    @Test
+    void findsTheSlotOfAnActiveHold() {
+        store.tryHold("a", 3, DATE, TEN, 1, TTL);
+
+        SlotHoldStore.HeldSlot slot = store.find("a");
+        assertNotNull(slot);
+        assertTrue(slot.matches(3, DATE, TEN));
+        assertFalse(slot.matches(3, DATE, NINE));
+        assertFalse(slot.matches(4, DATE, TEN));
+        assertNull(store.find("unknown"));
+    }
+
+    @Test
+    void releaseReturnsCapacityOnce() {
+        store.tryHold("a", 1, DATE, NINE, 1, TTL);
+
+        assertTrue(store.release("a"));
+        assertFalse(store.release("a"));
+        assertNull(store.find("a"));
+        assertTrue(store.tryHold("b", 1, DATE, NINE, 1, TTL));
+    }
+
+    @Test
+    void releasingAnExpiredHoldReportsFalse() {
+        store.tryHold("a", 1, DATE, NINE, 1, EXPIRED);
+        assertFalse(store.release("a"));
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.portal.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongSumMapTests {
+
+    @Test
+    void sumsPerKeyAndReturnsZeroForMissingKeys() {
+        LongSumMap map = new LongSumMap();
+        map.add(7, 150);
+        map.add(7, -50);
+        map.add(-3, 25);
+        map.add(0, 1);
+
+        assertEquals(100, map.get(7));
+        assertEquals(25, map.get(-3));
+        assertEquals(1, map.get(0));
+        assertEquals(0, map.get(8));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    void keepsAllSumsWhileGrowing() {
+        LongSumMap map = new LongSumMap(2);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            // Keys like the report's yearMonth << 32 | serviceId, which differ only in high bits
+            long key = (long) (202400 + random.nextInt(24)) << 32 | random.nextInt(200);
+            long delta = random.nextInt(100_000);
+            map.add(key, delta);
+            expected.merge(key, delta, Long::sum);
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, sum) -> assertEquals(sum, map.get(key)));
+        Map<Long, Long> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    void mergeAddsSumsOfSharedKeys() {
+        LongSumMap left = new LongSumMap();
+        left.add(1, 10);
+        left.add(2, 20);
+        LongSumMap right = new LongSumMap();
+        right.add(2, 5);
+        right.add(3, 30);
+
+        left.merge(right);
+
+        assertEquals(10, left.get(1));
+        assertEquals(25, left.get(2));
+        assertEquals(30, left.get(3));
+        assertEquals(3, left.size());
+        assertEquals(5, right.get(2));
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.portal.service;
+
+import com.example.portal.model.ServiceAppointment;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutletDayScheduleTests {
+
+    private static final int NINE = 9 * 60;
+    private static final int TEN = 10 * 60;
+    private static final int ELEVEN = 11 * 60;
+
+    private final OutletDaySchedule day = new OutletDaySchedule(LocalDate.of(2025, 3, 14),
+            List.of(1, 2, 3, OutletDaySchedule.UNASSIGNED_STAFF_ID));
+
+    @Test
+    void capacityLeavesOutTheUnassignedStaffMember() {
+        assertEquals(3, day.getCapacity());
+        assertFalse(day.getStaffIds().contains(OutletDaySchedule.UNASSIGNED_STAFF_ID));
+    }
+
+    @Test
+    void countsPendingAndConfirmedAppointmentsOverlappingHalfOpenRange() {
+        day.put(entry(1, OutletDaySchedule.UNASSIGNED_STAFF_ID, "PENDING", NINE, TEN));
+        day.put(entry(2, 1, "SCHEDULED", NINE + 30, TEN + 30));
+        day.put(entry(3, 2, "IN_PROGRESS", TEN, ELEVEN));
+        day.put(entry(4, 3, "CANCELLED", NINE, ELEVEN));
+        day.put(entry(5, 3, "COMPLETED", NINE, ELEVEN));
+
+        assertEquals(2, day.countActiveOverlapping(NINE, TEN));
+        assertEquals(2, day.countActiveOverlapping(TEN, ELEVEN));
+        assertEquals(3, day.countActiveOverlapping(NINE + 45, TEN + 15));
+        // Ends are exclusive: back-to-back appointments do not overlap
+        assertEquals(0, day.countActiveOverlapping(ELEVEN, ELEVEN + 60));
+        assertEquals(0, day.countActiveOverlapping(NINE - 60, NINE));
+    }
+
+    @Test
+    void replacingAnEntryMovesItInTheCounts() {
+        day.put(entry(1, OutletDaySchedule.UNASSIGNED_STAFF_ID, "PENDING", NINE, TEN));
+        day.put(entry(1, 1, "SCHEDULED", TEN, ELEVEN));
+
+        assertEquals(0, day.countActiveOverlapping(NINE, TEN));
+        assertEquals(1, day.countActiveOverlapping(TEN, ELEVEN));
+        assertEquals(Set.of(1), day.findBusyStaff(TEN, ELEVEN, null));
+
+        day.put(entry(1, 1, "CANCELLED", TEN, ELEVEN));
+        assertEquals(0, day.countActiveOverlapping(TEN, ELEVEN));
+        assertTrue(day.findBusyStaff(TEN, ELEVEN, null).isEmpty());
+        assertEquals(0, day.getConfirmedMinutes(1));
+    }
+
+    @Test
+    void findsStaffBusyWithLongAppointmentsStartingEarlier() {
+        day.put(entry(1, 1, "SCHEDULED", NINE, NINE + 180));
+        day.put(entry(2, 2, "SCHEDULED", NINE, NINE + 15));
+        day.put(entry(3, 3, "PENDING", ELEVEN, ELEVEN + 30));
+
+        assertEquals(Set.of(1), day.findBusyStaff(ELEVEN, ELEVEN + 30, null));
+        assertFalse(day.isStaffFree(1, ELEVEN, ELEVEN + 30, null));
+        assertTrue(day.isStaffFree(1, ELEVEN, ELEVEN + 30, 1));
+        assertTrue(day.isStaffFree(2, ELEVEN, ELEVEN + 30, null));
+        // Pending appointments do not make their staff member busy
+        assertTrue(day.isStaffFree(3, ELEVEN, ELEVEN + 30, null));
+    }
+
+    @Test
+    void removedEntriesNoLongerCount() {
+        day.put(entry(1, 1, "SCHEDULED", NINE, NINE + 180));
+        day.put(entry(2, 2, "SCHEDULED", TEN, ELEVEN));
+
+        assertNotNull(day.remove(1));
+        assertNull(day.remove(1));
+        assertEquals(1, day.countActiveOverlapping(NINE, ELEVEN + 60));
+        assertEquals(Set.of(2), day.findBusyStaff(NINE, ELEVEN + 60, null));
+        assertEquals(0, day.getConfirmedMinutes(1));
+        assertEquals(60, day.getConfirmedMinutes(2));
+    }
+
+    @Test
+    void entryOfUsesFinishTimeThenDurationThenDefault() {
+        ServiceAppointment appointment = new ServiceAppointment();
+        appointment.setAppointmentId(7);
+        appointment.setAppointmentStatus("PENDING");
+        appointment.setAppointmentDuration(45);
+
+        OutletDaySchedule.Entry byDuration = OutletDaySchedule.entryOf(appointment, LocalTime.of(9, 0));
+        assertEquals(NINE, byDuration.getStart());
+        assertEquals(NINE + 45, byDuration.getEnd());
+        assertEquals(OutletDaySchedule.UNASSIGNED_STAFF_ID, byDuration.getStaffId());
+
+        appointment.setEstimatedFinishTime(LocalTime.of(10, 30));
+        assertEquals(TEN + 30, OutletDaySchedule.entryOf(appointment, LocalTime.of(9, 0)).getEnd());
+
+        appointment.setEstimatedFinishTime(LocalTime.of(8, 0));
+        assertEquals(TEN, OutletDaySchedule.entryOf(appointment, LocalTime.of(9, 0)).getEnd());
+    }
+
+    private static OutletDaySchedule.Entry entry(int appointmentId, int staffId, String status, int start, int end) {
+        return new OutletDaySchedule.Entry(appointmentId, staffId, status, start, end);
+    }
+}
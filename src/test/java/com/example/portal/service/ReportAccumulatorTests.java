@@ -0,0 +1,105 @@
+package com.example.portal.service;
+
+import com.example.portal.model.ServiceType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportAccumulatorTests {
+
+    private static final Map<Integer, ServiceType> SERVICES = Map.of(
+            1, service(1, "Oil Change", "Maintenance"),
+            2, service(2, "Brake Repair", "Repair"),
+            3, service(3, "Tire Rotation", "Maintenance"));
+    private static final Map<Integer, String> STAFF_NAMES = Map.of(11, "Alice", 12, "Bob");
+    private static final Map<Integer, String> OUTLET_NAMES = Map.of(1, "Downtown", 2, "Airport");
+
+    @Test
+    void mergedPartitionsGiveTheSameReportsAsOnePass() {
+        ReportAccumulator single = new ReportAccumulator();
+        ReportAccumulator[] partitions = {new ReportAccumulator(), new ReportAccumulator(), new ReportAccumulator()};
+        Random random = new Random(42);
+        int firstDay = (int) LocalDate.of(2024, 1, 1).toEpochDay();
+        for (int i = 0; i < 30_000; i++) {
+            int epochDay = firstDay + random.nextInt(730);
+            int minuteOfDay = (9 + random.nextInt(8)) * 60;
+            int serviceId = 1 + random.nextInt(3);
+            int staffId = random.nextInt(5) == 0 ? AppointmentFactStore.NO_STAFF : 11 + random.nextInt(2);
+            int outletId = 1 + random.nextInt(2);
+            byte status = (byte) random.nextInt(6);
+            long costCents = 1_999 + random.nextInt(50_000);
+
+            single.add(epochDay, minuteOfDay, serviceId, staffId, outletId, status, costCents);
+            partitions[random.nextInt(partitions.length)].add(epochDay, minuteOfDay, serviceId, staffId, outletId, status, costCents);
+        }
+
+        // Merge order does not matter
+        ReportAccumulator merged = new ReportAccumulator().merge(partitions[2]).merge(partitions[0]).merge(partitions[1]);
+
+        assertEquals(single.popularServices(SERVICES), merged.popularServices(SERVICES));
+        assertEquals(single.busyPeriods(), merged.busyPeriods());
+        assertEquals(single.staffPerformance(STAFF_NAMES), merged.staffPerformance(STAFF_NAMES));
+        assertEquals(single.revenue(SERVICES, OUTLET_NAMES), merged.revenue(SERVICES, OUTLET_NAMES));
+    }
+
+    @Test
+    void revenueCountsCompletedAppointmentsInExactCents() {
+        ReportAccumulator accumulator = new ReportAccumulator();
+        int march = (int) LocalDate.of(2025, 3, 14).toEpochDay();
+        int april = (int) LocalDate.of(2025, 4, 1).toEpochDay();
+        // Ten times 0.10 is exactly 1.00, unlike summing doubles
+        for (int i = 0; i < 10; i++) {
+            accumulator.add(march, 600, 1, 11, 1, AppointmentFactStore.STATUS_COMPLETED, 10);
+        }
+        accumulator.add(april, 600, 2, 12, 2, AppointmentFactStore.STATUS_COMPLETED, 12_345);
+        accumulator.add(april, 660, 3, 12, 2, AppointmentFactStore.STATUS_CANCELLED, 5_000);
+        accumulator.add(april, 720, 3, AppointmentFactStore.NO_STAFF, 2, AppointmentFactStore.STATUS_PENDING, 5_000);
+
+        Map<String, Object> revenue = accumulator.revenue(SERVICES, OUTLET_NAMES);
+
+        assertEquals(new BigDecimal("124.45"), revenue.get("totalRevenue"));
+        assertEquals(12_445L, revenue.get("totalRevenueCents"));
+        assertEquals(Map.of("Oil Change", new BigDecimal("1.00"), "Brake Repair", new BigDecimal("123.45")),
+                revenue.get("revenueByService"));
+        assertEquals(Map.of("Maintenance", new BigDecimal("1.00"), "Repair", new BigDecimal("123.45")),
+                revenue.get("revenueByCategory"));
+        assertEquals(Map.of("Downtown", new BigDecimal("1.00"), "Airport", new BigDecimal("123.45")),
+                revenue.get("revenueByOutlet"));
+        assertEquals(Map.of("2025-03", new BigDecimal("1.00"), "2025-04", new BigDecimal("123.45")),
+                revenue.get("revenueByMonth"));
+    }
+
+    @Test
+    void staffTalliesLeaveOutAppointmentsWithoutStaff() {
+        ReportAccumulator accumulator = new ReportAccumulator();
+        int day = (int) LocalDate.of(2025, 3, 14).toEpochDay();
+        accumulator.add(day, 600, 1, 11, 1, AppointmentFactStore.STATUS_COMPLETED, 0);
+        accumulator.add(day, 660, 1, 11, 1, AppointmentFactStore.STATUS_CANCELLED, 0);
+        accumulator.add(day, 720, 1, 11, 1, AppointmentFactStore.STATUS_SCHEDULED, 0);
+        accumulator.add(day, 780, 1, AppointmentFactStore.NO_STAFF, 1, AppointmentFactStore.STATUS_PENDING, 0);
+
+        List<Map<String, Object>> staff = accumulator.staffPerformance(STAFF_NAMES);
+
+        assertEquals(1, staff.size());
+        assertEquals("Alice", staff.get(0).get("staffName"));
+        assertEquals(3L, staff.get(0).get("totalAppointments"));
+        assertEquals(1L, staff.get(0).get("completedAppointments"));
+        assertEquals(1L, staff.get(0).get("cancelledAppointments"));
+        assertEquals(33.33, staff.get(0).get("completionRate"));
+        assertEquals(List.of(Map.of("serviceType", "Oil Change", "count", 4L)), accumulator.popularServices(SERVICES));
+    }
+
+    private static ServiceType service(int id, String type, String category) {
+        ServiceType service = new ServiceType();
+        service.setServiceId(id);
+        service.setServiceType(type);
+        service.setServiceCategory(category);
+        return service;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.portal.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReportExportServiceTests {
+
+    private static final List<String> SERVICE_TYPES = List.of(
+            "Oil Change", "Wash, Wax & Polish", "The \"Works\" Package", "Line one\nline two", "Carriage\rreturn", "Überprüfung");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ReportingService reportingService = mock(ReportingService.class);
+    private final ReportExportService exportService = new ReportExportService(mock(SqlSessionFactory.class),
+            reportingService, objectMapper);
+
+    @BeforeEach
+    void setUp() {
+        List<Map<String, Object>> popular = SERVICE_TYPES.stream()
+                .map(type -> Map.<String, Object>of("serviceType", type, "count", 3L))
+                .toList();
+        when(reportingService.getPopularServiceTypes(null, null)).thenReturn(popular);
+
+        Map<String, Object> unnamed = new HashMap<>();
+        unnamed.put("staffId", 12);
+        unnamed.put("staffName", null);
+        unnamed.put("totalAppointments", 4L);
+        unnamed.put("completedAppointments", 1L);
+        unnamed.put("cancelledAppointments", 0L);
+        unnamed.put("completionRate", 25.0);
+        when(reportingService.getStaffPerformanceMetrics(null, null)).thenReturn(List.of(unnamed));
+    }
+
+    @Test
+    void csvQuotesFieldsWithSeparatorsQuotesAndLineBreaks() throws IOException {
+        String csv = export(ReportExportService.Format.CSV, "popular-services");
+
+        assertEquals("serviceType,count\r\n"
+                + "Oil Change,3\r\n"
+                + "\"Wash, Wax & Polish\",3\r\n"
+                + "\"The \"\"Works\"\" Package\",3\r\n"
+                + "\"Line one\nline two\",3\r\n"
+                + "\"Carriage\rreturn\",3\r\n"
+                + "Überprüfung,3\r\n", csv);
+    }
+
+    @Test
+    void csvWritesNullsAsEmptyFields() throws IOException {
+        String csv = export(ReportExportService.Format.CSV, "staff-performance");
+
+        assertEquals("staffId,staffName,totalAppointments,completedAppointments,cancelledAppointments,completionRate\r\n"
+                + "12,,4,1,0,25.0\r\n", csv);
+    }
+
+    @Test
+    void ndjsonWritesOneEscapedObjectPerLine() throws IOException {
+        String ndjson = export(ReportExportService.Format.NDJSON, "popular-services");
+
+        assertTrue(ndjson.endsWith("\n"));
+        String[] lines = ndjson.split("\n");
+        assertEquals(SERVICE_TYPES.size(), lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            JsonNode row = objectMapper.readTree(lines[i]);
+            assertEquals(SERVICE_TYPES.get(i), row.get("serviceType").asText());
+            assertTrue(row.get("count").isNumber());
+            assertEquals(3, row.get("count").asLong());
+        }
+    }
+
+    @Test
+    void ndjsonKeepsColumnOrderAndNulls() throws IOException {
+        String ndjson = export(ReportExportService.Format.NDJSON, "staff-performance");
+
+        assertEquals("{\"staffId\":12,\"staffName\":null,\"totalAppointments\":4,\"completedAppointments\":1,"
+                + "\"cancelledAppointments\":0,\"completionRate\":25.0}\n", ndjson);
+    }
+
+    private String export(ReportExportService.Format format, String report) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.writeReport(out, format, report, null, null);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
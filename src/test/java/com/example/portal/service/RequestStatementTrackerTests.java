@@ -0,0 +1,107 @@
+package com.example.portal.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestStatementTrackerTests {
+
+    private static final String ENDPOINT = "GET /api/staff/appointments/schedule";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void overBudgetFailsInStrictMode() {
+        RequestStatementTracker tracker = new RequestStatementTracker(registry, 10, 0, true);
+        run(tracker, "StaffMapper.findById", "ServiceAppointmentMapper.findByStaffIdAndSlotRangeWithDetails",
+                "CustomerMapper.findById");
+
+        String violation = tracker.end(ENDPOINT, 2);
+
+        assertEquals(ENDPOINT + " ran 3 statements, over its budget of 2", violation);
+        assertEquals(1L, stats(tracker).get("overBudgetRequests"));
+        assertEquals(1.0, registry.get("portal.request.statements.over.budget").tag("endpoint", ENDPOINT).counter().count());
+    }
+
+    @Test
+    void overBudgetIsOnlyCountedInLenientMode() {
+        RequestStatementTracker tracker = new RequestStatementTracker(registry, 10, 0, false);
+        run(tracker, "StaffMapper.findById", "CustomerMapper.findById", "VehicleMapper.findById");
+
+        assertNull(tracker.end(ENDPOINT, 2));
+        assertEquals(1L, stats(tracker).get("overBudgetRequests"));
+    }
+
+    @Test
+    void endpointBudgetOverridesDefault() {
+        RequestStatementTracker tracker = new RequestStatementTracker(registry, 10, 2, true);
+        run(tracker, "StaffMapper.findById", "CustomerMapper.findById", "VehicleMapper.findById");
+        assertNull(tracker.end(ENDPOINT, 5));
+
+        run(tracker, "StaffMapper.findById", "CustomerMapper.findById", "VehicleMapper.findById");
+        assertNotNull(tracker.end(ENDPOINT, null));
+    }
+
+    @Test
+    void withinBudgetPasses() {
+        RequestStatementTracker tracker = new RequestStatementTracker(registry, 10, 0, true);
+        run(tracker, "StaffMapper.findById", "CustomerMapper.findById");
+
+        assertNull(tracker.end(ENDPOINT, 2));
+        Map<String, Object> stats = stats(tracker);
+        assertEquals(0L, stats.get("overBudgetRequests"));
+        assertEquals(2L, stats.get("maxStatements"));
+    }
+
+    @Test
+    void statementRepeatedAboveThresholdIsFlagged() {
+        RequestStatementTracker tracker = new RequestStatementTracker(registry, 3, 0, true);
+        run(tracker, "ServiceAppointmentMapper.findByOutletIdWithDetails",
+                "CustomerMapper.findById", "CustomerMapper.findById", "CustomerMapper.findById", "CustomerMapper.findById");
+
+        // A repeat alone is reported, it does not fail the request
+        assertNull(tracker.end(ENDPOINT, null));
+        Map<String, Object> stats = stats(tracker);
+        assertEquals(1L, stats.get("repeatingRequests"));
+        assertEquals("CustomerMapper.findById", stats.get("lastRepeatedStatement"));
+        assertEquals(4, stats.get("lastRepeatCount"));
+    }
+
+    @Test
+    void statementRepeatedUpToThresholdIsNotFlagged() {
+        RequestStatementTracker tracker = new RequestStatementTracker(registry, 3, 0, true);
+        run(tracker, "CustomerMapper.findById", "CustomerMapper.findById", "CustomerMapper.findById");
+
+        tracker.end(ENDPOINT, null);
+        Map<String, Object> stats = stats(tracker);
+        assertEquals(0L, stats.get("repeatingRequests"));
+        assertFalse(stats.containsKey("lastRepeatedStatement"));
+    }
+
+    @Test
+    void statementsOutsideRequestAreIgnored() {
+        RequestStatementTracker tracker = new RequestStatementTracker(registry, 10, 1, true);
+        tracker.record("CustomerMapper.findById");
+
+        assertNull(tracker.end(ENDPOINT, null));
+        assertTrue(tracker.getEndpointStats().isEmpty());
+    }
+
+    private static void run(RequestStatementTracker tracker, String... statementIds) {
+        tracker.begin();
+        for (String statementId : statementIds) {
+            tracker.record(statementId);
+        }
+    }
+
+    private static Map<String, Object> stats(RequestStatementTracker tracker) {
+        List<Map<String, Object>> endpoints = tracker.getEndpointStats();
+        assertEquals(1, endpoints.size());
+        assertEquals(ENDPOINT, endpoints.get(0).get("endpoint"));
+        return endpoints.get(0);
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.portal.service;
+
+import com.example.portal.event.AppointmentChangedEvent;
+import com.example.portal.model.ServiceAppointment;
+import com.example.portal.model.TimeSlot;
+import com.example.portal.repository.ServiceAppointmentMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class StaffScheduleIndexTests {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 3, 14);
+    private static final int NINE = 9 * 60;
+    private static final int TEN = 10 * 60;
+    private static final int ELEVEN = 11 * 60;
+    private static final int NOON = 12 * 60;
+
+    @Test
+    void emptyDayIsFree() {
+        StaffScheduleIndex.StaffIntervals intervals = StaffScheduleIndex.StaffIntervals.of(List.of());
+        assertEquals(0, intervals.size());
+        assertTrue(intervals.isFree(NINE, NOON));
+    }
+
+    @Test
+    void freeBetweenAndAroundIntervalsWithExclusiveEnds() {
+        StaffScheduleIndex.StaffIntervals intervals = StaffScheduleIndex.StaffIntervals.of(List.of(
+                appointment(2, "SCHEDULED", LocalTime.of(11, 0), 60),
+                appointment(1, "SCHEDULED", LocalTime.of(9, 0), 60)));
+
+        assertEquals(2, intervals.size());
+        assertTrue(intervals.isFree(TEN, ELEVEN));
+        assertTrue(intervals.isFree(NOON, NOON + 60));
+        assertTrue(intervals.isFree(NINE - 60, NINE));
+        assertFalse(intervals.isFree(NINE + 30, TEN + 30));
+        assertFalse(intervals.isFree(TEN + 30, ELEVEN + 30));
+        assertFalse(intervals.isFree(NINE - 30, NOON + 30));
+    }
+
+    @Test
+    void longEarlierIntervalCoversLaterGapsThroughMaxEnd() {
+        // 9:00-12:00 overlaps the short ones, as inconsistent data may; 10:00-11:00 looks free
+        // next to 9:30-9:45 and 11:30-11:45 but is inside the long one
+        StaffScheduleIndex.StaffIntervals intervals = StaffScheduleIndex.StaffIntervals.of(List.of(
+                appointment(1, "SCHEDULED", LocalTime.of(9, 0), 180),
+                appointment(2, "IN_PROGRESS", LocalTime.of(9, 30), 15),
+                appointment(3, "SCHEDULED", LocalTime.of(11, 30), 15)));
+
+        assertFalse(intervals.isFree(TEN, ELEVEN));
+        assertTrue(intervals.isFree(NOON, NOON + 30));
+    }
+
+    @Test
+    void onlyConfirmedAppointmentsAreIndexed() {
+        StaffScheduleIndex.StaffIntervals intervals = StaffScheduleIndex.StaffIntervals.of(List.of(
+                appointment(1, "PENDING", LocalTime.of(9, 0), 60),
+                appointment(2, "CANCELLED", LocalTime.of(9, 0), 60),
+                appointment(3, "COMPLETED", LocalTime.of(9, 0), 60)));
+
+        assertEquals(0, intervals.size());
+        assertTrue(intervals.isFree(NINE, TEN));
+    }
+
+    @Test
+    void appointmentChangesUpdateLoadedDaysWithoutQuerying() {
+        ServiceAppointmentMapper mapper = mock(ServiceAppointmentMapper.class);
+        when(mapper.findByStaffIdAndDateWithDetails(anyInt(), anyShort(), anyShort(), anyShort()))
+                .thenReturn(List.of(appointment(1, "SCHEDULED", LocalTime.of(9, 0), 60)));
+        StaffScheduleIndex index = new StaffScheduleIndex(mapper, 300);
+
+        assertFalse(index.isStaffFree(5, DATE, NINE, TEN));
+        assertTrue(index.isStaffFree(5, DATE, TEN, ELEVEN));
+
+        // Moved to 10:00, then confirmed for another staff member
+        index.onAppointmentChanged(new AppointmentChangedEvent(appointment(1, "SCHEDULED", LocalTime.of(10, 0), 60), "SCHEDULED"));
+        assertTrue(index.isStaffFree(5, DATE, NINE, TEN));
+        assertFalse(index.isStaffFree(5, DATE, TEN, ELEVEN));
+
+        ServiceAppointment reassigned = appointment(1, "SCHEDULED", LocalTime.of(10, 0), 60);
+        reassigned.setStaffId(6);
+        index.onAppointmentChanged(new AppointmentChangedEvent(reassigned, "SCHEDULED"));
+        assertTrue(index.isStaffFree(5, DATE, TEN, ELEVEN));
+
+        verify(mapper, times(1)).findByStaffIdAndDateWithDetails(anyInt(), anyShort(), anyShort(), anyShort());
+    }
+
+    @Test
+    void changesDuringLoadAreReplayedOntoTheLoadedDay() {
+        ServiceAppointmentMapper mapper = mock(ServiceAppointmentMapper.class);
+        StaffScheduleIndex index = new StaffScheduleIndex(mapper, 300);
+        // Both changes land after the query read its rows: 1 moved to 11:00, 2 newly confirmed at noon
+        when(mapper.findByStaffIdAndDateWithDetails(anyInt(), anyShort(), anyShort(), anyShort())).thenAnswer(invocation -> {
+            index.onAppointmentChanged(new AppointmentChangedEvent(appointment(1, "SCHEDULED", LocalTime.of(11, 0), 60), "SCHEDULED"));
+            index.onAppointmentChanged(new AppointmentChangedEvent(appointment(2, "SCHEDULED", LocalTime.of(12, 0), 60), "PENDING"));
+            return List.of(appointment(1, "SCHEDULED", LocalTime.of(9, 0), 60));
+        });
+
+        assertTrue(index.isStaffFree(5, DATE, NINE, TEN));
+        assertFalse(index.isStaffFree(5, DATE, ELEVEN, NOON));
+        assertFalse(index.isStaffFree(5, DATE, NOON, NOON + 60));
+
+        // The day is cached with both changes and keeps following events
+        index.onAppointmentChanged(new AppointmentChangedEvent(appointment(2, "CANCELLED", LocalTime.of(12, 0), 60), "SCHEDULED"));
+        assertTrue(index.isStaffFree(5, DATE, NOON, NOON + 60));
+        verify(mapper, times(1)).findByStaffIdAndDateWithDetails(anyInt(), anyShort(), anyShort(), anyShort());
+    }
+
+    @Test
+    void primedDaysAreAnsweredFromTheOutletAppointments() {
+        ServiceAppointmentMapper mapper = mock(ServiceAppointmentMapper.class);
+        StaffScheduleIndex index = new StaffScheduleIndex(mapper, 300);
+        ServiceAppointment other = appointment(2, "SCHEDULED", LocalTime.of(9, 0), 60);
+        other.setStaffId(6);
+        index.prime(DATE, List.of(5, 6, 7), List.of(appointment(1, "SCHEDULED", LocalTime.of(10, 0), 60), other));
+
+        assertEquals(List.of(6, 7), index.findFreeStaff(List.of(5, 6, 7, OutletDaySchedule.UNASSIGNED_STAFF_ID), DATE, TEN, ELEVEN));
+        assertEquals(List.of(5, 7), index.findFreeStaff(List.of(5, 6, 7), DATE, NINE, TEN));
+        verifyNoInteractions(mapper);
+    }
+
+    private static ServiceAppointment appointment(int appointmentId, String status, LocalTime start, int minutes) {
+        TimeSlot slot = new TimeSlot();
+        slot.setTimeYear((short) DATE.getYear());
+        slot.setTimeMonth((short) DATE.getMonthValue());
+        slot.setTimeDay((short) DATE.getDayOfMonth());
+        slot.setTimeClocktime(start);
+
+        ServiceAppointment appointment = new ServiceAppointment();
+        appointment.setAppointmentId(appointmentId);
+        appointment.setStaffId(5);
+        appointment.setAppointmentStatus(status);
+        appointment.setAppointmentDuration(minutes);
+        appointment.setTimeSlot(slot);
+        return appointment;
+    }
+}